@@ -2,8 +2,10 @@ package com.p3.syllesisfabrik;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // Background image jobs and sweeps
 public class SyllesisfabrikApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,73 @@
+package com.p3.syllesisfabrik.config;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Version of the static assets and templates of the running build, for the ETags of rendered
+ * pages. Pages link their CSS and JS by content-hash URLs, and an old hash gives a 404 once a
+ * deploy has changed the file, so a page cached before a deploy must not be confirmed as
+ * unchanged after it. The version is a hash of the file contents, computed on first use.
+ */
+@Component
+public class AssetVersion {
+
+    private volatile String version;
+
+    public String get() {
+        String current = version;
+        if (current == null) {
+            PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+            List<Resource> resources = new ArrayList<>();
+            try {
+                for (String folder : WebResourceConfig.STATIC_FOLDERS) {
+                    resources.addAll(Arrays.asList(resolver.getResources("classpath*:/static/" + folder + "/**")));
+                }
+                resources.addAll(Arrays.asList(resolver.getResources("classpath*:/templates/**")));
+                current = hash(resources);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            version = current;
+        }
+        return current;
+    }
+
+    // Hex digest over the contents of the readable resources, in the order of their URLs
+    static String hash(List<Resource> resources) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        List<Resource> files = new ArrayList<>();
+        for (Resource resource : resources) {
+            if (resource.isReadable()) {
+                files.add(resource);
+            }
+        }
+        files.sort(Comparator.comparing(Resource::getDescription));
+        byte[] buffer = new byte[8192];
+        for (Resource file : files) {
+            try (InputStream in = file.getInputStream()) {
+                for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 8);
+    }
+}
@@ -0,0 +1,130 @@
+package com.p3.syllesisfabrik.config;
+
+import com.p3.syllesisfabrik.service.AdminBoardService;
+import com.p3.syllesisfabrik.service.CartItemService;
+import com.p3.syllesisfabrik.service.CascadeDeleteService;
+import com.p3.syllesisfabrik.service.InvoiceJobService;
+import com.p3.syllesisfabrik.service.LoginCodeService;
+import com.p3.syllesisfabrik.service.NotificationService;
+import com.p3.syllesisfabrik.service.OrderArchiveService;
+import com.p3.syllesisfabrik.service.OrderService;
+import com.p3.syllesisfabrik.service.ProductionPlanService;
+import com.p3.syllesisfabrik.service.TransactionRunner;
+import com.p3.syllesisfabrik.service.UserLoginService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs the MongoDB migrations, index builds and checks of the services once the application is up,
+ * instead of while the beans are created, so the application starts without a reachable database.
+ *
+ * The steps run in order, since later ones read what earlier ones migrated. A step that fails is
+ * logged and the next one runs. When the database cannot be reached, setup stops there and the
+ * steps not run yet are retried on a schedule. Every step is safe to run again.
+ */
+@Component
+public class DatabaseSetup {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseSetup.class);
+
+    @Autowired
+    private TransactionRunner transactionRunner;
+
+    @Autowired
+    private CartItemService cartItemService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductionPlanService productionPlanService;
+
+    @Autowired
+    private UserLoginService userLoginService;
+
+    @Autowired
+    private LoginCodeService loginCodeService;
+
+    @Autowired
+    private CascadeDeleteService cascadeDeleteService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private InvoiceJobService invoiceJobService;
+
+    @Autowired
+    private AdminBoardService adminBoardService;
+
+    // Steps that ran against a reachable database, whether they succeeded or not
+    private final Set<String> done = ConcurrentHashMap.newKeySet();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        runPending();
+    }
+
+    @Scheduled(fixedDelayString = "${database.setup-retry-interval-ms:60000}", initialDelayString = "${database.setup-retry-interval-ms:60000}")
+    public void retryPending() {
+        if (!isComplete()) {
+            runPending();
+        }
+    }
+
+    public boolean isComplete() {
+        return done.size() == steps().size();
+    }
+
+    synchronized void runPending() {
+        for (Map.Entry<String, Runnable> step : steps().entrySet()) {
+            if (done.contains(step.getKey())) {
+                continue;
+            }
+            try {
+                step.getValue().run();
+                logger.info("Database setup: {} done", step.getKey());
+            } catch (DataAccessResourceFailureException e) {
+                logger.error("MongoDB is not reachable, database setup stopped before {} and will be retried: {}",
+                        step.getKey(), e.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                // Retrying will not help, so it runs again at the next start
+                logger.error("Database setup: {} failed", step.getKey(), e);
+            }
+            done.add(step.getKey());
+        }
+    }
+
+    // Migrations before the indexes and rollups built from the migrated data; the admin board last,
+    // since it needs to know whether the server supports change streams
+    private Map<String, Runnable> steps() {
+        Map<String, Runnable> steps = new LinkedHashMap<>();
+        steps.put("transaction support", transactionRunner::detectTransactionSupport);
+        steps.put("cart item migration", cartItemService::migrateCartItems);
+        steps.put("order migrations and indexes", orderService::prepareOrders);
+        steps.put("production plan", productionPlanService::preparePlan);
+        steps.put("company indexes", userLoginService::ensureUniqueIndexes);
+        steps.put("legacy login codes", loginCodeService::loadLegacyCodes);
+        steps.put("cascade delete indexes", cascadeDeleteService::ensureIndexes);
+        steps.put("order archive indexes", orderArchiveService::ensureIndexes);
+        steps.put("mail job indexes", notificationService::ensureIndexes);
+        steps.put("invoice job indexes", invoiceJobService::ensureIndexes);
+        steps.put("live admin board", adminBoardService::start);
+        return steps;
+    }
+}
@@ -0,0 +1,107 @@
+package com.p3.syllesisfabrik.config;
+
+import com.p3.syllesisfabrik.service.ImageUploadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.server.ConfigurableServletWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resource handling for static assets and uploaded menu item images.
+ *
+ * CSS, JS and images under static/ are served with content-hash versioned URLs
+ * (/css/navbar-&lt;md5&gt;.css). Templates link them with @{...}, which the
+ * ResourceUrlEncodingFilter rewrites to the versioned URL, so a changed file gets a new URL
+ * and every URL can be cached for a year without revalidation. Gzip and brotli variants
+ * produced at build time (see pom.xml) are served to browsers that accept them.
+ */
+@Configuration
+public class WebResourceConfig implements WebMvcConfigurer {
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+
+    private static final Pattern CONTENT_HASH = Pattern.compile("([0-9a-f]{64})-\\d+\\.\\w+");
+
+    static final String[] STATIC_FOLDERS = {"css", "js", "images", "sylle_logo", "backgroundUndA", "loginBackground"};
+
+    @Autowired
+    private ImageUploadService imageUploadService;
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        for (String folder : STATIC_FOLDERS) {
+            registry.addResourceHandler("/" + folder + "/**")
+                    .addResourceLocations("classpath:/static/" + folder + "/")
+                    .setCacheControl(IMMUTABLE)
+                    .setEtagGenerator(etagGenerator())
+                    .resourceChain(true)
+                    .addResolver(new EncodedResourceResolver())
+                    .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+        }
+
+        String uploadLocation = imageUploadService.getUploadDirectory().toUri().toString();
+        if (!uploadLocation.endsWith("/")) {
+            uploadLocation += "/";
+        }
+
+        // Image files never change once written (content-addressed or timestamped names),
+        // so they need no version in the URL
+        registry.addResourceHandler(ImageUploadService.WEB_PATH_PREFIX + "**")
+                .addResourceLocations(uploadLocation, "classpath:/static/uploads/menu-items/")
+                .setCacheControl(IMMUTABLE)
+                .setEtagGenerator(etagGenerator());
+    }
+
+    // Rewrites @{...} links in templates to their versioned URLs
+    @Bean
+    public ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+        return new ResourceUrlEncodingFilter();
+    }
+
+    // Compresses rendered pages and JSON on the fly; static text assets are precompressed
+    @Bean
+    public WebServerFactoryCustomizer<ConfigurableServletWebServerFactory> responseCompression() {
+        return factory -> {
+            Compression compression = new Compression();
+            compression.setEnabled(true);
+            compression.setMimeTypes(new String[]{"text/html", "text/plain", "text/csv", "application/json"});
+            compression.setMinResponseSize(DataSize.ofKilobytes(1));
+            factory.setCompression(compression);
+        };
+    }
+
+    /**
+     * ETag for conditional requests from browsers that revalidate anyway (reload button).
+     * Content-addressed uploads use their hash; other files their size and modification time.
+     */
+    private static Function<Resource, String> etagGenerator() {
+        return resource -> {
+            String fileName = resource.getFilename();
+            Matcher matcher = CONTENT_HASH.matcher(fileName == null ? "" : fileName);
+            if (matcher.matches()) {
+                return "\"" + matcher.group(1) + "\"";
+            }
+            try {
+                return "W/\"" + Long.toHexString(resource.contentLength()) + "-" + Long.toHexString(resource.lastModified()) + "\"";
+            } catch (IOException e) {
+                return null; // Falls back to Last-Modified only
+            }
+        };
+    }
+}
@@ -0,0 +1,220 @@
+package com.p3.syllesisfabrik.controller;
+
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.InvoiceJob;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.MonthlySales;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.SalesByRange;
+import com.p3.syllesisfabrik.service.AdminTableService;
+import com.p3.syllesisfabrik.service.InvoiceJobService;
+import com.p3.syllesisfabrik.service.SalesSummaryService;
+import com.p3.syllesisfabrik.util.JwtUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.format.TextStyle;
+import java.time.temporal.WeekFields;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+// JSON behind the tabs of the admin page. Each tab asks for its own data when it is opened,
+// tables one page at a time.
+@Controller
+@RequestMapping("/admin/api")
+public class AdminApiController {
+
+    @Autowired
+    private AdminTableService adminTableService;
+
+    @Autowired
+    private SalesSummaryService salesSummaryService;
+
+    @Autowired
+    private InvoiceJobService invoiceJobService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private boolean isAdmin(String token) {
+        return jwtUtil.isAdminToken(token);
+    }
+
+    // Orders in one table of the admin page; from and to (yyyy-MM-dd, inclusive) filter on the order date
+    @GetMapping("/orders")
+    public ResponseEntity<AdminTableService.TablePage> getOrders(@RequestParam String token,
+                                                                 @RequestParam String section,
+                                                                 @RequestParam(required = false) String q,
+                                                                 @RequestParam(required = false) String from,
+                                                                 @RequestParam(required = false) String to,
+                                                                 @RequestParam(defaultValue = "orderDate") String sort,
+                                                                 @RequestParam(defaultValue = "asc") String dir,
+                                                                 @RequestParam(defaultValue = "0") int page,
+                                                                 @RequestParam(defaultValue = "25") int size) {
+        if (!isAdmin(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            LocalDate start = from == null || from.isBlank() ? null : LocalDate.parse(from);
+            LocalDate end = to == null || to.isBlank() ? null : LocalDate.parse(to);
+            return ResponseEntity.ok(adminTableService.findOrders(section, q, start, end, sort, "desc".equals(dir), page, size));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/companies")
+    public ResponseEntity<AdminTableService.TablePage> getCompanies(@RequestParam String token,
+                                                                    @RequestParam(required = false) String q,
+                                                                    @RequestParam(defaultValue = "companyName") String sort,
+                                                                    @RequestParam(defaultValue = "asc") String dir,
+                                                                    @RequestParam(defaultValue = "0") int page,
+                                                                    @RequestParam(defaultValue = "25") int size) {
+        if (!isAdmin(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            return ResponseEntity.ok(adminTableService.findCompanies(q, sort, "desc".equals(dir), page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/menu-items")
+    public ResponseEntity<AdminTableService.TablePage> getMenuItems(@RequestParam String token,
+                                                                    @RequestParam(required = false) String q,
+                                                                    @RequestParam(required = false) Boolean available,
+                                                                    @RequestParam(defaultValue = "title") String sort,
+                                                                    @RequestParam(defaultValue = "asc") String dir,
+                                                                    @RequestParam(defaultValue = "0") int page,
+                                                                    @RequestParam(defaultValue = "25") int size) {
+        if (!isAdmin(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            return ResponseEntity.ok(adminTableService.findMenuItems(q, available, sort, "desc".equals(dir), page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Progress of a PDF invoice job, polled by the admin page until it has finished
+    @GetMapping("/invoices/{jobId}")
+    public ResponseEntity<Map<String, Object>> getInvoiceJob(@PathVariable String jobId, @RequestParam String token) {
+        if (!isAdmin(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        InvoiceJob job = invoiceJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("status", job.getStatus());
+        progress.put("total", job.getTotal());
+        progress.put("rendered", job.getRendered());
+        progress.put("failed", job.getFailed());
+        progress.put("errors", job.getErrors());
+        progress.put("finishedAt", job.getFinishedAt());
+        return ResponseEntity.ok(progress);
+    }
+
+    // Weekly and monthly sales of this year, the year so far and all-time revenue. Archived
+    // orders are counted through their monthly summaries.
+    @GetMapping("/sales")
+    public ResponseEntity<Map<String, Object>> getSales(@RequestParam String token) {
+        if (!isAdmin(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        LocalDate now = LocalDate.now();
+        List<Order> allOrders = adminTableService.findCompletedOrdersForSales();
+        List<MonthlySales> archivedSales = salesSummaryService.findAll();
+
+        // Weekly sales
+        List<SalesByRange> weeklySales = new ArrayList<>();
+        LocalDate startOfYear = now.withDayOfYear(1);
+        for (LocalDate date = startOfYear; !date.isAfter(now); date = date.plusWeeks(1)) {
+            LocalDate startOfWeek = date.with(DayOfWeek.MONDAY);
+            LocalDate endOfWeek = date.with(DayOfWeek.SUNDAY);
+            String weekLabel = "Week " + startOfWeek.get(WeekFields.ISO.weekOfYear()) + ", " + startOfWeek.getYear();
+            weeklySales.add(createSalesByRange(weekLabel, startOfWeek, endOfWeek, allOrders, archivedSales));
+        }
+
+        // Monthly sales
+        List<SalesByRange> monthlySales = new ArrayList<>();
+        for (int month = 1; month <= 12; month++) {
+            LocalDate startOfMonth = now.withMonth(month).withDayOfMonth(1);
+            LocalDate endOfMonth = startOfMonth.withDayOfMonth(startOfMonth.lengthOfMonth());
+            String monthLabel = startOfMonth.getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH) + " " + now.getYear();
+            monthlySales.add(createSalesByRange(monthLabel, startOfMonth, endOfMonth, allOrders, archivedSales));
+        }
+
+        // Yearly sales
+        SalesByRange yearlySales = createSalesByRange("Year " + now.getYear(), startOfYear, now, allOrders, archivedSales);
+
+        // Total sales (all time)
+        double totalSalesAllTime = allOrders.stream()
+                .mapToDouble(Order::getTotalPrice)
+                .sum()
+                + archivedSales.stream().mapToDouble(MonthlySales::getRevenue).sum();
+
+        Map<String, Object> sales = new LinkedHashMap<>();
+        sales.put("weeklySales", weeklySales);
+        sales.put("monthlySales", monthlySales);
+        sales.put("yearlySales", yearlySales);
+        sales.put("totalSalesAllTime", totalSalesAllTime);
+        return ResponseEntity.ok(sales);
+    }
+
+    // Helper method to create a SalesByRange
+    private SalesByRange createSalesByRange(String rangeLabel, LocalDate startDate, LocalDate endDate, List<Order> allOrders,
+                                            List<MonthlySales> archivedSales) {
+        List<Order> filteredOrders = allOrders.stream()
+                .filter(order -> {
+                    LocalDate orderDate = order.getOrderDate().toLocalDate();
+                    return !orderDate.isBefore(startDate) && !orderDate.isAfter(endDate);
+                })
+                .toList();
+
+        double totalRevenue = filteredOrders.stream()
+                .mapToDouble(Order::getTotalPrice)
+                .sum();
+
+        int totalOrders = filteredOrders.size();
+
+        // Flavours deleted since have no title left
+        List<String> topSellingProducts = new ArrayList<>(filteredOrders.stream()
+                .flatMap(order -> order.getCartItems().stream())
+                .map(CartItem::getMenuItem)
+                .filter(Objects::nonNull)
+                .map(MenuItem::getTitle)
+                .distinct()
+                .toList());
+
+        // Archived months count only when the whole month lies in the range
+        for (MonthlySales month : archivedSales) {
+            LocalDate endOfMonth = month.getMonth().withDayOfMonth(month.getMonth().lengthOfMonth());
+            if (month.getMonth().isBefore(startDate) || endOfMonth.isAfter(endDate)) {
+                continue;
+            }
+            totalRevenue += month.getRevenue();
+            totalOrders += (int) month.getOrders();
+            month.getFlavours().stream().filter(title -> !topSellingProducts.contains(title)).forEach(topSellingProducts::add);
+        }
+
+        return new SalesByRange(rangeLabel, startDate, endDate, totalRevenue, totalOrders, topSellingProducts);
+    }
+}
@@ -3,9 +3,11 @@ package com.p3.syllesisfabrik.controller;
 import com.p3.syllesisfabrik.model.*;
 import com.p3.syllesisfabrik.service.*;
 import com.p3.syllesisfabrik.util.JwtUtil;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -14,7 +16,10 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.mvc.support.RedirectAttributesModelMap;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -24,10 +29,10 @@ import java.io.ByteArrayOutputStream;
 import java.io.PrintWriter;
 import java.util.List;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
 
 @Controller
@@ -36,6 +41,12 @@ public class AdminController {
 
     private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
 
+    // Longest range the delivery calendar answers in one request
+    private static final int MAX_CALENDAR_DAYS = 366;
+
+    // Header sent by the admin page when it posts an action with fetch
+    private static final String AJAX_HEADER = "X-Requested-With=XMLHttpRequest";
+
     @Autowired
     private MenuItemService menuItemService;
 
@@ -55,36 +66,44 @@ public class AdminController {
     @Autowired
     private ImageUploadService imageUploadService;
 
+    @Autowired
+    private ImageJobService imageJobService;
+
 
     @Autowired
     private UserLoginService userLoginService;
 
-    private boolean validateAdminToken(String token, Model model) {
-        if (token == null) {
-            logger.error("Access denied. Token is null.");
-            model.addAttribute("error", "Access denied. Please log in with a valid token.");
-            return false;
-        }
+    @Autowired
+    private LoginCodeService loginCodeService;
 
-        // Validate the token and check if it is associated with "admin"
-        if (!jwtUtil.validateToken(token, "admin")) {
-            logger.error("Access denied. Invalid or expired token for admin.");
-            model.addAttribute("error", "Access denied. Invalid or expired token.");
-            return false;
-        }
+    @Autowired
+    private CascadeDeleteService cascadeDeleteService;
 
-        // Fetch the admin user from the database
-        UserLogin adminUser = userLoginService.findByCompanyName("Syllesis Fabrik");
-        if (adminUser == null) {
-            logger.error("Access denied. Admin user not found in the database.");
-            model.addAttribute("error", "Access denied. Admin user not found.");
-            return false;
-        }
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ProductionPlanService productionPlanService;
+
+    @Autowired
+    private AdminBoardService adminBoardService;
+
+    @Autowired
+    private BulkOrderService bulkOrderService;
+
+    @Autowired
+    private InvoiceJobService invoiceJobService;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Value("${production-plan.horizon-days:14}")
+    private int productionPlanHorizonDays;
 
-        // Compare token in the database with the provided token
-        if (!token.equals(adminUser.getToken())) {
-            logger.error("Access denied. Token mismatch for admin. Token does not match the one stored in the database.");
-            model.addAttribute("error", "Access denied. Invalid token.");
+    private boolean validateAdminToken(String token, Model model) {
+        String error = jwtUtil.adminTokenError(token);
+        if (error != null) {
+            model.addAttribute("error", error);
             return false;
         }
 
@@ -95,108 +114,19 @@ public class AdminController {
 
 
     //controller/adminController.java Snippet Start
-
-    // Helper method to create a SalesByRange
-    private SalesByRange createSalesByRange(String rangeLabel, LocalDate startDate, LocalDate endDate, List<Order> allOrders) {
-        List<Order> filteredOrders = allOrders.stream()
-                .filter(order -> {
-                    LocalDate orderDate = order.getOrderDate().toLocalDate();
-                    return !orderDate.isBefore(startDate) && !orderDate.isAfter(endDate);
-                })
-                .toList();
-
-        double totalRevenue = filteredOrders.stream()
-                .mapToDouble(Order::getTotalPrice)
-                .sum();
-
-        int totalOrders = filteredOrders.size();
-
-        List<String> topSellingProducts = filteredOrders.stream()
-                .flatMap(order -> order.getCartItems().stream())
-                .map(cartItem -> cartItem.getMenuItem().getTitle())
-                .distinct()
-                .toList();
-
-        return new SalesByRange(rangeLabel, startDate, endDate, totalRevenue, totalOrders, topSellingProducts);
-    }
     @GetMapping("/home")
     public String showAdminHomePage(@RequestParam(value = "token", required = false) String token, Model model) {
         if (!validateAdminToken(token, model)) {
             return "login";
         }
 
-        List<UserLogin> companies = userLoginService.findAll();
-        List<MenuItem> menuItems = menuItemService.findAll();
-        menuItems.forEach(menuItem -> {
-            if (menuItem.getImagePaths() != null && menuItem.getImagePaths().isEmpty()) {
-                menuItem.setImagePaths(null); // Set to null if empty
-            }
-        });
-        // Fetch the current orders (with necessary filters for processing, not approved, and not shipped)
-        List<Order> currentOrders = orderService.fetchCurrentOrders(); // You need to ensure this method fetches orders with companies
-        List<Order> orderReadyToBeInvoiced = orderService.orderReadyToBeInvoiced();
-        List<Order> orderCompleted = orderService.fetchCompletedOrders();
-        // Print the current orders to the console (backend) for debugging
-        // Fetch orders ready to be shipped (isApproved = true, isProcessing = false, isShipped = false)
-        List<Order> orderReadyToBeShipped = orderService.fetchReadyToBeShippedOrders(); // New method for orders ready to be shipped
-
-        // Add the necessary attributes to the model for rendering in the view
-        model.addAttribute("currentOrders", currentOrders);
-        model.addAttribute("menuItems", menuItems);
-        model.addAttribute("companies", companies);
+        // Companies, menu items, orders and sales are fetched page by page from /admin/api
+        // when their tab is opened, so this page does not grow with the order history
         model.addAttribute("token", token);
-
-        logger.info("Admin access granted, displaying companies and menu items.");
-        model.addAttribute("currentOrders", currentOrders);
-        model.addAttribute("orderReadyToBeShipped", orderReadyToBeShipped);
-        model.addAttribute("orderReadyToBeInvoiced", orderReadyToBeInvoiced);
-        model.addAttribute("orderCompleted", orderCompleted);
-        model.addAttribute("menuItems", menuItems);
-        model.addAttribute("companies", companies);
-        model.addAttribute("token", token);
-
-        // Current date
-        LocalDate now = LocalDate.now();
-        List<Order> allOrders = orderService.findAllCompletedOrders();
-
-        // Current date
-        // Weekly sales
-        List<SalesByRange> weeklySales = new ArrayList<>();
-        LocalDate startOfYear = now.withDayOfYear(1);
-        for (LocalDate date = startOfYear; !date.isAfter(now); date = date.plusWeeks(1)) {
-            LocalDate startOfWeek = date.with(java.time.DayOfWeek.MONDAY);
-            LocalDate endOfWeek = date.with(java.time.DayOfWeek.SUNDAY);
-            String weekLabel = "Week " + startOfWeek.get(java.time.temporal.WeekFields.ISO.weekOfYear()) + ", " + startOfWeek.getYear();
-            weeklySales.add(createSalesByRange(weekLabel, startOfWeek, endOfWeek, allOrders));
-        }
-
-        // Monthly sales
-        List<SalesByRange> monthlySales = new ArrayList<>();
-        for (int month = 1; month <= 12; month++) {
-            LocalDate startOfMonth = now.withMonth(month).withDayOfMonth(1);
-            LocalDate endOfMonth = startOfMonth.withDayOfMonth(startOfMonth.lengthOfMonth());
-
-            // Use getDisplayName() to get the month name in title case
-            String monthLabel = startOfMonth.getMonth()
-                    .getDisplayName(java.time.format.TextStyle.FULL, Locale.ENGLISH)
-                    + " " + now.getYear();
-            monthlySales.add(createSalesByRange(monthLabel, startOfMonth, endOfMonth, allOrders));
-        }
-
-        // Yearly sales
-        String yearLabel = "Year " + now.getYear();
-        SalesByRange yearlySales = createSalesByRange(yearLabel, startOfYear, now, allOrders);
-
-        // Total sales (all time)
-        double totalSalesAllTime = allOrders.stream()
-                .mapToDouble(Order::getTotalPrice)
-                .sum();
-
-        // Add to model
-        model.addAttribute("weeklySales", weeklySales);
-        model.addAttribute("monthlySales", monthlySales);
-        model.addAttribute("yearlySales", yearlySales);
-        model.addAttribute("totalSalesAllTime", totalSalesAllTime);
+        // Production plan for the coming deliveries, read from the rollup
+        model.addAttribute("productionPlan", productionPlanService.getPlan(LocalDate.now(), LocalDate.now().plusDays(productionPlanHorizonDays)));
+        model.addAttribute("productionPlanHorizonDays", productionPlanHorizonDays);
+        model.addAttribute("liveBoard", adminBoardService.isLive());
 
         logger.info("Admin access granted, displaying companies and menu items.");
         return "admin_home";
@@ -204,7 +134,9 @@ public class AdminController {
     //controller/adminController.java Snippet End
 
     @PostMapping("/delete/company")
-    public String deleteCompany(@RequestParam String companyEmail, @RequestParam String token, RedirectAttributes redirectAttributes, Model model) {
+    public String deleteCompany(@RequestParam String companyEmail, @RequestParam String token,
+                                @RequestParam(defaultValue = "false") boolean purge,
+                                RedirectAttributes redirectAttributes, Model model) {
         if (!validateAdminToken(token, model)) {
             return "login";
         }
@@ -219,16 +151,12 @@ public class AdminController {
                 return "redirect:/admin/home?token=" + token;
             }
 
-            // Delete all cart items associated with the company
-            cartItemService.deleteByCompany(company);
-
-            // Delete all orders associated with the company
-            orderService.deleteByCompany(company);
+            // Cart items, and with purge also orders, are removed with one indexed delete per collection
+            cascadeDeleteService.deleteCompany(company, purge);
 
-            // Delete the company itself
-            userLoginService.deleteByCompanyEmail(companyEmail);
-
-            redirectAttributes.addFlashAttribute("message", "Company and associated data deleted successfully.");
+            redirectAttributes.addFlashAttribute("message", purge
+                    ? "Company and associated data deleted successfully."
+                    : "Company deleted. Its order history has been kept.");
         } catch (Exception e) {
             logger.error("Error deleting company with email: " + companyEmail, e);
             redirectAttributes.addFlashAttribute("error", "Failed to delete company.");
@@ -239,7 +167,9 @@ public class AdminController {
 
 
     @PostMapping("/delete/icecream")
-    public String deleteIceCream(@RequestParam String iceCreamId, @RequestParam String token, RedirectAttributes redirectAttributes, Model model) {
+    public String deleteIceCream(@RequestParam String iceCreamId, @RequestParam String token,
+                                 @RequestParam(defaultValue = "false") boolean purge,
+                                 RedirectAttributes redirectAttributes, Model model) {
         if (!validateAdminToken(token, model)) {
             return "login";
         }
@@ -247,39 +177,16 @@ public class AdminController {
         logger.info("Deleting ice cream item with ID: {}", iceCreamId);
 
         try {
-            // Fetch the menu item to confirm its existence
-            Optional<MenuItem> menuItemOptional = menuItemService.findById(iceCreamId);
-
-            if (menuItemOptional.isEmpty()) {
+            // Finds the affected cart items and orders by reference instead of scanning all orders
+            CascadeDeleteService.CascadeResult result = cascadeDeleteService.deleteMenuItem(iceCreamId, purge);
+            if (result == null) {
                 redirectAttributes.addFlashAttribute("error", "Ice cream item not found.");
                 return "redirect:/admin/home?token=" + token;
             }
 
-            MenuItem menuItem = menuItemOptional.get();
-
-            // Delete associated cart items
-            List<CartItem> cartItems = cartItemService.findByMenuItem(menuItem);
-            for (CartItem cartItem : cartItems) {
-                cartItemService.delete(cartItem);
-                logger.info("Deleted cart item with ID: {}", cartItem.getId());
-            }
-
-            // Delete associated orders that contain this menu item
-            List<Order> orders = orderService.findAllOrders();
-            for (Order order : orders) {
-                boolean orderContainsItem = order.getCartItems().stream()
-                        .anyMatch(cartItem -> cartItem.getMenuItem().equals(menuItem));
-                if (orderContainsItem) {
-                    orderService.deleteOrder(order);
-                    logger.info("Deleted order with ID: {}", order.getId());
-                }
-            }
-
-            // Finally, delete the menu item itself
-            menuItemService.deleteById(iceCreamId);
-            logger.info("Deleted ice cream item with ID: {}", iceCreamId);
-
-            redirectAttributes.addFlashAttribute("message", "Ice cream item and associated data deleted successfully.");
+            redirectAttributes.addFlashAttribute("message", purge
+                    ? "Ice cream item and associated data deleted successfully."
+                    : "Ice cream item removed from the menu. Its order history has been kept.");
         } catch (Exception e) {
             logger.error("Error deleting ice cream item with ID: {}", iceCreamId, e);
             redirectAttributes.addFlashAttribute("error", "Failed to delete ice cream item and associated data.");
@@ -289,15 +196,6 @@ public class AdminController {
     }
 
     //controller/adminController.java Snippet Start
-    private String generateUniqueLoginCode() {
-        Random random = new Random();
-        String loginCode;
-        do {
-            loginCode = String.valueOf(100000 + random.nextInt(900000));
-        } while (userLoginService.isDuplicateGeneratedCode(loginCode));
-        return loginCode;
-    }
-
     @PostMapping("/create-code")
     public String createLoginCode(
             @RequestParam String companyCVR,
@@ -322,12 +220,6 @@ public class AdminController {
             return "redirect:/admin/home?token=" + token;
         }
 
-        // Check for duplicate company information
-        if (userLoginService.isDuplicate(companyName, companyEmail, companyCVR, phoneNumber)) {
-            redirectAttributes.addFlashAttribute("error", "Company name, CVR, Phone Number,  or email is already registered.");
-            return "redirect:/admin/home?token=" + token;
-        }
-
         // Validate phone number (must be digits only and not exceed 8 digits)
         if (!phoneNumber.matches("\\d{8}")) {
             redirectAttributes.addFlashAttribute("error", "Phone number must consist of exactly 8 digits.");
@@ -352,15 +244,28 @@ public class AdminController {
         }
 
 
-        String loginCode = generateUniqueLoginCode();
+        // Codes come from a permuted counter, so they are unique without checking the database
+        String loginCode;
+        try {
+            loginCode = loginCodeService.allocate();
+        } catch (LoginCodeService.CodeSpaceExhaustedException e) {
+            logger.error("Cannot create login code for {}", companyName, e);
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+            return "redirect:/admin/home?token=" + token;
+        }
         UserLogin newUser = new UserLogin(
                 companyCVR,
                 companyName, companyEmail, loginCode, "normal",
                 phoneNumber, streetName, streetNumber, postcode, city);
 
 
-            // Save the new user
-            userLoginService.saveUser(newUser);
+            // Save the new user; unique indexes reject duplicate name, email, CVR or phone number
+            try {
+                userLoginService.saveUser(newUser);
+            } catch (UserLoginService.DuplicateCompanyException e) {
+                redirectAttributes.addFlashAttribute("error", e.getMessage());
+                return "redirect:/admin/home?token=" + token;
+            }
 
             // Send an email with the user information
             emailService.sendUserInfo(
@@ -429,17 +334,27 @@ public class AdminController {
             // Determine availability
             boolean menuItemIsAvailable = quantity > 0;
 
-            // Upload images if provided
-            List<String> imagePaths = null;
+            // Create the menu item; the ID is assigned up front so image jobs can refer to it
+            MenuItem menuItem = new MenuItem(variant, description, allergenList, quantity, menuItemIsAvailable, pricePerLiter, null);
+            menuItem.setId(new ObjectId().toHexString());
+
+            // Stage images if provided; renditions are generated in the background
+            ImageJobService.PreparedImages preparedImages = null;
             if (images != null && images.length > 0) {
-                imagePaths = imageUploadService.uploadImages(images, title); // Upload images
+                preparedImages = imageJobService.prepare(images, menuItem.getId());
+                menuItem.setImagePaths(preparedImages.getImagePaths());
             }
 
-            // Create and save the menu item
-            MenuItem menuItem = new MenuItem(variant, description, allergenList, quantity, menuItemIsAvailable, pricePerLiter, imagePaths);
             menuItemService.saveMenuItem(menuItem);
+            if (preparedImages != null) {
+                imageJobService.dispatch(preparedImages);
+            }
 
-            redirectAttributes.addFlashAttribute("message", "Menu item successfully added.");
+            String message = "Menu item successfully added.";
+            if (preparedImages != null && preparedImages.hasPendingJobs()) {
+                message += " Images are being processed and will appear shortly.";
+            }
+            redirectAttributes.addFlashAttribute("message", message);
         } catch (IOException e) {
             redirectAttributes.addFlashAttribute("error", "Failed to handle images: " + e.getMessage());
             return "redirect:/admin/home?token=" + token;
@@ -514,6 +429,7 @@ public class AdminController {
 
             logger.info("Updated basic fields for menu item with ID: {}", id);
 
+            ImageJobService.PreparedImages preparedImages = null;
             try {
                 if (images != null && images.length > 0) {
                     logger.info("New images uploaded. Deleting old images for menu item ID: {}", id);
@@ -521,8 +437,9 @@ public class AdminController {
                     // Delete old images from server using ImageUploadService
                     imageUploadService.deleteImages(menuItem.getImagePaths());
 
-                    // Upload new images
-                    List<String> newImagePaths = imageUploadService.uploadImages(images, title);
+                    // Stage new images; renditions are generated in the background
+                    preparedImages = imageJobService.prepare(images, id);
+                    List<String> newImagePaths = preparedImages.getImagePaths();
                     menuItem.setImagePaths(newImagePaths);
                     logger.info("Updated image paths for menu item ID {}: {}", id, newImagePaths);
                 } else if (imagepath == null || imagepath.isEmpty()) {
@@ -535,6 +452,8 @@ public class AdminController {
                 } else {
                     // If images are not uploaded but existing paths are provided
                     List<String> updatedImagePaths = Arrays.asList(imagepath.replace("[", "").replace("]", "").split(",\\s*"));
+                    // Images still processing when the form was opened may have finished since
+                    updatedImagePaths = imageJobService.resolvePlaceholders(updatedImagePaths);
                     menuItem.setImagePaths(updatedImagePaths);
                     logger.info("Retained existing image paths for menu item ID {}: {}", id, updatedImagePaths);
                 }
@@ -544,8 +463,15 @@ public class AdminController {
                 return "redirect:/admin/home?token=" + token;
             }
 
-            // Save the updated menu item
-            menuItemService.saveMenuItem(menuItem);
+            // Write only the edited fields, so stock reserved by a checkout since the read is kept
+            if (!menuItemService.updateDetails(menuItem)) {
+                logger.error("Menu item with ID {} was deleted while it was being updated.", id);
+                redirectAttributes.addFlashAttribute("error", "Menu item not found.");
+                return "redirect:/admin/home?token=" + token;
+            }
+            if (preparedImages != null) {
+                imageJobService.dispatch(preparedImages);
+            }
             logger.info("Menu item with ID {} updated successfully.", id);
             redirectAttributes.addFlashAttribute("message", "Menu item updated successfully.");
         } else {
@@ -580,89 +506,48 @@ public class AdminController {
 
         Order order = orderOptional.get();
 
-        // Format the expected delivery date to DD-MM-YY
-        SimpleDateFormat inputDateFormat = new SimpleDateFormat("yyyy-MM-dd");  // The expected format from input
-        SimpleDateFormat outputDateFormat = new SimpleDateFormat("dd-MM-yy");  // Desired output format
-        String formattedDate = null;
-
+        // The date input posts ISO dates (yyyy-MM-dd)
+        LocalDate expectedDelivery;
         try {
-            Date parsedDate = inputDateFormat.parse(expectedDeliveryDate);
-
-            // Check if the expected delivery date is before today's date
-            Calendar calendar = Calendar.getInstance();
-            calendar.setTime(new Date());
-            calendar.set(Calendar.HOUR_OF_DAY, 0);
-            calendar.set(Calendar.MINUTE, 0);
-            calendar.set(Calendar.SECOND, 0);
-            calendar.set(Calendar.MILLISECOND, 0);
-            Date today = calendar.getTime();
-
-            if (parsedDate.before(today)) {
-                redirectAttributes.addFlashAttribute("error", "Expected delivery date cannot be before today.");
-                return "redirect:/admin/home?token=" + token;
-            }
-
-            formattedDate = outputDateFormat.format(parsedDate);
-            order.setExpectedDeliveryDate(formattedDate);  // Assuming 'expectedDeliveryDate' is a field in the Order model
-        } catch (Exception e) {
+            expectedDelivery = LocalDate.parse(expectedDeliveryDate);
+        } catch (DateTimeParseException e) {
             logger.error("Error parsing expected delivery date", e);
             redirectAttributes.addFlashAttribute("error", "Invalid date format.");
             return "redirect:/admin/home?token=" + token;
         }
 
+        // Check if the expected delivery date is before today's date
+        if (expectedDelivery.isBefore(LocalDate.now())) {
+            redirectAttributes.addFlashAttribute("error", "Expected delivery date cannot be before today.");
+            return "redirect:/admin/home?token=" + token;
+        }
+        order.setExpectedDelivery(expectedDelivery);
+
+        // Claim the order so two admins approving at once cannot both apply it
+        if (!orderService.claimPendingOrder(orderId)) {
+            redirectAttributes.addFlashAttribute("error", "Order has already been processed.");
+            return "redirect:/admin/home?token=" + token;
+        }
+
         // Update order status: set isProcessing to false and isApproved to true
         order.setProcessing(false);
         order.setApproved(true);
+        boolean orderSaved = false;
 
         try {
-            // Create a map to aggregate quantities for each menu item
-            Map<String, Integer> menuItemQuantities = new HashMap<>();
-
-            // Loop through cart items and aggregate quantities for each menu item
-            for (CartItem cartItem : order.getCartItems()) {
-                MenuItem menuItem = cartItem.getMenuItem();
-                int orderedQuantity = cartItem.getDesiredQuantity();
-
-                menuItemQuantities.put(menuItem.getId(), menuItemQuantities.getOrDefault(menuItem.getId(),0) + orderedQuantity);
-            }
-
-            // Loop through menu items and deduct stock
-            for (Map.Entry<String, Integer> entry : menuItemQuantities.entrySet()) { // Ensure this uses Integer
-                String menuItemId = entry.getKey();
-                int totalOrdered = entry.getValue(); // Correctly assign as int
-
-                // Fetch the MenuItem
-                Optional<MenuItem> menuItemOptional = menuItemService.findById(menuItemId);
-
-                if (!menuItemOptional.isPresent()) {
-                    logger.error("Menu item not found for ID: " + menuItemId);
-                    continue; // Skip if the menu item is not found
-                }
-
-                MenuItem menuItem = menuItemOptional.get();
-                int currentStock = menuItem.getQuantity(); // Ensure this returns an int
-
-                // Check if there is enough stock available
-                if (currentStock >= totalOrdered) {
-                    // Deduct the stock
-                    menuItem.setQuantity(currentStock - totalOrdered);
-
-                    // If stock is zero or less, set isAvailable to false
-                    if (menuItem.getQuantity() <= 0) {
-                        menuItem.setAvailable(false);
-                    }
-
-                    // Save the updated MenuItem
-                    menuItemService.saveMenuItem(menuItem);
-                } else {
-                    redirectAttributes.addFlashAttribute("error", "Not enough stock available for " + menuItem.getTitle());
-                    return "redirect:/admin/home?token=" + token;
-                }
+            // Orders placed before checkout reserved stock take it now, all lines or none
+            if (!order.isStockReserved()) {
+                stockReservationService.reserve(orderId, order.getCartItems());
+                order.setStockReserved(true);
             }
 
+            // The reserved stock becomes a permanent deduction
+            stockReservationService.commit(orderId);
 
             // Save the updated order
             orderService.saveOrder(order);
+            orderSaved = true;
+            productionPlanService.addOrder(order);
 
             // Fetch the necessary details to send in the email
             String companyEmail = order.getCompany().getCompanyEmail(); // Assuming the company has an email
@@ -673,10 +558,18 @@ public class AdminController {
                     + order.getCompany().getPostcode() + " " + order.getCompany().getCity();
 
             // Send the confirmation email
-            emailService.sendOrderConfirmationEmail(companyEmail, cartItems, totalOrderCost, formattedDate, companyName, address);
+            emailService.sendOrderConfirmationEmail(companyEmail, cartItems, totalOrderCost, order.getExpectedDeliveryDate(), companyName, address);
 
             redirectAttributes.addFlashAttribute("message", "Order approved successfully. Confirmation email sent.");
+        } catch (StockReservationService.InsufficientStockException e) {
+            orderService.reopenPendingOrder(orderId);
+            redirectAttributes.addFlashAttribute("error", "Not enough stock available for " + e.getMenuItemTitle());
+            return "redirect:/admin/home?token=" + token;
         } catch (Exception e) {
+            if (!orderSaved) {
+                // Put the order back in the queue instead of leaving it half-approved
+                orderService.reopenPendingOrder(orderId);
+            }
             logger.error("Error approving order with ID: " + orderId, e);
             redirectAttributes.addFlashAttribute("error", "Failed to approve the order.");
         }
@@ -711,12 +604,24 @@ public class AdminController {
 
         Order order = orderOptional.get();
 
+        // Claim the order so it cannot be approved and disapproved at the same time
+        if (!orderService.claimPendingOrder(orderId)) {
+            redirectAttributes.addFlashAttribute("error", "Order has already been processed.");
+            return "redirect:/admin/home?token=" + token;
+        }
+
         // Update the order status: set isProcessing to false, keep isApproved as false
         order.setProcessing(false);
         order.setApproved(false);
 
         // Save the updated order
         try {
+            // Give the stock held since checkout back to the menu
+            if (order.isStockReserved()) {
+                stockReservationService.release(orderId, order.getCartItems());
+                order.setStockReserved(false);
+            }
+
             orderService.saveOrder(order);
 
             // Send disapproval email
@@ -765,6 +670,7 @@ public class AdminController {
         Order order = orderOptional.get();
 
         order.setInvoiced(true);
+        order.setInvoicedAt(LocalDateTime.now());
         // Save the updated order
         try {
             orderService.saveOrder(order);
@@ -800,19 +706,13 @@ public class AdminController {
 
         Order order = orderOptional.get();
 
-        // Update the order status: set isShipped to true
-        order.setShipped(true);
-        Date now = new Date();
-
-        // Format the date to "DD-MM-YY HH:mm:ss"
-        SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MM-yy HH:mm:ss");
-        String formattedDate = dateFormat.format(now);
-
-        // Set the formatted date to the order
-        order.setDeliveredDate(formattedDate);
+        // Update the order status: set isShipped to true, once even if two admins ship it together
+        if (!orderService.markShipped(orderId, LocalDateTime.now())) {
+            redirectAttributes.addFlashAttribute("error", "Order has already been shipped.");
+            return "redirect:/admin/home?token=" + token;
+        }
         try {
-            // Save the updated order
-            orderService.saveOrder(order);
+            productionPlanService.removeOrder(order);
 
             // Fetch the necessary details to send in the email
             String companyEmail = order.getCompany().getCompanyEmail(); // Assuming the company has an email
@@ -833,6 +733,257 @@ public class AdminController {
         return "redirect:/admin/home?token=" + token;
     }
 
+    // Live admin board: changes to orders, menu items and companies as server-sent events
+    @GetMapping("/board/stream")
+    public ResponseEntity<SseEmitter> streamBoard(@RequestParam String token) {
+        if (!jwtUtil.isAdminToken(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(adminBoardService.subscribe());
+    }
+
+    // The admin page posts its actions with fetch and this header. These variants run the same
+    // handlers and answer with the outcome as JSON instead of redirecting to the dashboard; the
+    // live board then patches the changed rows.
+    @PostMapping(value = "/order/approve", headers = AJAX_HEADER)
+    public ResponseEntity<Map<String, Object>> approveOrderAction(@RequestParam String orderId, @RequestParam String token,
+                                                                  @RequestParam String expectedDeliveryDate, Model model) {
+        RedirectAttributesModelMap outcome = new RedirectAttributesModelMap();
+        return actionResponse(approveOrder(orderId, token, expectedDeliveryDate, outcome, model), outcome);
+    }
+
+    @PostMapping(value = "/order/disapprove", headers = AJAX_HEADER)
+    public ResponseEntity<Map<String, Object>> disapproveOrderAction(@RequestParam String orderId, @RequestParam String token,
+                                                                     @RequestParam(required = false) String disapprovalReason, Model model) {
+        RedirectAttributesModelMap outcome = new RedirectAttributesModelMap();
+        return actionResponse(disapproveOrder(orderId, token, disapprovalReason, outcome, model), outcome);
+    }
+
+    @PostMapping(value = "/order/invoice", headers = AJAX_HEADER)
+    public ResponseEntity<Map<String, Object>> invoiceOrderAction(@RequestParam String orderId, @RequestParam String token, Model model) {
+        RedirectAttributesModelMap outcome = new RedirectAttributesModelMap();
+        return actionResponse(invoiceOrder(orderId, token, outcome, model), outcome);
+    }
+
+    @PostMapping(value = "/order/ship", headers = AJAX_HEADER)
+    public ResponseEntity<Map<String, Object>> shipOrderAction(@RequestParam String orderId, @RequestParam String token, Model model) {
+        RedirectAttributesModelMap outcome = new RedirectAttributesModelMap();
+        return actionResponse(shipOrder(orderId, token, outcome, model), outcome);
+    }
+
+    @PostMapping(value = "/menu/update", headers = AJAX_HEADER)
+    public ResponseEntity<Map<String, Object>> updateMenuItemAction(@RequestParam String id, @RequestParam String title,
+                                                                    @RequestParam String description, @RequestParam String allergens,
+                                                                    @RequestParam int quantity, @RequestParam double pricePerLiter,
+                                                                    @RequestParam(required = false) MultipartFile[] images,
+                                                                    @RequestParam(required = false) String imagepath,
+                                                                    @RequestParam String token, Model model) {
+        RedirectAttributesModelMap outcome = new RedirectAttributesModelMap();
+        return actionResponse(updateMenuItem(id, title, description, allergens, quantity, pricePerLiter, images, imagepath,
+                token, outcome, model), outcome);
+    }
+
+    // Bulk actions on the orders ticked in a table. Each answers with the outcome of every order.
+    @PostMapping("/orders/bulk/approve")
+    public ResponseEntity<Map<String, Object>> bulkApproveOrders(@RequestParam List<String> orderIds,
+                                                                 @RequestParam String token,
+                                                                 @RequestParam String expectedDeliveryDate) {
+        if (!jwtUtil.isAdminToken(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Access denied. Invalid or expired token."));
+        }
+        try {
+            LocalDate expectedDelivery = LocalDate.parse(expectedDeliveryDate);
+            return bulkResponse(bulkOrderService.approve(orderIds, expectedDelivery), "approved");
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid date format."));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/orders/bulk/ship")
+    public ResponseEntity<Map<String, Object>> bulkShipOrders(@RequestParam List<String> orderIds, @RequestParam String token) {
+        if (!jwtUtil.isAdminToken(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Access denied. Invalid or expired token."));
+        }
+        try {
+            return bulkResponse(bulkOrderService.ship(orderIds), "shipped");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/orders/bulk/invoice")
+    public ResponseEntity<Map<String, Object>> bulkInvoiceOrders(@RequestParam List<String> orderIds, @RequestParam String token) {
+        if (!jwtUtil.isAdminToken(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Access denied. Invalid or expired token."));
+        }
+        try {
+            return bulkResponse(bulkOrderService.invoice(orderIds), "marked invoiced");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> bulkResponse(BulkOrderService.BulkResult result, String done) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("live", adminBoardService.isLive());
+        body.put("message", result.getSucceeded() + " of " + result.getOutcomes().size() + " orders " + done + ".");
+        body.put("succeeded", result.getSucceeded());
+        body.put("failed", result.getFailed());
+        body.put("outcomes", result.getOutcomes());
+        return ResponseEntity.ok(body);
+    }
+
+    // Starts rendering PDF invoices for the ticked orders, or for the orders delivered in a date range.
+    // Progress is read from /admin/api/invoices/{jobId}.
+    @PostMapping("/invoices/pdf")
+    public ResponseEntity<Map<String, Object>> generateInvoices(@RequestParam(required = false) List<String> orderIds,
+                                                                @RequestParam(required = false) String from,
+                                                                @RequestParam(required = false) String to,
+                                                                @RequestParam String token) {
+        if (!jwtUtil.isAdminToken(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Access denied. Invalid or expired token."));
+        }
+        try {
+            InvoiceJob job;
+            if (orderIds != null && !orderIds.isEmpty()) {
+                job = invoiceJobService.createForOrders(orderIds);
+            } else if (from != null && !from.isEmpty() && to != null && !to.isEmpty()) {
+                job = invoiceJobService.createForRange(LocalDate.parse(from), LocalDate.parse(to));
+            } else {
+                return ResponseEntity.badRequest().body(Map.of("error", "Select orders or a period to invoice."));
+            }
+            Map<String, Object> body = new HashMap<>();
+            body.put("jobId", job.getId());
+            body.put("total", job.getTotal());
+            body.put("message", "Generating " + job.getTotal() + " invoices.");
+            return ResponseEntity.ok(body);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid date format."));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // The invoices of a finished job as one zip file, streamed from the output directory
+    @GetMapping("/invoices/{jobId}/download")
+    public ResponseEntity<StreamingResponseBody> downloadInvoices(@PathVariable String jobId, @RequestParam String token) {
+        if (!jwtUtil.isAdminToken(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        InvoiceJob job = invoiceJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.getStatus() != InvoiceJob.Status.DONE) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Content-Type", "application/zip");
+        headers.add("Content-Disposition", "attachment; filename=invoices-" + job.getCreatedAt().toLocalDate() + ".zip");
+        StreamingResponseBody body = out -> invoiceJobService.writeBundle(job, out);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    // New and changed orders for the bookkeeping tool, one page per call. The X-Next-Cursor header
+    // is passed back as the cursor of the next call; X-Has-More tells whether to call again right away.
+    @GetMapping("/orders/changes")
+    public ResponseEntity<byte[]> exportOrderChanges(@RequestParam String token,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "500") int limit,
+                                                     @RequestParam(defaultValue = "ndjson") String format) {
+        if (!jwtUtil.isAdminToken(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        boolean csv = "csv".equals(format);
+        if (!csv && !"ndjson".equals(format)) {
+            return ResponseEntity.badRequest().body("Unknown format. Expected ndjson or csv.".getBytes(StandardCharsets.UTF_8));
+        }
+        OrderExportService.Page page;
+        try {
+            page = orderExportService.changesSince(cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage().getBytes(StandardCharsets.UTF_8));
+        }
+
+        String body = csv ? orderExportService.toCsv(page.getOrders()) : orderExportService.toNdjson(page.getOrders());
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Content-Type", csv ? "text/csv; charset=UTF-8" : "application/x-ndjson; charset=UTF-8");
+        headers.add("X-Next-Cursor", page.getNextCursor());
+        headers.add("X-Has-More", String.valueOf(page.isHasMore()));
+        return new ResponseEntity<>(body.getBytes(StandardCharsets.UTF_8), headers, HttpStatus.OK);
+    }
+
+    // Turns the view and flash message of a form handler into a JSON answer
+    private ResponseEntity<Map<String, Object>> actionResponse(String view, RedirectAttributesModelMap outcome) {
+        if ("login".equals(view)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Access denied. Invalid or expired token."));
+        }
+        Map<String, ?> flash = outcome.getFlashAttributes();
+        Map<String, Object> body = new HashMap<>();
+        body.put("live", adminBoardService.isLive());
+        if (flash.containsKey("error")) {
+            body.put("error", flash.get("error"));
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+        }
+        body.put("message", flash.get("message"));
+        return ResponseEntity.ok(body);
+    }
+
+    // Hit statistics of the menu catalog cache
+    @GetMapping("/catalog/stats")
+    public ResponseEntity<Map<String, Object>> getCatalogStats(@RequestParam String token) {
+        if (!jwtUtil.isAdminToken(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(menuItemService.getCatalogStats());
+    }
+
+    // Orders and litres due per day, for planning dispatch over a date range (yyyy-MM-dd, inclusive)
+    @GetMapping("/delivery-calendar")
+    public ResponseEntity<List<OrderService.DeliveryDay>> getDeliveryCalendar(@RequestParam String token,
+                                                                              @RequestParam String from,
+                                                                              @RequestParam String to) {
+        if (!jwtUtil.isAdminToken(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        LocalDate start;
+        LocalDate end;
+        try {
+            start = LocalDate.parse(from);
+            end = LocalDate.parse(to);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (end.isBefore(start) || start.plusDays(MAX_CALENDAR_DAYS).isBefore(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(orderService.getDeliveryCalendar(start, end));
+    }
+
+    // Litres per flavour per delivery day over a date range (yyyy-MM-dd, inclusive), with stock shortfalls
+    @GetMapping("/production-plan")
+    public ResponseEntity<List<ProductionPlanService.PlanLine>> getProductionPlan(@RequestParam String token,
+                                                                                  @RequestParam String from,
+                                                                                  @RequestParam String to) {
+        if (!jwtUtil.isAdminToken(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        LocalDate start;
+        LocalDate end;
+        try {
+            start = LocalDate.parse(from);
+            end = LocalDate.parse(to);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (end.isBefore(start) || start.plusDays(MAX_CALENDAR_DAYS).isBefore(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productionPlanService.getPlan(start, end));
+    }
+
     //controller/adminController.java Snippet Start
     @PostMapping("/order/fetch-csv")
     public ResponseEntity<byte[]> fetchCSVByExpectedDelivery(@RequestParam String token,
@@ -842,21 +993,19 @@ public class AdminController {
         logger.info("Token: {}", token);
         logger.info("Desired Download Date (raw): {}", desiredDownloadDate);
 
-        // Parse and transform the date
-        String formattedDownloadDate;
+        // Parse the date
+        LocalDate downloadDate;
         try {
-            LocalDate rawDate = LocalDate.parse(desiredDownloadDate); // Assuming the input is in ISO-8601 format (yyyy-MM-dd)
-            formattedDownloadDate = rawDate.format(DateTimeFormatter.ofPattern("dd-MM-yy"));
-            logger.info("Transformed Desired Download Date: {}", formattedDownloadDate);
+            downloadDate = LocalDate.parse(desiredDownloadDate); // Assuming the input is in ISO-8601 format (yyyy-MM-dd)
         } catch (DateTimeParseException e) {
             logger.error("Invalid date format for Desired Download Date: {}", desiredDownloadDate);
             return ResponseEntity.badRequest().body("Invalid date format. Expected format: yyyy-MM-dd.".getBytes());
         }
 
         // Fetch the orders
-        List<Order> orders = orderService.getOrdersByExpectedDelivery(formattedDownloadDate);
+        List<Order> orders = orderService.getDeliveryList(downloadDate);
         if (orders.isEmpty()) {
-            logger.warn("No orders found for the date: {}", formattedDownloadDate);
+            logger.warn("No orders found for the date: {}", downloadDate);
         } else {
             logger.info("Number of orders fetched: {}", orders.size());
             orders.forEach(order -> logger.info("Fetched Order: {}", order)); // Ensure `Order` has a meaningful `toString` method
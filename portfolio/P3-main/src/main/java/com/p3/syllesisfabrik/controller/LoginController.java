@@ -1,9 +1,13 @@
 package com.p3.syllesisfabrik.controller;
 
 import com.p3.syllesisfabrik.model.UserLogin; // Importing the UserLogin model to interact with user login data in the database.
+import com.p3.syllesisfabrik.service.LoginThrottleService;
 import com.p3.syllesisfabrik.service.UserLoginService; // Service for interacting with UserLoginRepository to manage user data.
 import com.p3.syllesisfabrik.util.JwtUtil; // Utility class for generating and validating JWT tokens.
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired; // Autowired annotation for injecting dependencies automatically.
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller; // Marks this class as a Spring MVC controller that handles HTTP requests.
 import org.springframework.ui.Model; // Model is used to pass data from controller to the view (HTML pages).
 import org.springframework.web.bind.annotation.*; // Importing Spring annotations to handle HTTP requests (GET and POST).
@@ -23,6 +27,9 @@ public class LoginController {
     @Autowired // Automatically injects JwtUtil for generating and validating JWT tokens.
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private LoginThrottleService loginThrottleService;
+
     // GET method for rendering the login page.
     @GetMapping
     public String showLoginPage() {
@@ -36,8 +43,17 @@ public class LoginController {
 
     // POST method to validate the login code entered by the user.
     @PostMapping("/validate")
-    public String validateLogin(@RequestParam String loginCode, Model model) {
-        logger.info("Received login code: " + loginCode);
+    public String validateLogin(@RequestParam String loginCode, Model model,
+                                HttpServletRequest request, HttpServletResponse response) {
+        // Guesses over the limit are turned away before the code is looked up
+        String clientAddress = request.getRemoteAddr();
+        if (!loginThrottleService.tryAttempt(clientAddress, loginCode)) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            model.addAttribute("error", "Too many login attempts. Please try again in "
+                    + loginThrottleService.getRetryAfterMinutes() + " minutes.");
+            return "login";
+        }
+        logger.info("Received login attempt from " + clientAddress);
 
         // Check if the login code matches the hardcoded admin passcode.
         if (ADMIN_PASSCODE.equals(loginCode)) {
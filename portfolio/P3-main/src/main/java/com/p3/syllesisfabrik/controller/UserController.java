@@ -1,5 +1,6 @@
 package com.p3.syllesisfabrik.controller;
 
+import com.p3.syllesisfabrik.config.AssetVersion;
 import com.p3.syllesisfabrik.model.CartItem;
 import com.p3.syllesisfabrik.model.MenuItem;
 import com.p3.syllesisfabrik.model.UserLogin;
@@ -8,16 +9,20 @@ import com.p3.syllesisfabrik.service.*;
 import com.p3.syllesisfabrik.util.JwtUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/user")
@@ -40,9 +45,21 @@ public class UserController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private AssetVersion assetVersion;
+
+    // Lets browsers revalidate the order page with ETag/Last-Modified instead of re-downloading it
+    @Value("${catalog.http-caching.enabled:true}")
+    private boolean catalogHttpCaching;
 
     //contoller/UserController.java Snippet Start
     private String validateToken(String token, Model model) {
@@ -103,21 +120,31 @@ public class UserController {
     }
 
     @GetMapping("/place/order")
-    public String renderPlaceOrderPage(@RequestParam("token") String token, Model model) {
+    public String renderPlaceOrderPage(@RequestParam("token") String token, Model model,
+                                       WebRequest webRequest, HttpServletResponse response) {
         String companyName = validateToken(token, model);
         if (companyName == null) {
             return "login"; // Redirect to login if token is invalid
         }
 
-        logger.info("Rendering place_order page for: " + companyName);
+        MenuItemService.CatalogSnapshot catalog = menuItemService.getCatalog();
 
-        List<MenuItem> menuItems = menuItemService.findAll();
-        menuItems.forEach(menuItem -> {
-            if (menuItem.getImagePaths() != null && menuItem.getImagePaths().isEmpty()) {
-                menuItem.setImagePaths(null); // Set to null if empty
+        // Flash messages are shown once, so pages carrying one are never answered with 304
+        boolean hasFlashMessage = model.containsAttribute("error") || model.containsAttribute("message");
+        if (catalogHttpCaching && !hasFlashMessage) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+            // The asset version keeps pages linking CSS and JS of an earlier deploy from being reused
+            String etag = "W/\"" + catalog.getEtag() + "-" + assetVersion.get() + "-"
+                    + Integer.toHexString(companyName.hashCode()) + "\"";
+            if (webRequest.checkNotModified(etag, catalog.getLastModified().toEpochMilli())) {
+                logger.debug("place_order page not modified for: {}", companyName);
+                return null; // 304 Not Modified, the browser reuses its copy
             }
-        });
-        model.addAttribute("menuItems", menuItems);
+        }
+
+        logger.info("Rendering place_order page for: " + companyName);
+
+        model.addAttribute("menuItems", catalog.getMenuItems());
         model.addAttribute("companyName", companyName);
         model.addAttribute("token", token);
 
@@ -150,7 +177,7 @@ public class UserController {
             return "redirect:/user/place/order?token=" + token;
         }
 
-        Optional<MenuItem> menuItemOptional = menuItemService.findById(menuItemId);
+        Optional<MenuItem> menuItemOptional = menuItemService.findCatalogItem(menuItemId);
         if (!menuItemOptional.isPresent()) {
             redirectAttributes.addFlashAttribute("error", "Menu item not found.");
             return "redirect:/user/place/order?token=" + token;
@@ -158,24 +185,14 @@ public class UserController {
 
         MenuItem menuItem = menuItemOptional.get();
 
-        // Find cart items where the company has the menu item and ordered = false
-        List<CartItem> existingCartItems = cartItemService.findItemsByCompanyAndMenuItemAndOrderedFalse(company, menuItem);
-        double currentCartQuantity = existingCartItems.stream().mapToDouble(CartItem::getDesiredQuantity).sum();
-        double totalDesiredQuantity = currentCartQuantity + desiredQuantity;
-
-        // Check if total quantity exceeds available stock
-        if (totalDesiredQuantity > menuItem.getQuantity()) {
-            redirectAttributes.addFlashAttribute("error", "You already have " + menuItem.getTitle() + " in your cart. Adding this quantity would exceed the available stock.");
+        // One line per flavour: the open line is created or incremented together with the stock check
+        try {
+            cartItemService.addToCart(company, menuItem, desiredQuantity);
+        } catch (CartItemService.StockLimitExceededException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
             return "redirect:/user/place/order?token=" + token;
         }
 
-        // Calculate total cost
-        double totalCost = desiredQuantity * menuItem.getPricePerLiter();
-
-        // Create and save the CartItem with a reference to the company
-        CartItem cartItem = new CartItem(menuItem, company, desiredQuantity, totalCost);
-        cartItemService.save(cartItem);
-
         // Success message
         redirectAttributes.addFlashAttribute("message",  menuItem.getTitle() + " variant added to cart successfully!");
 
@@ -199,23 +216,22 @@ public class UserController {
             return "order_history";
         }
 
-        // Fetch all orders
-        List<Order> allCurrentOrders = orderService.fetchCurrentOrders();
-        List<Order> allUnshippedOrders = orderService.fetchReadyToBeShippedOrders();
-        List<Order> allDeliveredOrders = orderService.fetchCustomerCompletedOrders();
+        // Only this company's orders, read with the columns the history shows
+        List<Order> orders = orderService.getOrderHistory(company);
 
-        // Filter orders by company name
-        List<Order> currentOrders = allCurrentOrders.stream()
-                .filter(order -> order.getCompany().getCompanyName().equalsIgnoreCase(companyName))
+        List<Order> currentOrders = orders.stream()
+                .filter(Order::isProcessing)
                 .toList();
 
-        List<Order> unshippedOrders = allUnshippedOrders.stream()
-                .filter(order -> order.getCompany().getCompanyName().equalsIgnoreCase(companyName))
+        List<Order> unshippedOrders = orders.stream()
+                .filter(order -> order.isApproved() && !order.isShipped())
                 .toList();
 
-        List<Order> deliveredOrders = allDeliveredOrders.stream()
-                .filter(order -> order.getCompany().getCompanyName().equalsIgnoreCase(companyName))
-                .toList();
+        // Archived orders are older than every delivered order still live, so they come first
+        List<Order> deliveredOrders = new ArrayList<>(orderArchiveService.getOrderHistory(company));
+        orders.stream()
+                .filter(order -> order.isApproved() && order.isShipped())
+                .forEach(deliveredOrders::add);
 
         // Add data to the model
         model.addAttribute("companyName", companyName);
@@ -309,27 +325,6 @@ public class UserController {
             return "redirect:/user/edit/profile?token=" + token;
         }
 
-        // Check for uniqueness of companyCVR, companyEmail, companyName, phoneNumber, and loginCode
-        if (userLoginService.existsByCompanyCVRAndIdNot(companyCVR, company.getId())) {
-            redirectAttributes.addFlashAttribute("error", "Company CVR already exists.");
-            return "redirect:/user/edit/profile?token=" + token;
-        }
-
-        if (userLoginService.existsByCompanyEmailAndIdNot(companyEmail, company.getId())) {
-            redirectAttributes.addFlashAttribute("error", "Company email already exists.");
-            return "redirect:/user/edit/profile?token=" + token;
-        }
-
-        if (userLoginService.existsByCompanyNameAndIdNot(companyName, company.getId())) {
-            redirectAttributes.addFlashAttribute("error", "Company name already exists.");
-            return "redirect:/user/edit/profile?token=" + token;
-        }
-
-        if (userLoginService.existsByPhoneNumberAndIdNot(phoneNumber, company.getId())) {
-            redirectAttributes.addFlashAttribute("error", "Phone number already exists.");
-            return "redirect:/user/edit/profile?token=" + token;
-        }
-
         // Update the company's profile
         try {
             company.setCompanyCVR(companyCVR);
@@ -341,10 +336,14 @@ public class UserController {
             company.setPostcode(postcode);
             company.setCity(city);
 
-            // Save the updated company profile
+            // Save the updated company profile; unique indexes reject values used by another company
             userLoginService.saveUser(company);
 
             redirectAttributes.addFlashAttribute("message", "Profile updated successfully.");
+        } catch (UserLoginService.DuplicateCompanyException e) {
+            redirectAttributes.addFlashAttribute("error", e.getConflicts().stream()
+                    .map(field -> field.getLabel() + " already exists.")
+                    .collect(Collectors.joining(" ")));
         } catch (Exception e) {
             logger.error("Error updating profile for company: " + validatedCompanyName, e);
             redirectAttributes.addFlashAttribute("error", "Failed to update profile: " + e.getMessage());
@@ -371,7 +370,7 @@ public class UserController {
             return "place_order";
         }
 
-        List<CartItem> cartItems = cartItemService.findUnorderedItemsByCompany(company);
+        List<CartItem> cartItems = cartItemService.findCartLines(company);
 
         model.addAttribute("cartItems", cartItems);
         model.addAttribute("companyName", companyName);
@@ -381,7 +380,7 @@ public class UserController {
     }
 
     @PostMapping("/remove-from-cart")
-    public String removeFromCart(@RequestParam("cartItemId") String cartItemId,
+    public String removeFromCart(@RequestParam("menuItemId") String menuItemId,
                                  @RequestParam("token") String token,
                                  Model model) {
 
@@ -390,9 +389,12 @@ public class UserController {
             return "login"; // Redirect to login if token is invalid
         }
 
-        cartItemService.deleteById(cartItemId);
-
-        logger.info("Removed item from cart: " + cartItemId + " for company: " + companyName);
+        UserLogin company = userLoginService.findByCompanyName(companyName);
+        if (company != null) {
+            // Only the company's own cart is touched
+            cartItemService.removeFromCart(company, menuItemId);
+            logger.info("Removed item from cart: " + menuItemId + " for company: " + companyName);
+        }
 
         // Redirect back to the view cart page
         return "redirect:/user/view-cart?token=" + token;
@@ -413,49 +415,21 @@ public class UserController {
             return "view_cart";
         }
 
-        // Get all unordered items (where isOrdered is false) in the cart for this user
-        List<CartItem> cartItems = cartItemService.findUnorderedItemsByCompany(userLogin);
-
-        // Check if cart items are empty (i.e., no unordered items)
-        if (cartItems.isEmpty()) {
-            // If there are no unordered items, redirect back to the cart page with an error message
-            redirectAttributes.addFlashAttribute("error", "No order made. Cart is empty.");
+        // Moves the cart lines into a new order and empties the cart in one transaction,
+        // reserving stock for the whole order on the way
+        Order order;
+        try {
+            order = checkoutService.checkout(userLogin);
+        } catch (CheckoutService.EmptyCartException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+            return "redirect:/user/view-cart?token=" + token;
+        } catch (StockReservationService.InsufficientStockException e) {
+            redirectAttributes.addFlashAttribute("error", "Not enough stock available for " + e.getMenuItemTitle() + ". Please adjust your cart.");
             return "redirect:/user/view-cart?token=" + token;
         }
 
-        // Calculate the total cost of the order
-        double totalOrderCost = cartItems.stream().mapToDouble(CartItem::getTotalCost).sum();
-
-        // Create a new Order object with the user's information
-        Order order = new Order();
-        order.setCompany(userLogin); // Using UserLogin object for company information
-        order.setCartItems(cartItems);
-        order.setTotalPrice(totalOrderCost);
-
-        // Get current time and format it before saving
-        LocalDateTime currentDateTime = LocalDateTime.now();
-        order.setOrderDate(currentDateTime);  // Store raw LocalDateTime in the database
-
-        // Format the date for display
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-        String formattedDate = currentDateTime.format(formatter);
-        order.setFormattedOrderDate(formattedDate);  // Store formatted date as a string for frontend display
-
-        // Set other fields
-        order.setApproved(false);
-        order.setProcessing(true);
-        order.setShipped(false);
-        order.setInvoiced(false);
-        order.setExpectedDeliveryDate("Unknown");
-
-        // Save the order with both raw and formatted date
-        orderService.save(order);
-
-        // Update cart items to mark them as ordered
-        cartItemService.updateOrderedStatus(cartItems, true);
-
         // Send an order confirmation email to the company
-        emailService.sendOrderProcessingEmail(userLogin.getCompanyEmail(), cartItems, totalOrderCost);
+        emailService.sendOrderProcessingEmail(userLogin.getCompanyEmail(), order.getCartItems(), order.getTotalPrice());
 
         model.addAttribute("success", "Order placed successfully!");
         return "order_confirmation";
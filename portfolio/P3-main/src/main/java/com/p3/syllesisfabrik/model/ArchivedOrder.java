@@ -0,0 +1,128 @@
+package com.p3.syllesisfabrik.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// An invoiced order moved out of the orders collection once it is old enough, see
+// OrderArchiveService. Keeps the ID of the order and a copy of the company and flavour
+// details it showed, so it can be read without the referenced documents.
+@Document(collection = "ordersArchive")
+public class ArchivedOrder {
+
+    @Id
+    private String id;
+    private String companyId;
+    private String companyName;
+    private String companyCVR;
+    private String companyEmail;
+    private LocalDateTime orderDate;
+    private LocalDate expectedDelivery;
+    private LocalDateTime deliveredAt;
+    private LocalDateTime invoicedAt;
+    private double totalPrice;
+    private List<ArchivedOrderLine> lines;
+    private LocalDateTime archivedAt;
+
+    public ArchivedOrder() {}
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getCompanyId() {
+        return companyId;
+    }
+
+    public void setCompanyId(String companyId) {
+        this.companyId = companyId;
+    }
+
+    public String getCompanyName() {
+        return companyName;
+    }
+
+    public void setCompanyName(String companyName) {
+        this.companyName = companyName;
+    }
+
+    public String getCompanyCVR() {
+        return companyCVR;
+    }
+
+    public void setCompanyCVR(String companyCVR) {
+        this.companyCVR = companyCVR;
+    }
+
+    public String getCompanyEmail() {
+        return companyEmail;
+    }
+
+    public void setCompanyEmail(String companyEmail) {
+        this.companyEmail = companyEmail;
+    }
+
+    public LocalDateTime getOrderDate() {
+        return orderDate;
+    }
+
+    public void setOrderDate(LocalDateTime orderDate) {
+        this.orderDate = orderDate;
+    }
+
+    public LocalDate getExpectedDelivery() {
+        return expectedDelivery;
+    }
+
+    public void setExpectedDelivery(LocalDate expectedDelivery) {
+        this.expectedDelivery = expectedDelivery;
+    }
+
+    public LocalDateTime getDeliveredAt() {
+        return deliveredAt;
+    }
+
+    public void setDeliveredAt(LocalDateTime deliveredAt) {
+        this.deliveredAt = deliveredAt;
+    }
+
+    public LocalDateTime getInvoicedAt() {
+        return invoicedAt;
+    }
+
+    public void setInvoicedAt(LocalDateTime invoicedAt) {
+        this.invoicedAt = invoicedAt;
+    }
+
+    public double getTotalPrice() {
+        return totalPrice;
+    }
+
+    public void setTotalPrice(double totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+
+    public List<ArchivedOrderLine> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<ArchivedOrderLine> lines) {
+        this.lines = lines;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+}
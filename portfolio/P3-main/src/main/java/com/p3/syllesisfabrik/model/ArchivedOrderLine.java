@@ -0,0 +1,63 @@
+package com.p3.syllesisfabrik.model;
+
+// A line of an archived order. The flavour title and price are copied in when the order is
+// archived, so the line still reads the same after the flavour is changed or deleted.
+public class ArchivedOrderLine {
+
+    private String menuItemId;
+    private String title;
+    private double pricePerLiter;
+    private int desiredQuantity;
+    private double totalCost;
+
+    public ArchivedOrderLine() {}
+
+    public ArchivedOrderLine(String menuItemId, String title, double pricePerLiter, int desiredQuantity, double totalCost) {
+        this.menuItemId = menuItemId;
+        this.title = title;
+        this.pricePerLiter = pricePerLiter;
+        this.desiredQuantity = desiredQuantity;
+        this.totalCost = totalCost;
+    }
+
+    // Getters and Setters
+    public String getMenuItemId() {
+        return menuItemId;
+    }
+
+    public void setMenuItemId(String menuItemId) {
+        this.menuItemId = menuItemId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public double getPricePerLiter() {
+        return pricePerLiter;
+    }
+
+    public void setPricePerLiter(double pricePerLiter) {
+        this.pricePerLiter = pricePerLiter;
+    }
+
+    public int getDesiredQuantity() {
+        return desiredQuantity;
+    }
+
+    public void setDesiredQuantity(int desiredQuantity) {
+        this.desiredQuantity = desiredQuantity;
+    }
+
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    public void setTotalCost(double totalCost) {
+        this.totalCost = totalCost;
+    }
+}
@@ -0,0 +1,46 @@
+package com.p3.syllesisfabrik.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// The open cart of a company, one document per company with the lines embedded.
+// Keyed by the company ID, so adding, removing and checking out each touch one document.
+@Document(collection = "carts")
+public class Cart {
+
+    @Id
+    private String id; // Company ID
+    private List<CartItem> lines = new ArrayList<>(); // One line per flavour
+    private LocalDateTime updatedAt;
+
+    public Cart() {}
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public List<CartItem> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<CartItem> lines) {
+        this.lines = lines;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
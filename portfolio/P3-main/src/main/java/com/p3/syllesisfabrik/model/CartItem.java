@@ -2,11 +2,10 @@ package com.p3.syllesisfabrik.model;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.DBRef;
-import org.springframework.data.mongodb.core.mapping.Document;
-import com.p3.syllesisfabrik.repository.CartItemRepository;
-import java.util.List;
+
 //model/CartItem.java Snippet Start
-@Document(collection = "cartItems")
+// A line of a cart or an order. Embedded in the Cart of a company while it is open and moved
+// into the Order at checkout, so lines are never stored as documents of their own.
 public class CartItem {
 
     @Id
@@ -21,6 +20,10 @@ public class CartItem {
     private int desiredQuantity; // Quantity of the item that the company wishes to order
     private double totalCost; // Calculated total cost based on desired quantity and price per liter
     private boolean ordered = false; // Flag to indicate if the cart item has been ordered
+    // Plain copies of the referenced ids. A cart has one line per flavour, matched on menuItemId,
+    // and orders containing a flavour are found by it.
+    private String companyId;
+    private String menuItemId;
 
     public CartItem() {}
 
@@ -29,6 +32,8 @@ public class CartItem {
         this.company = company;
         this.desiredQuantity = desiredQuantity;
         this.totalCost = totalCost;
+        this.companyId = company != null ? company.getId() : null;
+        this.menuItemId = menuItem != null ? menuItem.getId() : null;
     }
 
     //model/CartItem.java Snippet End
@@ -47,6 +52,7 @@ public class CartItem {
 
     public void setMenuItem(MenuItem menuItem) {
         this.menuItem = menuItem;
+        this.menuItemId = menuItem != null ? menuItem.getId() : null;
     }
 
     public UserLogin getCompany() {
@@ -55,6 +61,7 @@ public class CartItem {
 
     public void setCompany(UserLogin company) {
         this.company = company;
+        this.companyId = company != null ? company.getId() : null;
     }
 
     public int getDesiredQuantity() {
@@ -81,5 +88,19 @@ public class CartItem {
         this.ordered = ordered;
     }
 
+    public String getCompanyId() {
+        return companyId;
+    }
+
+    public void setCompanyId(String companyId) {
+        this.companyId = companyId;
+    }
 
+    public String getMenuItemId() {
+        return menuItemId;
+    }
+
+    public void setMenuItemId(String menuItemId) {
+        this.menuItemId = menuItemId;
+    }
 }
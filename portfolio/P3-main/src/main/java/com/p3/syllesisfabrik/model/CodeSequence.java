@@ -0,0 +1,45 @@
+package com.p3.syllesisfabrik.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.List;
+
+// Counter behind the 6-digit login codes. Each allocation increments `next` and the
+// value is run through a keyed permutation, so codes look random but never repeat.
+// The keys are drawn once from SecureRandom when the sequence is first created.
+@Document(collection = "sequences")
+public class CodeSequence {
+
+    @Id
+    private String id;
+    private long next; // Number of codes handed out so far
+    private List<Long> keys; // Round keys of the permutation
+
+    public CodeSequence() {}
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getNext() {
+        return next;
+    }
+
+    public void setNext(long next) {
+        this.next = next;
+    }
+
+    public List<Long> getKeys() {
+        return keys;
+    }
+
+    public void setKeys(List<Long> keys) {
+        this.keys = keys;
+    }
+}
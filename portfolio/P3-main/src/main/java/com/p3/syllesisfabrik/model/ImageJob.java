@@ -0,0 +1,137 @@
+package com.p3.syllesisfabrik.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// A menu item image waiting for its renditions to be generated in the background.
+// Persisted so uploads that were accepted are still processed after a restart.
+@Document(collection = "imageJobs")
+public class ImageJob {
+
+    public enum Status { PENDING, PROCESSING, DONE, FAILED }
+
+    @Id
+    private String id;
+    private String menuItemId;
+    private String stagedFile; // Uploaded original on disk, deleted when the job finishes
+    private String originalFilename;
+    private String hash; // SHA-256 of the original, names the renditions
+    private String placeholderPath; // Entry in MenuItem.imagePaths until the renditions exist
+    private String resultPath;
+    private Status status;
+    private int attempts;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public ImageJob() {}
+
+    public ImageJob(String menuItemId, String stagedFile, String originalFilename, String hash) {
+        this.menuItemId = menuItemId;
+        this.stagedFile = stagedFile;
+        this.originalFilename = originalFilename;
+        this.hash = hash;
+        this.status = Status.PENDING;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getMenuItemId() {
+        return menuItemId;
+    }
+
+    public void setMenuItemId(String menuItemId) {
+        this.menuItemId = menuItemId;
+    }
+
+    public String getStagedFile() {
+        return stagedFile;
+    }
+
+    public void setStagedFile(String stagedFile) {
+        this.stagedFile = stagedFile;
+    }
+
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    public void setOriginalFilename(String originalFilename) {
+        this.originalFilename = originalFilename;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public String getPlaceholderPath() {
+        return placeholderPath;
+    }
+
+    public void setPlaceholderPath(String placeholderPath) {
+        this.placeholderPath = placeholderPath;
+    }
+
+    public String getResultPath() {
+        return resultPath;
+    }
+
+    public void setResultPath(String resultPath) {
+        this.resultPath = resultPath;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
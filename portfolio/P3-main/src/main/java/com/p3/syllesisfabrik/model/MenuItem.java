@@ -3,6 +3,7 @@ package com.p3.syllesisfabrik.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.LocalDateTime;
 import java.util.List;
     //model/MenuItem.java Snippet Start
 @Document(collection = "menuItems")
@@ -17,6 +18,9 @@ public class MenuItem {
     private boolean isAvailable;
     private double pricePerLiter;
     private List<String> imagePaths; // Use List<String> for image paths
+    private List<StockReservation> pendingReservations; // Stock held for orders awaiting approval
+    private boolean archived; // Removed from the menu but kept so old orders still show the flavour
+    private LocalDateTime archivedAt;
 
     // Default constructor
     public MenuItem() {
@@ -102,4 +106,28 @@ public class MenuItem {
     public void setImagePaths(List<String> imagePaths) {
         this.imagePaths = imagePaths;
     }
+
+    public List<StockReservation> getPendingReservations() {
+        return pendingReservations;
+    }
+
+    public void setPendingReservations(List<StockReservation> pendingReservations) {
+        this.pendingReservations = pendingReservations;
+    }
+
+    public boolean isArchived() {
+        return archived;
+    }
+
+    public void setArchived(boolean archived) {
+        this.archived = archived;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
 }
@@ -0,0 +1,78 @@
+package com.p3.syllesisfabrik.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+// Revenue, order count and flavours sold of the archived orders placed in one month.
+// Recomputed from the archive whenever orders are archived or purged, see SalesSummaryService.
+@Document(collection = "salesMonthly")
+public class MonthlySales {
+
+    @Id
+    private String id; // The month as yyyy-MM, see keyOf
+    private LocalDate month; // First day of the month
+    private double revenue;
+    private long orders;
+    private List<String> flavours;
+    private LocalDateTime updatedAt;
+
+    public MonthlySales() {}
+
+    public static String keyOf(YearMonth month) {
+        return month.toString();
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public LocalDate getMonth() {
+        return month;
+    }
+
+    public void setMonth(LocalDate month) {
+        this.month = month;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(double revenue) {
+        this.revenue = revenue;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public void setOrders(long orders) {
+        this.orders = orders;
+    }
+
+    public List<String> getFlavours() {
+        return flavours;
+    }
+
+    public void setFlavours(List<String> flavours) {
+        this.flavours = flavours;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -1,9 +1,11 @@
 package com.p3.syllesisfabrik.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -12,14 +14,17 @@ import java.util.List;
 @Document(collection = "orders")
 public class Order {
 
+    private static final DateTimeFormatter ORDER_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final DateTimeFormatter DELIVERY_DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yy");
+    private static final DateTimeFormatter DELIVERED_DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yy HH:mm:ss");
+
     @Id
     private String id;
 
     @DBRef
     private UserLogin company;
 
-    @DBRef
-    private List<CartItem> cartItems;
+    private List<CartItem> cartItems; // Embedded lines, moved here from the cart at checkout
 
     private double totalPrice;
     private LocalDateTime orderDate; // Raw LocalDateTime for database
@@ -27,15 +32,17 @@ public class Order {
     private boolean isProcessing;
     private boolean isShipped;
     private boolean isInvoiced;
-    private String formattedOrderDate; // Formatted date as a string for display
 
-    // New field for expected delivery date
-    private String expectedDeliveryDate;  // New field for expected delivery date
-    private String deliveredDate;
+    // Stored as dates so deliveries can be queried by range; the display strings are derived below
+    private LocalDate expectedDelivery; // Set when the order is approved
+    private LocalDateTime deliveredAt; // Set when the order is shipped
+    private LocalDateTime invoicedAt; // Set when the order is invoiced; old invoiced orders move to the archive
+    private boolean stockReserved; // True while stock for this order is held on the menu items
+    private LocalDateTime lastModified; // Set by every write, the watermark of the incremental export
     // Constructors
     public Order() {}
 
-    public Order(UserLogin company, List<CartItem> cartItems, double totalPrice, LocalDateTime orderDate, boolean isApproved, boolean isProcessing, boolean isShipped, boolean isInvoiced, String expectedDeliveryDate, String deliveredDate) {
+    public Order(UserLogin company, List<CartItem> cartItems, double totalPrice, LocalDateTime orderDate, boolean isApproved, boolean isProcessing, boolean isShipped, boolean isInvoiced, LocalDate expectedDelivery, LocalDateTime deliveredAt) {
         this.company = company;
         this.cartItems = cartItems;
         this.totalPrice = totalPrice;
@@ -44,9 +51,8 @@ public class Order {
         this.isProcessing = isProcessing;
         this.isShipped = isShipped;
         this.isInvoiced = isInvoiced;
-        this.formattedOrderDate = orderDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")); // Format date for display
-        this.expectedDeliveryDate = expectedDeliveryDate; // Initialize expected delivery date
-        this.deliveredDate = deliveredDate;
+        this.expectedDelivery = expectedDelivery;
+        this.deliveredAt = deliveredAt;
     }
     //model/order.java Snippet End
 
@@ -89,8 +95,6 @@ public class Order {
 
     public void setOrderDate(LocalDateTime orderDate) {
         this.orderDate = orderDate;
-        // Format and store the date as a string after it's set
-        this.formattedOrderDate = orderDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
     }
 
     public boolean isApproved() {
@@ -118,23 +122,40 @@ public class Order {
     }
     public boolean isInvoiced() {return isInvoiced;}
     public void setInvoiced(boolean invoiced) {isInvoiced = invoiced;}
-    public String getFormattedOrderDate() {
-        return formattedOrderDate;
-    }
 
-    public void setFormattedOrderDate(String formattedOrderDate) {
-        this.formattedOrderDate = formattedOrderDate;
+    public LocalDate getExpectedDelivery() {return expectedDelivery;}
+
+    public void setExpectedDelivery(LocalDate expectedDelivery) {this.expectedDelivery = expectedDelivery;}
+
+    public LocalDateTime getDeliveredAt() {return deliveredAt;}
+
+    public void setDeliveredAt(LocalDateTime deliveredAt) {this.deliveredAt = deliveredAt;}
+
+    public LocalDateTime getInvoicedAt() {return invoicedAt;}
+
+    public void setInvoicedAt(LocalDateTime invoicedAt) {this.invoicedAt = invoicedAt;}
+
+    // Display formats used by the templates, emails and the CSV export
+    @Transient
+    public String getFormattedOrderDate() {
+        return orderDate != null ? orderDate.format(ORDER_DATE_FORMAT) : null;
     }
 
+    @Transient
     public String getExpectedDeliveryDate() {
-        return expectedDeliveryDate;
+        return expectedDelivery != null ? expectedDelivery.format(DELIVERY_DATE_FORMAT) : "Unknown";
     }
 
-    public void setExpectedDeliveryDate(String expectedDeliveryDate) {
-        this.expectedDeliveryDate = expectedDeliveryDate;
+    @Transient
+    public String getDeliveredDate() {
+        return deliveredAt != null ? deliveredAt.format(DELIVERED_DATE_FORMAT) : null;
     }
 
-    public String getDeliveredDate() {return deliveredDate;}
+    public boolean isStockReserved() {return stockReserved;}
+
+    public void setStockReserved(boolean stockReserved) {this.stockReserved = stockReserved;}
+
+    public LocalDateTime getLastModified() {return lastModified;}
 
-    public void setDeliveredDate(String deliveredDate) {this.deliveredDate = deliveredDate;}
+    public void setLastModified(LocalDateTime lastModified) {this.lastModified = lastModified;}
 }
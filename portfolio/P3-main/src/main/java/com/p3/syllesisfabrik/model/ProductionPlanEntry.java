@@ -0,0 +1,75 @@
+package com.p3.syllesisfabrik.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+
+// Litres of one flavour due on one delivery day across all approved, unshipped orders.
+// Kept up to date with $inc as orders are approved, shipped or deleted.
+@Document(collection = "productionPlan")
+public class ProductionPlanEntry {
+
+    @Id
+    private String id; // Delivery date and menu item ID, see keyOf
+    private LocalDate deliveryDate;
+    private String menuItemId;
+    private long litres;
+    private long orders; // Number of orders with a line for this flavour on this day
+    private long reservedLitres; // Litres already taken from the flavour's stock for these orders
+
+    public ProductionPlanEntry() {}
+
+    public static String keyOf(LocalDate deliveryDate, String menuItemId) {
+        return deliveryDate + ":" + menuItemId;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public LocalDate getDeliveryDate() {
+        return deliveryDate;
+    }
+
+    public void setDeliveryDate(LocalDate deliveryDate) {
+        this.deliveryDate = deliveryDate;
+    }
+
+    public String getMenuItemId() {
+        return menuItemId;
+    }
+
+    public void setMenuItemId(String menuItemId) {
+        this.menuItemId = menuItemId;
+    }
+
+    public long getLitres() {
+        return litres;
+    }
+
+    public void setLitres(long litres) {
+        this.litres = litres;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public void setOrders(long orders) {
+        this.orders = orders;
+    }
+
+    public long getReservedLitres() {
+        return reservedLitres;
+    }
+
+    public void setReservedLitres(long reservedLitres) {
+        this.reservedLitres = reservedLitres;
+    }
+}
@@ -0,0 +1,33 @@
+package com.p3.syllesisfabrik.model;
+
+// Stock held on a MenuItem for an order that has been placed but not yet approved.
+// Embedded in the menu item so the reservation and the stock change happen in one atomic update.
+public class StockReservation {
+
+    private String orderId;
+    private int quantity;
+
+    public StockReservation() {}
+
+    public StockReservation(String orderId, int quantity) {
+        this.orderId = orderId;
+        this.quantity = quantity;
+    }
+
+    // Getters and Setters
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -2,6 +2,8 @@ package com.p3.syllesisfabrik.model;
 
 import org.springframework.data.annotation.Id; // Annotation that marks this field as the unique identifier for the MongoDB document.
 import org.springframework.data.mongodb.core.mapping.Document; // Indicates that this class is a MongoDB document.
+
+import java.time.LocalDateTime;
     //model/UserLogin.java Snippet Start
 @Document(collection = "userLogins") // Specifies that this class represents a document in the MongoDB collection named "userLogins".
 public class UserLogin {
@@ -20,6 +22,8 @@ public class UserLogin {
     private String streetNumber; // New field for street number
     private String postcode; // New field for postcode
     private String city; // New field for city
+    private boolean archived; // Deleted company kept for its order history; it can no longer log in
+    private LocalDateTime archivedAt;
     // Default constructor, required by frameworks such as Spring when instantiating objects.
     public UserLogin() {}
 
@@ -118,4 +122,10 @@ public class UserLogin {
     public void setToken(String token) {
         this.jwtToken = token;
     }
+
+    public boolean isArchived() { return archived; }
+    public void setArchived(boolean archived) { this.archived = archived; }
+
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+    public void setArchivedAt(LocalDateTime archivedAt) { this.archivedAt = archivedAt; }
 }
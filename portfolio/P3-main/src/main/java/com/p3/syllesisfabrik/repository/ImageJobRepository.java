@@ -0,0 +1,22 @@
+package com.p3.syllesisfabrik.repository;
+
+import com.p3.syllesisfabrik.model.ImageJob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImageJobRepository extends MongoRepository<ImageJob, String> {
+    // Jobs that still need a worker
+    List<ImageJob> findByStatusAndUpdatedAtBefore(ImageJob.Status status, LocalDateTime updatedAt);
+
+    List<ImageJob> findByStatusIn(Collection<ImageJob.Status> statuses);
+
+    Optional<ImageJob> findByPlaceholderPath(String placeholderPath);
+
+    void deleteByStatusInAndUpdatedAtBefore(Collection<ImageJob.Status> statuses, LocalDateTime updatedAt);
+}
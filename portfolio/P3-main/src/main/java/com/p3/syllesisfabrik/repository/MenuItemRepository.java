@@ -2,8 +2,10 @@ package com.p3.syllesisfabrik.repository;
 
 import com.p3.syllesisfabrik.model.MenuItem;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +16,8 @@ public interface MenuItemRepository extends MongoRepository<MenuItem, String> {
     List<MenuItem> findByTitleContainingIgnoreCase(String title);
     // Find by exact title (case-insensitive)
     Optional<MenuItem> findByTitleIgnoreCase(String title);
+
+    // Title and price of the flavours on a list of orders, without images, allergens or reservations
+    @Query(value = "{ '_id': { '$in': ?0 } }", fields = "{ 'title': 1, 'pricePerLiter': 1 }")
+    List<MenuItem> findSummariesByIdIn(Collection<String> ids);
 }
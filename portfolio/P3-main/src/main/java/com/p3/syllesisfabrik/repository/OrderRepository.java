@@ -6,6 +6,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -28,9 +29,21 @@ public interface OrderRepository extends MongoRepository<Order, String> {
 
 
 
-    List<Order> findByExpectedDeliveryDateAndIsApprovedTrueAndIsProcessingFalseAndIsShippedFalse(String expectedDeliveryDate);
+    List<Order> findByExpectedDeliveryAndIsApprovedTrueAndIsProcessingFalseAndIsShippedFalse(LocalDate expectedDelivery);
 
 
 
     List<Order> findAllByIsApprovedTrueAndIsProcessingFalseAndIsShippedTrueAndIsInvoicedTrue();
+
+    // Columns of the order lists. The company and flavour references are left out so they are not
+    // resolved once per order and line; OrderService looks them up for the whole list at once.
+    String LIST_FIELDS = "{ 'orderDate': 1, 'expectedDelivery': 1, 'deliveredAt': 1, 'totalPrice': 1, "
+            + "'isProcessing': 1, 'isApproved': 1, 'isShipped': 1, 'isInvoiced': 1, "
+            + "'cartItems.menuItemId': 1, 'cartItems.desiredQuantity': 1, 'cartItems.totalCost': 1 }";
+
+    // Pending, approved and shipped orders of one company, for its order history. Disapproved orders are not listed.
+    @Query(value = "{ 'company.$id': ?0, '$or': [ { 'isProcessing': true, 'isApproved': false, 'isShipped': false }, "
+            + "{ 'isApproved': true, 'isProcessing': false } ] }",
+            fields = LIST_FIELDS, sort = "{ 'orderDate': 1 }")
+    List<Order> findHistoryByCompanyId(Object companyId);
 }
@@ -2,6 +2,9 @@ package com.p3.syllesisfabrik.repository;
 
 import com.p3.syllesisfabrik.model.UserLogin; // Importing the UserLogin model to manage UserLogin entities.
 import org.springframework.data.mongodb.repository.MongoRepository; // MongoRepository provides standard CRUD operations for MongoDB.
+import org.springframework.data.mongodb.repository.Query;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional; // Optional is used to handle cases where the result may or may not be present.
 
 // Repository interface for managing UserLogin entities in MongoDB
@@ -9,6 +12,8 @@ public interface UserLoginRepository extends MongoRepository<UserLogin, String>
 
     //spring.data.mongodb make queries to the mongodb by itself based on naming and parameters
     //Query derivation is it called
+    // The lookups by name and email skip archived companies, whose details a new company may reuse
+    @Query("{ 'companyName': ?0, 'archived': { '$ne': true } }")
     UserLogin findByCompanyName(String companyName); // Custom query method
     // Find a user by their login code
     // This method will return the UserLogin object associated with the given login code
@@ -16,6 +21,7 @@ public interface UserLoginRepository extends MongoRepository<UserLogin, String>
 
     // Find a user by their company email
     // This method will return the UserLogin object associated with the given company email
+    @Query("{ 'companyEmail': ?0, 'archived': { '$ne': true } }")
     UserLogin findByCompanyEmail(String companyEmail);
 
     // Check if a login code already exists in the database
@@ -24,20 +30,14 @@ public interface UserLoginRepository extends MongoRepository<UserLogin, String>
 
     // Check if a company name already exists in the database
     // Returns true if a user with the given company name exists, otherwise false
+    @Query(value = "{ 'companyName': ?0, 'archived': { '$ne': true } }", exists = true)
     boolean existsByCompanyName(String companyName);
 
-    boolean existsByCompanyCVR(String companyCVR);
-
-    // Check if a company email already exists in the database
-    // Returns true if a user with the given company email exists, otherwise false
-    boolean existsByCompanyEmail(String companyEmail);
-    boolean existsByPhoneNumber(String phoneNumber);
-
-    boolean existsByCompanyCVRAndIdNot(String companyCVR, String id);
-    boolean existsByCompanyEmailAndIdNot(String companyEmail, String id);
-    boolean existsByCompanyNameAndIdNot(String companyName, String id);
-    boolean existsByPhoneNumberAndIdNot(String phoneNumber, String id);
-
-
+    // Uniqueness of CVR, email, name and phone number is enforced by unique indexes,
+    // see UserLoginService.ensureUniqueIndexes()
 
+    // Contact columns and delivery address of the companies on a list of orders, without login codes and tokens
+    @Query(value = "{ '_id': { '$in': ?0 } }", fields = "{ 'companyName': 1, 'companyCVR': 1, 'companyEmail': 1, "
+            + "'streetName': 1, 'streetNumber': 1, 'postcode': 1, 'city': 1 }")
+    List<UserLogin> findContactsByIdIn(Collection<?> ids);
 }
@@ -0,0 +1,279 @@
+package com.p3.syllesisfabrik.service;
+
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.UserLogin;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes changes to orders, menu items and companies to open admin pages over server-sent
+ * events, so the page patches the affected rows instead of reloading the whole dashboard.
+ *
+ * One change stream on the database, filtered to the three collections, feeds every connected
+ * page. Each event carries the changed row as the admin page shows it, or no row when it should
+ * disappear. Change streams need a replica set; on a standalone server the board stays off and
+ * the page reloads after each action instead.
+ */
+@Service
+public class AdminBoardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminBoardService.class);
+
+    // The admin account is not listed with the companies
+    private static final String ADMIN_EMAIL = "admin@syllesisfabrik.com";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TransactionRunner transactionRunner;
+
+    // Pages reconnect on their own when an emitter times out
+    @Value("${admin-board.emitter-timeout-minutes:30}")
+    private long emitterTimeoutMinutes;
+
+    @Value("${admin-board.retry-seconds:5}")
+    private long retrySeconds;
+
+    private final Set<SseEmitter> emitters = ConcurrentHashMap.newKeySet();
+    private volatile boolean running;
+    private volatile MongoCursor<ChangeStreamDocument<Document>> cursor;
+    private Thread watcher;
+    private BsonDocument resumeToken;
+
+    private String ordersCollection;
+    private String menuItemsCollection;
+    private String companiesCollection;
+
+    // Run by DatabaseSetup once the application is up
+    public void start() {
+        ordersCollection = mongoTemplate.getCollectionName(Order.class);
+        menuItemsCollection = mongoTemplate.getCollectionName(MenuItem.class);
+        companiesCollection = mongoTemplate.getCollectionName(UserLogin.class);
+
+        // TransactionRunner has already asked the server whether it is a replica set or mongos
+        if (!transactionRunner.isTransactional()) {
+            logger.info("Change streams are not supported by this MongoDB server, live admin board disabled");
+            return;
+        }
+        running = true;
+        watcher = new Thread(this::watch, "admin-board-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        logger.info("Live admin board started");
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        MongoCursor<ChangeStreamDocument<Document>> open = cursor;
+        if (open != null) {
+            open.close();
+        }
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+        emitters.forEach(SseEmitter::complete);
+        emitters.clear();
+    }
+
+    // False when the server has no change streams; pages then reload after an action
+    public boolean isLive() {
+        return running;
+    }
+
+    /**
+     * Registers an admin page for board events.
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(emitterTimeoutMinutes));
+        emitters.add(emitter);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        return emitter;
+    }
+
+    private void watch() {
+        List<String> collections = List.of(ordersCollection, menuItemsCollection, companiesCollection);
+        while (running) {
+            try {
+                ChangeStreamIterable<Document> stream = mongoTemplate.getDb()
+                        .watch(List.of(Aggregates.match(Filters.in("ns.coll", collections))))
+                        .fullDocument(FullDocument.UPDATE_LOOKUP);
+                boolean resumed = resumeToken != null;
+                if (resumed) {
+                    stream = stream.resumeAfter(resumeToken);
+                }
+                try (MongoCursor<ChangeStreamDocument<Document>> changes = stream.iterator()) {
+                    cursor = changes;
+                    if (!resumed) {
+                        // Changes may have been missed while no stream was open, so pages reload once
+                        broadcast("resync", Map.of());
+                    }
+                    while (running && changes.hasNext()) {
+                        ChangeStreamDocument<Document> change = changes.next();
+                        resumeToken = change.getResumeToken();
+                        if (!emitters.isEmpty()) {
+                            publish(change);
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                // Start over without the token, it may no longer be in the oplog
+                resumeToken = null;
+                logger.warn("Admin board change stream failed, retrying in {}s: {}", retrySeconds, e.getMessage());
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(retrySeconds));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void publish(ChangeStreamDocument<Document> change) {
+        String collection = change.getNamespace().getCollectionName();
+        Document document = change.getFullDocument(); // Null when the document was deleted
+
+        String type;
+        Map<String, Object> row;
+        if (collection.equals(ordersCollection)) {
+            type = "order";
+            row = document == null ? null : orderRow(mongoTemplate.getConverter().read(Order.class, document));
+        } else if (collection.equals(menuItemsCollection)) {
+            type = "menuItem";
+            row = document == null ? null : menuItemRow(mongoTemplate.getConverter().read(MenuItem.class, document));
+        } else {
+            type = "company";
+            row = document == null ? null : companyRow(mongoTemplate.getConverter().read(UserLogin.class, document));
+        }
+
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("id", idOf(change.getDocumentKey()));
+        event.put("row", row);
+        broadcast(type, event);
+    }
+
+    private void broadcast(String type, Object event) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name(type).data(event, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                // The page went away; the container completes the emitter
+                emitters.remove(emitter);
+            }
+        }
+    }
+
+    private static String idOf(BsonDocument documentKey) {
+        BsonValue id = documentKey.get("_id");
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    // The admin home table an order is listed in, or null when it is not listed (disapproved)
+    static String sectionOf(Order order) {
+        if (order.isProcessing()) {
+            return order.isApproved() || order.isShipped() ? null : "current";
+        }
+        if (!order.isApproved()) {
+            return null;
+        }
+        if (!order.isShipped()) {
+            return "readyToShip";
+        }
+        return order.isInvoiced() ? "completed" : "readyToInvoice";
+    }
+
+    static Map<String, Object> orderRow(Order order) {
+        String section = sectionOf(order);
+        if (section == null) {
+            return null;
+        }
+        UserLogin company = order.getCompany();
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("section", section);
+        row.put("companyName", company != null ? company.getCompanyName() : null);
+        row.put("companyCVR", company != null ? company.getCompanyCVR() : null);
+        row.put("companyEmail", company != null ? company.getCompanyEmail() : null);
+        row.put("orderDate", order.getFormattedOrderDate());
+        row.put("expectedDeliveryDate", order.getExpectedDeliveryDate());
+        row.put("deliveredDate", order.getDeliveredDate());
+        row.put("totalPrice", order.getTotalPrice());
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (CartItem cartItem : order.getCartItems() != null ? order.getCartItems() : List.<CartItem>of()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("title", cartItem.getMenuItem() != null ? cartItem.getMenuItem().getTitle() : null);
+            item.put("desiredQuantity", cartItem.getDesiredQuantity());
+            item.put("totalCost", cartItem.getTotalCost());
+            items.add(item);
+        }
+        row.put("items", items);
+        return row;
+    }
+
+    static Map<String, Object> menuItemRow(MenuItem menuItem) {
+        if (menuItem.isArchived()) {
+            return null;
+        }
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("title", menuItem.getTitle());
+        row.put("description", menuItem.getDescription());
+        row.put("allergens", menuItem.getAllergens());
+        row.put("quantity", menuItem.getQuantity());
+        row.put("pricePerLiter", menuItem.getPricePerLiter());
+        row.put("isAvailable", menuItem.isAvailable());
+        row.put("imagePaths", menuItem.getImagePaths());
+        return row;
+    }
+
+    static Map<String, Object> companyRow(UserLogin company) {
+        if (company.isArchived() || ADMIN_EMAIL.equals(company.getCompanyEmail())) {
+            return null;
+        }
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("companyName", company.getCompanyName());
+        row.put("companyCVR", company.getCompanyCVR());
+        row.put("companyEmail", company.getCompanyEmail());
+        row.put("loginCode", company.getLoginCode());
+        row.put("phoneNumber", company.getPhoneNumber());
+        row.put("address", company.getStreetName() + " " + company.getStreetNumber() + ", "
+                + company.getPostcode() + " " + company.getCity());
+        return row;
+    }
+}
@@ -0,0 +1,235 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.UserLogin;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Serves the tables of the admin page one page at a time, sorted and filtered in MongoDB.
+ *
+ * Every query reads only the fields its table shows. Orders go through
+ * {@link OrderService#findList}, which loads the companies and titles of a page with one query
+ * each. Rows have the same shape as the ones the live board pushes, see {@link AdminBoardService}.
+ */
+@Service
+public class AdminTableService {
+
+    private static final String ADMIN_EMAIL = "admin@syllesisfabrik.com";
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Sortable columns per table, by the name the page asks for
+    private static final List<String> ORDER_SORTS = List.of("orderDate", "expectedDelivery", "deliveredAt", "totalPrice");
+    private static final List<String> COMPANY_SORTS = List.of("companyName", "companyCVR", "companyEmail");
+    private static final List<String> MENU_ITEM_SORTS = List.of("title", "quantity", "pricePerLiter");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OrderService orderService;
+
+    /**
+     * One page of a table. Each item holds the document ID and the row as the admin page shows it.
+     */
+    public static class TablePage {
+        private final List<Map<String, Object>> items;
+        private final int page;
+        private final int size;
+        private final long total;
+
+        public TablePage(List<Map<String, Object>> items, int page, int size, long total) {
+            this.items = items;
+            this.page = page;
+            this.size = size;
+            this.total = total;
+        }
+
+        public List<Map<String, Object>> getItems() {
+            return items;
+        }
+
+        public int getPage() {
+            return page;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public long getPages() {
+            return (total + size - 1) / size;
+        }
+    }
+
+    /**
+     * Returns a page of the orders in one section of the admin page (current, readyToShip,
+     * readyToInvoice or completed).
+     *
+     * @param q    Matched against the company name, email and CVR; may be null.
+     * @param from First order day to include; may be null.
+     * @param to   Last order day to include; may be null.
+     * @throws IllegalArgumentException For an unknown section or sort column.
+     */
+    public TablePage findOrders(String section, String q, LocalDate from, LocalDate to,
+                                String sort, boolean descending, int page, int size) {
+        Criteria criteria = sectionCriteria(section);
+        if (from != null || to != null) {
+            Criteria orderDate = criteria.and("orderDate");
+            if (from != null) {
+                orderDate.gte(from.atStartOfDay());
+            }
+            if (to != null) {
+                orderDate.lt(to.plusDays(1).atStartOfDay());
+            }
+        }
+        if (hasText(q)) {
+            Query companies = new Query(textCriteria(q, "companyName", "companyEmail", "companyCVR"));
+            companies.fields().include("_id");
+            List<Object> companyIds = mongoTemplate.find(companies, Document.class, mongoTemplate.getCollectionName(UserLogin.class))
+                    .stream().map(company -> company.get("_id")).toList();
+            criteria.and("company.$id").in(companyIds);
+        }
+
+        String collection = mongoTemplate.getCollectionName(Order.class);
+        long total = mongoTemplate.count(new Query(criteria), collection);
+
+        Query query = pageQuery(criteria, ORDER_SORTS, sort, descending, page, size);
+        query.fields().include("company", "orderDate", "expectedDelivery", "deliveredAt", "totalPrice",
+                "isProcessing", "isApproved", "isShipped", "isInvoiced",
+                "cartItems.menuItemId", "cartItems.desiredQuantity", "cartItems.totalCost");
+        List<Order> orders = orderService.findList(query);
+
+        List<Map<String, Object>> items = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            items.add(item(order.getId(), AdminBoardService.orderRow(order)));
+        }
+        return new TablePage(items, Math.max(page, 0), pageSize(size), total);
+    }
+
+    /**
+     * Returns a page of the registered companies, without archived ones and the admin account.
+     */
+    public TablePage findCompanies(String q, String sort, boolean descending, int page, int size) {
+        Criteria criteria = Criteria.where("archived").ne(true).and("companyEmail").ne(ADMIN_EMAIL);
+        if (hasText(q)) {
+            criteria = new Criteria().andOperator(criteria, textCriteria(q, "companyName", "companyEmail", "companyCVR"));
+        }
+        long total = mongoTemplate.count(new Query(criteria), UserLogin.class);
+
+        Query query = pageQuery(criteria, COMPANY_SORTS, sort, descending, page, size);
+        query.fields().include("companyName", "companyCVR", "companyEmail", "loginCode", "phoneNumber",
+                "streetName", "streetNumber", "postcode", "city", "archived");
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (UserLogin company : mongoTemplate.find(query, UserLogin.class)) {
+            items.add(item(company.getId(), AdminBoardService.companyRow(company)));
+        }
+        return new TablePage(items, Math.max(page, 0), pageSize(size), total);
+    }
+
+    /**
+     * Returns a page of the menu, without archived flavours.
+     *
+     * @param available Only available (true) or unavailable (false) flavours; null for both.
+     */
+    public TablePage findMenuItems(String q, Boolean available, String sort, boolean descending, int page, int size) {
+        Criteria criteria = Criteria.where("archived").ne(true);
+        if (available != null) {
+            criteria.and("isAvailable").is(available);
+        }
+        if (hasText(q)) {
+            criteria.and("title").regex(Pattern.quote(q.trim()), "i");
+        }
+        long total = mongoTemplate.count(new Query(criteria), MenuItem.class);
+
+        Query query = pageQuery(criteria, MENU_ITEM_SORTS, sort, descending, page, size);
+        query.fields().include("title", "description", "allergens", "quantity", "pricePerLiter",
+                "isAvailable", "imagePaths", "archived");
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (MenuItem menuItem : mongoTemplate.find(query, MenuItem.class)) {
+            items.add(item(menuItem.getId(), AdminBoardService.menuItemRow(menuItem)));
+        }
+        return new TablePage(items, Math.max(page, 0), pageSize(size), total);
+    }
+
+    /**
+     * Returns every completed order with only what the sales figures need: order date, total
+     * price and the titles of the ordered flavours.
+     */
+    public List<Order> findCompletedOrdersForSales() {
+        Query query = new Query(sectionCriteria("completed"));
+        query.fields().include("orderDate", "totalPrice", "cartItems.menuItemId");
+        return orderService.findList(query);
+    }
+
+    // The same filters as the OrderRepository queries behind each table
+    private static Criteria sectionCriteria(String section) {
+        return switch (section) {
+            case "current" -> Criteria.where("isProcessing").is(true).and("isApproved").is(false).and("isShipped").is(false);
+            case "readyToShip" -> Criteria.where("isApproved").is(true).and("isProcessing").is(false).and("isShipped").is(false);
+            case "readyToInvoice" -> Criteria.where("isApproved").is(true).and("isProcessing").is(false)
+                    .and("isShipped").is(true).and("isInvoiced").is(false);
+            case "completed" -> Criteria.where("isApproved").is(true).and("isProcessing").is(false)
+                    .and("isShipped").is(true).and("isInvoiced").is(true);
+            default -> throw new IllegalArgumentException("Unknown order section: " + section);
+        };
+    }
+
+    private static Query pageQuery(Criteria criteria, List<String> sortable, String sort,
+                                   boolean descending, int page, int size) {
+        if (!sortable.contains(sort)) {
+            throw new IllegalArgumentException("Cannot sort by " + sort);
+        }
+        int pageSize = pageSize(size);
+        // The ID breaks ties so a row never shows up on two pages
+        return new Query(criteria)
+                .with(Sort.by(descending ? Sort.Direction.DESC : Sort.Direction.ASC, sort, "_id"))
+                .skip((long) Math.max(page, 0) * pageSize)
+                .limit(pageSize);
+    }
+
+    private static int pageSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+    }
+
+    // Case-insensitive substring match on any of the fields; the search text is taken literally
+    private static Criteria textCriteria(String q, String... fields) {
+        String pattern = Pattern.quote(q.trim());
+        List<Criteria> anyField = new ArrayList<>();
+        for (String field : fields) {
+            anyField.add(Criteria.where(field).regex(pattern, "i"));
+        }
+        return new Criteria().orOperator(anyField);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private static Map<String, Object> item(String id, Map<String, Object> row) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("id", id);
+        item.put("row", row);
+        return item;
+    }
+}
@@ -0,0 +1,347 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.UserLogin;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Approves, ships and invoices many orders at once from the admin page.
+ *
+ * Each operation claims the orders it may change with one updateMany that also stamps them with
+ * a batch ID, then reads back exactly the orders it got, so an order another admin handled in the
+ * meantime is left alone. Stock for the whole batch is taken in one bulk write, the status change
+ * is one updateMany, the production plan is one bulk write and the emails are queued with one
+ * insert. Every requested order gets an outcome, so the admin sees which orders went through and
+ * why the others did not.
+ */
+@Service
+public class BulkOrderService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkOrderService.class);
+
+    public static final int MAX_ORDERS = 500;
+
+    // Stamped on the orders claimed by one bulk operation and removed when it is done
+    private static final String BATCH = "bulkBatch";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ProductionPlanService productionPlanService;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    // What happened to one order of a bulk operation
+    public static class Outcome {
+        private final String orderId;
+        private final boolean success;
+        private final String message;
+
+        public Outcome(String orderId, boolean success, String message) {
+            this.orderId = orderId;
+            this.success = success;
+            this.message = message;
+        }
+
+        public String getOrderId() {
+            return orderId;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    // The outcome of every requested order, in the order they were requested
+    public static class BulkResult {
+        private final List<Outcome> outcomes;
+
+        public BulkResult(List<Outcome> outcomes) {
+            this.outcomes = outcomes;
+        }
+
+        public List<Outcome> getOutcomes() {
+            return outcomes;
+        }
+
+        public long getSucceeded() {
+            return outcomes.stream().filter(Outcome::isSuccess).count();
+        }
+
+        public long getFailed() {
+            return outcomes.size() - getSucceeded();
+        }
+    }
+
+    /**
+     * Approves pending orders with one expected delivery date. Orders that did not reserve stock
+     * at checkout take it now, oldest order first; an order that cannot get all of its stock goes
+     * back to the pending orders.
+     *
+     * @throws IllegalArgumentException For too many orders or a delivery date in the past.
+     */
+    public BulkResult approve(List<String> orderIds, LocalDate expectedDelivery) {
+        List<String> ids = distinct(orderIds);
+        if (expectedDelivery.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Expected delivery date cannot be before today.");
+        }
+
+        String batch = UUID.randomUUID().toString();
+        Query claim = new Query(Criteria.where("_id").in(ids).and("isProcessing").is(true));
+        mongoTemplate.updateMulti(claim, OrderService.touch(new Update().set("isProcessing", false).set(BATCH, batch)), Order.class);
+        List<Order> claimed = findBatch(batch, "company", "orderDate", "totalPrice", "stockReserved",
+                "cartItems.menuItemId", "cartItems.desiredQuantity", "cartItems.totalCost");
+
+        Map<String, Outcome> outcomes = new LinkedHashMap<>();
+        Map<String, String> shortOfStock;
+        Map<String, List<CartItem>> unreserved = new LinkedHashMap<>();
+        for (Order order : claimed) {
+            if (!order.isStockReserved()) {
+                unreserved.put(order.getId(), order.getCartItems());
+            }
+        }
+        try {
+            shortOfStock = stockReservationService.reserveAll(unreserved);
+        } catch (RuntimeException e) {
+            logger.error("Reserving stock for bulk approval failed", e);
+            reopen(idsOf(claimed), false);
+            claimed.forEach(order -> outcomes.put(order.getId(), new Outcome(order.getId(), false, "Failed to approve the order.")));
+            return result(ids, outcomes, "Order has already been processed.");
+        }
+
+        List<Order> approved = new ArrayList<>();
+        for (Order order : claimed) {
+            String title = shortOfStock.get(order.getId());
+            if (title != null) {
+                outcomes.put(order.getId(), new Outcome(order.getId(), false, "Not enough stock available for " + title));
+            } else {
+                approved.add(order);
+            }
+        }
+        reopen(new ArrayList<>(shortOfStock.keySet()), false);
+
+        List<String> approvedIds = idsOf(approved);
+        try {
+            stockReservationService.commitAll(approvedIds);
+            mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(approvedIds)),
+                    OrderService.touch(new Update().set("isApproved", true).set("expectedDelivery", expectedDelivery)
+                            .set("stockReserved", true).unset(BATCH)), Order.class);
+        } catch (RuntimeException e) {
+            // The stock stays held (or deducted) for the orders, so approving them again takes nothing twice
+            logger.error("Approving a batch of {} orders failed", approvedIds.size(), e);
+            reopen(approvedIds, true);
+            approvedIds.forEach(id -> outcomes.put(id, new Outcome(id, false, "Failed to approve the order.")));
+            return result(ids, outcomes, "Order has already been processed.");
+        }
+
+        for (Order order : approved) {
+            order.setApproved(true);
+            order.setProcessing(false);
+            order.setStockReserved(true);
+            order.setExpectedDelivery(expectedDelivery);
+        }
+        try {
+            productionPlanService.addOrders(approved);
+        } catch (RuntimeException e) {
+            logger.error("Adding {} approved orders to the production plan failed, rebuild the plan", approved.size(), e);
+        }
+
+        Set<String> notified = queueEmails(approved, order -> {
+            UserLogin company = order.getCompany();
+            String address = company.getStreetName() + " " + company.getStreetNumber() + ", "
+                    + company.getPostcode() + " " + company.getCity();
+            return emailService.createOrderConfirmationEmail(company.getCompanyEmail(), order.getCartItems(),
+                    order.getTotalPrice(), order.getExpectedDeliveryDate(), company.getCompanyName(), address);
+        });
+        for (Order order : approved) {
+            outcomes.put(order.getId(), new Outcome(order.getId(), true, notified.contains(order.getId())
+                    ? "Order approved. Confirmation email queued."
+                    : "Order approved, but the confirmation email could not be sent."));
+        }
+
+        logger.info("Bulk approval: {} of {} orders approved for {}", approved.size(), ids.size(), expectedDelivery);
+        return result(ids, outcomes, "Order has already been processed.");
+    }
+
+    /**
+     * Marks approved orders as shipped, takes them off the production plan and queues the
+     * shipping emails.
+     *
+     * @throws IllegalArgumentException For too many orders.
+     */
+    public BulkResult ship(List<String> orderIds) {
+        List<String> ids = distinct(orderIds);
+
+        String batch = UUID.randomUUID().toString();
+        Query claim = new Query(Criteria.where("_id").in(ids).and("isApproved").is(true).and("isShipped").is(false));
+        mongoTemplate.updateMulti(claim, OrderService.touch(new Update().set("isShipped", true).set("deliveredAt", LocalDateTime.now())
+                .set(BATCH, batch)), Order.class);
+        List<Order> shipped = findBatch(batch, "company", "totalPrice", "expectedDelivery", "stockReserved",
+                "cartItems.menuItemId", "cartItems.desiredQuantity", "cartItems.totalCost");
+        releaseBatch(batch);
+
+        try {
+            productionPlanService.removeOrders(shipped);
+        } catch (RuntimeException e) {
+            logger.error("Taking {} shipped orders off the production plan failed, rebuild the plan", shipped.size(), e);
+        }
+
+        Set<String> notified = queueEmails(shipped, order -> emailService.createShippedOrderEmail(
+                order.getCompany().getCompanyEmail(), order.getCartItems(), order.getTotalPrice(),
+                order.getCompany().getCompanyName()));
+        Map<String, Outcome> outcomes = new LinkedHashMap<>();
+        for (Order order : shipped) {
+            outcomes.put(order.getId(), new Outcome(order.getId(), true, notified.contains(order.getId())
+                    ? "Order shipped. Email notification queued."
+                    : "Order shipped, but the email notification could not be sent."));
+        }
+
+        logger.info("Bulk shipping: {} of {} orders shipped", shipped.size(), ids.size());
+        return result(ids, outcomes, "Order is not ready to be shipped.");
+    }
+
+    /**
+     * Marks shipped orders as invoiced.
+     *
+     * @throws IllegalArgumentException For too many orders.
+     */
+    public BulkResult invoice(List<String> orderIds) {
+        List<String> ids = distinct(orderIds);
+
+        String batch = UUID.randomUUID().toString();
+        Query claim = new Query(Criteria.where("_id").in(ids).and("isShipped").is(true).and("isInvoiced").is(false));
+        mongoTemplate.updateMulti(claim, OrderService.touch(new Update().set("isInvoiced", true).set("invoicedAt", LocalDateTime.now())
+                .set(BATCH, batch)), Order.class);
+        Query invoiced = new Query(Criteria.where(BATCH).is(batch));
+        invoiced.fields().include("_id");
+        List<String> invoicedIds = mongoTemplate.find(invoiced, Document.class, mongoTemplate.getCollectionName(Order.class))
+                .stream().map(order -> order.get("_id").toString()).toList();
+        releaseBatch(batch);
+
+        Map<String, Outcome> outcomes = new LinkedHashMap<>();
+        invoicedIds.forEach(id -> outcomes.put(id, new Outcome(id, true, "Order marked invoiced.")));
+
+        logger.info("Bulk invoicing: {} of {} orders marked invoiced", invoicedIds.size(), ids.size());
+        return result(ids, outcomes, "Order is not ready to be invoiced.");
+    }
+
+    private static List<String> distinct(List<String> orderIds) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("No orders selected.");
+        }
+        if (ids.size() > MAX_ORDERS) {
+            throw new IllegalArgumentException("At most " + MAX_ORDERS + " orders can be handled at once.");
+        }
+        return ids;
+    }
+
+    // The orders stamped with a batch, oldest first, with their companies and flavours
+    private List<Order> findBatch(String batch, String... fields) {
+        Query query = new Query(Criteria.where(BATCH).is(batch)).with(Sort.by("orderDate", "_id"));
+        query.fields().include(fields);
+        return orderService.findList(query);
+    }
+
+    private void releaseBatch(String batch) {
+        mongoTemplate.updateMulti(new Query(Criteria.where(BATCH).is(batch)), new Update().unset(BATCH), Order.class);
+    }
+
+    // Puts claimed orders back among the pending orders
+    private void reopen(List<String> orderIds, boolean stockReserved) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        Update update = OrderService.touch(new Update().set("isProcessing", true).unset(BATCH));
+        if (stockReserved) {
+            update.set("stockReserved", true);
+        }
+        mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(orderIds)), update, Order.class);
+    }
+
+    // Builds an email per order and queues them together; returns the orders that got one
+    private Set<String> queueEmails(List<Order> orders, Function<Order, SimpleMailMessage> email) {
+        List<SimpleMailMessage> messages = new ArrayList<>();
+        Set<String> notified = new HashSet<>();
+        for (Order order : orders) {
+            try {
+                messages.add(email.apply(order));
+                notified.add(order.getId());
+            } catch (RuntimeException e) {
+                // A company or flavour removed since the order was placed
+                logger.error("Could not build the email for order {}", order.getId(), e);
+            }
+        }
+        try {
+            notificationService.queue(messages);
+        } catch (RuntimeException e) {
+            logger.error("Queueing {} notification emails failed", messages.size(), e);
+            notified.clear();
+        }
+        return notified;
+    }
+
+    private static List<String> idsOf(List<Order> orders) {
+        return orders.stream().map(Order::getId).toList();
+    }
+
+    // Fills in the requested orders that were not handled: not eligible if they exist, otherwise not found
+    private BulkResult result(List<String> ids, Map<String, Outcome> outcomes, String notEligible) {
+        List<String> missing = ids.stream().filter(id -> !outcomes.containsKey(id)).toList();
+        Set<String> existing = new HashSet<>();
+        if (!missing.isEmpty()) {
+            Query query = new Query(Criteria.where("_id").in(missing));
+            query.fields().include("_id");
+            mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Order.class))
+                    .forEach(order -> existing.add(order.get("_id").toString()));
+        }
+
+        List<Outcome> ordered = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Outcome outcome = outcomes.get(id);
+            if (outcome == null) {
+                outcome = new Outcome(id, false, existing.contains(id) ? notEligible : "Order not found.");
+            }
+            ordered.add(outcome);
+        }
+        return new BulkResult(ordered);
+    }
+}
@@ -1,95 +1,245 @@
 package com.p3.syllesisfabrik.service;
 
+import com.mongodb.DBRef;
+import com.p3.syllesisfabrik.model.Cart;
 import com.p3.syllesisfabrik.model.CartItem;
 import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.Order;
 import com.p3.syllesisfabrik.model.UserLogin;
-import com.p3.syllesisfabrik.repository.CartItemRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
+/**
+ * The open cart of each company, stored as one Cart document with the lines embedded.
+ *
+ * Every cart operation is a single atomic write on that document: adding increments the
+ * flavour's line (or pushes a new one) together with the stock check, removing pulls the line,
+ * and checkout takes all lines and empties the cart in one findAndModify (see CheckoutService).
+ */
 @Service
 public class CartItemService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CartItemService.class);
+
+    // Collection used by older versions, where every line was a document referenced by its order
+    static final String LEGACY_COLLECTION = "cartItems";
+
     @Autowired
-    private CartItemRepository cartItemRepository;
+    private MongoTemplate mongoTemplate;
 
-    /**
-     * Saves a new CartItem to the database.
-     *
-     * @param cartItem The CartItem to be saved.
-     * @return The saved CartItem.
-     */
-    public CartItem save(CartItem cartItem) {
-        return cartItemRepository.save(cartItem);
+    // Thrown when adding to the cart would take a line above the flavour's stock
+    public static class StockLimitExceededException extends RuntimeException {
+        public StockLimitExceededException(String menuItemTitle) {
+            super("You already have " + menuItemTitle + " in your cart. Adding this quantity would exceed the available stock.");
+        }
     }
 
     /**
-     * Retrieves all CartItems associated with a specific company.
+     * Adds a quantity of a flavour to the company's cart. An existing line is incremented with a
+     * positional $inc that only matches while the line stays within stock; otherwise a new line is
+     * pushed, creating the cart if needed.
      *
-     * @param company The UserLogin representing the company.
-     * @return A list of CartItems for the given company.
+     * @return The cart line after the add.
+     * @throws StockLimitExceededException if the line would exceed the flavour's stock.
      */
-    public List<CartItem> findByCompany(UserLogin company) {
-        return cartItemRepository.findByCompany(company);
+    public CartItem addToCart(UserLogin company, MenuItem menuItem, int quantity) {
+        if (quantity > menuItem.getQuantity()) {
+            throw new StockLimitExceededException(menuItem.getTitle());
+        }
+        double cost = quantity * menuItem.getPricePerLiter();
+        FindAndModifyOptions returnNew = FindAndModifyOptions.options().returnNew(true);
+
+        Query withinStock = new Query(Criteria.where("_id").is(company.getId())
+                .and("lines").elemMatch(Criteria.where("menuItemId").is(menuItem.getId())
+                        .and("desiredQuantity").lte(menuItem.getQuantity() - quantity)));
+        Update increment = new Update()
+                .inc("lines.$.desiredQuantity", quantity)
+                .inc("lines.$.totalCost", cost)
+                .set("updatedAt", LocalDateTime.now());
+
+        Query withoutLine = new Query(Criteria.where("_id").is(company.getId())
+                .and("lines.menuItemId").ne(menuItem.getId()));
+        Update push = new Update()
+                .push("lines", new CartItem(menuItem, null, quantity, cost))
+                .set("updatedAt", LocalDateTime.now());
+
+        // A duplicate key on the push means the cart already has the line (over stock), or a
+        // concurrent add created it first; only the second case succeeds when tried again
+        for (int attempt = 0; ; attempt++) {
+            Cart cart = mongoTemplate.findAndModify(withinStock, increment, returnNew, Cart.class);
+            if (cart == null) {
+                try {
+                    cart = mongoTemplate.findAndModify(withoutLine, push, FindAndModifyOptions.options().returnNew(true).upsert(true), Cart.class);
+                } catch (DuplicateKeyException e) {
+                    if (attempt > 0) {
+                        throw new StockLimitExceededException(menuItem.getTitle());
+                    }
+                    continue;
+                }
+            }
+            return findLine(cart, menuItem.getId());
+        }
     }
 
     /**
-     * Retrieves all un-ordered CartItems for a specific company.
+     * Lines of the company's open cart.
      *
      * @param company The UserLogin representing the company.
-     * @return A list of un-ordered CartItems for the given company.
+     * @return The cart lines, empty if the company has no cart.
      */
-    public List<CartItem> findUnorderedItemsByCompany(UserLogin company) {
-        return cartItemRepository.findByCompanyAndOrdered(company, false);
+    public List<CartItem> findCartLines(UserLogin company) {
+        Cart cart = mongoTemplate.findById(company.getId(), Cart.class);
+        return cart == null || cart.getLines() == null ? new ArrayList<>() : cart.getLines();
     }
 
-    /**
-     * Updates the ordered status of CartItems for a specific company.
-     *
-     * @param cartItems The list of CartItems to update.
-     * @param ordered   The new ordered status.
-     */
-    public void updateOrderedStatus(List<CartItem> cartItems, boolean ordered) {
-        cartItems.forEach(cartItem -> cartItem.setOrdered(ordered));
-        cartItemRepository.saveAll(cartItems);
+    // Removes the line for a flavour from the company's cart
+    public void removeFromCart(UserLogin company, String menuItemId) {
+        Update pull = new Update().pull("lines", new Document("menuItemId", menuItemId)).set("updatedAt", LocalDateTime.now());
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(company.getId())), pull, Cart.class);
     }
 
     /**
-     * Deletes a CartItem by its ID.
+     * Empties the company's cart and returns the lines it held, in one atomic operation, so
+     * lines added concurrently end up either in this checkout or in the next cart.
      *
-     * @param cartItemId The ID of the CartItem to be deleted.
+     * @return The lines taken, empty if the cart was empty.
      */
-    public void deleteById(String cartItemId) {
-        cartItemRepository.deleteById(cartItemId);
+    public List<CartItem> takeLines(String companyId) {
+        Query notEmpty = new Query(Criteria.where("_id").is(companyId).and("lines.0").exists(true));
+        Update empty = new Update().set("lines", new ArrayList<>()).set("updatedAt", LocalDateTime.now());
+        Cart cart = mongoTemplate.findAndModify(notEmpty, empty, Cart.class);
+        return cart == null ? new ArrayList<>() : cart.getLines();
+    }
+
+    // Puts lines back into the cart after a checkout that could not be completed
+    public void restoreLines(String companyId, List<CartItem> lines) {
+        lines.forEach(line -> line.setOrdered(false));
+        Update push = new Update().push("lines").each(lines.toArray()).set("updatedAt", LocalDateTime.now());
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(companyId)), push, Cart.class);
+    }
+
+    private static CartItem findLine(Cart cart, String menuItemId) {
+        return cart.getLines().stream()
+                .filter(line -> menuItemId.equals(line.getMenuItemId()))
+                .findFirst()
+                .orElseThrow();
     }
 
     /**
-     * Deletes all CartItems for a specific company.
+     * Moves data from the cartItems collection used by older versions. Lines referenced by an
+     * order are embedded into that order, open lines become the company's cart (merged per
+     * flavour), and the collection is dropped once empty. Runs only while the collection exists.
      *
-     * @param company The UserLogin representing the company.
+     * Run by DatabaseSetup once the application is up.
      */
-    public void deleteAllByCompany(UserLogin company) {
-        List<CartItem> companyCartItems = cartItemRepository.findByCompany(company);
-        cartItemRepository.deleteAll(companyCartItems);
+    public void migrateCartItems() {
+        if (!mongoTemplate.collectionExists(LEGACY_COLLECTION)) {
+            return;
+        }
+        int orders = embedOrderLines();
+        int carts = moveOpenLines();
+
+        // Every order now holds copies of its lines; ordered lines no order points at were orphans
+        mongoTemplate.remove(new Query(Criteria.where("ordered").is(true)), LEGACY_COLLECTION);
+        if (mongoTemplate.count(new Query(), LEGACY_COLLECTION) == 0) {
+            mongoTemplate.dropCollection(LEGACY_COLLECTION);
+        }
+        logger.info("Migrated cart items: lines embedded into {} orders, {} carts created", orders, carts);
     }
 
-    // Finds CartItems where ordered is false and associated with a specific company and menu item
-    public List<CartItem> findItemsByCompanyAndMenuItemAndOrderedFalse(UserLogin company, MenuItem menuItem) {
-        return cartItemRepository.findByCompanyAndMenuItemAndOrderedFalse(company, menuItem);
+    private int embedOrderLines() {
+        String ordersCollection = mongoTemplate.getCollectionName(Order.class);
+        Query referencing = new Query(Criteria.where("cartItems.$ref").exists(true));
+        referencing.fields().include("cartItems");
+
+        int migrated = 0;
+        for (Document order : mongoTemplate.find(referencing, Document.class, ordersCollection)) {
+            List<Object> lineIds = order.getList("cartItems", Object.class, List.of()).stream()
+                    .map(CartItemService::refId)
+                    .filter(Objects::nonNull)
+                    .toList();
+
+            Map<Object, Document> linesById = new LinkedHashMap<>();
+            for (Document line : mongoTemplate.find(new Query(Criteria.where("_id").in(lineIds)), Document.class, LEGACY_COLLECTION)) {
+                linesById.put(line.get("_id"), line);
+            }
+            List<Document> embedded = lineIds.stream()
+                    .map(linesById::get)
+                    .filter(Objects::nonNull)
+                    .map(line -> embeddedLine(line, true))
+                    .toList();
+
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(order.get("_id"))),
+                    new Update().set("cartItems", embedded), ordersCollection);
+            migrated++;
+        }
+        return migrated;
     }
 
-    public void deleteByCompany(UserLogin company) {
-        cartItemRepository.deleteByCompany(company);
+    private int moveOpenLines() {
+        Query open = new Query(Criteria.where("ordered").is(false));
+
+        Map<String, Map<String, Document>> linesByCompany = new LinkedHashMap<>();
+        List<Object> moved = new ArrayList<>();
+        for (Document line : mongoTemplate.find(open, Document.class, LEGACY_COLLECTION)) {
+            Object companyId = refId(line.get("company"));
+            if (companyId == null || refId(line.get("menuItem")) == null) {
+                continue;
+            }
+            Document embedded = embeddedLine(line, false);
+            linesByCompany.computeIfAbsent(companyId.toString(), key -> new LinkedHashMap<>())
+                    .merge(embedded.getString("menuItemId"), embedded, (kept, duplicate) -> kept
+                            .append("desiredQuantity", ((Number) kept.get("desiredQuantity")).intValue() + ((Number) duplicate.get("desiredQuantity")).intValue())
+                            .append("totalCost", ((Number) kept.get("totalCost")).doubleValue() + ((Number) duplicate.get("totalCost")).doubleValue()));
+            moved.add(line.get("_id"));
+        }
+
+        for (Map.Entry<String, Map<String, Document>> cart : linesByCompany.entrySet()) {
+            Update create = new Update()
+                    .setOnInsert("lines", new ArrayList<>(cart.getValue().values()))
+                    .setOnInsert("updatedAt", LocalDateTime.now());
+            mongoTemplate.upsert(new Query(Criteria.where("_id").is(cart.getKey())), create, Cart.class);
+        }
+        if (!moved.isEmpty()) {
+            mongoTemplate.remove(new Query(Criteria.where("_id").in(moved)), LEGACY_COLLECTION);
+        }
+        return linesByCompany.size();
     }
 
-    public List<CartItem> findByMenuItem(MenuItem menuItem) {
-        return cartItemRepository.findByMenuItem(menuItem);
+    // Copy of a stored line as embedded in an order or cart: keyed by flavour, without the company reference
+    private static Document embeddedLine(Document line, boolean ordered) {
+        Document embedded = new Document(line);
+        embedded.remove("_class");
+        embedded.remove("company");
+        embedded.remove("companyId");
+        Object menuItemId = refId(line.get("menuItem"));
+        if (menuItemId != null) {
+            embedded.put("menuItemId", menuItemId.toString());
+        }
+        embedded.put("ordered", ordered);
+        return embedded;
     }
 
-    // Deletes a specific cart item
-    public void delete(CartItem cartItem) {
-        cartItemRepository.delete(cartItem);
+    private static Object refId(Object ref) {
+        if (ref instanceof DBRef dbRef) {
+            return dbRef.getId();
+        }
+        return ref instanceof Document document ? document.get("$id") : null;
     }
 }
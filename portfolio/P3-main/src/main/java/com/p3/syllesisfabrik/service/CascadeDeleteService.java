@@ -0,0 +1,169 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.Cart;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.UserLogin;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Removes companies and menu items together with the cart lines and orders that refer to them.
+ *
+ * Carts and orders embed their lines, keyed by menuItemId, and orders reference their company
+ * with a @DBRef, so the dependants are found with indexed queries (lines.menuItemId,
+ * cartItems.menuItemId, company.$id) and removed with one write per collection instead of
+ * loading every order. The steps run in one transaction where the server supports it.
+ *
+ * By default a delete archives: the company or flavour disappears from the shop and the
+ * admin lists, open carts lose their lines, and orders stay intact for the sales history.
+ * Purging removes the order history as well, archived orders included.
+ */
+@Service
+public class CascadeDeleteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CascadeDeleteService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TransactionRunner transactionRunner;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private MenuItemService menuItemService;
+
+    @Autowired
+    private ProductionPlanService productionPlanService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    // Number of documents touched by a cascade, for the admin message and the log
+    public static class CascadeResult {
+        private final long cartItemsDeleted;
+        private final long ordersDeleted;
+
+        public CascadeResult(long cartItemsDeleted, long ordersDeleted) {
+            this.cartItemsDeleted = cartItemsDeleted;
+            this.ordersDeleted = ordersDeleted;
+        }
+
+        public long getCartItemsDeleted() {
+            return cartItemsDeleted;
+        }
+
+        public long getOrdersDeleted() {
+            return ordersDeleted;
+        }
+    }
+
+    // Run by DatabaseSetup once the application is up
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(Cart.class).ensureIndex(new Index("lines.menuItemId", Sort.Direction.ASC).named("lines_menuItem"));
+        mongoTemplate.indexOps(Order.class).ensureIndex(new Index("cartItems.menuItemId", Sort.Direction.ASC).named("cartItems_menuItem"));
+        mongoTemplate.indexOps(Order.class).ensureIndex(new Index("company.$id", Sort.Direction.ASC).named("company_ref"));
+    }
+
+    /**
+     * Deletes a menu item and its dependants.
+     *
+     * @param menuItemId The menu item to delete.
+     * @param purge      True to also delete the orders containing it; false archives the item.
+     * @return What was removed, or null if the menu item does not exist.
+     */
+    public CascadeResult deleteMenuItem(String menuItemId, boolean purge) {
+        MenuItem menuItem = mongoTemplate.findById(menuItemId, MenuItem.class);
+        if (menuItem == null) {
+            return null;
+        }
+
+        CascadeResult result = transactionRunner.inTransaction(() -> {
+            // A cart holds at most one line per flavour, so each modified cart lost one line
+            Update pullLine = new Update().pull("lines", new Document("menuItemId", menuItemId));
+            long cartLines = mongoTemplate.updateMulti(new Query(Criteria.where("lines.menuItemId").is(menuItemId)), pullLine, Cart.class)
+                    .getModifiedCount();
+
+            if (!purge) {
+                Update archive = new Update().set("archived", true).set("archivedAt", LocalDateTime.now()).set("isAvailable", false);
+                mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(menuItemId)), archive, MenuItem.class);
+                return new CascadeResult(cartLines, 0);
+            }
+
+            long orders = purgeOrders(new Query(Criteria.where("cartItems.menuItemId").is(menuItemId)))
+                    + orderArchiveService.purge(Criteria.where("lines.menuItemId").is(menuItemId));
+            mongoTemplate.remove(new Query(Criteria.where("_id").is(menuItemId)), MenuItem.class);
+            return new CascadeResult(cartLines, orders);
+        });
+
+        menuItemService.refreshCatalog();
+        logger.info("{} menu item {}: {} cart lines and {} orders deleted", purge ? "Purged" : "Archived",
+                menuItemId, result.getCartItemsDeleted(), result.getOrdersDeleted());
+        return result;
+    }
+
+    /**
+     * Deletes a company and its dependants.
+     *
+     * @param company The company to delete.
+     * @param purge   True to also delete its orders; false archives the company and revokes its login.
+     * @return What was removed.
+     */
+    public CascadeResult deleteCompany(UserLogin company, boolean purge) {
+        CascadeResult result = transactionRunner.inTransaction(() -> {
+            Cart cart = mongoTemplate.findAndRemove(new Query(Criteria.where("_id").is(company.getId())), Cart.class);
+            long cartLines = cart == null || cart.getLines() == null ? 0 : cart.getLines().size();
+
+            if (!purge) {
+                Update archive = new Update().set("archived", true).set("archivedAt", LocalDateTime.now())
+                        .unset("loginCode").unset("jwtToken");
+                mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(company.getId())), archive, UserLogin.class);
+                return new CascadeResult(cartLines, 0);
+            }
+
+            Object companyId = ObjectId.isValid(company.getId()) ? new ObjectId(company.getId()) : company.getId();
+            long orders = purgeOrders(new Query(Criteria.where("company.$id").is(companyId)))
+                    + orderArchiveService.purge(Criteria.where("companyId").is(company.getId()));
+            mongoTemplate.remove(new Query(Criteria.where("_id").is(company.getId())), UserLogin.class);
+            return new CascadeResult(cartLines, orders);
+        });
+
+        logger.info("{} company {}: {} cart lines and {} orders deleted", purge ? "Purged" : "Archived",
+                company.getCompanyName(), result.getCartItemsDeleted(), result.getOrdersDeleted());
+        return result;
+    }
+
+    // Deletes the matching orders; stock still held for them is released and planned orders are
+    // taken off the production plan first. Queries go to the collection directly so reference ids
+    // are matched as stored.
+    private long purgeOrders(Query orders) {
+        String collection = mongoTemplate.getCollectionName(Order.class);
+        Query reserved = Query.of(orders).addCriteria(Criteria.where("stockReserved").is(true));
+        reserved.fields().include("_id");
+        for (Document order : mongoTemplate.find(reserved, Document.class, collection)) {
+            Order held = mongoTemplate.findById(order.get("_id"), Order.class);
+            stockReservationService.release(held.getId(), held.getCartItems());
+        }
+        Query planned = Query.of(orders).addCriteria(Criteria.where("isApproved").is(true).and("isShipped").is(false));
+        planned.fields().include("_id");
+        for (Document order : mongoTemplate.find(planned, Document.class, collection)) {
+            productionPlanService.removeOrder(mongoTemplate.findById(order.get("_id"), Order.class));
+        }
+        return mongoTemplate.remove(orders, collection).getDeletedCount();
+    }
+}
@@ -0,0 +1,92 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.UserLogin;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Turns a company's cart into an order.
+ *
+ * In one transaction the cart is emptied (returning its lines), stock is reserved for the lines
+ * and the order is inserted with the lines embedded. If stock runs short or the insert fails,
+ * the transaction rolls back and the cart is as it was. Without transaction support the same
+ * steps are undone by hand.
+ */
+@Service
+public class CheckoutService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckoutService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CartItemService cartItemService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private TransactionRunner transactionRunner;
+
+    // Thrown when checking out a cart without lines
+    public static class EmptyCartException extends RuntimeException {
+        public EmptyCartException() {
+            super("No order made. Cart is empty.");
+        }
+    }
+
+    /**
+     * Places an order for everything in the company's cart.
+     *
+     * @param company The ordering company.
+     * @return The saved order, holding the cart lines.
+     * @throws EmptyCartException if the cart is empty.
+     * @throws StockReservationService.InsufficientStockException if a flavour lacks stock; the cart is kept.
+     */
+    public Order checkout(UserLogin company) {
+        Order order = transactionRunner.inTransaction(() -> placeOrder(company));
+        logger.info("Order {} placed by {} with {} lines", order.getId(), company.getCompanyName(), order.getCartItems().size());
+        return order;
+    }
+
+    private Order placeOrder(UserLogin company) {
+        List<CartItem> lines = cartItemService.takeLines(company.getId());
+        if (lines.isEmpty()) {
+            throw new EmptyCartException();
+        }
+        lines.forEach(line -> line.setOrdered(true));
+
+        Order order = new Order(company, lines, lines.stream().mapToDouble(CartItem::getTotalCost).sum(),
+                LocalDateTime.now(), false, true, false, false, null, null);
+        // The ID is assigned up front so the reservation on each menu item can refer to the order
+        order.setId(new ObjectId().toHexString());
+
+        boolean reserved = false;
+        try {
+            stockReservationService.reserve(order.getId(), lines);
+            reserved = true;
+            order.setStockReserved(true);
+            order.setLastModified(LocalDateTime.now());
+            return mongoTemplate.insert(order);
+        } catch (RuntimeException e) {
+            // Inside a transaction the rollback undoes all of this
+            if (!transactionRunner.isTransactional()) {
+                if (reserved) {
+                    stockReservationService.release(order.getId(), lines);
+                }
+                cartItemService.restoreLines(company.getId(), lines);
+            }
+            throw e;
+        }
+    }
+}
@@ -108,6 +108,11 @@ public class EmailService {
 
     //service/EmailService.java Snippet Start
     public void sendOrderConfirmationEmail(String recipientEmail, List<CartItem> cartItems, double totalOrderCost, String expectedDeliveryDate, String companyName, String address) {
+        mailSender.send(createOrderConfirmationEmail(recipientEmail, cartItems, totalOrderCost, expectedDeliveryDate, companyName, address));
+    }
+
+    // Builds the confirmation without sending it, so bulk approvals can queue it with NotificationService
+    public SimpleMailMessage createOrderConfirmationEmail(String recipientEmail, List<CartItem> cartItems, double totalOrderCost, String expectedDeliveryDate, String companyName, String address) {
         SimpleMailMessage message = new SimpleMailMessage();
         message.setTo(recipientEmail);
         message.setSubject("Order Confirmation - Syllesisfabrik");
@@ -155,7 +160,7 @@ public class EmailService {
         message.setText(orderDetails.toString());
         message.setFrom(env.getProperty("spring.mail.username"));
 
-        mailSender.send(message);
+        return message;
     }
     //service/EmailService.java Snippet End
     public void sendDisapprovalEmail(String recipientEmail, String companyName, String disapprovalReason, List<CartItem> cartItems, double totalOrderCost) {
@@ -203,6 +208,11 @@ public class EmailService {
     }
 
     public void sendShippedOrderEmail(String recipientEmail, List<CartItem> cartItems, double totalOrderCost, String companyName) {
+        mailSender.send(createShippedOrderEmail(recipientEmail, cartItems, totalOrderCost, companyName));
+    }
+
+    // Builds the shipping notification without sending it
+    public SimpleMailMessage createShippedOrderEmail(String recipientEmail, List<CartItem> cartItems, double totalOrderCost, String companyName) {
         SimpleMailMessage message = new SimpleMailMessage();
         message.setTo(recipientEmail);
         message.setSubject("Order Delivered - Syllesisfabrik");
@@ -243,8 +253,7 @@ public class EmailService {
         message.setText(orderDetails.toString());
         message.setFrom(env.getProperty("spring.mail.username"));
 
-        // Send the email
-        mailSender.send(message);
+        return message;
     }
 
 
@@ -0,0 +1,376 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.ImageJob;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.repository.ImageJobRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Generates menu item image renditions in the background.
+ *
+ * The admin request only streams the uploads to a staging directory and records an ImageJob
+ * per image; the menu item shows a "processing" placeholder in the meantime. A bounded pool
+ * of workers (one per core by default) turns the jobs into renditions and swaps the
+ * placeholder for the real image path. Jobs live in MongoDB, so anything that did not fit
+ * the queue or was interrupted by a restart is picked up again by a periodic resume pass.
+ *
+ * A second periodic pass removes rendition files no menu item or job refers to any more.
+ */
+@Service
+public class ImageJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageJobService.class);
+
+    public static final String PLACEHOLDER_PATH = "/images/processing.svg";
+
+    private static final List<ImageJob.Status> ACTIVE = List.of(ImageJob.Status.PENDING, ImageJob.Status.PROCESSING);
+    private static final List<ImageJob.Status> FINISHED = List.of(ImageJob.Status.DONE, ImageJob.Status.FAILED);
+
+    @Autowired
+    private ImageJobRepository imageJobRepository;
+
+    @Autowired
+    private ImageUploadService imageUploadService;
+
+    @Autowired
+    private MenuItemService menuItemService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${images.staging-dir:uploads/staging}")
+    private String stagingDir;
+
+    // Number of worker threads, 0 means one per available core
+    @Value("${images.workers:0}")
+    private int workers;
+
+    @Value("${images.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${images.max-attempts:3}")
+    private int maxAttempts;
+
+    // Files and jobs younger than this are never swept, an admin form may still be using them
+    @Value("${images.orphan-grace-minutes:60}")
+    private long orphanGraceMinutes;
+
+    @Value("${images.job-retention-days:7}")
+    private long jobRetentionDays;
+
+    private ThreadPoolExecutor executor;
+
+    // Image paths to store on a menu item, and the jobs to start once it is saved
+    public static class PreparedImages {
+        private final List<String> imagePaths = new ArrayList<>();
+        private final List<ImageJob> jobs = new ArrayList<>();
+
+        public List<String> getImagePaths() {
+            return imagePaths;
+        }
+
+        public List<ImageJob> getJobs() {
+            return jobs;
+        }
+
+        public boolean hasPendingJobs() {
+            return !jobs.isEmpty();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        logger.info("Image job workers started: {} threads, queue capacity {}", threads, queueCapacity);
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Unfinished jobs stay in the database and are resumed after the restart
+        executor.shutdownNow();
+    }
+
+    /**
+     * Stages the uploads and creates a job for every image that is not stored yet. Images whose
+     * renditions already exist (same content uploaded before) get their final path right away.
+     * Call {@link #dispatch(PreparedImages)} after the menu item has been saved.
+     */
+    public PreparedImages prepare(MultipartFile[] images, String menuItemId) throws IOException {
+        PreparedImages prepared = new PreparedImages();
+
+        for (MultipartFile image : images) {
+            if (image.isEmpty()) {
+                continue;
+            }
+
+            Path staged = imageUploadService.stageUpload(image, getStagingDirectory());
+            String hash = imageUploadService.hashOf(staged);
+
+            if (imageUploadService.isStored(hash)) {
+                Files.deleteIfExists(staged);
+                prepared.getImagePaths().add(imageUploadService.displayPath(hash));
+                continue;
+            }
+
+            ImageJob job = new ImageJob(menuItemId, staged.toString(), image.getOriginalFilename(), hash);
+            job.setId(new ObjectId().toHexString());
+            job.setPlaceholderPath(PLACEHOLDER_PATH + "?job=" + job.getId());
+            imageJobRepository.save(job);
+
+            prepared.getImagePaths().add(job.getPlaceholderPath());
+            prepared.getJobs().add(job);
+        }
+
+        logger.info("Prepared {} image(s) for menu item {}, {} queued for processing",
+                prepared.getImagePaths().size(), menuItemId, prepared.getJobs().size());
+        return prepared;
+    }
+
+    // Hands the prepared jobs to the workers
+    public void dispatch(PreparedImages prepared) {
+        for (ImageJob job : prepared.getJobs()) {
+            submit(job.getId());
+        }
+    }
+
+    /**
+     * Replaces placeholders of finished jobs with their image path and drops placeholders of
+     * failed jobs. Used when a form posts back image paths it rendered earlier.
+     */
+    public List<String> resolvePlaceholders(List<String> imagePaths) {
+        List<String> resolved = new ArrayList<>();
+        for (String imagePath : imagePaths) {
+            String path = imagePath.trim();
+            if (!path.startsWith(PLACEHOLDER_PATH)) {
+                resolved.add(path);
+                continue;
+            }
+            ImageJob job = imageJobRepository.findByPlaceholderPath(path).orElse(null);
+            if (job == null || job.getStatus() == ImageJob.Status.FAILED) {
+                continue;
+            }
+            resolved.add(job.getStatus() == ImageJob.Status.DONE ? job.getResultPath() : path);
+        }
+        return resolved;
+    }
+
+    // Requeues jobs that did not fit the queue or were interrupted by a restart
+    @Scheduled(fixedDelayString = "${images.resume-interval-ms:60000}", initialDelayString = "${images.resume-initial-delay-ms:30000}")
+    public void resumePendingJobs() {
+        LocalDateTime now = LocalDateTime.now();
+
+        // A job stuck in PROCESSING this long lost its worker
+        Query stuck = new Query(Criteria.where("status").is(ImageJob.Status.PROCESSING)
+                .and("updatedAt").lt(now.minusMinutes(10)));
+        mongoTemplate.updateMulti(stuck, new Update().set("status", ImageJob.Status.PENDING).set("updatedAt", now), ImageJob.class);
+
+        // Skip jobs created moments ago, their request may not have dispatched them yet
+        List<ImageJob> pending = imageJobRepository.findByStatusAndUpdatedAtBefore(ImageJob.Status.PENDING, now.minusSeconds(30));
+        for (ImageJob job : pending) {
+            submit(job.getId());
+        }
+        if (!pending.isEmpty()) {
+            logger.info("Resumed {} pending image job(s)", pending.size());
+        }
+
+        // An admin form saved just as a job finished can write its placeholder back
+        Query withPlaceholders = new Query(Criteria.where("imagePaths").regex("^" + Pattern.quote(PLACEHOLDER_PATH), ""));
+        for (MenuItem menuItem : mongoTemplate.find(withPlaceholders, MenuItem.class)) {
+            for (String imagePath : menuItem.getImagePaths()) {
+                imageJobRepository.findByPlaceholderPath(imagePath)
+                        .filter(job -> job.getStatus() == ImageJob.Status.DONE)
+                        .ifPresent(job -> replacePlaceholder(job, job.getResultPath()));
+            }
+        }
+    }
+
+    /**
+     * Deletes rendition files that no menu item and no unfinished job refers to, staged
+     * uploads without a job, and finished jobs past their retention.
+     *
+     * @return The number of image files removed.
+     */
+    @Scheduled(fixedDelayString = "${images.sweep-interval-ms:3600000}", initialDelayString = "${images.sweep-initial-delay-ms:300000}")
+    public int sweepOrphanedImages() {
+        Instant cutoff = Instant.now().minus(orphanGraceMinutes, ChronoUnit.MINUTES);
+        int removed = 0;
+
+        try {
+            Set<String> referencedHashes = new HashSet<>();
+            Set<String> activeStagedFiles = new HashSet<>();
+            for (ImageJob job : imageJobRepository.findByStatusIn(ACTIVE)) {
+                referencedHashes.add(job.getHash());
+                activeStagedFiles.add(job.getStagedFile());
+            }
+
+            Query imagePathsOnly = new Query();
+            imagePathsOnly.fields().include("imagePaths");
+            for (MenuItem menuItem : mongoTemplate.find(imagePathsOnly, MenuItem.class)) {
+                if (menuItem.getImagePaths() == null) {
+                    continue;
+                }
+                for (String imagePath : menuItem.getImagePaths()) {
+                    String hash = imageUploadService.hashOfPath(imagePath);
+                    if (hash != null) {
+                        referencedHashes.add(hash);
+                    }
+                }
+            }
+
+            for (Map.Entry<String, Instant> stored : imageUploadService.findStoredImages().entrySet()) {
+                if (!referencedHashes.contains(stored.getKey()) && stored.getValue().isBefore(cutoff)) {
+                    imageUploadService.deleteRenditions(stored.getKey());
+                    removed++;
+                }
+            }
+
+            Path stagingDirectory = getStagingDirectory();
+            if (Files.isDirectory(stagingDirectory)) {
+                try (DirectoryStream<Path> stagedFiles = Files.newDirectoryStream(stagingDirectory)) {
+                    for (Path stagedFile : stagedFiles) {
+                        if (!activeStagedFiles.contains(stagedFile.toString())
+                                && Files.getLastModifiedTime(stagedFile).toInstant().isBefore(cutoff)) {
+                            Files.deleteIfExists(stagedFile);
+                            removed++;
+                        }
+                    }
+                }
+            }
+
+            imageJobRepository.deleteByStatusInAndUpdatedAtBefore(FINISHED, LocalDateTime.now().minusDays(jobRetentionDays));
+        } catch (IOException e) {
+            logger.error("Image sweep failed: {}", e.getMessage(), e);
+        }
+
+        if (removed > 0) {
+            logger.info("Image sweep removed {} orphaned file(s)", removed);
+        }
+        return removed;
+    }
+
+    public Path getStagingDirectory() {
+        return Paths.get(stagingDir).toAbsolutePath().normalize();
+    }
+
+    private void submit(String jobId) {
+        try {
+            executor.execute(() -> process(jobId));
+        } catch (RejectedExecutionException e) {
+            // The job stays PENDING in the database and the next resume pass retries it
+            logger.warn("Image job queue is full, job {} will be resumed later", jobId);
+        }
+    }
+
+    void process(String jobId) {
+        ImageJob job = claim(jobId);
+        if (job == null) {
+            return; // Already taken by another worker, or no longer pending
+        }
+
+        Path staged = Paths.get(job.getStagedFile());
+        try {
+            String resultPath = imageUploadService.storeRenditions(staged, job.getHash(), job.getOriginalFilename());
+            replacePlaceholder(job, resultPath);
+            finish(job, ImageJob.Status.DONE, resultPath, null);
+            Files.deleteIfExists(staged);
+            logger.info("Image job {} finished for menu item {}", jobId, job.getMenuItemId());
+        } catch (Exception e) {
+            if (job.getAttempts() < maxAttempts) {
+                finish(job, ImageJob.Status.PENDING, null, e.getMessage());
+                logger.warn("Image job {} failed (attempt {} of {}), will retry: {}", jobId, job.getAttempts(), maxAttempts, e.getMessage());
+            } else {
+                removePlaceholder(job);
+                finish(job, ImageJob.Status.FAILED, null, e.getMessage());
+                deleteQuietly(staged);
+                logger.error("Image job {} failed permanently: {}", jobId, e.getMessage(), e);
+            }
+        }
+    }
+
+    // Atomically moves a pending job to PROCESSING so only one worker runs it
+    private ImageJob claim(String jobId) {
+        Query query = new Query(Criteria.where("_id").is(jobId).and("status").is(ImageJob.Status.PENDING));
+        Update update = new Update()
+                .set("status", ImageJob.Status.PROCESSING)
+                .set("updatedAt", LocalDateTime.now())
+                .inc("attempts", 1);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), ImageJob.class);
+    }
+
+    private void finish(ImageJob job, ImageJob.Status status, String resultPath, String error) {
+        Update update = new Update()
+                .set("status", status)
+                .set("resultPath", resultPath)
+                .set("error", error)
+                .set("updatedAt", LocalDateTime.now());
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(job.getId())), update, ImageJob.class);
+    }
+
+    // Swaps the placeholder entry in place, leaving the other images of the menu item alone
+    private void replacePlaceholder(ImageJob job, String resultPath) {
+        Query query = new Query(Criteria.where("_id").is(job.getMenuItemId()).and("imagePaths").is(job.getPlaceholderPath()));
+        long modified = mongoTemplate.updateFirst(query, new Update().set("imagePaths.$", resultPath), MenuItem.class).getModifiedCount();
+        if (modified > 0) {
+            menuItemService.invalidateCatalog();
+        } else {
+            // The menu item was deleted or its images replaced; the sweeper collects the files
+            logger.info("Menu item {} no longer shows the image of job {}", job.getMenuItemId(), job.getId());
+        }
+    }
+
+    private void removePlaceholder(ImageJob job) {
+        Query query = new Query(Criteria.where("_id").is(job.getMenuItemId()));
+        mongoTemplate.updateFirst(query, new Update().pull("imagePaths", job.getPlaceholderPath()), MenuItem.class);
+        menuItemService.invalidateCatalog();
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete staged upload {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -1,54 +1,148 @@
 package com.p3.syllesisfabrik.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
 import java.util.List;
-    //service/imageUploadService.java Snippet Start
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Stores menu item images as resized renditions with content-addressed names.
+ *
+ * An upload is streamed to disk, hashed with SHA-256 and decoded once. From the decoded image
+ * a JPEG rendition is written for every configured width, plus a WebP rendition when an
+ * ImageIO WebP writer is on the classpath. Files are named {@code <sha256>-<width>.<ext>},
+ * so the same photo uploaded twice is stored once and a file never changes after it is
+ * written, which lets browsers cache it forever. The menu item keeps the web path of the
+ * display rendition.
+ */
 @Service
 public class ImageUploadService {
 
-    private static final String UPLOAD_DIR = "src/main/resources/static/uploads/menu-items/";
+    private static final Logger logger = LoggerFactory.getLogger(ImageUploadService.class);
 
-    public List<String> uploadImages(MultipartFile[] images, String menuItemTitle) throws IOException {
-        List<String> imagePaths = new ArrayList<>();
+    public static final String WEB_PATH_PREFIX = "/uploads/menu-items/";
 
-        // Ensure the upload directory exists
-        File uploadDir = new File(UPLOAD_DIR);
-        if (!uploadDir.exists()) {
-            uploadDir.mkdirs();
-        }
+    // Where images were stored before the pipeline existed (inside the classpath)
+    private static final String LEGACY_UPLOAD_DIR = "src/main/resources/static/uploads/menu-items/";
+
+    private static final Pattern RENDITION_NAME = Pattern.compile("([0-9a-f]{64})-\\d+\\.(jpg|webp)");
+
+    @Value("${images.upload-dir:uploads/menu-items}")
+    private String uploadDir;
+
+    @Value("${images.rendition-widths:320,640,1280}")
+    private int[] renditionWidths;
+
+    // Width of the rendition stored on the menu item and shown on the order page
+    @Value("${images.display-width:640}")
+    private int displayWidth;
+
+    @Value("${images.jpeg-quality:0.82}")
+    private float jpegQuality;
 
-        for (int i = 0; i < images.length; i++) {
-            MultipartFile image = images[i];
-            if (!image.isEmpty()) {
-                // Create a sanitized file name using the menu item title and image index
-                String sanitizedTitle = menuItemTitle.replaceAll("[^a-zA-Z0-9]", "_"); // Replace non-alphanumeric characters with "_"
-                String fileName = sanitizedTitle + "_" + (i + 1) + "_" + System.currentTimeMillis() + ".jpg";
+    public ImageUploadService() {
+    }
 
-                // Normalize path to prevent duplicate slashes
-                Path filePath = Paths.get(UPLOAD_DIR).resolve(fileName).normalize();
+    // Used by tests to run the pipeline without a Spring context
+    public ImageUploadService(String uploadDir, int[] renditionWidths, int displayWidth, float jpegQuality) {
+        this.uploadDir = uploadDir;
+        this.renditionWidths = renditionWidths;
+        this.displayWidth = displayWidth;
+        this.jpegQuality = jpegQuality;
+    }
 
-                // Save the file to the directory
-                Files.write(filePath, image.getBytes());
+    public Path getUploadDirectory() {
+        return Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
 
-                // Add the relative web path for static serving (normalize to ensure no duplicate slashes)
-                String webPath = "/uploads/menu-items/" + fileName;
-                webPath = webPath.replaceAll("/+", "/"); // Ensure no duplicate slashes in the path
-                imagePaths.add(webPath);
+    public List<String> uploadImages(MultipartFile[] images, String menuItemTitle) throws IOException {
+        List<String> imagePaths = new ArrayList<>();
+
+        for (MultipartFile image : images) {
+            if (image.isEmpty()) {
+                continue;
+            }
+
+            Path upload = stageUpload(image, getUploadDirectory());
+            try {
+                imagePaths.add(storeRenditions(upload, hashOf(upload), image.getOriginalFilename()));
+            } finally {
+                Files.deleteIfExists(upload);
             }
         }
 
+        logger.info("Stored {} image(s) for menu item '{}'", imagePaths.size(), menuItemTitle);
         return imagePaths;
     }
 
-    //service/imageUploadService.java Snippet End
+    /**
+     * Streams an upload to a file in the given directory instead of buffering it in memory.
+     * The caller owns the returned file and must delete it.
+     */
+    public Path stageUpload(MultipartFile image, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        // The path must be absolute, otherwise the servlet container resolves it against its temp directory
+        Path upload = Files.createTempFile(directory.toAbsolutePath(), "upload-", ".tmp");
+        try {
+            image.transferTo(upload);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(upload);
+            throw e;
+        }
+        return upload;
+    }
+
+    public String hashOf(Path file) throws IOException {
+        return sha256(file);
+    }
+
+    // True once every rendition of the image has been written
+    public boolean isStored(String hash) {
+        int[] widths = allWidths();
+        // Renditions are written smallest first, so the largest one marks a complete set
+        return Files.exists(getUploadDirectory().resolve(hash + "-" + widths[widths.length - 1] + ".jpg"));
+    }
+
+    public String displayPath(String hash) {
+        return WEB_PATH_PREFIX + hash + "-" + displayWidth + ".jpg";
+    }
+
+    /**
+     * Deletes images stored before the rendition pipeline. Content-addressed renditions can be
+     * shared by several menu items and by running image jobs, so they are left in place and
+     * removed by the orphan sweeper once nothing references them any more.
+     */
     public void deleteImages(List<String> imagePaths) throws IOException {
         // Check if the list is null or empty and return early
         if (imagePaths == null || imagePaths.isEmpty()) {
@@ -56,14 +150,177 @@ public class ImageUploadService {
         }
 
         for (String imagePath : imagePaths) {
-            if (imagePath != null && !imagePath.isEmpty()) {
-                // Resolve the absolute file path
-                Path fileToDelete = Paths.get(UPLOAD_DIR + imagePath.replace("/uploads/menu-items/", ""));
-                if (Files.exists(fileToDelete)) {
-                    Files.delete(fileToDelete);
+            if (imagePath == null || imagePath.isBlank() || !imagePath.trim().startsWith(WEB_PATH_PREFIX)) {
+                continue;
+            }
+            String fileName = Paths.get(imagePath.trim()).getFileName().toString();
+            if (!RENDITION_NAME.matcher(fileName).matches()) {
+                // Image uploaded before the rendition pipeline
+                Files.deleteIfExists(getUploadDirectory().resolve(fileName));
+                Files.deleteIfExists(Paths.get(LEGACY_UPLOAD_DIR).resolve(fileName));
+            }
+        }
+    }
+
+    // Content hash of a stored rendition path, or null for other paths
+    public String hashOfPath(String imagePath) {
+        if (imagePath == null || !imagePath.trim().startsWith(WEB_PATH_PREFIX)) {
+            return null;
+        }
+        Matcher matcher = RENDITION_NAME.matcher(Paths.get(imagePath.trim()).getFileName().toString());
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Lists the content hashes that have rendition files, with the time the newest file of
+     * each was written.
+     */
+    public Map<String, Instant> findStoredImages() throws IOException {
+        Map<String, Instant> stored = new HashMap<>();
+        Path directory = getUploadDirectory();
+        if (!Files.isDirectory(directory)) {
+            return stored;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Matcher matcher = RENDITION_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    Instant modified = Files.getLastModifiedTime(file).toInstant();
+                    stored.merge(matcher.group(1), modified, (a, b) -> a.isAfter(b) ? a : b);
                 }
             }
         }
+        return stored;
     }
 
-}
\ No newline at end of file
+    // Decodes the upload once and writes every rendition; returns the display rendition path
+    public String storeRenditions(Path upload, String hash, String originalFilename) throws IOException {
+        Path directory = getUploadDirectory();
+        Files.createDirectories(directory);
+        int[] widths = allWidths();
+
+        if (isStored(hash)) {
+            logger.info("Image {} already stored as {}, skipping processing", originalFilename, hash);
+            return displayPath(hash);
+        }
+
+        BufferedImage source = ImageIO.read(upload.toFile());
+        if (source == null) {
+            throw new IOException("Unsupported image format: " + originalFilename);
+        }
+        BufferedImage opaque = toRgb(source);
+        boolean writeWebp = ImageIO.getImageWritersByFormatName("webp").hasNext();
+
+        for (int width : widths) {
+            // Never upscale: a small original is stored as-is under the larger widths
+            BufferedImage rendition = scaleToWidth(opaque, Math.min(width, opaque.getWidth()));
+            writeAtomically(directory, hash + "-" + width + ".jpg", rendition, findWriter("jpeg"));
+            if (writeWebp) {
+                writeAtomically(directory, hash + "-" + width + ".webp", rendition, findWriter("webp"));
+            }
+        }
+
+        logger.info("Stored renditions {} of {} ({}x{}) as {}", Arrays.toString(widths), originalFilename,
+                source.getWidth(), source.getHeight(), hash);
+        return displayPath(hash);
+    }
+
+    private int[] allWidths() {
+        // The display width is always produced, even if it is missing from the configured widths
+        return IntStream.concat(Arrays.stream(renditionWidths), IntStream.of(displayWidth))
+                .filter(width -> width > 0)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    // Writes to a temporary file first so a concurrent reader never sees a half-written image
+    private void writeAtomically(Path directory, String fileName, BufferedImage image, ImageWriter writer) throws IOException {
+        Path temp = Files.createTempFile(directory, "rendition-", ".tmp");
+        try {
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                if (param.canWriteCompressed()) {
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    if (param.getCompressionType() == null && param.getCompressionTypes().length > 0) {
+                        param.setCompressionType(param.getCompressionTypes()[0]);
+                    }
+                    param.setCompressionQuality(jpegQuality);
+                }
+                writer.setOutput(output);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, directory.resolve(fileName), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public void deleteRenditions(String hash) throws IOException {
+        Path directory = getUploadDirectory();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> renditions = Files.newDirectoryStream(directory, hash + "-*")) {
+            for (Path rendition : renditions) {
+                Files.deleteIfExists(rendition);
+            }
+        }
+        logger.info("Deleted renditions of image {}", hash);
+    }
+
+    // JPEG has no alpha channel, so transparent areas are flattened onto white
+    private static BufferedImage toRgb(BufferedImage source) {
+        if (source.getType() == BufferedImage.TYPE_INT_RGB) {
+            return source;
+        }
+        BufferedImage rgb = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, source.getWidth(), source.getHeight());
+        graphics.drawImage(source, 0, 0, null);
+        graphics.dispose();
+        return rgb;
+    }
+
+    // Halves the image step by step before the final resize, which keeps large downscales sharp
+    private static BufferedImage scaleToWidth(BufferedImage source, int targetWidth) {
+        BufferedImage current = source;
+        while (current.getWidth() / 2 >= targetWidth) {
+            current = resize(current, current.getWidth() / 2);
+        }
+        return current.getWidth() == targetWidth ? current : resize(current, targetWidth);
+    }
+
+    private static BufferedImage resize(BufferedImage source, int width) {
+        int height = Math.max(1, Math.round((float) source.getHeight() * width / source.getWidth()));
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.drawImage(source, 0, 0, width, height, null);
+        graphics.dispose();
+        return resized;
+    }
+
+    private static ImageWriter findWriter(String format) {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        return writers.hasNext() ? writers.next() : null;
+    }
+
+    private static String sha256(Path file) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.p3.syllesisfabrik.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the login attempt windows in memory. The keys are spread over a fixed number of
+ * stripes, each a plain map guarded by its own lock, so concurrent logins only contend when
+ * their keys share a stripe. A window holds the times of at most {@code limit} attempts, and
+ * windows without recent attempts are swept out, so memory stays bounded during an attack.
+ */
+@Service
+@ConditionalOnProperty(name = "login.throttle.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryLoginAttemptStore implements LoginAttemptStore {
+
+    private static final int STRIPES = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    // Longest window asked for, so the sweep never drops attempts still counted
+    private volatile long longestWindowMillis;
+
+    private static class Stripe {
+        final Map<String, ArrayDeque<Long>> windows = new HashMap<>();
+    }
+
+    public InMemoryLoginAttemptStore() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int limit, long windowMillis, long nowMillis) {
+        if (windowMillis > longestWindowMillis) {
+            longestWindowMillis = windowMillis;
+        }
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            ArrayDeque<Long> attempts = stripe.windows.computeIfAbsent(key, k -> new ArrayDeque<>());
+            expire(attempts, nowMillis - windowMillis);
+            if (attempts.size() >= limit) {
+                return false;
+            }
+            attempts.addLast(nowMillis);
+            return true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${login.throttle.sweep-interval-ms:60000}",
+            initialDelayString = "${login.throttle.sweep-interval-ms:60000}")
+    public void sweep() {
+        sweep(System.currentTimeMillis());
+    }
+
+    // Drops the windows whose attempts have all expired; stripes are locked one at a time
+    void sweep(long nowMillis) {
+        long cutoff = nowMillis - longestWindowMillis;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.windows.values().removeIf(attempts -> {
+                    expire(attempts, cutoff);
+                    return attempts.isEmpty();
+                });
+            }
+        }
+    }
+
+    // Number of keys with a window, for tests
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.windows.size();
+            }
+        }
+        return size;
+    }
+
+    private static void expire(ArrayDeque<Long> attempts, long cutoff) {
+        while (!attempts.isEmpty() && attempts.peekFirst() <= cutoff) {
+            attempts.removeFirst();
+        }
+    }
+
+    private Stripe stripeOf(String key) {
+        return stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+    }
+}
@@ -0,0 +1,305 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.InvoiceJob;
+import com.p3.syllesisfabrik.model.Order;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Renders PDF invoices for many orders at once, in the background.
+ *
+ * A job covers the shipped orders the admin ticked or the orders delivered in a date range.
+ * Its orders are split into chunks and handed to a pool of workers, one per core by default,
+ * so a month-end batch keeps every core busy. Each chunk reads its orders with one query,
+ * writes one PDF per order into the job's directory under {@code invoices.output-dir} and
+ * adds its counts to the job with one update, which is what the progress endpoint reads.
+ * A finished job can be downloaded as one zip file.
+ *
+ * Jobs live in MongoDB; a job interrupted by a restart is rendered again by the resume pass,
+ * overwriting the files it had already written.
+ */
+@Service
+public class InvoiceJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceJobService.class);
+
+    private static final int MAX_ERRORS = 20;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private InvoicePdfRenderer invoicePdfRenderer;
+
+    @Value("${invoices.output-dir:invoices}")
+    private String outputDir;
+
+    // Number of worker threads, 0 means one per available core
+    @Value("${invoices.workers:0}")
+    private int workers;
+
+    // Orders rendered per task
+    @Value("${invoices.chunk-size:25}")
+    private int chunkSize;
+
+    @Value("${invoices.max-orders:5000}")
+    private int maxOrders;
+
+    @Value("${invoices.job-retention-days:7}")
+    private long jobRetentionDays;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Unbounded queue: a job has at most maxOrders / chunkSize chunks
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "invoice-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        logger.info("Invoice workers started: {} threads", threads);
+    }
+
+    // Run by DatabaseSetup once the application is up
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(InvoiceJob.class).ensureIndex(new Index()
+                .on("status", Sort.Direction.ASC).on("updatedAt", Sort.Direction.ASC).named("status_updated"));
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Unfinished jobs stay in the database and are resumed after the restart
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts a job for the given orders. Orders that have not been shipped are left out.
+     *
+     * @throws IllegalArgumentException if too many orders are given or none of them is shipped.
+     */
+    public InvoiceJob createForOrders(Collection<String> orderIds) {
+        if (orderIds.size() > maxOrders) {
+            throw new IllegalArgumentException("At most " + maxOrders + " invoices can be generated at once.");
+        }
+        Query query = new Query(Criteria.where("_id").in(orderIds).and("isShipped").is(true))
+                .with(Sort.by("deliveredAt", "_id"));
+        return create(query, "None of the selected orders has been shipped.");
+    }
+
+    /**
+     * Starts a job for every shipped order delivered from {@code from} to {@code to}, both
+     * inclusive, such as all deliveries of a month.
+     *
+     * @throws IllegalArgumentException for an empty or too large range.
+     */
+    public InvoiceJob createForRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("The end date must not be before the start date.");
+        }
+        Query query = new Query(Criteria.where("isShipped").is(true)
+                .and("deliveredAt").gte(from.atStartOfDay()).lt(to.plusDays(1).atStartOfDay()))
+                .with(Sort.by("deliveredAt", "_id"))
+                .limit(maxOrders + 1);
+        return create(query, "No orders were delivered in that period.");
+    }
+
+    private InvoiceJob create(Query query, String noOrders) {
+        query.fields().include("_id");
+        List<String> orderIds = mongoTemplate.find(query, Order.class).stream().map(Order::getId).toList();
+        if (orderIds.isEmpty()) {
+            throw new IllegalArgumentException(noOrders);
+        }
+        if (orderIds.size() > maxOrders) {
+            throw new IllegalArgumentException("At most " + maxOrders + " invoices can be generated at once.");
+        }
+
+        InvoiceJob job = mongoTemplate.insert(new InvoiceJob(new ArrayList<>(orderIds), LocalDate.now()));
+        logger.info("Invoice job {} created for {} orders", job.getId(), orderIds.size());
+        dispatch(job.getId());
+        return job;
+    }
+
+    // The job, or null for an unknown or malformed ID
+    public InvoiceJob getJob(String jobId) {
+        return ObjectId.isValid(jobId) ? mongoTemplate.findById(jobId, InvoiceJob.class) : null;
+    }
+
+    /**
+     * Writes the invoices of a finished job to the stream as one zip file.
+     *
+     * @throws IllegalStateException if the job has not finished.
+     */
+    public void writeBundle(InvoiceJob job, OutputStream out) throws IOException {
+        if (job.getStatus() != InvoiceJob.Status.DONE) {
+            throw new IllegalStateException("The invoices are still being generated.");
+        }
+        Path directory = jobDirectory(job.getId());
+        try (ZipOutputStream zip = new ZipOutputStream(out); Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.sorted().toList()) {
+                zip.putNextEntry(new ZipEntry(file.getFileName().toString()));
+                Files.copy(file, zip);
+                zip.closeEntry();
+            }
+        }
+    }
+
+    // Picks up jobs whose workers were lost to a restart, and jobs created while the pool was stopping
+    @Scheduled(fixedDelayString = "${invoices.resume-interval-ms:60000}", initialDelayString = "${invoices.resume-initial-delay-ms:30000}")
+    public void resumeInterruptedJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        Query stuck = new Query(new Criteria().orOperator(
+                Criteria.where("status").is(InvoiceJob.Status.RUNNING).and("updatedAt").lt(now.minusMinutes(10)),
+                Criteria.where("status").is(InvoiceJob.Status.PENDING).and("updatedAt").lt(now.minusSeconds(30))));
+        stuck.fields().include("_id");
+        for (InvoiceJob job : mongoTemplate.find(stuck, InvoiceJob.class)) {
+            Update restart = new Update().set("status", InvoiceJob.Status.PENDING).set("rendered", 0).set("failed", 0)
+                    .set("errors", List.of()).set("updatedAt", now);
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(job.getId())), restart, InvoiceJob.class);
+            logger.info("Resuming invoice job {}", job.getId());
+            dispatch(job.getId());
+        }
+    }
+
+    // Deletes finished jobs and their files after the retention period
+    @Scheduled(fixedDelayString = "${invoices.sweep-interval-ms:3600000}", initialDelayString = "${invoices.sweep-initial-delay-ms:300000}")
+    public void sweepFinishedJobs() {
+        Query finished = new Query(Criteria.where("status").in(InvoiceJob.Status.DONE, InvoiceJob.Status.FAILED)
+                .and("updatedAt").lt(LocalDateTime.now().minusDays(jobRetentionDays)));
+        finished.fields().include("_id");
+        for (InvoiceJob job : mongoTemplate.find(finished, InvoiceJob.class)) {
+            try {
+                deleteDirectory(jobDirectory(job.getId()));
+                mongoTemplate.remove(new Query(Criteria.where("_id").is(job.getId())), InvoiceJob.class);
+            } catch (IOException e) {
+                logger.warn("Could not delete the invoices of job {}: {}", job.getId(), e.getMessage());
+            }
+        }
+    }
+
+    public Path getOutputDirectory() {
+        return Paths.get(outputDir).toAbsolutePath().normalize();
+    }
+
+    // Moves a pending job to RUNNING and queues its chunks
+    private void dispatch(String jobId) {
+        Query query = new Query(Criteria.where("_id").is(jobId).and("status").is(InvoiceJob.Status.PENDING));
+        Update update = new Update().set("status", InvoiceJob.Status.RUNNING).set("updatedAt", LocalDateTime.now());
+        InvoiceJob job = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), InvoiceJob.class);
+        if (job == null) {
+            return; // Already taken by another pass
+        }
+        List<String> orderIds = job.getOrderIds();
+        for (int start = 0; start < orderIds.size(); start += chunkSize) {
+            List<String> chunk = List.copyOf(orderIds.subList(start, Math.min(start + chunkSize, orderIds.size())));
+            executor.execute(() -> renderChunk(job.getId(), job.getInvoiceDate(), chunk));
+        }
+    }
+
+    void renderChunk(String jobId, LocalDate invoiceDate, List<String> orderIds) {
+        int rendered = 0;
+        List<String> errors = new ArrayList<>();
+        try {
+            Path directory = Files.createDirectories(jobDirectory(jobId));
+            Query query = new Query(Criteria.where("_id").in(orderIds));
+            query.fields().include("company", "orderDate", "deliveredAt", "invoicedAt", "totalPrice",
+                    "cartItems.menuItemId", "cartItems.desiredQuantity", "cartItems.totalCost");
+            Set<String> missing = new HashSet<>(orderIds);
+            for (Order order : orderService.findList(query)) {
+                missing.remove(order.getId());
+                try {
+                    Files.write(directory.resolve("invoice-" + order.getId() + ".pdf"), invoicePdfRenderer.render(order, invoiceDate));
+                    rendered++;
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Invoice of order {} failed: {}", order.getId(), e.getMessage());
+                    errors.add(order.getId() + ": " + e.getMessage());
+                }
+            }
+            missing.stream().sorted().forEach(orderId -> errors.add(orderId + ": Order not found."));
+        } catch (IOException | RuntimeException e) {
+            logger.error("Invoice chunk of job {} failed", jobId, e);
+            errors.clear();
+            rendered = 0;
+            orderIds.forEach(orderId -> errors.add(orderId + ": " + e.getMessage()));
+        }
+        record(jobId, rendered, errors);
+    }
+
+    // Adds the counts of a chunk to the job and closes the job once every order is counted
+    private void record(String jobId, int rendered, List<String> errors) {
+        Update update = new Update()
+                .inc("rendered", rendered)
+                .inc("failed", errors.size())
+                .set("updatedAt", LocalDateTime.now());
+        if (!errors.isEmpty()) {
+            update.push("errors").slice(MAX_ERRORS).each(errors.toArray());
+        }
+        InvoiceJob job = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(jobId).and("status").is(InvoiceJob.Status.RUNNING)),
+                update, FindAndModifyOptions.options().returnNew(true), InvoiceJob.class);
+        if (job == null || job.getRendered() + job.getFailed() < job.getTotal()) {
+            return;
+        }
+        InvoiceJob.Status status = job.getRendered() > 0 ? InvoiceJob.Status.DONE : InvoiceJob.Status.FAILED;
+        LocalDateTime now = LocalDateTime.now();
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(jobId).and("status").is(InvoiceJob.Status.RUNNING)),
+                new Update().set("status", status).set("finishedAt", now).set("updatedAt", now), InvoiceJob.class);
+        logger.info("Invoice job {} finished: {} rendered, {} failed", jobId, job.getRendered(), job.getFailed());
+    }
+
+    private Path jobDirectory(String jobId) {
+        return getOutputDirectory().resolve(jobId);
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.p3.syllesisfabrik.service;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfImportedPage;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfPageEventHelper;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfWriter;
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.UserLogin;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Renders the PDF invoice of an order with OpenPDF.
+ *
+ * The invoices use the standard Helvetica fonts every PDF reader has, so nothing is embedded.
+ * The fonts and a one-page PDF holding the letterhead and payment terms are built once at
+ * startup; each invoice imports that page as a template and draws it under every page, so it
+ * is stored once per file. Every render uses its own document and writer and only reads the
+ * shared fonts and template bytes, so any number of workers can use the renderer at once.
+ */
+@Service
+public class InvoicePdfRenderer {
+
+    private static final Locale DANISH = Locale.forLanguageTag("da-DK");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+    private static final float LEFT = 50;
+    private static final float RIGHT = 545;
+    private static final float TOP_MARGIN = 100; // Below the letterhead
+    private static final float BOTTOM_MARGIN = 90; // Above the payment terms
+
+    @Value("${invoice.seller-name:Sylles Isfabrik}")
+    private String sellerName;
+
+    @Value("${invoice.seller-address:}")
+    private String sellerAddress;
+
+    @Value("${invoice.seller-cvr:}")
+    private String sellerCvr;
+
+    @Value("${invoice.seller-email:${spring.mail.username:}}")
+    private String sellerEmail;
+
+    @Value("${invoice.bank-account:}")
+    private String bankAccount;
+
+    @Value("${invoice.payment-days:14}")
+    private int paymentDays;
+
+    private BaseFont helvetica;
+    private BaseFont helveticaBold;
+    private Font textFont;
+    private Font boldFont;
+    private Font titleFont;
+
+    // One-page PDF with the letterhead and payment terms, imported by every invoice
+    private byte[] template;
+
+    @PostConstruct
+    public void loadResources() {
+        try {
+            helvetica = BaseFont.createFont(BaseFont.HELVETICA, BaseFont.CP1252, BaseFont.NOT_EMBEDDED);
+            helveticaBold = BaseFont.createFont(BaseFont.HELVETICA_BOLD, BaseFont.CP1252, BaseFont.NOT_EMBEDDED);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        textFont = new Font(helvetica, 10);
+        boldFont = new Font(helveticaBold, 10);
+        titleFont = new Font(helveticaBold, 18);
+        template = letterhead();
+    }
+
+    /**
+     * Renders the invoice of a shipped order. The order needs its company with the address
+     * and the title and price of its flavours, as read by OrderService.findList.
+     *
+     * @param invoiceDate Used when the order has not been marked invoiced yet.
+     */
+    public byte[] render(Order order, LocalDate invoiceDate) {
+        LocalDate date = order.getInvoicedAt() != null ? order.getInvoicedAt().toLocalDate() : invoiceDate;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document(PageSize.A4, LEFT, PageSize.A4.getWidth() - RIGHT, TOP_MARGIN, BOTTOM_MARGIN);
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setPageEvent(new Letterhead());
+        document.open();
+
+        Paragraph heading = new Paragraph("INVOICE", titleFont);
+        heading.setSpacingAfter(14);
+        document.add(heading);
+        document.add(details(order, date));
+        document.add(lines(order));
+        document.close();
+        return out.toByteArray();
+    }
+
+    // The customer on the left and the invoice numbers and dates on the right
+    private PdfPTable details(Order order, LocalDate invoiceDate) {
+        PdfPTable billTo = table(1);
+        billTo.addCell(cell("Bill to", boldFont, Element.ALIGN_LEFT));
+        UserLogin company = order.getCompany();
+        if (company != null) {
+            for (String line : List.of(nonNull(company.getCompanyName()),
+                    (nonNull(company.getStreetName()) + " " + nonNull(company.getStreetNumber())).trim(),
+                    (nonNull(company.getPostcode()) + " " + nonNull(company.getCity())).trim(),
+                    company.getCompanyCVR() != null ? "CVR " + company.getCompanyCVR() : "")) {
+                if (!line.isEmpty()) {
+                    billTo.addCell(cell(line, textFont, Element.ALIGN_LEFT));
+                }
+            }
+        }
+
+        PdfPTable numbers = table(2);
+        numbers.setWidths(new float[]{80, 165});
+        String[][] details = {
+                {"Invoice no.", order.getId()},
+                {"Invoice date", invoiceDate.format(DATE_FORMAT)},
+                {"Order date", order.getOrderDate() != null ? order.getOrderDate().format(DATE_FORMAT) : ""},
+                {"Delivered", order.getDeliveredAt() != null ? order.getDeliveredAt().format(DATE_FORMAT) : ""},
+                {"Due date", invoiceDate.plusDays(paymentDays).format(DATE_FORMAT)}};
+        for (String[] detail : details) {
+            numbers.addCell(cell(detail[0], boldFont, Element.ALIGN_LEFT));
+            numbers.addCell(cell(nonNull(detail[1]), textFont, Element.ALIGN_RIGHT));
+        }
+
+        PdfPTable table = table(2);
+        table.setWidths(new float[]{250, 245});
+        table.setSpacingAfter(24);
+        table.addCell(nested(billTo));
+        table.addCell(nested(numbers));
+        return table;
+    }
+
+    // One row per flavour, with the header repeated on every page and the total at the end
+    private PdfPTable lines(Order order) {
+        PdfPTable table = table(4);
+        table.setWidths(new float[]{210, 70, 110, 105});
+        table.setHeaderRows(1);
+        table.addCell(header("Item", Element.ALIGN_LEFT));
+        table.addCell(header("Litres", Element.ALIGN_RIGHT));
+        table.addCell(header("Price per litre", Element.ALIGN_RIGHT));
+        table.addCell(header("Amount", Element.ALIGN_RIGHT));
+
+        for (CartItem line : order.getCartItems() != null ? order.getCartItems() : List.<CartItem>of()) {
+            MenuItem menuItem = line.getMenuItem();
+            String title = menuItem != null && menuItem.getTitle() != null ? menuItem.getTitle() : "Discontinued flavour";
+            double pricePerLitre = menuItem != null ? menuItem.getPricePerLiter()
+                    : line.getDesiredQuantity() > 0 ? line.getTotalCost() / line.getDesiredQuantity() : 0;
+            table.addCell(cell(title, textFont, Element.ALIGN_LEFT));
+            table.addCell(cell(String.valueOf(line.getDesiredQuantity()), textFont, Element.ALIGN_RIGHT));
+            table.addCell(cell(amount(pricePerLitre), textFont, Element.ALIGN_RIGHT));
+            table.addCell(cell(amount(line.getTotalCost()), textFont, Element.ALIGN_RIGHT));
+        }
+
+        PdfPCell gap = cell("", textFont, Element.ALIGN_LEFT);
+        gap.setColspan(2);
+        table.addCell(gap);
+        Font totalFont = new Font(helveticaBold, 11);
+        for (PdfPCell total : List.of(cell("Total (DKK)", totalFont, Element.ALIGN_LEFT),
+                cell(amount(order.getTotalPrice()), totalFont, Element.ALIGN_RIGHT))) {
+            total.setBorder(Rectangle.TOP);
+            total.setBorderWidth(0.5f);
+            total.setPaddingTop(6);
+            table.addCell(total);
+        }
+        return table;
+    }
+
+    // Letterhead and payment terms as a page of its own, drawn under every invoice page
+    private byte[] letterhead() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document(PageSize.A4);
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        document.open();
+        PdfContentByte canvas = writer.getDirectContent();
+
+        canvas.beginText();
+        canvas.setFontAndSize(helveticaBold, 20);
+        canvas.showTextAligned(Element.ALIGN_LEFT, sellerName, LEFT, 790, 0);
+        canvas.setFontAndSize(helvetica, 9);
+        float y = 790;
+        for (String line : List.of(sellerAddress, sellerCvr.isEmpty() ? "" : "CVR " + sellerCvr, sellerEmail)) {
+            if (!line.isEmpty()) {
+                canvas.showTextAligned(Element.ALIGN_RIGHT, line, RIGHT, y, 0);
+                y -= 12;
+            }
+        }
+        String terms = "Payment within " + paymentDays + " days"
+                + (bankAccount.isEmpty() ? "." : " to account " + bankAccount + ".");
+        canvas.showTextAligned(Element.ALIGN_LEFT, terms, LEFT, 58, 0);
+        canvas.showTextAligned(Element.ALIGN_LEFT,
+                "Please state the invoice number with your payment. Thank you for your order.", LEFT, 46, 0);
+        canvas.endText();
+
+        canvas.setLineWidth(0.5f);
+        canvas.moveTo(LEFT, 760);
+        canvas.lineTo(RIGHT, 760);
+        canvas.moveTo(LEFT, 72);
+        canvas.lineTo(RIGHT, 72);
+        canvas.stroke();
+
+        writer.setPageEmpty(false);
+        document.close();
+        return out.toByteArray();
+    }
+
+    // Imports the template once per invoice and draws it under each page
+    private class Letterhead extends PdfPageEventHelper {
+        private PdfImportedPage page;
+
+        @Override
+        public void onOpenDocument(PdfWriter writer, Document document) {
+            try {
+                page = writer.getImportedPage(new PdfReader(template), 1);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void onEndPage(PdfWriter writer, Document document) {
+            writer.getDirectContentUnder().addTemplate(page, 0, 0);
+        }
+    }
+
+    private static PdfPTable table(int columns) {
+        PdfPTable table = new PdfPTable(columns);
+        table.setWidthPercentage(100);
+        return table;
+    }
+
+    private static PdfPCell nested(PdfPTable table) {
+        PdfPCell cell = new PdfPCell(table);
+        cell.setBorder(Rectangle.NO_BORDER);
+        return cell;
+    }
+
+    private static PdfPCell cell(String content, Font font, int alignment) {
+        PdfPCell cell = new PdfPCell(new Phrase(content, font));
+        cell.setBorder(Rectangle.NO_BORDER);
+        cell.setHorizontalAlignment(alignment);
+        cell.setPadding(2);
+        return cell;
+    }
+
+    private PdfPCell header(String content, int alignment) {
+        PdfPCell cell = cell(content, boldFont, alignment);
+        cell.setBorder(Rectangle.BOTTOM);
+        cell.setBorderWidth(0.5f);
+        cell.setPaddingBottom(5);
+        return cell;
+    }
+
+    private static String amount(double value) {
+        return String.format(DANISH, "%,.2f", value);
+    }
+
+    private static String nonNull(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,19 @@
+package com.p3.syllesisfabrik.service;
+
+/**
+ * Sliding-window attempt counters behind LoginThrottleService.
+ *
+ * The default store keeps the counters in memory, which is enough for a single instance. When
+ * the shop runs on several instances, set {@code login.throttle.store} to another value and
+ * register a store backed by a shared cache, so an attacker cannot spread guesses over them.
+ */
+public interface LoginAttemptStore {
+
+    /**
+     * Records an attempt for the key if it made fewer than {@code limit} attempts in the
+     * window ending at {@code nowMillis}. Checking and recording is atomic per key.
+     *
+     * @return True if the attempt was recorded, false if the key is over its limit.
+     */
+    boolean tryAcquire(String key, int limit, long windowMillis, long nowMillis);
+}
@@ -0,0 +1,145 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.CodeSequence;
+import com.p3.syllesisfabrik.model.UserLogin;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hands out the 6-digit login codes for new companies.
+ *
+ * Codes come from a counter in the "sequences" collection that is incremented with one
+ * atomic findAndModify per allocation. The counter value is mapped onto 100000-999999 by a
+ * Feistel network keyed with SecureRandom values (cycle-walked from 2^20 down to 900000),
+ * which is a permutation: every counter value gives a different code, so there is no
+ * existence check and no retry loop, and codes are not guessable from their order.
+ *
+ * Codes issued by the old random generator are loaded once at startup and skipped if the
+ * permutation ever lands on one of them.
+ */
+@Service
+public class LoginCodeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginCodeService.class);
+
+    static final String SEQUENCE_ID = "loginCode";
+    static final int FIRST_CODE = 100000;
+    static final int CODE_SPACE = 900000; // 100000-999999
+
+    private static final int HALF_BITS = 10; // 2^20 >= CODE_SPACE
+    private static final int HALF_MASK = (1 << HALF_BITS) - 1;
+    private static final int ROUNDS = 4;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+    private volatile Set<String> legacyCodes = Collections.emptySet();
+
+    // Thrown when all 900000 codes have been handed out
+    public static class CodeSpaceExhaustedException extends RuntimeException {
+        public CodeSpaceExhaustedException() {
+            super("All 6-digit login codes have been allocated.");
+        }
+    }
+
+    // Run by DatabaseSetup once the application is up
+    public void loadLegacyCodes() {
+        Query query = new Query(Criteria.where("codeType").is("normal"));
+        query.fields().include("loginCode");
+        Set<String> codes = new HashSet<>();
+        for (UserLogin user : mongoTemplate.find(query, UserLogin.class)) {
+            if (user.getLoginCode() != null) {
+                codes.add(user.getLoginCode());
+            }
+        }
+        legacyCodes = codes;
+        logger.info("Loaded {} existing login codes", codes.size());
+    }
+
+    /**
+     * Allocates the next unused login code.
+     *
+     * @return A 6-digit code that has not been handed out before.
+     * @throws CodeSpaceExhaustedException if the code space is used up.
+     */
+    public String allocate() {
+        while (true) {
+            CodeSequence sequence = mongoTemplate.findAndModify(
+                    new Query(Criteria.where("_id").is(SEQUENCE_ID)),
+                    new Update().inc("next", 1).setOnInsert("keys", newKeys()),
+                    FindAndModifyOptions.options().returnNew(true).upsert(true),
+                    CodeSequence.class);
+
+            long index = sequence.getNext() - 1;
+            if (index >= CODE_SPACE) {
+                throw new CodeSpaceExhaustedException();
+            }
+
+            String code = codeForIndex(index, toArray(sequence.getKeys()));
+            if (!legacyCodes.contains(code)) {
+                return code;
+            }
+            logger.debug("Skipping login code issued before the sequence existed");
+        }
+    }
+
+    // Maps a counter value in [0, CODE_SPACE) to a 6-digit code; a bijection for fixed keys
+    static String codeForIndex(long index, long[] keys) {
+        int value = (int) index;
+        do {
+            value = feistel(value, keys);
+        } while (value >= CODE_SPACE);
+        return String.valueOf(FIRST_CODE + value);
+    }
+
+    private static int feistel(int value, long[] keys) {
+        int left = value >>> HALF_BITS;
+        int right = value & HALF_MASK;
+        for (int round = 0; round < ROUNDS; round++) {
+            int next = left ^ round(right, keys[round]);
+            left = right;
+            right = next;
+        }
+        return (left << HALF_BITS) | right;
+    }
+
+    // SplitMix64 finaliser over the half block and the round key
+    private static int round(int half, long key) {
+        long z = half * 0x9E3779B97F4A7C15L + key;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (int) z & HALF_MASK;
+    }
+
+    private List<Long> newKeys() {
+        List<Long> keys = new ArrayList<>(ROUNDS);
+        for (int i = 0; i < ROUNDS; i++) {
+            keys.add(secureRandom.nextLong());
+        }
+        return keys;
+    }
+
+    private static long[] toArray(List<Long> keys) {
+        long[] array = new long[keys.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = keys.get(i);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,78 @@
+package com.p3.syllesisfabrik.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Limits how fast login codes can be guessed, before the guess reaches MongoDB.
+ *
+ * Every attempt counts against two sliding windows: one per client address, which stops a
+ * single client, and one per code prefix (the first digits of the code), which stops many
+ * clients working through the same part of the code space. The prefix windows also cap the
+ * lookups the database can see during an attack at prefixes x limit per window, however many
+ * guesses arrive. Successful logins count like any other attempt; clearing the window on
+ * success would let anyone with one valid code reopen it after every few guesses.
+ *
+ * The client address is the remote address of the request; behind a proxy, set
+ * server.forward-headers-strategy so it is the address of the client.
+ */
+@Service
+public class LoginThrottleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginThrottleService.class);
+
+    @Autowired
+    private LoginAttemptStore loginAttemptStore;
+
+    @Value("${login.throttle.window-seconds:300}")
+    private long windowSeconds;
+
+    @Value("${login.throttle.max-per-client:10}")
+    private int maxPerClient;
+
+    @Value("${login.throttle.max-per-prefix:30}")
+    private int maxPerPrefix;
+
+    @Value("${login.throttle.prefix-length:3}")
+    private int prefixLength;
+
+    /**
+     * Records a login attempt.
+     *
+     * @return True if the attempt may be checked, false if it must be turned away.
+     */
+    public boolean tryAttempt(String clientAddress, String loginCode) {
+        long now = System.currentTimeMillis();
+        long window = windowSeconds * 1000;
+        if (!loginAttemptStore.tryAcquire(clientKey(clientAddress), maxPerClient, window, now)) {
+            logger.debug("Too many login attempts from {}", clientAddress);
+            return false;
+        }
+        if (!loginAttemptStore.tryAcquire(prefixKey(loginCode), maxPerPrefix, window, now)) {
+            logger.debug("Too many login attempts on codes starting with {}", prefixOf(loginCode));
+            return false;
+        }
+        return true;
+    }
+
+    // Minutes until a turned away client may try again at the latest
+    public long getRetryAfterMinutes() {
+        return Math.max(1, (windowSeconds + 59) / 60);
+    }
+
+    private static String clientKey(String clientAddress) {
+        return "client:" + clientAddress;
+    }
+
+    private String prefixKey(String loginCode) {
+        return "prefix:" + prefixOf(loginCode);
+    }
+
+    private String prefixOf(String loginCode) {
+        String code = loginCode == null ? "" : loginCode.trim();
+        return code.length() > prefixLength ? code.substring(0, prefixLength) : code;
+    }
+}
@@ -2,29 +2,153 @@ package com.p3.syllesisfabrik.service;
 
 import com.p3.syllesisfabrik.model.MenuItem;
 import com.p3.syllesisfabrik.repository.MenuItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
+/**
+ * Menu item access with a read-through catalog cache.
+ *
+ * The catalog is read on every order page and admin page render but only changes when an
+ * admin edits the menu or stock is reserved or released. Reads are served from an immutable
+ * snapshot (list plus id index) that is swapped in as a whole, so readers never see a
+ * half-built catalog. Every write that changes menu items refreshes or invalidates it.
+ */
 @Service
 public class MenuItemService {
 
+    private static final Logger logger = LoggerFactory.getLogger(MenuItemService.class);
+
     @Autowired
     private MenuItemRepository menuItemRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private volatile CatalogSnapshot catalog;
+
+    private final LongAdder catalogHits = new LongAdder();
+    private final LongAdder catalogMisses = new LongAdder();
+    private final LongAdder catalogRebuilds = new LongAdder();
+    private final LongAdder catalogInvalidations = new LongAdder();
+
+    // Immutable view of all menu items at one point in time
+    public static final class CatalogSnapshot {
+        private final List<MenuItem> menuItems;
+        private final Map<String, MenuItem> menuItemsById;
+        private final Instant lastModified;
+        private final String etag;
+
+        CatalogSnapshot(List<MenuItem> menuItems, Instant lastModified) {
+            Map<String, MenuItem> byId = new LinkedHashMap<>();
+            int contentHash = 1;
+            for (MenuItem menuItem : menuItems) {
+                // Templates expect null instead of an empty image list
+                if (menuItem.getImagePaths() != null && menuItem.getImagePaths().isEmpty()) {
+                    menuItem.setImagePaths(null);
+                }
+                byId.put(menuItem.getId(), menuItem);
+                contentHash = 31 * contentHash + Objects.hash(menuItem.getId(), menuItem.getTitle(),
+                        menuItem.getDescription(), menuItem.getAllergens(), menuItem.getQuantity(),
+                        menuItem.isAvailable(), menuItem.getPricePerLiter(), menuItem.getImagePaths());
+            }
+            this.menuItems = Collections.unmodifiableList(menuItems);
+            this.menuItemsById = Collections.unmodifiableMap(byId);
+            this.lastModified = lastModified.truncatedTo(ChronoUnit.SECONDS);
+            this.etag = Integer.toHexString(contentHash);
+        }
+
+        public List<MenuItem> getMenuItems() {
+            return menuItems;
+        }
+
+        public Optional<MenuItem> findById(String id) {
+            return Optional.ofNullable(menuItemsById.get(id));
+        }
+
+        public Instant getLastModified() {
+            return lastModified;
+        }
+
+        // Changes whenever any displayed field of any menu item changes
+        public String getEtag() {
+            return etag;
+        }
+    }
+
+    /**
+     * Returns all menu items from the catalog cache. The list is read-only and shared between
+     * requests; use findById() for items that are going to be modified and saved.
+     */
     public List<MenuItem> findAll() {
-        return menuItemRepository.findAll();
+        return getCatalog().getMenuItems();
+    }
+
+    // Cached lookup for read-only use, e.g. pricing a cart line
+    public Optional<MenuItem> findCatalogItem(String id) {
+        return getCatalog().findById(id);
+    }
+
+    public CatalogSnapshot getCatalog() {
+        CatalogSnapshot snapshot = catalog;
+        if (snapshot != null) {
+            catalogHits.increment();
+            return snapshot;
+        }
+        catalogMisses.increment();
+        return loadCatalog();
     }
 
     public MenuItem saveMenuItem(MenuItem menuItem) {
-        return menuItemRepository.save(menuItem);
+        MenuItem saved = menuItemRepository.save(menuItem);
+        refreshCatalog();
+        return saved;
+    }
+
+    /**
+     * Writes the fields an admin edits with one $set and leaves the rest of the document alone.
+     * A full save of an item read before a checkout ran would drop the checkout's stock
+     * reservation.
+     *
+     * @return false when the menu item no longer exists.
+     */
+    public boolean updateDetails(MenuItem menuItem) {
+        Update update = new Update()
+                .set("title", menuItem.getTitle())
+                .set("description", menuItem.getDescription())
+                .set("allergens", menuItem.getAllergens())
+                .set("quantity", menuItem.getQuantity())
+                .set("pricePerLiter", menuItem.getPricePerLiter())
+                .set("isAvailable", menuItem.isAvailable())
+                .set("imagePaths", menuItem.getImagePaths());
+        boolean updated = mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(menuItem.getId())), update, MenuItem.class)
+                .getMatchedCount() > 0;
+        refreshCatalog();
+        return updated;
     }
 
     public void deleteById(String id) {
         menuItemRepository.deleteById(id);  // Deletes the MenuItem by its ID
+        refreshCatalog();
     }
+
+    // Reads from the database, so the returned item can safely be modified before saving
     public Optional<MenuItem> findById(String id) {
         return menuItemRepository.findById(id);  // Uses the built-in MongoRepository method
     }
@@ -33,4 +157,55 @@ public class MenuItemService {
         return menuItemRepository.findByTitleIgnoreCase(title);
     }
 
+    /**
+     * Drops the cached catalog after menu items were changed outside this service (stock
+     * reservations). The next read rebuilds it. Synchronized with the rebuild so a rebuild
+     * that read the old data cannot be stored after the invalidation.
+     */
+    public synchronized void invalidateCatalog() {
+        catalog = null;
+        catalogInvalidations.increment();
+    }
+
+    // Rebuilds the catalog right away after an admin change to the menu
+    public synchronized void refreshCatalog() {
+        catalog = buildCatalog();
+    }
+
+    public Map<String, Object> getCatalogStats() {
+        long hits = catalogHits.sum();
+        long misses = catalogMisses.sum();
+        CatalogSnapshot snapshot = catalog;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("rebuilds", catalogRebuilds.sum());
+        stats.put("invalidations", catalogInvalidations.sum());
+        stats.put("cachedItems", snapshot == null ? 0 : snapshot.getMenuItems().size());
+        stats.put("lastModified", snapshot == null ? null : snapshot.getLastModified().toString());
+        return stats;
+    }
+
+    private synchronized CatalogSnapshot loadCatalog() {
+        // Another thread may have rebuilt the catalog while this one waited for the lock
+        CatalogSnapshot snapshot = catalog;
+        if (snapshot == null) {
+            snapshot = buildCatalog();
+            catalog = snapshot;
+        }
+        return snapshot;
+    }
+
+    private CatalogSnapshot buildCatalog() {
+        // Archived flavours stay in the database for old orders but are not on the menu
+        List<MenuItem> menuItems = menuItemRepository.findAll().stream()
+                .filter(menuItem -> !menuItem.isArchived())
+                .collect(Collectors.toList());
+        CatalogSnapshot snapshot = new CatalogSnapshot(menuItems, Instant.now());
+        catalogRebuilds.increment();
+        logger.info("Menu catalog rebuilt with {} items", snapshot.getMenuItems().size());
+        return snapshot;
+    }
 }
@@ -0,0 +1,179 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.MailJob;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends order notifications in the background.
+ *
+ * Callers queue the emails of a whole batch of orders with one insert into the mail outbox and
+ * return right away. A single sender thread hands the queued emails to the mail server in
+ * batches over one connection and removes them once they are accepted. Emails the server
+ * rejects are retried by a periodic resume pass, which also picks up anything left over from a
+ * restart, until they have failed too often.
+ */
+@Service
+public class NotificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    // Emails sent over one mail server connection
+    @Value("${notifications.batch-size:50}")
+    private int batchSize;
+
+    @Value("${notifications.max-attempts:5}")
+    private int maxAttempts;
+
+    private ExecutorService sender;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    @PostConstruct
+    public void start() {
+        sender = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mail-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Run by DatabaseSetup once the application is up
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(MailJob.class).ensureIndex(new Index()
+                .on("status", Sort.Direction.ASC).on("createdAt", Sort.Direction.ASC).named("status_created"));
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Unsent emails stay in the outbox and are sent after the restart
+        sender.shutdownNow();
+    }
+
+    /**
+     * Queues emails for sending with a single insert. Returns once they are stored.
+     */
+    public void queue(List<SimpleMailMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        List<MailJob> jobs = new ArrayList<>(messages.size());
+        for (SimpleMailMessage message : messages) {
+            String[] to = message.getTo();
+            jobs.add(new MailJob(to != null && to.length > 0 ? to[0] : null, message.getFrom(),
+                    message.getSubject(), message.getText()));
+        }
+        mongoTemplate.insert(jobs, MailJob.class);
+        logger.info("Queued {} notification emails", jobs.size());
+        scheduleDrain();
+    }
+
+    // Retries rejected emails and sends whatever a restart left in the outbox
+    @Scheduled(fixedDelayString = "${notifications.resume-interval-ms:60000}", initialDelayString = "${notifications.resume-initial-delay-ms:30000}")
+    public void resumePending() {
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        // One drain at a time picks up everything queued before it runs
+        if (!drainScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sender.execute(() -> {
+                drainScheduled.set(false);
+                drain();
+            });
+        } catch (RejectedExecutionException e) {
+            drainScheduled.set(false);
+            logger.warn("Mail sender is shut down, queued emails are sent after the restart");
+        }
+    }
+
+    // Sends pending emails batch by batch; stops at the first failure until the next resume pass
+    void drain() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Query pending = new Query(Criteria.where("status").is(MailJob.Status.PENDING))
+                    .with(Sort.by("createdAt")).limit(batchSize);
+            List<MailJob> jobs = mongoTemplate.find(pending, MailJob.class);
+            if (jobs.isEmpty()) {
+                return;
+            }
+
+            Map<SimpleMailMessage, MailJob> byMessage = new IdentityHashMap<>();
+            for (MailJob job : jobs) {
+                byMessage.put(toMessage(job), job);
+            }
+            List<String> sent = new ArrayList<>();
+            List<String> failed = new ArrayList<>();
+            String error = null;
+            try {
+                mailSender.send(byMessage.keySet().toArray(new SimpleMailMessage[0]));
+                byMessage.values().forEach(job -> sent.add(job.getId()));
+            } catch (MailSendException e) {
+                // Only the listed emails were rejected; an empty list means the connection failed
+                Map<Object, Exception> rejected = e.getFailedMessages();
+                byMessage.forEach((message, job) -> {
+                    boolean wasRejected = rejected == null || rejected.isEmpty() || rejected.containsKey(message);
+                    (wasRejected ? failed : sent).add(job.getId());
+                });
+                error = e.getMessage();
+            } catch (MailException e) {
+                byMessage.values().forEach(job -> failed.add(job.getId()));
+                error = e.getMessage();
+            }
+
+            if (!sent.isEmpty()) {
+                mongoTemplate.remove(new Query(Criteria.where("_id").in(sent)), MailJob.class);
+            }
+            if (!failed.isEmpty()) {
+                mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(failed)),
+                        new Update().inc("attempts", 1).set("error", error), MailJob.class);
+                mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(failed).and("attempts").gte(maxAttempts)),
+                        new Update().set("status", MailJob.Status.FAILED), MailJob.class);
+                logger.warn("Sending {} of {} notification emails failed: {}", failed.size(), jobs.size(), error);
+                return;
+            }
+            logger.info("Sent {} notification emails", sent.size());
+        }
+    }
+
+    private static SimpleMailMessage toMessage(MailJob job) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(job.getRecipient());
+        message.setFrom(job.getSender());
+        message.setSubject(job.getSubject());
+        message.setText(job.getText());
+        return message;
+    }
+}
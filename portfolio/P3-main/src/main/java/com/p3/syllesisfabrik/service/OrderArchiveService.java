@@ -0,0 +1,217 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.ArchivedOrder;
+import com.p3.syllesisfabrik.model.ArchivedOrderLine;
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.UserLogin;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Moves old invoiced orders out of the orders collection into the order archive.
+ *
+ * Completed orders make up most of the orders collection but are only read for the sales
+ * figures and the order history of a company. A nightly job moves every order invoiced more
+ * than {@code orders.archive-after-months} ago into ordersArchive, with the company and flavour
+ * details copied in, so the pending and delivery queries keep working on a small collection.
+ * The sales figures read the archive through the monthly summaries of SalesSummaryService.
+ *
+ * Orders of the current year always stay live, because the sales page shows the year week
+ * by week from the live orders.
+ */
+@Service
+public class OrderArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchiveService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private SalesSummaryService salesSummaryService;
+
+    @Autowired
+    private TransactionRunner transactionRunner;
+
+    @Value("${orders.archive-after-months:12}")
+    private int archiveAfterMonths;
+
+    // Orders moved per transaction
+    @Value("${orders.archive-batch-size:500}")
+    private int batchSize;
+
+    // Run by DatabaseSetup once the application is up
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(Order.class).ensureIndex(new Index()
+                .on("isInvoiced", Sort.Direction.ASC).on("invoicedAt", Sort.Direction.ASC).named("invoiced_at"));
+        mongoTemplate.indexOps(ArchivedOrder.class).ensureIndex(new Index()
+                .on("companyId", Sort.Direction.ASC).on("orderDate", Sort.Direction.ASC).named("company_order_date"));
+        mongoTemplate.indexOps(ArchivedOrder.class).ensureIndex(new Index("orderDate", Sort.Direction.ASC).named("order_date"));
+        mongoTemplate.indexOps(ArchivedOrder.class).ensureIndex(new Index("lines.menuItemId", Sort.Direction.ASC).named("lines_menuItem"));
+    }
+
+    @Scheduled(cron = "${orders.archive-cron:0 30 3 * * *}")
+    public void archiveOldOrders() {
+        try {
+            archive(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            // Orders already moved stay archived; the rest are picked up by the next run
+            logger.error("Archiving old orders failed", e);
+        }
+    }
+
+    // Orders invoiced before this moment are archived: N months back, but never this year
+    public LocalDateTime cutoff(LocalDateTime now) {
+        LocalDateTime monthsBack = now.minusMonths(archiveAfterMonths);
+        LocalDateTime startOfYear = now.toLocalDate().withDayOfYear(1).atStartOfDay();
+        return monthsBack.isBefore(startOfYear) ? monthsBack : startOfYear;
+    }
+
+    /**
+     * Archives every order invoiced before the cutoff, batch by batch. Each batch is copied and
+     * removed in one transaction where the server supports it; a copy left behind by a failed
+     * run is replaced by the next one. The sales summaries of the touched months are refreshed
+     * at the end.
+     *
+     * @return The number of orders archived.
+     */
+    public int archive(LocalDateTime now) {
+        LocalDateTime cutoff = cutoff(now);
+        // Orders invoiced before invoicedAt was recorded fall back to their delivery or order date
+        Criteria old = Criteria.where("isInvoiced").is(true).orOperator(
+                Criteria.where("invoicedAt").lt(cutoff),
+                Criteria.where("invoicedAt").is(null).and("deliveredAt").lt(cutoff),
+                Criteria.where("invoicedAt").is(null).and("deliveredAt").is(null).and("orderDate").lt(cutoff));
+
+        Set<YearMonth> months = new TreeSet<>();
+        int archived = 0;
+        while (true) {
+            Query query = new Query(old).with(Sort.by("_id")).limit(batchSize);
+            query.fields().include("company", "orderDate", "expectedDelivery", "deliveredAt", "invoicedAt", "totalPrice",
+                    "cartItems.menuItemId", "cartItems.desiredQuantity", "cartItems.totalCost");
+            List<Order> orders = orderService.findList(query);
+            if (orders.isEmpty()) {
+                break;
+            }
+
+            List<ArchivedOrder> copies = new ArrayList<>(orders.size());
+            List<String> ids = new ArrayList<>(orders.size());
+            for (Order order : orders) {
+                copies.add(toArchivedOrder(order, now));
+                ids.add(order.getId());
+                months.add(YearMonth.from(order.getOrderDate()));
+            }
+            transactionRunner.inTransaction(() -> {
+                mongoTemplate.remove(new Query(Criteria.where("_id").in(ids)), ArchivedOrder.class);
+                mongoTemplate.insert(copies, ArchivedOrder.class);
+                mongoTemplate.remove(new Query(Criteria.where("_id").in(ids)), Order.class);
+                return null;
+            });
+            archived += ids.size();
+            if (orders.size() < batchSize) {
+                break;
+            }
+        }
+
+        salesSummaryService.refreshMonths(months);
+        logger.info("Archived {} orders invoiced before {}", archived, cutoff);
+        return archived;
+    }
+
+    /**
+     * Returns the archived orders of a company, oldest first, in the shape of live orders so the
+     * order history can list them with the delivered orders.
+     */
+    public List<Order> getOrderHistory(UserLogin company) {
+        Query query = new Query(Criteria.where("companyId").is(company.getId())).with(Sort.by("orderDate"));
+        List<Order> orders = new ArrayList<>();
+        for (ArchivedOrder archived : mongoTemplate.find(query, ArchivedOrder.class)) {
+            orders.add(toOrder(archived, company));
+        }
+        return orders;
+    }
+
+    /**
+     * Deletes archived orders, for a company or flavour that is purged, and refreshes the sales
+     * summaries of their months.
+     *
+     * @return The number of archived orders deleted.
+     */
+    public long purge(Criteria criteria) {
+        Query months = new Query(criteria);
+        months.fields().include("orderDate");
+        Set<YearMonth> touched = new TreeSet<>();
+        mongoTemplate.find(months, ArchivedOrder.class).forEach(order -> touched.add(YearMonth.from(order.getOrderDate())));
+        if (touched.isEmpty()) {
+            return 0;
+        }
+        long deleted = mongoTemplate.remove(new Query(criteria), ArchivedOrder.class).getDeletedCount();
+        salesSummaryService.refreshMonths(touched);
+        return deleted;
+    }
+
+    private static ArchivedOrder toArchivedOrder(Order order, LocalDateTime now) {
+        ArchivedOrder archived = new ArchivedOrder();
+        archived.setId(order.getId());
+        UserLogin company = order.getCompany();
+        if (company != null) {
+            archived.setCompanyId(company.getId());
+            archived.setCompanyName(company.getCompanyName());
+            archived.setCompanyCVR(company.getCompanyCVR());
+            archived.setCompanyEmail(company.getCompanyEmail());
+        }
+        archived.setOrderDate(order.getOrderDate());
+        archived.setExpectedDelivery(order.getExpectedDelivery());
+        archived.setDeliveredAt(order.getDeliveredAt());
+        archived.setInvoicedAt(order.getInvoicedAt());
+        archived.setTotalPrice(order.getTotalPrice());
+
+        List<ArchivedOrderLine> lines = new ArrayList<>();
+        for (CartItem line : order.getCartItems() != null ? order.getCartItems() : List.<CartItem>of()) {
+            // Flavours deleted since have no title or price left
+            MenuItem menuItem = line.getMenuItem();
+            lines.add(new ArchivedOrderLine(line.getMenuItemId(), menuItem != null ? menuItem.getTitle() : null,
+                    menuItem != null ? menuItem.getPricePerLiter() : 0, line.getDesiredQuantity(), line.getTotalCost()));
+        }
+        archived.setLines(lines);
+        archived.setArchivedAt(now);
+        return archived;
+    }
+
+    private static Order toOrder(ArchivedOrder archived, UserLogin company) {
+        List<CartItem> lines = new ArrayList<>();
+        for (ArchivedOrderLine line : archived.getLines() != null ? archived.getLines() : List.<ArchivedOrderLine>of()) {
+            MenuItem menuItem = new MenuItem();
+            menuItem.setId(line.getMenuItemId());
+            menuItem.setTitle(line.getTitle());
+            menuItem.setPricePerLiter(line.getPricePerLiter());
+            lines.add(new CartItem(menuItem, company, line.getDesiredQuantity(), line.getTotalCost()));
+        }
+        Order order = new Order(company, lines, archived.getTotalPrice(), archived.getOrderDate(), true, false, true, true,
+                archived.getExpectedDelivery(), archived.getDeliveredAt());
+        order.setId(archived.getId());
+        order.setInvoicedAt(archived.getInvoicedAt());
+        return order;
+    }
+}
@@ -0,0 +1,257 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.UserLogin;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Feed of new and changed orders for the bookkeeping tool.
+ *
+ * Every write to an order sets its {@code lastModified} time (see {@link OrderService#touch}),
+ * and the feed pages through the orders by that time and ID over the "last_modified" index.
+ * A page ends with a cursor holding the time and ID of its last order; the next call passes it
+ * back and gets only the orders written after it, so a nightly sync transfers what changed
+ * since the previous night. Without a cursor the feed starts from the oldest order.
+ *
+ * Writes from the last {@code export.settle-seconds} are held back until the next call: an
+ * order placed in a transaction gets its time before the transaction commits, and would be
+ * skipped if a page had already moved past that time.
+ */
+@Service
+public class OrderExportService {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String CSV_HEADER = "order_id,last_modified,company_id,company_name,company_cvr,order_date,"
+            + "expected_delivery,delivered_at,invoiced_at,status,order_total,menu_item_id,title,quantity,line_total";
+
+    @Autowired
+    private OrderService orderService;
+
+    @Value("${export.settle-seconds:60}")
+    private long settleSeconds;
+
+    /**
+     * One page of changed orders.
+     */
+    public static class Page {
+        private final List<Order> orders;
+        private final String nextCursor;
+        private final boolean hasMore;
+
+        public Page(List<Order> orders, String nextCursor, boolean hasMore) {
+            this.orders = orders;
+            this.nextCursor = nextCursor;
+            this.hasMore = hasMore;
+        }
+
+        public List<Order> getOrders() {
+            return orders;
+        }
+
+        // The cursor to pass on the next call; the same cursor when nothing changed
+        public String getNextCursor() {
+            return nextCursor;
+        }
+
+        public boolean isHasMore() {
+            return hasMore;
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} orders written after the cursor, oldest change first.
+     *
+     * @param cursor The cursor of the previous page, or null or empty to start from the beginning.
+     * @throws IllegalArgumentException for a malformed cursor or a limit out of range.
+     */
+    public Page changesSince(String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("The limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        Criteria criteria = Criteria.where("lastModified").lte(LocalDateTime.now().minusSeconds(settleSeconds));
+        if (cursor != null && !cursor.isEmpty()) {
+            Cursor position = Cursor.decode(cursor);
+            criteria = new Criteria().andOperator(criteria, new Criteria().orOperator(
+                    Criteria.where("lastModified").gt(position.lastModified),
+                    Criteria.where("lastModified").is(position.lastModified).and("_id").gt(new ObjectId(position.orderId))));
+        }
+        Query query = new Query(criteria).with(Sort.by("lastModified", "_id")).limit(limit + 1);
+        query.fields().include("company", "orderDate", "expectedDelivery", "deliveredAt", "invoicedAt", "totalPrice",
+                "isApproved", "isProcessing", "isShipped", "isInvoiced", "lastModified",
+                "cartItems.menuItemId", "cartItems.desiredQuantity", "cartItems.totalCost");
+
+        List<Order> orders = orderService.findList(query);
+        boolean hasMore = orders.size() > limit;
+        if (hasMore) {
+            orders = orders.subList(0, limit);
+        }
+        if (orders.isEmpty()) {
+            return new Page(orders, cursor != null ? cursor : "", false);
+        }
+        Order last = orders.get(orders.size() - 1);
+        return new Page(orders, new Cursor(last.getLastModified(), last.getId()).encode(), hasMore);
+    }
+
+    // The time and ID of the last order on a page, passed around as URL-safe Base64
+    static class Cursor {
+        final LocalDateTime lastModified;
+        final String orderId;
+
+        Cursor(LocalDateTime lastModified, String orderId) {
+            this.lastModified = lastModified;
+            this.orderId = orderId;
+        }
+
+        String encode() {
+            String position = lastModified + "|" + orderId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = position.indexOf('|');
+                if (separator < 0 || !ObjectId.isValid(position.substring(separator + 1))) {
+                    throw new IllegalArgumentException("Invalid cursor.");
+                }
+                return new Cursor(LocalDateTime.parse(position.substring(0, separator)), position.substring(separator + 1));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+        }
+    }
+
+    // One JSON object per line of output, each order with its lines
+    public String toNdjson(List<Order> orders) {
+        StringBuilder out = new StringBuilder();
+        for (Order order : orders) {
+            UserLogin company = order.getCompany();
+            out.append('{')
+                    .append("\"id\":").append(json(order.getId()))
+                    .append(",\"lastModified\":").append(json(order.getLastModified()))
+                    .append(",\"companyId\":").append(json(company != null ? company.getId() : null))
+                    .append(",\"companyName\":").append(json(company != null ? company.getCompanyName() : null))
+                    .append(",\"companyCVR\":").append(json(company != null ? company.getCompanyCVR() : null))
+                    .append(",\"orderDate\":").append(json(order.getOrderDate()))
+                    .append(",\"expectedDelivery\":").append(json(order.getExpectedDelivery()))
+                    .append(",\"deliveredAt\":").append(json(order.getDeliveredAt()))
+                    .append(",\"invoicedAt\":").append(json(order.getInvoicedAt()))
+                    .append(",\"status\":").append(json(status(order)))
+                    .append(",\"totalPrice\":").append(amount(order.getTotalPrice()))
+                    .append(",\"lines\":[");
+            List<CartItem> lines = order.getCartItems() != null ? order.getCartItems() : List.of();
+            for (int i = 0; i < lines.size(); i++) {
+                CartItem line = lines.get(i);
+                out.append(i > 0 ? ",{" : "{")
+                        .append("\"menuItemId\":").append(json(line.getMenuItemId()))
+                        .append(",\"title\":").append(json(line.getMenuItem() != null ? line.getMenuItem().getTitle() : null))
+                        .append(",\"quantity\":").append(line.getDesiredQuantity())
+                        .append(",\"totalCost\":").append(amount(line.getTotalCost()))
+                        .append('}');
+            }
+            out.append("]}\n");
+        }
+        return out.toString();
+    }
+
+    // A header and one row per order line, the order columns repeated on each line
+    public String toCsv(List<Order> orders) {
+        StringBuilder out = new StringBuilder(CSV_HEADER).append('\n');
+        for (Order order : orders) {
+            UserLogin company = order.getCompany();
+            String orderColumns = String.join(",",
+                    csv(order.getId()),
+                    csv(order.getLastModified()),
+                    csv(company != null ? company.getId() : null),
+                    csv(company != null ? company.getCompanyName() : null),
+                    csv(company != null ? company.getCompanyCVR() : null),
+                    csv(order.getOrderDate()),
+                    csv(order.getExpectedDelivery()),
+                    csv(order.getDeliveredAt()),
+                    csv(order.getInvoicedAt()),
+                    status(order),
+                    amount(order.getTotalPrice()));
+            List<CartItem> lines = order.getCartItems() != null ? order.getCartItems() : List.of();
+            if (lines.isEmpty()) {
+                out.append(orderColumns).append(",,,,\n");
+            }
+            for (CartItem line : lines) {
+                out.append(orderColumns).append(',')
+                        .append(csv(line.getMenuItemId())).append(',')
+                        .append(csv(line.getMenuItem() != null ? line.getMenuItem().getTitle() : null)).append(',')
+                        .append(line.getDesiredQuantity()).append(',')
+                        .append(amount(line.getTotalCost())).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    // The furthest step the order has reached
+    static String status(Order order) {
+        if (order.isInvoiced()) {
+            return "invoiced";
+        }
+        if (order.isShipped()) {
+            return "shipped";
+        }
+        if (order.isApproved()) {
+            return "approved";
+        }
+        return order.isProcessing() ? "pending" : "disapproved";
+    }
+
+    private static String amount(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private static String json(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        String text = value.toString();
+        StringBuilder out = new StringBuilder(text.length() + 2).append('"');
+        for (char c : text.toCharArray()) {
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
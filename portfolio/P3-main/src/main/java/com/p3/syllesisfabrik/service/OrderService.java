@@ -1,23 +1,173 @@
 package com.p3.syllesisfabrik.service;
 
+import com.mongodb.DBRef;
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.MenuItem;
 import com.p3.syllesisfabrik.model.Order;
 import com.p3.syllesisfabrik.model.UserLogin;
+import com.p3.syllesisfabrik.repository.MenuItemRepository;
 import com.p3.syllesisfabrik.repository.OrderRepository;
+import com.p3.syllesisfabrik.repository.UserLoginRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AccumulatorOperators;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
 
+    private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
+
+    // Formats of the string dates stored by older versions
+    private static final DateTimeFormatter LEGACY_DELIVERY_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yy");
+    private static final DateTimeFormatter LEGACY_DELIVERED_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yy HH:mm:ss");
+
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Autowired
+    private UserLoginRepository userLoginRepository;
+
+    /**
+     * Orders and litres due for delivery on one day.
+     */
+    public static class DeliveryDay {
+        private LocalDate date;
+        private long orders;
+        private long litres;
+
+        public DeliveryDay() {}
+
+        public DeliveryDay(LocalDate date, long orders, long litres) {
+            this.date = date;
+            this.orders = orders;
+            this.litres = litres;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public long getOrders() {
+            return orders;
+        }
+
+        public long getLitres() {
+            return litres;
+        }
+    }
+
+    // Run by DatabaseSetup once the application is up
+    public void prepareOrders() {
+        migrateDeliveryDates();
+        backfillLastModified();
+        ensureIndexes();
+    }
+
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(Order.class).ensureIndex(new Index("expectedDelivery", Sort.Direction.ASC).named("expected_delivery"));
+        // Admin order tables filter on the status flags and page through by order date
+        mongoTemplate.indexOps(Order.class).ensureIndex(new Index()
+                .on("isApproved", Sort.Direction.ASC)
+                .on("isShipped", Sort.Direction.ASC)
+                .on("isInvoiced", Sort.Direction.ASC)
+                .on("isProcessing", Sort.Direction.ASC)
+                .on("orderDate", Sort.Direction.ASC)
+                .named("status_order_date"));
+        // The incremental export pages through changes by modification time
+        mongoTemplate.indexOps(Order.class).ensureIndex(new Index()
+                .on("lastModified", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC)
+                .named("last_modified"));
+    }
+
+    // Orders written before the modification time was kept count as modified now, so the first sync picks them up
+    public void backfillLastModified() {
+        long backfilled = mongoTemplate.updateMulti(new Query(Criteria.where("lastModified").exists(false)),
+                new Update().set("lastModified", LocalDateTime.now()), Order.class).getModifiedCount();
+        if (backfilled > 0) {
+            logger.info("Set the modification time of {} older orders", backfilled);
+        }
+    }
+
+    // Every write to an order goes through this, so the incremental export sees the change
+    public static Update touch(Update update) {
+        return update.set("lastModified", LocalDateTime.now());
+    }
+
+    /**
+     * Converts the "dd-MM-yy" delivery dates and "dd-MM-yy HH:mm:ss" shipping times stored as
+     * strings by older versions into dates, and drops the stored copy of the formatted order
+     * date. Only orders that still have one of the old fields are touched.
+     */
+    public void migrateDeliveryDates() {
+        String ordersCollection = mongoTemplate.getCollectionName(Order.class);
+        Query legacy = new Query(new Criteria().orOperator(
+                Criteria.where("expectedDeliveryDate").exists(true),
+                Criteria.where("deliveredDate").exists(true),
+                Criteria.where("formattedOrderDate").exists(true)));
+        legacy.fields().include("expectedDeliveryDate").include("deliveredDate");
+
+        int migrated = 0;
+        for (Document order : mongoTemplate.find(legacy, Document.class, ordersCollection)) {
+            Update update = new Update()
+                    .unset("expectedDeliveryDate")
+                    .unset("deliveredDate")
+                    .unset("formattedOrderDate");
+            String expectedDelivery = order.getString("expectedDeliveryDate");
+            String delivered = order.getString("deliveredDate");
+            try {
+                // Pending orders were stored with "Unknown" until an admin picked a date
+                if (expectedDelivery != null && !"Unknown".equals(expectedDelivery)) {
+                    update.set("expectedDelivery", LocalDate.parse(expectedDelivery, LEGACY_DELIVERY_FORMAT));
+                }
+                if (delivered != null) {
+                    update.set("deliveredAt", LocalDateTime.parse(delivered, LEGACY_DELIVERED_FORMAT));
+                }
+            } catch (DateTimeParseException e) {
+                // Left as it is so the value is not lost
+                logger.warn("Could not migrate dates of order {}: {}", order.get("_id"), e.getMessage());
+                continue;
+            }
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(order.get("_id"))), update, Order.class);
+            migrated++;
+        }
+        if (migrated > 0) {
+            logger.info("Migrated delivery dates of {} orders", migrated);
+        }
+    }
+
     public Order save(Order order) {
+        order.setLastModified(LocalDateTime.now());
         return orderRepository.save(order);
     }
 
@@ -48,8 +198,43 @@ public class OrderService {
     public List<Order> fetchCustomerCompletedOrders() {
         return orderRepository.findByIsApprovedTrueAndIsProcessingFalseAndIsShippedTrue();
     }
+
+    /**
+     * Atomically moves a pending order out of processing so only one admin can approve or
+     * disapprove it.
+     *
+     * @param id The order ID.
+     * @return true if this call claimed the order, false if it was already handled.
+     */
+    public boolean claimPendingOrder(String id) {
+        Query query = new Query(Criteria.where("_id").is(id).and("isProcessing").is(true));
+        return mongoTemplate.updateFirst(query, touch(new Update().set("isProcessing", false)), Order.class)
+                .getModifiedCount() > 0;
+    }
+
+    /**
+     * Atomically marks an approved order as shipped, so an order is only shipped (and taken
+     * off the production plan) once.
+     *
+     * @param id          The order ID.
+     * @param deliveredAt When the order left.
+     * @return true if this call shipped the order, false if it was not waiting to ship.
+     */
+    public boolean markShipped(String id, LocalDateTime deliveredAt) {
+        Query query = new Query(Criteria.where("_id").is(id).and("isApproved").is(true).and("isShipped").is(false));
+        return mongoTemplate.updateFirst(query, touch(new Update().set("isShipped", true).set("deliveredAt", deliveredAt)), Order.class)
+                .getModifiedCount() > 0;
+    }
+
+    // Puts a claimed order back into processing, e.g. when approval fails
+    public void reopenPendingOrder(String id) {
+        Query query = new Query(Criteria.where("_id").is(id));
+        mongoTemplate.updateFirst(query, touch(new Update().set("isProcessing", true)), Order.class);
+    }
+
     public void saveOrder(Order order) {
         // Save the order to the database
+        order.setLastModified(LocalDateTime.now());
         orderRepository.save(order);
     }
     public void deleteByCompany(UserLogin company) {
@@ -61,8 +246,110 @@ public class OrderService {
         return orderRepository.findByIsApprovedTrueAndIsProcessingFalseAndIsShippedTrueAndIsInvoicedFalse();
     }
 
-    public List<Order> getOrdersByExpectedDelivery(String expectedDeliveryDate) {
-        return orderRepository.findByExpectedDeliveryDateAndIsApprovedTrueAndIsProcessingFalseAndIsShippedFalse(expectedDeliveryDate);
+    public List<Order> getOrdersByExpectedDelivery(LocalDate expectedDelivery) {
+        return orderRepository.findByExpectedDeliveryAndIsApprovedTrueAndIsProcessingFalseAndIsShippedFalse(expectedDelivery);
+    }
+
+    /**
+     * Returns the order history of a company, oldest first, with only the columns the history
+     * page shows. The company is the one passed in; flavour titles are looked up in one query.
+     */
+    public List<Order> getOrderHistory(UserLogin company) {
+        Object companyId = ObjectId.isValid(company.getId()) ? new ObjectId(company.getId()) : company.getId();
+        List<Order> orders = orderRepository.findHistoryByCompanyId(companyId);
+        orders.forEach(order -> order.setCompany(company));
+        attachMenuItems(orders);
+        return orders;
+    }
+
+    /**
+     * Returns the approved, unshipped orders due on a day for the delivery list, with their
+     * companies and flavours looked up once for the whole list.
+     */
+    public List<Order> getDeliveryList(LocalDate expectedDelivery) {
+        Query query = new Query(Criteria.where("expectedDelivery").is(expectedDelivery)
+                .and("isApproved").is(true).and("isProcessing").is(false).and("isShipped").is(false))
+                .with(Sort.by("orderDate"));
+        query.fields().include("company", "orderDate", "expectedDelivery", "totalPrice",
+                "cartItems.menuItemId", "cartItems.desiredQuantity", "cartItems.totalCost");
+        return findList(query);
+    }
+
+    /**
+     * Runs a query for an order list. The query should include only the fields the list shows.
+     * Company references are read as IDs instead of being resolved for every order, and the
+     * companies and flavours of all orders are then loaded with one query each. Companies carry
+     * only their contact columns and flavours only their title and price.
+     */
+    public List<Order> findList(Query query) {
+        List<Document> documents = mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Order.class));
+        List<Order> orders = new ArrayList<>(documents.size());
+        List<Object> companyIds = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            // Removed before mapping so the reference is not resolved
+            Object company = document.remove("company");
+            companyIds.add(company instanceof DBRef ref ? ref.getId() : null);
+            orders.add(mongoTemplate.getConverter().read(Order.class, document));
+        }
+
+        List<Object> distinctIds = companyIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (!distinctIds.isEmpty()) {
+            Map<String, UserLogin> companies = userLoginRepository.findContactsByIdIn(distinctIds).stream()
+                    .collect(Collectors.toMap(UserLogin::getId, Function.identity()));
+            for (int i = 0; i < orders.size(); i++) {
+                Object companyId = companyIds.get(i);
+                orders.get(i).setCompany(companyId != null ? companies.get(companyId.toString()) : null);
+            }
+        }
+        attachMenuItems(orders);
+        return orders;
+    }
+
+    // Sets the flavour of every order line from one lookup; lines of flavours deleted since keep only their ID
+    private void attachMenuItems(List<Order> orders) {
+        List<String> menuItemIds = orders.stream()
+                .filter(order -> order.getCartItems() != null)
+                .flatMap(order -> order.getCartItems().stream())
+                .map(CartItem::getMenuItemId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (menuItemIds.isEmpty()) {
+            return;
+        }
+        Map<String, MenuItem> menuItems = menuItemRepository.findSummariesByIdIn(menuItemIds).stream()
+                .collect(Collectors.toMap(MenuItem::getId, Function.identity()));
+        for (Order order : orders) {
+            if (order.getCartItems() != null) {
+                order.getCartItems().stream()
+                        .filter(line -> menuItems.containsKey(line.getMenuItemId()))
+                        .forEach(line -> line.setMenuItem(menuItems.get(line.getMenuItemId())));
+            }
+        }
+    }
+
+    /**
+     * Counts the approved orders and litres due on each day from {@code from} to {@code to},
+     * both inclusive, in a single aggregation over the expected delivery index. Days without
+     * deliveries are included with zeros so the result can be laid out as a calendar.
+     */
+    public List<DeliveryDay> getDeliveryCalendar(LocalDate from, LocalDate to) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("expectedDelivery").gte(from).lte(to).and("isApproved").is(true)),
+                Aggregation.project("expectedDelivery")
+                        .and(AccumulatorOperators.Sum.sumOf("cartItems.desiredQuantity")).as("litres"),
+                Aggregation.group("expectedDelivery").count().as("orders").sum("litres").as("litres"),
+                Aggregation.project("orders", "litres").and("date").previousOperation());
+
+        Map<LocalDate, DeliveryDay> byDate = mongoTemplate.aggregate(aggregation, Order.class, DeliveryDay.class)
+                .getMappedResults().stream()
+                .collect(Collectors.toMap(DeliveryDay::getDate, Function.identity()));
+
+        List<DeliveryDay> calendar = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            calendar.add(byDate.getOrDefault(date, new DeliveryDay(date, 0, 0)));
+        }
+        return calendar;
     }
 
 
@@ -0,0 +1,276 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.ProductionPlanEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the production plan: litres per flavour per delivery day for all approved orders that
+ * have not shipped yet.
+ *
+ * The plan is a rollup collection with one document per (day, flavour). Approving an order adds
+ * its lines with $inc, shipping or deleting it subtracts them, so reading the plan never has to
+ * go through the orders. The rollup is built from the orders once, when the collection does not
+ * exist yet.
+ *
+ * Approving an order commits the stock it reserved at checkout, so the litres of an approved
+ * order have already left {@code MenuItem.quantity}. Each entry therefore also counts the litres
+ * taken from stock for it, and the plan compares the planned litres with the free stock plus
+ * those litres, not with the free stock alone.
+ */
+@Service
+public class ProductionPlanService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductionPlanService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * One row of the plan: a flavour due on a day, compared with the stock of the flavour.
+     * The stock is what is on hand for approved orders: the free stock plus the litres already
+     * taken for approved orders that have not shipped. The shortfall counts every planned litre
+     * of the flavour up to and including that day, earlier days before the period included,
+     * since earlier deliveries draw on the same stock.
+     */
+    public static class PlanLine {
+        private final LocalDate deliveryDate;
+        private final String menuItemId;
+        private final String title;
+        private final long litres;
+        private final long orders;
+        private final long inStock;
+        private final long shortfall;
+
+        public PlanLine(LocalDate deliveryDate, String menuItemId, String title, long litres, long orders, long inStock, long shortfall) {
+            this.deliveryDate = deliveryDate;
+            this.menuItemId = menuItemId;
+            this.title = title;
+            this.litres = litres;
+            this.orders = orders;
+            this.inStock = inStock;
+            this.shortfall = shortfall;
+        }
+
+        public LocalDate getDeliveryDate() {
+            return deliveryDate;
+        }
+
+        public String getMenuItemId() {
+            return menuItemId;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public long getLitres() {
+            return litres;
+        }
+
+        public long getOrders() {
+            return orders;
+        }
+
+        public long getInStock() {
+            return inStock;
+        }
+
+        public long getShortfall() {
+            return shortfall;
+        }
+
+        public boolean isShortOfStock() {
+            return shortfall > 0;
+        }
+    }
+
+    // Run by DatabaseSetup once the application is up
+    public void preparePlan() {
+        if (!mongoTemplate.collectionExists(ProductionPlanEntry.class)) {
+            mongoTemplate.createCollection(ProductionPlanEntry.class); // Writes to it may run inside a transaction
+            rebuild();
+        } else if (mongoTemplate.exists(new Query(Criteria.where("reservedLitres").exists(false)), ProductionPlanEntry.class)) {
+            rebuild(); // Entries written before the reserved litres were counted
+        }
+        mongoTemplate.indexOps(ProductionPlanEntry.class).ensureIndex(new Index("deliveryDate", Sort.Direction.ASC).named("delivery_date"));
+    }
+
+    /**
+     * Recomputes the whole plan from the approved, unshipped orders in one aggregation.
+     *
+     * @return The number of plan entries written.
+     */
+    public int rebuild() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("isApproved").is(true).and("isShipped").is(false)
+                        .and("expectedDelivery").ne(null)),
+                Aggregation.unwind("cartItems"),
+                Aggregation.project("expectedDelivery")
+                        .and("cartItems.menuItemId").as("menuItemId")
+                        .and("cartItems.desiredQuantity").as("litres")
+                        .and(ConditionalOperators.when(Criteria.where("stockReserved").is(true))
+                                .thenValueOf("cartItems.desiredQuantity").otherwise(0)).as("reservedLitres"),
+                Aggregation.group("expectedDelivery", "menuItemId").sum("litres").as("litres").count().as("orders")
+                        .sum("reservedLitres").as("reservedLitres"),
+                Aggregation.project("litres", "orders", "reservedLitres", "menuItemId").and("expectedDelivery").as("deliveryDate")
+                        .andExclude("_id"));
+
+        List<ProductionPlanEntry> entries = new ArrayList<>(
+                mongoTemplate.aggregate(aggregation, Order.class, ProductionPlanEntry.class).getMappedResults());
+        entries.removeIf(entry -> entry.getMenuItemId() == null);
+        entries.forEach(entry -> entry.setId(ProductionPlanEntry.keyOf(entry.getDeliveryDate(), entry.getMenuItemId())));
+
+        mongoTemplate.remove(new Query(), ProductionPlanEntry.class);
+        if (!entries.isEmpty()) {
+            mongoTemplate.insert(entries, ProductionPlanEntry.class);
+        }
+        logger.info("Rebuilt production plan with {} entries", entries.size());
+        return entries.size();
+    }
+
+    // Adds the lines of an order that has just been approved
+    public void addOrder(Order order) {
+        addOrders(List.of(order));
+    }
+
+    // Adds the lines of a batch of approved orders with one bulk write
+    public void addOrders(Collection<Order> orders) {
+        apply(orders, 1);
+    }
+
+    // Takes the lines of an approved order off the plan, when it ships or is deleted
+    public void removeOrder(Order order) {
+        removeOrders(List.of(order));
+    }
+
+    // Takes the lines of a batch of shipped orders off the plan
+    public void removeOrders(Collection<Order> orders) {
+        apply(orders, -1);
+        List<LocalDate> deliveryDates = orders.stream().map(Order::getExpectedDelivery).filter(Objects::nonNull).distinct().toList();
+        if (!deliveryDates.isEmpty()) {
+            mongoTemplate.remove(new Query(Criteria.where("deliveryDate").in(deliveryDates)
+                    .and("litres").lte(0)), ProductionPlanEntry.class);
+        }
+    }
+
+    private void apply(Collection<Order> orders, int sign) {
+        // The change to each plan entry, summed over the whole batch
+        Map<String, ProductionPlanEntry> changes = new LinkedHashMap<>();
+        for (Order order : orders) {
+            LocalDate deliveryDate = order.getExpectedDelivery();
+            if (deliveryDate == null || order.getCartItems() == null) {
+                continue;
+            }
+            Map<String, Integer> litresByMenuItem = new LinkedHashMap<>();
+            for (CartItem line : order.getCartItems()) {
+                if (line.getMenuItemId() != null) {
+                    litresByMenuItem.merge(line.getMenuItemId(), line.getDesiredQuantity(), Integer::sum);
+                }
+            }
+            for (Map.Entry<String, Integer> entry : litresByMenuItem.entrySet()) {
+                ProductionPlanEntry change = changes.computeIfAbsent(ProductionPlanEntry.keyOf(deliveryDate, entry.getKey()), key -> {
+                    ProductionPlanEntry created = new ProductionPlanEntry();
+                    created.setDeliveryDate(deliveryDate);
+                    created.setMenuItemId(entry.getKey());
+                    return created;
+                });
+                change.setLitres(change.getLitres() + entry.getValue());
+                change.setOrders(change.getOrders() + 1);
+                if (order.isStockReserved()) {
+                    change.setReservedLitres(change.getReservedLitres() + entry.getValue());
+                }
+            }
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductionPlanEntry.class);
+        for (Map.Entry<String, ProductionPlanEntry> entry : changes.entrySet()) {
+            ProductionPlanEntry change = entry.getValue();
+            Query query = new Query(Criteria.where("_id").is(entry.getKey()));
+            Update update = new Update()
+                    .inc("litres", sign * change.getLitres())
+                    .inc("orders", sign * change.getOrders())
+                    .inc("reservedLitres", sign * change.getReservedLitres())
+                    .setOnInsert("deliveryDate", change.getDeliveryDate())
+                    .setOnInsert("menuItemId", change.getMenuItemId());
+            bulk.upsert(query, update);
+        }
+        bulk.execute();
+    }
+
+    /**
+     * Returns the plan for the delivery days from {@code from} to {@code to}, both inclusive,
+     * ordered by day and flavour, with the stock on hand for each flavour.
+     */
+    public List<PlanLine> getPlan(LocalDate from, LocalDate to) {
+        Query query = new Query(Criteria.where("deliveryDate").gte(from).lte(to).and("litres").gt(0))
+                .with(Sort.by("deliveryDate", "menuItemId"));
+        List<ProductionPlanEntry> entries = mongoTemplate.find(query, ProductionPlanEntry.class);
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+        List<String> menuItemIds = entries.stream().map(ProductionPlanEntry::getMenuItemId).distinct().toList();
+
+        // Stock is read from the database rather than the catalog cache, and archived flavours are kept
+        Query menuItemQuery = new Query(Criteria.where("_id").in(menuItemIds));
+        menuItemQuery.fields().include("title").include("quantity");
+        Map<String, MenuItem> menuItems = mongoTemplate.find(menuItemQuery, MenuItem.class).stream()
+                .collect(Collectors.toMap(MenuItem::getId, Function.identity()));
+
+        // Per flavour, over the whole plan: the litres already taken from stock, and the litres due before the period
+        Map<String, Long> reservedLitres = new HashMap<>();
+        Map<String, Long> plannedSoFar = new HashMap<>();
+        for (ProductionPlanEntry entry : findAllEntries(menuItemIds)) {
+            reservedLitres.merge(entry.getMenuItemId(), entry.getReservedLitres(), Long::sum);
+            if (entry.getDeliveryDate().isBefore(from)) {
+                plannedSoFar.merge(entry.getMenuItemId(), entry.getLitres(), Long::sum);
+            }
+        }
+
+        List<PlanLine> plan = new ArrayList<>(entries.size());
+        for (ProductionPlanEntry entry : entries) {
+            MenuItem menuItem = menuItems.get(entry.getMenuItemId());
+            String title = menuItem != null ? menuItem.getTitle() : "Deleted flavour";
+            long inStock = (menuItem != null ? menuItem.getQuantity() : 0) + reservedLitres.getOrDefault(entry.getMenuItemId(), 0L);
+            long planned = plannedSoFar.merge(entry.getMenuItemId(), entry.getLitres(), Long::sum);
+            plan.add(new PlanLine(entry.getDeliveryDate(), entry.getMenuItemId(), title, entry.getLitres(),
+                    entry.getOrders(), inStock, Math.max(0, planned - inStock)));
+        }
+        return plan;
+    }
+
+    // The entries of the flavours on every day, with only the fields the stock comparison needs
+    private List<ProductionPlanEntry> findAllEntries(List<String> menuItemIds) {
+        Query query = new Query(Criteria.where("menuItemId").in(menuItemIds).and("litres").gt(0));
+        query.fields().include("deliveryDate").include("menuItemId").include("litres").include("reservedLitres");
+        return mongoTemplate.find(query, ProductionPlanEntry.class);
+    }
+}
@@ -0,0 +1,99 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.ArchivedOrder;
+import com.p3.syllesisfabrik.model.ArchivedOrderLine;
+import com.p3.syllesisfabrik.model.MonthlySales;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Keeps one sales summary per month of the order archive, so the sales figures never read
+ * archived orders one by one.
+ *
+ * A summary is recomputed from the archived orders of its month whenever orders of that month
+ * are archived or purged, rather than incremented, so it stays right when an archival run is
+ * repeated after a failure. The sales page adds the summaries to the figures it computes from
+ * the orders that are still live.
+ */
+@Service
+public class SalesSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesSummaryService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // All summaries, oldest month first
+    public List<MonthlySales> findAll() {
+        return mongoTemplate.find(new Query().with(Sort.by("month")), MonthlySales.class);
+    }
+
+    /**
+     * Recomputes the summaries of the given months from the archive with one read over the
+     * months and one bulk write. Months without archived orders lose their summary.
+     */
+    public void refreshMonths(Collection<YearMonth> months) {
+        if (months.isEmpty()) {
+            return;
+        }
+        TreeSet<YearMonth> sorted = new TreeSet<>(months);
+        Query query = new Query(Criteria.where("orderDate")
+                .gte(sorted.first().atDay(1).atStartOfDay())
+                .lt(sorted.last().plusMonths(1).atDay(1).atStartOfDay()));
+        query.fields().include("orderDate", "totalPrice", "lines.title");
+
+        Map<YearMonth, MonthlySales> summaries = new TreeMap<>();
+        Map<YearMonth, LinkedHashSet<String>> flavours = new TreeMap<>();
+        for (ArchivedOrder order : mongoTemplate.find(query, ArchivedOrder.class)) {
+            YearMonth month = YearMonth.from(order.getOrderDate());
+            if (!sorted.contains(month)) {
+                continue;
+            }
+            MonthlySales summary = summaries.computeIfAbsent(month, key -> new MonthlySales());
+            summary.setRevenue(summary.getRevenue() + order.getTotalPrice());
+            summary.setOrders(summary.getOrders() + 1);
+            LinkedHashSet<String> titles = flavours.computeIfAbsent(month, key -> new LinkedHashSet<>());
+            if (order.getLines() != null) {
+                order.getLines().stream().map(ArchivedOrderLine::getTitle).filter(Objects::nonNull).forEach(titles::add);
+            }
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MonthlySales.class);
+        LocalDateTime now = LocalDateTime.now();
+        for (YearMonth month : sorted) {
+            Query summaryQuery = new Query(Criteria.where("_id").is(MonthlySales.keyOf(month)));
+            MonthlySales summary = summaries.get(month);
+            if (summary == null) {
+                bulk.remove(summaryQuery);
+                continue;
+            }
+            Update update = new Update()
+                    .set("month", month.atDay(1))
+                    .set("revenue", summary.getRevenue())
+                    .set("orders", summary.getOrders())
+                    .set("flavours", List.copyOf(flavours.get(month)))
+                    .set("updatedAt", now);
+            bulk.upsert(summaryQuery, update);
+        }
+        bulk.execute();
+        logger.info("Refreshed sales summaries of {} months, {} with archived orders", sorted.size(), summaries.size());
+    }
+}
@@ -0,0 +1,304 @@
+package com.p3.syllesisfabrik.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.StockReservation;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reserves, commits and releases menu item stock for orders.
+ *
+ * Stock is taken with conditional $inc updates (quantity >= n) that also record a
+ * StockReservation for the order on the menu item, so the check and the decrement are
+ * one atomic operation per item and two approvals can never oversell. If any item of an
+ * order lacks stock, the items already reserved are released again (compensating step),
+ * so an order either holds all of its stock or none of it.
+ *
+ * Lifecycle: reserve at checkout, commit at approval, release on disapproval.
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationService.class);
+
+    private static final String RESERVATIONS = "pendingReservations";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MenuItemService menuItemService;
+
+    // Thrown when a menu item does not have enough stock left for an order
+    public static class InsufficientStockException extends RuntimeException {
+        private final String menuItemTitle;
+
+        public InsufficientStockException(String menuItemTitle) {
+            super("Not enough stock available for " + menuItemTitle);
+            this.menuItemTitle = menuItemTitle;
+        }
+
+        public String getMenuItemTitle() {
+            return menuItemTitle;
+        }
+    }
+
+    /**
+     * Takes the stock for all lines of an order in one batched write.
+     *
+     * @param orderId   The order the stock is held for.
+     * @param cartItems The order lines.
+     * @throws InsufficientStockException if any item lacks stock; nothing stays reserved.
+     */
+    public void reserve(String orderId, List<CartItem> cartItems) {
+        Map<String, Integer> quantities = quantitiesByMenuItem(cartItems);
+        if (quantities.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MenuItem.class);
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+            Query query = new Query(Criteria.where("_id").is(entry.getKey())
+                    .and("quantity").gte(entry.getValue())
+                    .and(RESERVATIONS + ".orderId").ne(orderId));
+            Update update = new Update()
+                    .inc("quantity", -entry.getValue())
+                    .push(RESERVATIONS, new StockReservation(orderId, entry.getValue()));
+            bulk.updateOne(query, update);
+        }
+        BulkWriteResult result = bulk.execute();
+
+        if (result.getModifiedCount() < quantities.size()) {
+            // Compensate: give back whatever part of the order did get reserved
+            release(orderId, cartItems);
+            String title = findShortItemTitle(quantities);
+            logger.warn("Stock reservation failed for order {}: not enough stock for {}", orderId, title);
+            throw new InsufficientStockException(title);
+        }
+
+        markSoldOut(new ArrayList<>(quantities.keySet()));
+        menuItemService.invalidateCatalog();
+        logger.info("Reserved stock for order {} on {} menu items", orderId, quantities.size());
+    }
+
+    /**
+     * Takes the stock for many orders in one batched write. Orders are served in the order of
+     * the map, so pass the oldest first. Each order still gets all of its stock or none: the
+     * orders that came up short are released again and returned.
+     *
+     * An order that comes up short holds its other items until the batch has run, so a later
+     * order may have been refused stock that is free again after the release. Such orders are
+     * tried once more against the released stock.
+     *
+     * @param linesByOrder The order lines by order ID.
+     * @return For every order that could not be reserved, the title of an item it lacks.
+     */
+    public Map<String, String> reserveAll(Map<String, List<CartItem>> linesByOrder) {
+        Map<String, Map<String, Integer>> quantitiesByOrder = new LinkedHashMap<>();
+        Set<String> menuItemIds = new LinkedHashSet<>();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, MenuItem.class);
+        int operations = 0;
+        for (Map.Entry<String, List<CartItem>> order : linesByOrder.entrySet()) {
+            Map<String, Integer> quantities = quantitiesByMenuItem(order.getValue());
+            quantitiesByOrder.put(order.getKey(), quantities);
+            for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+                Query query = new Query(Criteria.where("_id").is(entry.getKey())
+                        .and("quantity").gte(entry.getValue())
+                        .and(RESERVATIONS + ".orderId").ne(order.getKey()));
+                Update update = new Update()
+                        .inc("quantity", -entry.getValue())
+                        .push(RESERVATIONS, new StockReservation(order.getKey(), entry.getValue()));
+                bulk.updateOne(query, update);
+                menuItemIds.add(entry.getKey());
+                operations++;
+            }
+        }
+        if (operations == 0) {
+            return new LinkedHashMap<>();
+        }
+        BulkWriteResult result = bulk.execute();
+
+        Map<String, String> failed = new LinkedHashMap<>();
+        if (result.getModifiedCount() < operations) {
+            Map<String, MenuItem> menuItems = findReservations(menuItemIds);
+            failed = findShortOrders(quantitiesByOrder, menuItems);
+
+            // Orders sharing an item with an earlier failed order may fit once that order lets go
+            Set<String> heldByFailed = new HashSet<>();
+            Map<String, List<CartItem>> retry = new LinkedHashMap<>();
+            for (String orderId : failed.keySet()) {
+                Set<String> items = quantitiesByOrder.get(orderId).keySet();
+                if (items.stream().anyMatch(heldByFailed::contains)) {
+                    retry.put(orderId, linesByOrder.get(orderId));
+                }
+                items.stream()
+                        .filter(menuItemId -> menuItems.containsKey(menuItemId) && isReservedFor(menuItems.get(menuItemId), orderId))
+                        .forEach(heldByFailed::add);
+            }
+
+            // Compensate: the failed orders give back what they did get
+            Map<String, List<CartItem>> partial = new LinkedHashMap<>();
+            failed.keySet().forEach(orderId -> partial.put(orderId, linesByOrder.get(orderId)));
+            releaseAll(partial);
+
+            // The first failed order is never retried, so each round handles fewer orders
+            if (!retry.isEmpty()) {
+                Map<String, String> stillShort = reserveAll(retry);
+                retry.keySet().stream().filter(orderId -> !stillShort.containsKey(orderId)).forEach(failed::remove);
+            }
+            logger.warn("Stock reservation failed for {} of {} orders", failed.size(), linesByOrder.size());
+        }
+
+        markSoldOut(new ArrayList<>(menuItemIds));
+        menuItemService.invalidateCatalog();
+        logger.info("Reserved stock for {} orders on {} menu items", linesByOrder.size() - failed.size(), menuItemIds.size());
+        return failed;
+    }
+
+    /**
+     * Makes the stock held for an order a permanent deduction. Idempotent.
+     *
+     * @param orderId The approved order.
+     */
+    public void commit(String orderId) {
+        commitAll(List.of(orderId));
+    }
+
+    // Commits the reservations of many approved orders with one update
+    public void commitAll(Collection<String> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        Query query = new Query(Criteria.where(RESERVATIONS + ".orderId").in(orderIds));
+        Update update = new Update().pull(RESERVATIONS, new Document("orderId", new Document("$in", orderIds)));
+        mongoTemplate.updateMulti(query, update, MenuItem.class);
+        logger.info("Committed stock reservations for {} orders", orderIds.size());
+    }
+
+    /**
+     * Returns the stock held for an order to the menu items. Only items that still carry a
+     * reservation for the order are touched, so releasing twice is harmless.
+     *
+     * @param orderId   The order whose reservation is released.
+     * @param cartItems The order lines.
+     */
+    public void release(String orderId, List<CartItem> cartItems) {
+        releaseAll(Map.of(orderId, cartItems));
+    }
+
+    // Releases the reservations of many orders in one batched write
+    public void releaseAll(Map<String, List<CartItem>> linesByOrder) {
+        Set<String> menuItemIds = new LinkedHashSet<>();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MenuItem.class);
+        for (Map.Entry<String, List<CartItem>> order : linesByOrder.entrySet()) {
+            for (Map.Entry<String, Integer> entry : quantitiesByMenuItem(order.getValue()).entrySet()) {
+                Query query = new Query(Criteria.where("_id").is(entry.getKey())
+                        .and(RESERVATIONS + ".orderId").is(order.getKey()));
+                Update update = new Update()
+                        .inc("quantity", entry.getValue())
+                        .pull(RESERVATIONS, new Document("orderId", order.getKey()));
+                bulk.updateOne(query, update);
+                menuItemIds.add(entry.getKey());
+            }
+        }
+        if (menuItemIds.isEmpty()) {
+            return;
+        }
+        bulk.execute();
+
+        // Items with stock again become available
+        Query restocked = new Query(Criteria.where("_id").in(menuItemIds).and("quantity").gt(0));
+        mongoTemplate.updateMulti(restocked, new Update().set("isAvailable", true), MenuItem.class);
+        menuItemService.invalidateCatalog();
+        logger.info("Released stock reservations for orders {}", linesByOrder.keySet());
+    }
+
+    // Aggregates the ordered quantity per menu item ID
+    public Map<String, Integer> quantitiesByMenuItem(List<CartItem> cartItems) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        if (cartItems == null) {
+            return quantities;
+        }
+        for (CartItem cartItem : cartItems) {
+            MenuItem menuItem = cartItem.getMenuItem();
+            if (menuItem == null || menuItem.getId() == null) {
+                continue;
+            }
+            quantities.merge(menuItem.getId(), cartItem.getDesiredQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    // Titles and reservations of the items of a batch, by ID
+    private Map<String, MenuItem> findReservations(Set<String> menuItemIds) {
+        Query query = new Query(Criteria.where("_id").in(menuItemIds));
+        query.fields().include("title", RESERVATIONS + ".orderId");
+        Map<String, MenuItem> menuItems = new LinkedHashMap<>();
+        for (MenuItem menuItem : mongoTemplate.find(query, MenuItem.class)) {
+            menuItems.put(menuItem.getId(), menuItem);
+        }
+        return menuItems;
+    }
+
+    // The orders of a batch that did not get every item reserved, each with an item it lacks
+    private Map<String, String> findShortOrders(Map<String, Map<String, Integer>> quantitiesByOrder, Map<String, MenuItem> menuItems) {
+        Map<String, String> failed = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Integer>> order : quantitiesByOrder.entrySet()) {
+            for (String menuItemId : order.getValue().keySet()) {
+                MenuItem menuItem = menuItems.get(menuItemId);
+                if (menuItem == null) {
+                    failed.put(order.getKey(), "a removed menu item");
+                    break;
+                }
+                if (!isReservedFor(menuItem, order.getKey())) {
+                    failed.put(order.getKey(), menuItem.getTitle());
+                    break;
+                }
+            }
+        }
+        return failed;
+    }
+
+    private static boolean isReservedFor(MenuItem menuItem, String orderId) {
+        List<StockReservation> reservations = menuItem.getPendingReservations();
+        return reservations != null && reservations.stream().anyMatch(reservation -> orderId.equals(reservation.getOrderId()));
+    }
+
+    // Marks items whose stock ran out as unavailable
+    private void markSoldOut(List<String> menuItemIds) {
+        Query soldOut = new Query(Criteria.where("_id").in(menuItemIds).and("quantity").lte(0));
+        mongoTemplate.updateMulti(soldOut, new Update().set("isAvailable", false), MenuItem.class);
+    }
+
+    // Finds an item that cannot cover its ordered quantity, for the error message
+    private String findShortItemTitle(Map<String, Integer> quantities) {
+        List<MenuItem> menuItems = mongoTemplate.find(
+                new Query(Criteria.where("_id").in(quantities.keySet())), MenuItem.class);
+        for (MenuItem menuItem : menuItems) {
+            if (menuItem.getQuantity() < quantities.get(menuItem.getId())) {
+                return menuItem.getTitle();
+            }
+        }
+        // Item was deleted, or stock was restored by a concurrent release
+        return menuItems.size() < quantities.size() ? "a removed menu item" : "one of the ordered items";
+    }
+}
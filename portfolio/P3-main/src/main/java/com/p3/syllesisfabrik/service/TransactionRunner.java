@@ -0,0 +1,54 @@
+package com.p3.syllesisfabrik.service;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs multi-document writes in a MongoDB transaction when the server supports them.
+ *
+ * Transactions need a replica set or a sharded cluster. On a standalone server the work runs
+ * without one, and callers that must stay consistent compensate themselves when
+ * isTransactional() is false.
+ */
+@Service
+public class TransactionRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionRunner.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoTransactionManager transactionManager;
+
+    private volatile boolean transactional;
+
+    // Run by DatabaseSetup once the application is up
+    public void detectTransactionSupport() {
+        Document hello = mongoTemplate.executeCommand(new Document("hello", 1));
+        transactional = hello != null && (hello.containsKey("setName") || "isdbgrid".equals(hello.get("msg")));
+        if (!transactional) {
+            logger.warn("MongoDB is not a replica set, multi-document writes will run without a transaction");
+        }
+    }
+
+    public boolean isTransactional() {
+        return transactional;
+    }
+
+    // Runs the work in one transaction; a runtime exception thrown by it rolls everything back
+    public <T> T inTransaction(Supplier<T> work) {
+        if (!transactional) {
+            return work.get();
+        }
+        return new TransactionTemplate(transactionManager).execute(status -> work.get());
+    }
+}
@@ -2,17 +2,148 @@ package com.p3.syllesisfabrik.service;
 
 import com.p3.syllesisfabrik.model.UserLogin; // The UserLogin entity class that maps to the user data in the database.
 import com.p3.syllesisfabrik.repository.UserLoginRepository; // The repository interface for interacting with the UserLogin table in the database.
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired; // Annotation used for dependency injection, allowing Spring to inject components (like the repository).
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service; // Marks the class as a Spring service, making it eligible for Spring's component scanning and dependency injection.
 
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service // Defines this class as a Spring service, making it a Spring-managed bean. It handles business logic for user login.
 public class UserLoginService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserLoginService.class);
+
+    // Case-insensitive comparison ("Is" and "is" collide), used by the unique indexes and the duplicate query
+    private static final Collation CASE_INSENSITIVE = Collation.of("en").strength(2);
+
     @Autowired // This tells Spring to automatically inject an instance of UserLoginRepository at runtime.
     private UserLoginRepository userLoginRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // False if the unique indexes could not be built (e.g. existing duplicates); saves then check first
+    private volatile boolean uniqueIndexesReady;
+
+    // Company fields that must be unique across all companies
+    public enum CompanyField {
+        CVR("companyCVR", "Company CVR"),
+        EMAIL("companyEmail", "Company email"),
+        NAME("companyName", "Company name"),
+        PHONE("phoneNumber", "Phone number");
+
+        private final String fieldName;
+        private final String label;
+
+        CompanyField(String fieldName, String label) {
+            this.fieldName = fieldName;
+            this.label = label;
+        }
+
+        public String getFieldName() {
+            return fieldName;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        String getIndexName() {
+            return fieldName + "_unique";
+        }
+    }
+
+    // Thrown when a company would share its name, email, CVR or phone number with another company
+    public static class DuplicateCompanyException extends RuntimeException {
+        private final Set<CompanyField> conflicts;
+
+        public DuplicateCompanyException(Set<CompanyField> conflicts) {
+            super(conflicts.stream().map(CompanyField::getLabel).collect(Collectors.joining(", ")) + " already registered.");
+            this.conflicts = conflicts;
+        }
+
+        public Set<CompanyField> getConflicts() {
+            return conflicts;
+        }
+    }
+
+    /**
+     * Builds the unique, case-insensitive indexes on the company fields. Partial indexes, so
+     * companies without a phone number (the admin) do not collide on null, and archived companies
+     * do not block a new company with the same details.
+     *
+     * Run by DatabaseSetup once the application is up.
+     */
+    public void ensureUniqueIndexes() {
+        // Partial filters can only match archived: false, so companies stored before the flag existed get it
+        mongoTemplate.updateMulti(new Query(Criteria.where("archived").exists(false)),
+                new Update().set("archived", false), UserLogin.class);
+        IndexOperations indexOps = mongoTemplate.indexOps(UserLogin.class);
+        Set<String> staleIndexes = indexOps.getIndexInfo().stream()
+                .filter(info -> info.getPartialFilterExpression() != null && !info.getPartialFilterExpression().contains("archived"))
+                .map(IndexInfo::getName)
+                .collect(Collectors.toSet());
+
+        boolean ready = true;
+        for (CompanyField field : CompanyField.values()) {
+            Index index = new Index(field.getFieldName(), Sort.Direction.ASC)
+                    .named(field.getIndexName())
+                    .unique()
+                    .collation(CASE_INSENSITIVE)
+                    .partial(PartialIndexFilter.of(Criteria.where(field.getFieldName()).type(2) // BSON string
+                            .and("archived").is(false)));
+            try {
+                if (staleIndexes.contains(field.getIndexName())) {
+                    // Built by an older version that also covered archived companies
+                    indexOps.dropIndex(field.getIndexName());
+                }
+                indexOps.ensureIndex(index);
+            } catch (RuntimeException e) {
+                ready = false;
+                logger.error("Could not create unique index on {}, falling back to checking before save: {}",
+                        field.getFieldName(), e.getMessage());
+            }
+        }
+        uniqueIndexesReady = ready;
+
+        // Plain indexes for the exact-match lookups done on every request (token subject, login email),
+        // which cannot use the case-insensitive indexes
+        for (CompanyField field : List.of(CompanyField.NAME, CompanyField.EMAIL)) {
+            mongoTemplate.indexOps(UserLogin.class).ensureIndex(
+                    new Index(field.getFieldName(), Sort.Direction.ASC).named(field.getFieldName() + "_lookup"));
+        }
+
+        // Every login attempt looks up its code. Unique, so two companies can never share a code;
+        // partial, so archived companies without a code do not collide on null.
+        Index loginCode = new Index("loginCode", Sort.Direction.ASC)
+                .named("loginCode_unique")
+                .unique()
+                .partial(PartialIndexFilter.of(Criteria.where("loginCode").type(2))); // BSON string
+        try {
+            mongoTemplate.indexOps(UserLogin.class).ensureIndex(loginCode);
+        } catch (RuntimeException e) {
+            logger.error("Could not create unique index on loginCode, falling back to a plain index: {}", e.getMessage());
+            mongoTemplate.indexOps(UserLogin.class).ensureIndex(
+                    new Index("loginCode", Sort.Direction.ASC).named("loginCode_lookup"));
+        }
+    }
+
     // Finds a user in the database by their 6-digit login code.
     public UserLogin findByLoginCode(String loginCode) {
         // Uses the repository method to fetch a user based on the provided login code.
@@ -29,16 +160,91 @@ public class UserLoginService {
 
     // Fetch all users from the database
     public List<UserLogin> findAll() {
-        return userLoginRepository.findAll(); // Assuming UserLoginRepository extends JpaRepository or similar
+        // Archived companies are only kept for their order history
+        return userLoginRepository.findAll().stream()
+                .filter(userLogin -> !userLogin.isArchived())
+                .collect(Collectors.toList());
     }
-    // Save a new user to the database.
+    /**
+     * Saves a company. With the unique indexes in place this is a single write; a duplicate-key
+     * error is turned into a DuplicateCompanyException that names the colliding fields.
+     *
+     * @throws DuplicateCompanyException if another company already uses the name, email, CVR or phone number.
+     */
     public void saveUser(UserLogin userLogin) {
-        userLoginRepository.save(userLogin); // Save the new user login details to the database.
+        if (!uniqueIndexesReady) {
+            Set<CompanyField> conflicts = findConflicts(userLogin.getCompanyName(), userLogin.getCompanyEmail(),
+                    userLogin.getCompanyCVR(), userLogin.getPhoneNumber(), userLogin.getId());
+            if (!conflicts.isEmpty()) {
+                throw new DuplicateCompanyException(conflicts);
+            }
+        }
+        try {
+            userLoginRepository.save(userLogin); // Save the new user login details to the database.
+        } catch (DuplicateKeyException e) {
+            Set<CompanyField> conflicts = findConflicts(userLogin.getCompanyName(), userLogin.getCompanyEmail(),
+                    userLogin.getCompanyCVR(), userLogin.getPhoneNumber(), userLogin.getId());
+            if (conflicts.isEmpty()) {
+                // The other company changed in the meantime; report the field from the index name
+                conflicts = fieldsFromIndexName(e.getMessage());
+            }
+            if (conflicts.isEmpty()) {
+                throw e; // Not a company field, e.g. a login code handed out twice
+            }
+            throw new DuplicateCompanyException(conflicts);
+        }
+    }
+
+    /**
+     * Finds which of the given values are already used by another company, with one $or query.
+     *
+     * @param excludeId ID of the company being edited, or null for a new company.
+     * @return The colliding fields; empty if none.
+     */
+    public Set<CompanyField> findConflicts(String companyName, String companyEmail, String companyCVR, String phoneNumber, String excludeId) {
+        String[] values = {companyCVR, companyEmail, companyName, phoneNumber};
+        CompanyField[] fields = CompanyField.values();
+
+        List<Criteria> anyMatch = new ArrayList<>();
+        for (int i = 0; i < fields.length; i++) {
+            if (values[i] != null) {
+                anyMatch.add(Criteria.where(fields[i].getFieldName()).is(values[i]));
+            }
+        }
+        Set<CompanyField> conflicts = EnumSet.noneOf(CompanyField.class);
+        if (anyMatch.isEmpty()) {
+            return conflicts;
+        }
+
+        // Archived companies keep their details for the order history but no longer own them
+        Criteria criteria = new Criteria().orOperator(anyMatch).and("archived").ne(true);
+        if (excludeId != null) {
+            criteria = criteria.and("_id").ne(excludeId);
+        }
+        Query query = new Query(criteria).collation(CASE_INSENSITIVE).limit(fields.length);
+        for (CompanyField field : fields) {
+            query.fields().include(field.getFieldName());
+        }
+
+        for (UserLogin other : mongoTemplate.find(query, UserLogin.class)) {
+            String[] otherValues = {other.getCompanyCVR(), other.getCompanyEmail(), other.getCompanyName(), other.getPhoneNumber()};
+            for (int i = 0; i < fields.length; i++) {
+                if (values[i] != null && values[i].equalsIgnoreCase(otherValues[i])) {
+                    conflicts.add(fields[i]);
+                }
+            }
+        }
+        return conflicts;
     }
 
-    // Method to check if the generated login code already exists in the database.
-    public boolean isDuplicateGeneratedCode(String loginCode) {
-        return userLoginRepository.existsByLoginCode(loginCode);
+    private Set<CompanyField> fieldsFromIndexName(String message) {
+        Set<CompanyField> conflicts = EnumSet.noneOf(CompanyField.class);
+        for (CompanyField field : CompanyField.values()) {
+            if (message != null && message.contains(field.getIndexName())) {
+                conflicts.add(field);
+            }
+        }
+        return conflicts.isEmpty() ? EnumSet.allOf(CompanyField.class) : conflicts;
     }
 
 
@@ -49,13 +255,6 @@ public class UserLoginService {
         }
     }
 
-    // Checks if a company name or email already exists in the database, used to avoid creating duplicate entries.
-    public boolean isDuplicate(String companyName, String companyEmail, String companyCVR, String phoneNumber) {
-        // Queries the repository to see if either the company name or company email already exists in the database.
-        return userLoginRepository.existsByCompanyName(companyName) ||
-                userLoginRepository.existsByCompanyEmail(companyEmail) || userLoginRepository.existsByCompanyCVR(companyCVR) || userLoginRepository.existsByPhoneNumber(phoneNumber);
-    }
-
     // Finds a user in the database by their company email, often used for admin login or user lookup by email.
     public UserLogin findByCompanyEmail(String companyEmail) {
         // Uses the repository to fetch a user based on the provided company email.
@@ -81,20 +280,4 @@ public class UserLoginService {
     public void save(UserLogin userLogin) {
         userLoginRepository.save(userLogin); // Spring Data MongoDB handles the persistence
     }
-
-    public boolean existsByCompanyCVRAndIdNot(String companyCVR, String id) {
-        return userLoginRepository.existsByCompanyCVRAndIdNot(companyCVR, id);
-    }
-
-    public boolean existsByCompanyEmailAndIdNot(String companyEmail, String id) {
-        return userLoginRepository.existsByCompanyEmailAndIdNot(companyEmail, id);
-    }
-
-    public boolean existsByCompanyNameAndIdNot(String companyName, String id) {
-        return userLoginRepository.existsByCompanyNameAndIdNot(companyName, id);
-    }
-
-    public boolean existsByPhoneNumberAndIdNot(String phoneNumber, String id) {
-        return userLoginRepository.existsByPhoneNumberAndIdNot(phoneNumber, id);
-    }
 }
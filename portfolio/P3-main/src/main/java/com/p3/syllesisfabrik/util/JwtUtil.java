@@ -50,6 +50,40 @@ public class JwtUtil {
         }
     }
     //util/JwtUtil.java Snippet End
+
+    // Checks an admin token: it must be a valid "admin" token and still be the one stored for the
+    // admin user, so a token revoked by logout is refused. Returns why the token is refused, or
+    // null when it is accepted.
+    public String adminTokenError(String token) {
+        Logger logger = LoggerFactory.getLogger(JwtUtil.class);
+
+        if (token == null) {
+            logger.error("Access denied. Token is null.");
+            return "Access denied. Please log in with a valid token.";
+        }
+
+        // Validate the token and check if it is associated with "admin"
+        if (!validateToken(token, "admin")) {
+            logger.error("Access denied. Invalid or expired token for admin.");
+            return "Access denied. Invalid or expired token.";
+        }
+
+        // A company that calls itself "admin" also gets this subject, so the token must be the admin user's
+        UserLogin adminUser = userLoginService.findByCompanyName("Syllesis Fabrik");
+        if (adminUser == null) {
+            logger.error("Access denied. Admin user not found in the database.");
+            return "Access denied. Admin user not found.";
+        }
+        if (!token.equals(adminUser.getToken())) {
+            logger.error("Access denied. Token mismatch for admin. Token does not match the one stored in the database.");
+            return "Access denied. Invalid token.";
+        }
+        return null;
+    }
+
+    public boolean isAdminToken(String token) {
+        return adminTokenError(token) == null;
+    }
     public boolean invalidateToken(String token) {
         Logger logger = LoggerFactory.getLogger(JwtUtil.class);
 
@@ -1,6 +1,6 @@
 // Function to toggle sections
 function toggleSection(sectionId) {
-    const sections = ['formModal', 'companyTable', 'menuSection', 'addMenuItemForm', 'currentOrdersSection', 'orderHistorySection', 'salesSection'];
+    const sections = ['formModal', 'companyTable', 'menuSection', 'addMenuItemForm', 'currentOrdersSection', 'orderHistorySection', 'salesSection', 'productionPlanSection'];
     if (document.getElementById(sectionId).style.display === "block") {
         return;
     }
@@ -8,6 +8,7 @@ function toggleSection(sectionId) {
         document.getElementById(id).style.display = "none";
     });
     document.getElementById(sectionId).style.display = "block";
+    loadSection(sectionId);
 }
 
 // Function to toggle sections
@@ -24,7 +25,7 @@ function toggleSectionSales(sectionId) {
 
 // Hide all sections on page load
 window.onload = function() {
-    const sections = ['formModal', 'companyTable', 'menuSection', 'addMenuItemForm', 'currentOrdersSection', 'orderHistorySection', 'salesSection', 'weeklySalesTable', 'monthlySalesTable', 'yearlySalesTable'];
+    const sections = ['formModal', 'companyTable', 'menuSection', 'addMenuItemForm', 'currentOrdersSection', 'orderHistorySection', 'salesSection', 'productionPlanSection', 'weeklySalesTable', 'monthlySalesTable', 'yearlySalesTable'];
     sections.forEach(id => {
         document.getElementById(id).style.display = "none";
     });
@@ -39,6 +40,8 @@ window.onload = function() {
     if (editMenuInput) {
         editMenuInput.onchange = (event) => previewImagesUpdate(event.target);
     }
+
+    connectLiveBoard();
 };
 function showInfo(button) {
     // Retrieve allergens, description, and image paths from data attributes
@@ -493,3 +496,487 @@ document.querySelectorAll('.expanding-input').forEach((textarea) => {
         this.style.height = this.scrollHeight + 'px'; // Adjust height based on content
     });
 });
+
+// Live admin board: actions are posted in the background and the server pushes the changed rows
+const orderSectionBodies = {
+    current: 'currentOrdersBody',
+    readyToShip: 'readyToShipBody',
+    readyToInvoice: 'readyToInvoiceBody',
+    completed: 'completedBody'
+};
+
+function isLiveBoard() {
+    return document.body.dataset.liveBoard === 'true' && !!window.EventSource;
+}
+
+function connectLiveBoard() {
+    if (!isLiveBoard()) {
+        return;
+    }
+    const token = document.body.dataset.token;
+    const source = new EventSource('/admin/board/stream?token=' + encodeURIComponent(token));
+    source.addEventListener('order', (event) => patchOrderRow(JSON.parse(event.data)));
+    source.addEventListener('menuItem', (event) => patchMenuItemRow(JSON.parse(event.data)));
+    source.addEventListener('company', (event) => patchCompanyRow(JSON.parse(event.data)));
+    // The server lost track of changes, so the page may be out of date
+    source.addEventListener('resync', () => location.reload());
+}
+
+// Same text as Java's List.toString, which the server-rendered data attributes use
+function listText(list) {
+    return list ? '[' + list.join(', ') + ']' : '';
+}
+
+function renderRow(templateId, row) {
+    const tr = document.getElementById(templateId).content.firstElementChild.cloneNode(true);
+    tr.querySelectorAll('[data-field]').forEach(cell => {
+        const value = row[cell.dataset.field];
+        switch (cell.dataset.field) {
+            case 'items':
+                cell.replaceChildren(...value.map(item => {
+                    const li = document.createElement('li');
+                    [item.title, item.desiredQuantity + ' Item/s', ' - Item Price: ' + item.totalCost + ' DKK'].forEach(text => {
+                        const span = document.createElement('span');
+                        span.textContent = text;
+                        li.append(span, ' ');
+                    });
+                    return li;
+                }));
+                break;
+            case 'totalPrice':
+            case 'pricePerLiter':
+                cell.textContent = value + ' DKK';
+                break;
+            case 'isAvailable':
+                cell.innerHTML = value
+                    ? '<span style="color: green;">&#10003;</span>'
+                    : '<span style="color: red;">&#10007;</span>';
+                break;
+            default:
+                cell.textContent = value ?? '';
+        }
+    });
+    return tr;
+}
+
+// Replaces a row in place, moves it to another table, or removes it when there is no new row
+function placeRow(selector, tr, body) {
+    const existing = document.querySelector(selector);
+    if (tr && existing && existing.parentElement === body) {
+        existing.replaceWith(tr);
+        return;
+    }
+    if (existing) existing.remove();
+    // Tables that have not been opened yet fetch the row when they are
+    if (tr && tableState[body.id]) {
+        body.appendChild(tr);
+    }
+}
+
+function buildOrderRow(item) {
+    const tr = renderRow('orderRow-' + item.row.section, item.row);
+    tr.dataset.orderId = item.id;
+    tr.querySelectorAll('button[data-token]').forEach(button => button.dataset.orderId = item.id);
+    tr.querySelectorAll('input[name="orderId"]').forEach(input => input.value = item.id);
+    return tr;
+}
+
+function buildMenuItemRow(item) {
+    const row = item.row;
+    const tr = renderRow('menuItemRow', row);
+    tr.dataset.menuItemId = item.id;
+    const edit = tr.querySelector('.edit-button');
+    edit.dataset.itemId = item.id;
+    edit.dataset.title = row.title;
+    edit.dataset.description = row.description ?? '';
+    edit.dataset.quantity = row.quantity;
+    edit.dataset.pricePerLiter = row.pricePerLiter;
+    edit.dataset.isAvailable = row.isAvailable;
+    const info = tr.querySelector('.info-button');
+    [edit, info].forEach(button => {
+        button.dataset.allergens = listText(row.allergens);
+        button.dataset.images = listText(row.imagePaths);
+    });
+    info.dataset.description = row.description ?? '';
+    tr.querySelector('input[name="iceCreamId"]').value = item.id;
+    return tr;
+}
+
+function buildCompanyRow(item) {
+    const tr = renderRow('companyRow', item.row);
+    tr.dataset.companyId = item.id;
+    tr.querySelector('input[name="companyEmail"]').value = item.row.companyEmail;
+    return tr;
+}
+
+function patchOrderRow(event) {
+    const tr = event.row ? buildOrderRow(event) : null;
+    const body = event.row ? document.getElementById(orderSectionBodies[event.row.section]) : null;
+    placeRow(`tr[data-order-id="${CSS.escape(event.id)}"]`, tr, body);
+}
+
+function patchMenuItemRow(event) {
+    const tr = event.row ? buildMenuItemRow(event) : null;
+    placeRow(`tr[data-menu-item-id="${CSS.escape(event.id)}"]`, tr, document.getElementById('menuItemBody'));
+}
+
+function patchCompanyRow(event) {
+    const tr = event.row ? buildCompanyRow(event) : null;
+    placeRow(`tr[data-company-id="${CSS.escape(event.id)}"]`, tr, document.getElementById('companyBody'));
+}
+
+function showLiveMessage(text, isError) {
+    const box = document.getElementById('liveMessage');
+    const p = box.querySelector('p');
+    p.textContent = text;
+    p.style.color = isError ? 'red' : 'green';
+    box.style.display = 'block';
+}
+
+// Posts order and menu actions without leaving the page; the board then moves the rows
+document.addEventListener('submit', async (event) => {
+    const form = event.target;
+    // Without the board the form posts normally and the page comes back with the outcome
+    if (!form.matches('form[data-live-action]') || !isLiveBoard()) {
+        return;
+    }
+    event.preventDefault();
+
+    let response;
+    try {
+        response = await fetch(form.action, {
+            method: 'POST',
+            headers: { 'X-Requested-With': 'XMLHttpRequest' },
+            body: new FormData(form)
+        });
+    } catch (error) {
+        console.error("Error posting admin action:", error);
+        form.submit(); // Fall back to a normal post
+        return;
+    }
+    if (response.status === 401) {
+        location.reload(); // Sends the admin back to the login page
+        return;
+    }
+
+    const result = await response.json();
+    const modal = form.closest('.modal');
+    if (modal) {
+        modal.style.display = 'none';
+    }
+    if (!result.live) {
+        // The board stopped since the page loaded, so nothing will push the change
+        location.reload();
+        return;
+    }
+    const text = result.error || result.message;
+    if (text) {
+        showLiveMessage(text, !!result.error);
+    }
+});
+
+// Admin tables: each tab fetches its tables from /admin/api the first time it is opened,
+// one page at a time, sorted and filtered by the server
+const TABLE_PAGE_SIZE = 25;
+const tableState = {}; // Page, sort and filters of each table that has been opened, by tbody id
+const rowBuilders = {
+    'orders': buildOrderRow,
+    'companies': buildCompanyRow,
+    'menu-items': buildMenuItemRow
+};
+let salesLoaded = false;
+
+function loadSection(sectionId) {
+    document.getElementById(sectionId).querySelectorAll('tbody[data-source]').forEach(body => {
+        if (!tableState[body.id]) {
+            tableState[body.id] = { page: 0, sort: body.dataset.sort, dir: body.dataset.dir || 'asc', request: 0 };
+            loadTable(body.id);
+        }
+    });
+    if (sectionId === 'salesSection' && !salesLoaded) {
+        salesLoaded = true;
+        loadSales();
+    }
+}
+
+async function loadTable(bodyId) {
+    const body = document.getElementById(bodyId);
+    const state = tableState[bodyId];
+    const request = ++state.request;
+
+    const params = new URLSearchParams({
+        token: document.body.dataset.token,
+        sort: state.sort,
+        dir: state.dir,
+        page: state.page,
+        size: TABLE_PAGE_SIZE
+    });
+    if (body.dataset.section) {
+        params.set('section', body.dataset.section);
+    }
+    document.querySelectorAll(`.table-filters[data-for="${bodyId}"] [data-filter]`).forEach(input => {
+        if (input.value) {
+            params.set(input.dataset.filter, input.value);
+        }
+    });
+
+    const response = await fetch(`/admin/api/${body.dataset.source}?${params}`);
+    if (request !== state.request) {
+        return; // A newer page or filter was asked for in the meantime
+    }
+    if (response.status === 401) {
+        location.reload(); // Sends the admin back to the login page
+        return;
+    }
+    if (!response.ok) {
+        console.error(`Failed to load ${body.dataset.source}: ${response.status}`);
+        return;
+    }
+
+    const page = await response.json();
+    if (page.items.length === 0 && page.page > 0) {
+        // The last rows of this page are gone, show the last page there is
+        showPage(bodyId, Math.max(page.pages - 1, 0));
+        return;
+    }
+    body.replaceChildren(...page.items.map(rowBuilders[body.dataset.source]));
+    renderPager(bodyId, page);
+    markSortedColumn(body);
+}
+
+function showPage(bodyId, page) {
+    tableState[bodyId].page = page;
+    loadTable(bodyId);
+}
+
+function renderPager(bodyId, page) {
+    const pages = Math.max(page.pages, 1);
+    const info = document.createElement('span');
+    info.textContent = `Page ${page.page + 1} of ${pages} (${page.total} in total)`;
+    document.querySelector(`.table-pager[data-for="${bodyId}"]`).replaceChildren(
+        pagerButton('Previous', page.page > 0, () => showPage(bodyId, page.page - 1)),
+        info,
+        pagerButton('Next', page.page + 1 < pages, () => showPage(bodyId, page.page + 1)));
+}
+
+function pagerButton(label, enabled, onClick) {
+    const button = document.createElement('button');
+    button.type = 'button';
+    button.className = 'btn toggle-btn';
+    button.textContent = label;
+    button.disabled = !enabled;
+    button.onclick = onClick;
+    return button;
+}
+
+function markSortedColumn(body) {
+    const state = tableState[body.id];
+    body.closest('table').querySelectorAll('th[data-sort]').forEach(th => {
+        th.classList.toggle('sorted-asc', th.dataset.sort === state.sort && state.dir === 'asc');
+        th.classList.toggle('sorted-desc', th.dataset.sort === state.sort && state.dir === 'desc');
+    });
+}
+
+// Clicking a column header sorts by it, clicking it again flips the direction
+document.addEventListener('click', (event) => {
+    const th = event.target.closest('th[data-sort]');
+    const body = th ? th.closest('table').querySelector('tbody[data-source]') : null;
+    if (!body || !tableState[body.id]) {
+        return;
+    }
+    const state = tableState[body.id];
+    if (state.sort === th.dataset.sort) {
+        state.dir = state.dir === 'asc' ? 'desc' : 'asc';
+    } else {
+        state.sort = th.dataset.sort;
+        state.dir = 'asc';
+    }
+    showPage(body.id, 0);
+});
+
+// Filters apply shortly after the admin stops typing
+let filterTimer;
+document.addEventListener('input', (event) => {
+    const filters = event.target.closest('.table-filters');
+    if (!filters || !tableState[filters.dataset.for]) {
+        return;
+    }
+    clearTimeout(filterTimer);
+    filterTimer = setTimeout(() => showPage(filters.dataset.for, 0), 300);
+});
+
+async function loadSales() {
+    const response = await fetch('/admin/api/sales?token=' + encodeURIComponent(document.body.dataset.token));
+    if (response.status === 401) {
+        location.reload();
+        return;
+    }
+    if (!response.ok) {
+        salesLoaded = false; // Try again the next time the tab is opened
+        return;
+    }
+    const sales = await response.json();
+    document.getElementById('totalSalesAllTime').textContent = sales.totalSalesAllTime + ' DKK';
+    fillSales('weeklySalesBody', sales.weeklySales);
+    fillSales('monthlySalesBody', sales.monthlySales);
+    fillSales('yearlySalesBody', [sales.yearlySales]);
+}
+
+function fillSales(bodyId, ranges) {
+    document.getElementById(bodyId).replaceChildren(...ranges.map(range => {
+        const tr = document.createElement('tr');
+        [range.rangeLabel, range.totalRevenue + ' DKK', range.totalOrders].forEach(text => {
+            const td = document.createElement('td');
+            td.textContent = text;
+            tr.appendChild(td);
+        });
+        const products = document.createElement('ul');
+        range.topSellingProducts.forEach(product => {
+            const li = document.createElement('li');
+            li.textContent = product;
+            products.appendChild(li);
+        });
+        const td = document.createElement('td');
+        td.appendChild(products);
+        tr.appendChild(td);
+        return tr;
+    }));
+}
+
+// Bulk actions: tick orders in a table, then approve, ship or invoice all of them in one request
+document.addEventListener('change', (event) => {
+    if (!event.target.matches('.bulk-select-all')) {
+        return;
+    }
+    const body = event.target.closest('table').querySelector('tbody');
+    body.querySelectorAll('.bulk-select').forEach(box => box.checked = event.target.checked);
+});
+
+document.addEventListener('click', async (event) => {
+    const button = event.target.closest('.bulk-actions button');
+    if (!button) {
+        return;
+    }
+    const bar = button.closest('.bulk-actions');
+    const body = document.getElementById(bar.dataset.for);
+    const rows = [...body.querySelectorAll('.bulk-select:checked')].map(box => box.closest('tr'));
+    if (rows.length === 0) {
+        showLiveMessage('Select at least one order.', true);
+        return;
+    }
+    const params = new URLSearchParams({ token: document.body.dataset.token });
+    rows.forEach(tr => params.append('orderIds', tr.dataset.orderId));
+    bar.querySelectorAll('input[name]').forEach(input => params.set(input.name, input.value));
+
+    button.disabled = true;
+    let response;
+    try {
+        response = await fetch(bar.dataset.action, { method: 'POST', body: params });
+    } catch (error) {
+        console.error("Error posting bulk action:", error);
+        showLiveMessage('Could not reach the server, nothing was changed.', true);
+        return;
+    } finally {
+        button.disabled = false;
+    }
+    if (response.status === 401) {
+        location.reload(); // Sends the admin back to the login page
+        return;
+    }
+
+    const result = await response.json();
+    if (result.error) {
+        showLiveMessage(result.error, true);
+        return;
+    }
+    showLiveMessage(result.message, result.failed > 0);
+    reportBulkFailures(bar, result.outcomes, rows);
+    body.closest('table').querySelector('.bulk-select-all').checked = false;
+    // Handled orders moved to other tables; refresh the ones that are open
+    Object.values(orderSectionBodies).filter(bodyId => tableState[bodyId]).forEach(loadTable);
+});
+
+// Lists the orders a bulk action could not handle, by company and order date, with the reason
+function reportBulkFailures(bar, outcomes, rows) {
+    const rowsById = new Map(rows.map(tr => [tr.dataset.orderId, tr]));
+    bar.querySelector('.bulk-report').replaceChildren(...outcomes.filter(outcome => !outcome.success).map(outcome => {
+        const tr = rowsById.get(outcome.orderId);
+        const li = document.createElement('li');
+        li.textContent = tr
+            ? `${tr.querySelector('[data-field="companyName"]').textContent}, ${tr.querySelector('[data-field="orderDate"]').textContent}: ${outcome.message}`
+            : outcome.message;
+        return li;
+    }));
+}
+
+// PDF invoices: start a job for the ticked orders or a delivery period, follow its progress
+// and offer the zip file once every invoice has been rendered
+document.addEventListener('click', async (event) => {
+    const button = event.target.closest('.invoice-pdfs button');
+    if (!button) {
+        return;
+    }
+    const bar = button.closest('.invoice-pdfs');
+    const params = new URLSearchParams({ token: document.body.dataset.token });
+    if (button.dataset.scope === 'selected') {
+        const boxes = [...document.getElementById(bar.dataset.for).querySelectorAll('.bulk-select:checked')];
+        if (boxes.length === 0) {
+            showLiveMessage('Select at least one order.', true);
+            return;
+        }
+        boxes.forEach(box => params.append('orderIds', box.closest('tr').dataset.orderId));
+    } else {
+        bar.querySelectorAll('input[name]').forEach(input => params.set(input.name, input.value));
+    }
+
+    let response;
+    try {
+        response = await fetch('/admin/invoices/pdf', { method: 'POST', body: params });
+    } catch (error) {
+        console.error("Error starting invoice job:", error);
+        showLiveMessage('Could not reach the server.', true);
+        return;
+    }
+    if (response.status === 401) {
+        location.reload(); // Sends the admin back to the login page
+        return;
+    }
+    const result = await response.json();
+    if (result.error) {
+        showLiveMessage(result.error, true);
+        return;
+    }
+    showLiveMessage(result.message, false);
+    bar.querySelectorAll('button').forEach(b => b.disabled = true);
+    followInvoiceJob(bar, result.jobId);
+});
+
+async function followInvoiceJob(bar, jobId) {
+    const token = encodeURIComponent(document.body.dataset.token);
+    const progress = bar.querySelector('.invoice-progress');
+    let job;
+    try {
+        const response = await fetch(`/admin/api/invoices/${jobId}?token=${token}`);
+        job = await response.json();
+    } catch (error) {
+        console.error("Error reading invoice job:", error);
+        setTimeout(() => followInvoiceJob(bar, jobId), 5000);
+        return;
+    }
+    progress.style.color = job.failed > 0 ? 'red' : '';
+    if (job.status === 'PENDING' || job.status === 'RUNNING') {
+        progress.textContent = `${job.rendered + job.failed} of ${job.total} invoices generated...`;
+        setTimeout(() => followInvoiceJob(bar, jobId), 1000);
+        return;
+    }
+
+    bar.querySelectorAll('button').forEach(b => b.disabled = false);
+    progress.textContent = `${job.rendered} of ${job.total} invoices generated.`
+        + (job.failed > 0 ? ` Failed: ${job.errors.join('; ')}` : '');
+    if (job.status === 'DONE') {
+        const link = document.createElement('a');
+        link.href = `/admin/invoices/${jobId}/download?token=${token}`;
+        link.textContent = ' Download zip';
+        progress.appendChild(link);
+    }
+}
@@ -3,7 +3,8 @@ package com.p3.syllesisfabrik;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// The application properties are not in the repository; the mail sender only needs a host to be created
+@SpringBootTest(properties = "spring.mail.host=localhost")
 class SyllesisfabrikApplicationTests {
 
     @Test
@@ -0,0 +1,36 @@
+package com.p3.syllesisfabrik.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AssetVersionTest {
+
+    private static Resource file(String name, String content) {
+        return new ByteArrayResource(content.getBytes(), name);
+    }
+
+    @Test
+    public void testChangedAssetChangesTheVersion() throws Exception {
+        String before = AssetVersion.hash(List.of(file("css/style.css", "body{}"), file("js/app.js", "run()")));
+        String same = AssetVersion.hash(List.of(file("js/app.js", "run()"), file("css/style.css", "body{}")));
+        String after = AssetVersion.hash(List.of(file("css/style.css", "body{color:red}"), file("js/app.js", "run()")));
+
+        assertEquals(before, same, "Listing order does not matter");
+        assertNotEquals(before, after);
+        assertEquals(16, before.length());
+    }
+
+    @Test
+    public void testVersionCoversTheBuiltAssets() {
+        AssetVersion assetVersion = new AssetVersion();
+
+        String version = assetVersion.get();
+        assertTrue(version.matches("[0-9a-f]{16}"));
+        assertSame(version, assetVersion.get(), "Computed once");
+    }
+}
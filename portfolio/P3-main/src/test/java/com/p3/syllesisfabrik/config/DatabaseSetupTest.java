@@ -0,0 +1,106 @@
+package com.p3.syllesisfabrik.config;
+
+import com.p3.syllesisfabrik.service.AdminBoardService;
+import com.p3.syllesisfabrik.service.CartItemService;
+import com.p3.syllesisfabrik.service.CascadeDeleteService;
+import com.p3.syllesisfabrik.service.InvoiceJobService;
+import com.p3.syllesisfabrik.service.LoginCodeService;
+import com.p3.syllesisfabrik.service.NotificationService;
+import com.p3.syllesisfabrik.service.OrderArchiveService;
+import com.p3.syllesisfabrik.service.OrderService;
+import com.p3.syllesisfabrik.service.ProductionPlanService;
+import com.p3.syllesisfabrik.service.TransactionRunner;
+import com.p3.syllesisfabrik.service.UserLoginService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class DatabaseSetupTest {
+
+    @Mock
+    private TransactionRunner transactionRunner;
+    @Mock
+    private CartItemService cartItemService;
+    @Mock
+    private OrderService orderService;
+    @Mock
+    private ProductionPlanService productionPlanService;
+    @Mock
+    private UserLoginService userLoginService;
+    @Mock
+    private LoginCodeService loginCodeService;
+    @Mock
+    private CascadeDeleteService cascadeDeleteService;
+    @Mock
+    private OrderArchiveService orderArchiveService;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private InvoiceJobService invoiceJobService;
+    @Mock
+    private AdminBoardService adminBoardService;
+
+    @InjectMocks
+    private DatabaseSetup databaseSetup;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testStepsRunOnceInOrder() {
+        databaseSetup.onReady();
+        databaseSetup.retryPending();
+
+        InOrder order = inOrder(transactionRunner, cartItemService, orderService, productionPlanService, adminBoardService);
+        order.verify(transactionRunner).detectTransactionSupport();
+        order.verify(cartItemService).migrateCartItems();
+        order.verify(orderService).prepareOrders();
+        order.verify(productionPlanService).preparePlan();
+        order.verify(adminBoardService).start();
+        verify(transactionRunner, times(1)).detectTransactionSupport();
+        assertTrue(databaseSetup.isComplete());
+    }
+
+    @Test
+    public void testUnreachableDatabaseStopsSetupUntilTheRetry() {
+        doThrow(new DataAccessResourceFailureException("Timed out"))
+                .doNothing()
+                .when(orderService).prepareOrders();
+
+        databaseSetup.onReady();
+
+        verify(cartItemService).migrateCartItems();
+        verifyNoInteractions(productionPlanService, adminBoardService);
+        assertFalse(databaseSetup.isComplete());
+
+        databaseSetup.retryPending();
+
+        verify(cartItemService, times(1)).migrateCartItems();
+        verify(orderService, times(2)).prepareOrders();
+        verify(adminBoardService).start();
+        assertTrue(databaseSetup.isComplete());
+    }
+
+    @Test
+    public void testFailedStepIsLoggedAndTheNextOneRuns() {
+        doThrow(new IllegalStateException("Duplicate key")).when(userLoginService).ensureUniqueIndexes();
+
+        databaseSetup.onReady();
+
+        verify(loginCodeService).loadLegacyCodes();
+        verify(adminBoardService).start();
+        assertTrue(databaseSetup.isComplete());
+
+        databaseSetup.retryPending();
+        verify(userLoginService, times(1)).ensureUniqueIndexes();
+    }
+}
@@ -2,6 +2,8 @@ package com.p3.syllesisfabrik.controller;
 
 
 import com.p3.syllesisfabrik.model.UserLogin;
+import com.p3.syllesisfabrik.service.InMemoryLoginAttemptStore;
+import com.p3.syllesisfabrik.service.LoginThrottleService;
 import com.p3.syllesisfabrik.service.UserLoginService;
 import com.p3.syllesisfabrik.util.JwtUtil;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,6 +11,9 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.ui.Model;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
@@ -29,9 +34,22 @@ public class LoginControllerTest {
 
     private final String ADMIN_PASSCODE = "A1b2C3d4E5f6G7!";
 
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
+        LoginThrottleService loginThrottleService = new LoginThrottleService();
+        ReflectionTestUtils.setField(loginThrottleService, "loginAttemptStore", new InMemoryLoginAttemptStore());
+        ReflectionTestUtils.setField(loginThrottleService, "windowSeconds", 300L);
+        ReflectionTestUtils.setField(loginThrottleService, "maxPerClient", 10);
+        ReflectionTestUtils.setField(loginThrottleService, "maxPerPrefix", 30);
+        ReflectionTestUtils.setField(loginThrottleService, "prefixLength", 3);
+        ReflectionTestUtils.setField(loginController, "loginThrottleService", loginThrottleService);
+        request = new MockHttpServletRequest();
+        request.setRemoteAddr("192.0.2.1");
+        response = new MockHttpServletResponse();
     }
 
     @Test
@@ -60,7 +78,7 @@ public class LoginControllerTest {
         doNothing().when(userLoginService).saveUserWithToken(adminUser, expectedToken);
 
         // Act
-        String viewName = loginController.validateLogin(loginCode, model);
+        String viewName = loginController.validateLogin(loginCode, model, request, response);
 
         // Assert
         assertEquals("redirect:/admin/home?token=" + expectedToken, viewName);
@@ -82,10 +100,10 @@ public class LoginControllerTest {
         doNothing().when(userLoginService).saveUserWithToken(userLogin, expectedToken);
 
         // Act
-        String viewName = loginController.validateLogin(loginCode, model);
+        String viewName = loginController.validateLogin(loginCode, model, request, response);
 
         // Assert
-        assertEquals("redirect:/login/user/home?token=" + expectedToken, viewName);
+        assertEquals("redirect:/user/home?token=" + expectedToken, viewName);
         verify(jwtUtil, times(1)).generateToken("UserCompany");
         verify(userLoginService, times(1)).saveUserWithToken(userLogin, expectedToken);
     }
@@ -97,7 +115,7 @@ public class LoginControllerTest {
         when(userLoginService.findByLoginCode(loginCode)).thenReturn(null);
 
         // Act
-        String viewName = loginController.validateLogin(loginCode, model);
+        String viewName = loginController.validateLogin(loginCode, model, request, response);
 
         // Assert
         assertEquals("login", viewName);
@@ -105,36 +123,43 @@ public class LoginControllerTest {
     }
 
     @Test
-    public void testShowUserHome_ValidToken() {
+    public void testValidateLogin_TooManyAttempts_RejectedBeforeLookup() {
         // Arrange
-        String token = "validToken";
-        String companyName = "ValidCompany";
-
-        when(jwtUtil.extractUsername(token)).thenReturn(companyName);
-        when(jwtUtil.validateToken(token, companyName)).thenReturn(true);
+        when(userLoginService.findByLoginCode(anyString())).thenReturn(null);
 
         // Act
-        String viewName = loginController.showUserHome(token, model);
+        for (int i = 0; i < 10; i++) {
+            loginController.validateLogin("99999" + i, model, request, response);
+        }
+        String viewName = loginController.validateLogin("123456", model, request, response);
 
         // Assert
-        assertEquals("user_home", viewName);
-        verify(model, times(1)).addAttribute("companyName", companyName);
+        assertEquals("login", viewName);
+        assertEquals(429, response.getStatus());
+        verify(userLoginService, times(10)).findByLoginCode(anyString());
+        verify(model, times(1)).addAttribute("error", "Too many login attempts. Please try again in 5 minutes.");
     }
 
     @Test
-    public void testShowUserHome_InvalidToken() {
+    public void testValidateLogin_SuccessDoesNotClearAttemptsOfClient() {
         // Arrange
-        String token = "invalidToken";
-        String companyName = "InvalidCompany";
-
-        when(jwtUtil.extractUsername(token)).thenReturn(companyName);
-        when(jwtUtil.validateToken(token, companyName)).thenReturn(false);
+        UserLogin userLogin = new UserLogin();
+        userLogin.setCompanyName("UserCompany");
+        when(userLoginService.findByLoginCode(anyString())).thenReturn(null);
+        when(userLoginService.findByLoginCode("123456")).thenReturn(userLogin);
+        when(jwtUtil.generateToken("UserCompany")).thenReturn("userToken");
 
         // Act
-        String viewName = loginController.showUserHome(token, model);
+        for (int i = 0; i < 9; i++) {
+            loginController.validateLogin("99999" + i, model, request, response);
+        }
+        loginController.validateLogin("123456", model, request, response);
+        String viewName = loginController.validateLogin("999990", model, request, response);
 
-        // Assert
+        // Assert: the successful login was the tenth attempt, so the next guess is turned away
         assertEquals("login", viewName);
-        verify(model, times(1)).addAttribute("error", "Invalid or expired token.");
+        assertEquals(429, response.getStatus());
+        verify(userLoginService, times(10)).findByLoginCode(anyString());
+        verify(model, times(9)).addAttribute("error", "Invalid login code.");
     }
 }
@@ -0,0 +1,181 @@
+package com.p3.syllesisfabrik.controller;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.p3.syllesisfabrik.model.UserLogin;
+import com.p3.syllesisfabrik.repository.UserLoginRepository;
+import com.p3.syllesisfabrik.service.InMemoryLoginAttemptStore;
+import com.p3.syllesisfabrik.service.LoginThrottleService;
+import com.p3.syllesisfabrik.service.UserLoginService;
+import com.p3.syllesisfabrik.util.JwtUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.ui.ExtendedModelMap;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs login code guessing attacks of growing size against the login endpoint on a real
+ * MongoDB and counts the code lookups the database sees. Past the throttle limits the number
+ * of lookups stays the same however many guesses are sent.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public class LoginThrottleLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginThrottleLoadTest.class);
+
+    @Container
+    private static final MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    private static final int MAX_PER_CLIENT = 10;
+    private static final int MAX_PER_PREFIX = 30;
+    private static final int THREADS = 16;
+
+    private static final LookupCounter lookups = new LookupCounter();
+    private static MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+    private UserLoginService userLoginService;
+
+    // Counts the find commands sent to the userLogins collection
+    private static class LookupCounter implements CommandListener {
+        final AtomicLong finds = new AtomicLong();
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            if ("find".equals(event.getCommandName()) && "userLogins".equals(event.getCommand().getString("find").getValue())) {
+                finds.incrementAndGet();
+            }
+        }
+    }
+
+    @BeforeAll
+    public static void connect() {
+        mongoClient = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(mongo.getReplicaSetUrl()))
+                .addCommandListener(lookups)
+                .build());
+    }
+
+    @AfterAll
+    public static void disconnect() {
+        mongoClient.close();
+    }
+
+    @BeforeEach
+    public void setup() {
+        mongoTemplate = new MongoTemplate(mongoClient, "login_throttle_load");
+        mongoTemplate.dropCollection(UserLogin.class);
+
+        userLoginService = new UserLoginService();
+        ReflectionTestUtils.setField(userLoginService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(userLoginService, "userLoginRepository",
+                new MongoRepositoryFactory(mongoTemplate).getRepository(UserLoginRepository.class));
+        userLoginService.ensureUniqueIndexes();
+
+        for (int i = 0; i < 100; i++) {
+            mongoTemplate.save(new UserLogin("1000000" + i, "Company " + i, "company" + i + "@example.com",
+                    String.valueOf(500000 + i * 17), "normal", "2000000" + i, "Street", "1", "9000", "Aalborg"));
+        }
+    }
+
+    // A controller with its own throttle, so every attack starts from empty windows
+    private LoginController controller() {
+        LoginThrottleService loginThrottleService = new LoginThrottleService();
+        ReflectionTestUtils.setField(loginThrottleService, "loginAttemptStore", new InMemoryLoginAttemptStore());
+        ReflectionTestUtils.setField(loginThrottleService, "windowSeconds", 300L);
+        ReflectionTestUtils.setField(loginThrottleService, "maxPerClient", MAX_PER_CLIENT);
+        ReflectionTestUtils.setField(loginThrottleService, "maxPerPrefix", MAX_PER_PREFIX);
+        ReflectionTestUtils.setField(loginThrottleService, "prefixLength", 3);
+
+        LoginController controller = new LoginController();
+        ReflectionTestUtils.setField(controller, "userLoginService", userLoginService);
+        ReflectionTestUtils.setField(controller, "jwtUtil", mock(JwtUtil.class));
+        ReflectionTestUtils.setField(controller, "loginThrottleService", loginThrottleService);
+        return controller;
+    }
+
+    // Sends the guesses from several threads and returns the code lookups MongoDB received
+    private long attack(int guesses, IntFunction<String> clientAddress, IntFunction<String> code) throws Exception {
+        LoginController controller = controller();
+        lookups.finds.set(0);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<String>> results = new ArrayList<>(guesses);
+            for (int i = 0; i < guesses; i++) {
+                int guess = i;
+                results.add(executor.submit(() -> {
+                    MockHttpServletRequest request = new MockHttpServletRequest();
+                    request.setRemoteAddr(clientAddress.apply(guess));
+                    return controller.validateLogin(code.apply(guess), new ExtendedModelMap(), request, new MockHttpServletResponse());
+                }));
+            }
+            for (Future<String> result : results) {
+                assertEquals("login", result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return lookups.finds.get();
+    }
+
+    @Test
+    public void testLookupsStayFlatWhenFewClientsGuessMore() throws Exception {
+        // 50 clients spreading their guesses over the whole code space, away from the seeded codes
+        IntFunction<String> client = guess -> "198.51.100." + (guess % 50);
+        IntFunction<String> code = guess -> String.valueOf(100000 + (guess * 7919L) % 390000);
+
+        long small = attack(2_000, client, code);
+        long large = attack(20_000, client, code);
+
+        logger.info("Guesses from 50 clients: {} lookups for 2000 guesses, {} lookups for 20000 guesses", small, large);
+        assertEquals(50 * MAX_PER_CLIENT, small);
+        assertEquals(small, large);
+    }
+
+    @Test
+    public void testLookupsStayFlatWhenManyClientsGuessOnePrefix() throws Exception {
+        // Every guess from a new address, all in the codes starting with 123
+        IntFunction<String> client = guess -> "10." + (guess >> 16 & 255) + "." + (guess >> 8 & 255) + "." + (guess & 255);
+        IntFunction<String> code = guess -> String.valueOf(123000 + guess % 1000);
+
+        long small = attack(1_000, client, code);
+        long large = attack(10_000, client, code);
+
+        logger.info("Guesses on one prefix from new clients: {} lookups for 1000 guesses, {} lookups for 10000 guesses",
+                small, large);
+        assertEquals(MAX_PER_PREFIX, small);
+        assertEquals(small, large);
+    }
+
+    @Test
+    public void testLoginCodeLookupUsesUniqueIndex() {
+        List<IndexInfo> indexes = mongoTemplate.indexOps(UserLogin.class).getIndexInfo();
+        assertTrue(indexes.stream().anyMatch(index -> "loginCode_unique".equals(index.getName()) && index.isUnique()));
+    }
+}
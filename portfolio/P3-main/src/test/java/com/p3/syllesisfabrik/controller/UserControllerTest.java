@@ -0,0 +1,62 @@
+package com.p3.syllesisfabrik.controller;
+
+import com.p3.syllesisfabrik.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.ui.Model;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class UserControllerTest {
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private Model model;
+
+    @InjectMocks
+    private UserController userController;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testShowUserHome_ValidToken() {
+        // Arrange
+        String token = "validToken";
+        String companyName = "ValidCompany";
+
+        when(jwtUtil.extractUsername(token)).thenReturn(companyName);
+        when(jwtUtil.validateToken(token, companyName)).thenReturn(true);
+
+        // Act
+        String viewName = userController.showUserHome(token, model);
+
+        // Assert
+        assertEquals("user_home", viewName);
+        verify(model, times(1)).addAttribute("companyName", companyName);
+    }
+
+    @Test
+    public void testShowUserHome_InvalidToken() {
+        // Arrange
+        String token = "invalidToken";
+        String companyName = "InvalidCompany";
+
+        when(jwtUtil.extractUsername(token)).thenReturn(companyName);
+        when(jwtUtil.validateToken(token, companyName)).thenReturn(false);
+
+        // Act
+        String viewName = userController.showUserHome(token, model);
+
+        // Assert
+        assertEquals("login", viewName);
+        verify(model, times(1)).addAttribute("error", "Invalid or expired token.");
+    }
+}
@@ -0,0 +1,118 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.UserLogin;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the admin table queries against a real MongoDB, since paging, sorting and the batched
+ * company and flavour lookups all happen in the database.
+ */
+public class AdminTableServiceTest extends MongoServiceTestBase {
+
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2026, 3, 2, 10, 0);
+
+    private AdminTableService adminTableService;
+
+    @BeforeEach
+    public void setup() {
+        OrderService orderService = orderService();
+
+        adminTableService = new AdminTableService();
+        ReflectionTestUtils.setField(adminTableService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(adminTableService, "orderService", orderService);
+    }
+
+    // A company that has logged in, so its document holds a token that must never be read back
+    private UserLogin loggedIn(String name) {
+        UserLogin company = company(name);
+        company.setToken("secret-jwt");
+        return mongoTemplate.save(company);
+    }
+
+    // Saves a pending order with one line of the flavour
+    private Order pending(UserLogin company, MenuItem menuItem, LocalDateTime orderDate, int litres) {
+        CartItem line = new CartItem(menuItem, null, litres, litres * menuItem.getPricePerLiter());
+        return mongoTemplate.save(new Order(company, List.of(line), line.getTotalCost(), orderDate,
+                false, true, false, false, null, null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> row(AdminTableService.TablePage page, int index) {
+        return (Map<String, Object>) page.getItems().get(index).get("row");
+    }
+
+    @Test
+    public void testOrdersArePagedAndResolvedInBatches() {
+        UserLogin alpha = loggedIn("Alpha");
+        UserLogin beta = loggedIn("Beta");
+        MenuItem vanilla = mongoTemplate.save(new MenuItem("Vanilla, 5L", "Test flavour", List.of(), 100, true, 50.0, List.of()));
+        for (int day = 0; day < 5; day++) {
+            pending(day % 2 == 0 ? alpha : beta, vanilla, MONDAY.plusDays(day), day + 1);
+        }
+
+        AdminTableService.TablePage page = adminTableService.findOrders("current", null, null, null, "orderDate", true, 1, 2);
+
+        assertEquals(5, page.getTotal());
+        assertEquals(3, page.getPages());
+        assertEquals(2, page.getItems().size());
+        // Newest first: the second page holds the third and second order
+        assertEquals(MONDAY.plusDays(2).toLocalDate().toString(), ((String) row(page, 0).get("orderDate")).substring(0, 10));
+        assertEquals("Alpha", row(page, 0).get("companyName"));
+        assertEquals("Beta", row(page, 1).get("companyName"));
+        assertEquals("current", row(page, 0).get("section"));
+        List<?> items = (List<?>) row(page, 0).get("items");
+        assertEquals("Vanilla, 5L", ((Map<?, ?>) items.get(0)).get("title"));
+    }
+
+    @Test
+    public void testOrdersAreFilteredByCompanyAndDay() {
+        UserLogin alpha = loggedIn("Alpha");
+        UserLogin beta = loggedIn("Beta");
+        MenuItem vanilla = mongoTemplate.save(new MenuItem("Vanilla, 5L", "Test flavour", List.of(), 100, true, 50.0, List.of()));
+        pending(alpha, vanilla, MONDAY, 1);
+        pending(alpha, vanilla, MONDAY.plusDays(3), 1);
+        pending(beta, vanilla, MONDAY, 1);
+
+        assertEquals(2, adminTableService.findOrders("current", "alp", null, null, "orderDate", false, 0, 25).getTotal());
+        LocalDate monday = MONDAY.toLocalDate();
+        assertEquals(2, adminTableService.findOrders("current", null, monday, monday, "orderDate", false, 0, 25).getTotal());
+        assertEquals(1, adminTableService.findOrders("current", "alpha", monday, monday, "orderDate", false, 0, 25).getTotal());
+        assertEquals(0, adminTableService.findOrders("readyToShip", null, null, null, "orderDate", false, 0, 25).getTotal());
+    }
+
+    @Test
+    public void testCompaniesLeaveOutTheAdminAndTokens() {
+        loggedIn("Beta");
+        loggedIn("Alpha");
+        UserLogin admin = new UserLogin("00000000", "Syllesis Fabrik", "admin@syllesisfabrik.com", "123456", "special",
+                "12345678", "Street", "1", "9000", "Aalborg");
+        mongoTemplate.save(admin);
+
+        AdminTableService.TablePage page = adminTableService.findCompanies(null, "companyName", false, 0, 25);
+
+        assertEquals(2, page.getTotal());
+        assertEquals("Alpha", row(page, 0).get("companyName"));
+        assertFalse(row(page, 0).containsKey("jwtToken"));
+        assertEquals("Street 1, 9000 Aalborg", row(page, 0).get("address"));
+    }
+
+    @Test
+    public void testUnknownSortIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> adminTableService.findMenuItems(null, null, "pendingReservations", false, 0, 25));
+        assertThrows(IllegalArgumentException.class,
+                () -> adminTableService.findOrders("archived", null, null, null, "orderDate", false, 0, 25));
+    }
+}
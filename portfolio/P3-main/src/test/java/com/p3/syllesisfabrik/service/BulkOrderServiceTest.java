@@ -0,0 +1,168 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.ProductionPlanEntry;
+import com.p3.syllesisfabrik.model.UserLogin;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.env.Environment;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs bulk approval, shipping and invoicing against a real MongoDB, since claiming the orders
+ * and taking the stock rely on the database's conditional updates.
+ */
+public class BulkOrderServiceTest extends MongoServiceTestBase {
+
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2026, 3, 2, 10, 0);
+
+    private ProductionPlanService productionPlanService;
+    private NotificationService notificationService;
+    private BulkOrderService bulkOrderService;
+
+    @BeforeEach
+    public void setup() {
+        OrderService orderService = orderService();
+        StockReservationService stockReservationService = stockReservationService(menuItemService());
+        productionPlanService = productionPlanService();
+
+        EmailService emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "env", mock(Environment.class));
+        notificationService = mock(NotificationService.class);
+
+        bulkOrderService = new BulkOrderService();
+        ReflectionTestUtils.setField(bulkOrderService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(bulkOrderService, "orderService", orderService);
+        ReflectionTestUtils.setField(bulkOrderService, "stockReservationService", stockReservationService);
+        ReflectionTestUtils.setField(bulkOrderService, "productionPlanService", productionPlanService);
+        ReflectionTestUtils.setField(bulkOrderService, "emailService", emailService);
+        ReflectionTestUtils.setField(bulkOrderService, "notificationService", notificationService);
+    }
+
+    // A pending order placed before checkout reserved stock
+    private Order pending(UserLogin company, MenuItem menuItem, int litres, LocalDateTime orderDate) {
+        CartItem line = new CartItem(menuItem, company, litres, litres * menuItem.getPricePerLiter());
+        return mongoTemplate.save(new Order(company, List.of(line), line.getTotalCost(), orderDate,
+                false, true, false, false, null, null));
+    }
+
+    private Order approved(UserLogin company, MenuItem menuItem, int litres, LocalDate expectedDelivery) {
+        CartItem line = new CartItem(menuItem, company, litres, litres * menuItem.getPricePerLiter());
+        return mongoTemplate.save(new Order(company, List.of(line), line.getTotalCost(), MONDAY,
+                true, false, false, false, expectedDelivery, null));
+    }
+
+    private Order reload(Order order) {
+        return mongoTemplate.findById(order.getId(), Order.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<SimpleMailMessage> queuedEmails() {
+        ArgumentCaptor<List<SimpleMailMessage>> emails = ArgumentCaptor.forClass(List.class);
+        verify(notificationService, times(1)).queue(emails.capture());
+        return emails.getValue();
+    }
+
+    @Test
+    public void testApproveTakesStockOldestFirstAndReportsEveryOrder() {
+        UserLogin alpha = company("Alpha");
+        MenuItem vanilla = menuItem("Vanilla, 5L", 10);
+        Order first = pending(alpha, vanilla, 4, MONDAY);
+        Order second = pending(alpha, vanilla, 4, MONDAY.plusHours(1));
+        Order third = pending(alpha, vanilla, 4, MONDAY.plusHours(2));
+        Order done = approved(alpha, vanilla, 1, LocalDate.now());
+        String unknown = new ObjectId().toHexString();
+        LocalDate delivery = LocalDate.now().plusDays(3);
+
+        BulkOrderService.BulkResult result = bulkOrderService.approve(
+                List.of(third.getId(), first.getId(), second.getId(), done.getId(), unknown), delivery);
+
+        assertEquals(2, result.getSucceeded());
+        assertEquals(3, result.getFailed());
+        List<BulkOrderService.Outcome> outcomes = result.getOutcomes();
+        assertEquals(third.getId(), outcomes.get(0).getOrderId(), "Outcomes follow the requested order");
+        assertEquals("Not enough stock available for Vanilla, 5L", outcomes.get(0).getMessage());
+        assertTrue(outcomes.get(1).isSuccess());
+        assertTrue(outcomes.get(2).isSuccess());
+        assertEquals("Order has already been processed.", outcomes.get(3).getMessage());
+        assertEquals("Order not found.", outcomes.get(4).getMessage());
+
+        MenuItem stock = mongoTemplate.findById(vanilla.getId(), MenuItem.class);
+        assertEquals(2, stock.getQuantity());
+        assertTrue(stock.getPendingReservations().isEmpty());
+
+        Order approvedFirst = reload(first);
+        assertTrue(approvedFirst.isApproved());
+        assertFalse(approvedFirst.isProcessing());
+        assertTrue(approvedFirst.isStockReserved());
+        assertEquals(delivery, approvedFirst.getExpectedDelivery());
+        Order reopened = reload(third);
+        assertTrue(reopened.isProcessing());
+        assertFalse(reopened.isApproved());
+
+        Document raw = mongoTemplate.findById(first.getId(), Document.class, mongoTemplate.getCollectionName(Order.class));
+        assertFalse(raw.containsKey("bulkBatch"));
+
+        ProductionPlanEntry entry = mongoTemplate.findById(ProductionPlanEntry.keyOf(delivery, vanilla.getId()), ProductionPlanEntry.class);
+        assertEquals(8, entry.getLitres());
+        assertEquals(2, entry.getOrders());
+
+        List<SimpleMailMessage> emails = queuedEmails();
+        assertEquals(2, emails.size());
+        assertEquals("alpha@example.com", emails.get(0).getTo()[0]);
+    }
+
+    @Test
+    public void testShipAndInvoiceOnlyTouchEligibleOrders() {
+        UserLogin alpha = company("Alpha");
+        MenuItem vanilla = menuItem("Vanilla, 5L", 100);
+        LocalDate delivery = LocalDate.now().plusDays(1);
+        Order first = approved(alpha, vanilla, 5, delivery);
+        Order second = approved(alpha, vanilla, 3, delivery);
+        Order waiting = pending(alpha, vanilla, 2, MONDAY);
+        productionPlanService.rebuild();
+
+        BulkOrderService.BulkResult shipped = bulkOrderService.ship(List.of(first.getId(), second.getId(), waiting.getId()));
+
+        assertEquals(2, shipped.getSucceeded());
+        assertEquals("Order is not ready to be shipped.", shipped.getOutcomes().get(2).getMessage());
+        assertTrue(reload(first).isShipped());
+        assertNotNull(reload(second).getDeliveredAt());
+        assertFalse(reload(waiting).isShipped());
+        assertTrue(mongoTemplate.findAll(ProductionPlanEntry.class).isEmpty());
+        assertEquals(2, queuedEmails().size());
+
+        BulkOrderService.BulkResult invoiced = bulkOrderService.invoice(List.of(first.getId(), waiting.getId()));
+
+        assertEquals(1, invoiced.getSucceeded());
+        assertTrue(reload(first).isInvoiced());
+        assertFalse(reload(second).isInvoiced());
+        assertEquals("Order is not ready to be invoiced.", invoiced.getOutcomes().get(1).getMessage());
+
+        // Shipping the same orders again changes nothing
+        assertEquals(0, bulkOrderService.ship(List.of(first.getId(), second.getId())).getSucceeded());
+    }
+
+    @Test
+    public void testTooManyOrdersAreRejected() {
+        List<String> ids = IntStream.rangeClosed(0, BulkOrderService.MAX_ORDERS)
+                .mapToObj(i -> new ObjectId().toHexString()).toList();
+        assertThrows(IllegalArgumentException.class, () -> bulkOrderService.ship(ids));
+        assertThrows(IllegalArgumentException.class, () -> bulkOrderService.approve(List.of(new ObjectId().toHexString()),
+                LocalDate.now().minusDays(1)));
+    }
+}
@@ -0,0 +1,155 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.UserLogin;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks how the outcomes of a bulk operation are put together, without a database.
+ * BulkOrderServiceTest covers the claims and writes against MongoDB.
+ */
+public class BulkOrderServiceUnitTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+    @Mock
+    private OrderService orderService;
+    @Mock
+    private StockReservationService stockReservationService;
+    @Mock
+    private ProductionPlanService productionPlanService;
+    @Mock
+    private EmailService emailService;
+    @Mock
+    private NotificationService notificationService;
+
+    @InjectMocks
+    private BulkOrderService bulkOrderService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(mongoTemplate.getCollectionName(Order.class)).thenReturn("orders");
+    }
+
+    private static List<Document> ids(String... ids) {
+        List<Document> documents = new ArrayList<>();
+        for (String id : ids) {
+            documents.add(new Document("_id", id));
+        }
+        return documents;
+    }
+
+    // The orders claimed by the batch are read by the batch stamp, the rest by their IDs
+    private void stubInvoiced(List<Document> claimed, List<Document> existing) {
+        when(mongoTemplate.find(argThat((Query query) -> query != null && query.getQueryObject().containsKey("bulkBatch")),
+                eq(Document.class), eq("orders"))).thenReturn(claimed);
+        when(mongoTemplate.find(argThat((Query query) -> query != null && query.getQueryObject().containsKey("_id")),
+                eq(Document.class), eq("orders"))).thenReturn(existing);
+    }
+
+    private static Order order(String id, UserLogin company) {
+        Order order = new Order(company, List.of(), 250.0, null, true, false, true, false, LocalDate.now(), null);
+        order.setId(id);
+        return order;
+    }
+
+    @Test
+    public void testInvoiceOutcomesFollowTheRequestedOrder() {
+        stubInvoiced(ids("b"), ids("c"));
+
+        BulkOrderService.BulkResult result = bulkOrderService.invoice(List.of("a", "b", "c", "b"));
+
+        List<BulkOrderService.Outcome> outcomes = result.getOutcomes();
+        assertEquals(List.of("a", "b", "c"), outcomes.stream().map(BulkOrderService.Outcome::getOrderId).toList());
+        assertEquals("Order not found.", outcomes.get(0).getMessage());
+        assertEquals("Order marked invoiced.", outcomes.get(1).getMessage());
+        assertTrue(outcomes.get(1).isSuccess());
+        assertEquals("Order is not ready to be invoiced.", outcomes.get(2).getMessage());
+        assertEquals(1, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+    }
+
+    @Test
+    public void testInvoiceLooksUpNothingWhenEveryOrderWentThrough() {
+        stubInvoiced(ids("a", "b"), List.of());
+
+        BulkOrderService.BulkResult result = bulkOrderService.invoice(List.of("a", "b"));
+
+        assertEquals(2, result.getSucceeded());
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Document.class), eq("orders"));
+    }
+
+    @Test
+    public void testShippedOrderWithoutAnEmailStillSucceeds() {
+        UserLogin company = new UserLogin("12345678", "Kiosk", "kiosk@example.com", "123456", "normal",
+                "12345678", "Street", "1", "9000", "Aalborg");
+        SimpleMailMessage email = new SimpleMailMessage();
+        when(orderService.findList(any(Query.class))).thenReturn(List.of(order("a", company), order("b", null)));
+        when(emailService.createShippedOrderEmail(eq("kiosk@example.com"), any(), anyDouble(), eq("Kiosk"))).thenReturn(email);
+
+        BulkOrderService.BulkResult result = bulkOrderService.ship(List.of("a", "b"));
+
+        assertEquals(2, result.getSucceeded());
+        assertEquals("Order shipped. Email notification queued.", result.getOutcomes().get(0).getMessage());
+        assertEquals("Order shipped, but the email notification could not be sent.", result.getOutcomes().get(1).getMessage());
+        verify(notificationService).queue(List.of(email));
+    }
+
+    @Test
+    public void testShippedOrdersAreReportedWhenQueueingFails() {
+        UserLogin company = new UserLogin("12345678", "Kiosk", "kiosk@example.com", "123456", "normal",
+                "12345678", "Street", "1", "9000", "Aalborg");
+        when(orderService.findList(any(Query.class))).thenReturn(List.of(order("a", company)));
+        when(emailService.createShippedOrderEmail(any(), any(), anyDouble(), any())).thenReturn(new SimpleMailMessage());
+        doThrow(new IllegalStateException("Timed out")).when(notificationService).queue(any());
+
+        BulkOrderService.BulkResult result = bulkOrderService.ship(List.of("a"));
+
+        assertTrue(result.getOutcomes().get(0).isSuccess());
+        assertEquals("Order shipped, but the email notification could not be sent.", result.getOutcomes().get(0).getMessage());
+    }
+
+    @Test
+    public void testPastDeliveryDateIsRejectedBeforeAnyWrite() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> bulkOrderService.approve(List.of("a"), LocalDate.now().minusDays(1)));
+
+        assertEquals("Expected delivery date cannot be before today.", e.getMessage());
+        verifyNoInteractions(mongoTemplate, orderService, stockReservationService);
+    }
+
+    @Test
+    public void testSelectionMustHoldOneToMaxOrders() {
+        assertThrows(IllegalArgumentException.class, () -> bulkOrderService.invoice(List.of()));
+
+        List<String> tooMany = new ArrayList<>();
+        for (int i = 0; i <= BulkOrderService.MAX_ORDERS; i++) {
+            tooMany.add("order-" + i);
+        }
+        assertThrows(IllegalArgumentException.class, () -> bulkOrderService.ship(tooMany));
+
+        // Duplicates count once
+        stubInvoiced(List.of(), List.of());
+        List<String> repeated = new ArrayList<>(Collections.nCopies(BulkOrderService.MAX_ORDERS + 1, "a"));
+        assertEquals(1, bulkOrderService.invoice(repeated).getOutcomes().size());
+        verifyNoInteractions(orderService);
+    }
+}
@@ -0,0 +1,158 @@
+package com.p3.syllesisfabrik.service;
+
+import com.mongodb.DBRef;
+import com.p3.syllesisfabrik.model.Cart;
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.UserLogin;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the cart against a real MongoDB, since every cart operation is a single atomic update
+ * on the company's cart document.
+ */
+public class CartItemServiceTest extends MongoServiceTestBase {
+
+    private CartItemService cartItemService;
+    private UserLogin company;
+
+    @BeforeEach
+    public void setup() {
+        cartItemService = cartItemService();
+        company = company("Kiosk");
+    }
+
+    private MenuItem menuItem(String title, int quantity, double price) {
+        return mongoTemplate.save(new MenuItem(title, "Test flavour", List.of(), quantity, true, price, List.of()));
+    }
+
+    @Test
+    public void testRepeatedAddsMergeIntoOneLine() {
+        MenuItem vanilla = menuItem("Vanilla, 5L", 10, 50.0);
+        MenuItem mint = menuItem("Mint, 5L", 10, 40.0);
+
+        cartItemService.addToCart(company, vanilla, 2);
+        CartItem line = cartItemService.addToCart(company, vanilla, 3);
+        cartItemService.addToCart(company, mint, 1);
+
+        assertEquals(5, line.getDesiredQuantity());
+        assertEquals(250.0, line.getTotalCost(), 0.001);
+        List<CartItem> cart = cartItemService.findCartLines(company);
+        assertEquals(2, cart.size());
+        assertEquals("Vanilla, 5L", cart.get(0).getMenuItem().getTitle());
+        assertEquals(1, mongoTemplate.findAll(Cart.class).size());
+    }
+
+    @Test
+    public void testAddBeyondStockLeavesLineUnchanged() {
+        MenuItem vanilla = menuItem("Vanilla, 5L", 10, 50.0);
+        cartItemService.addToCart(company, vanilla, 8);
+
+        assertThrows(CartItemService.StockLimitExceededException.class, () -> cartItemService.addToCart(company, vanilla, 3));
+
+        List<CartItem> cart = cartItemService.findCartLines(company);
+        assertEquals(1, cart.size());
+        assertEquals(8, cart.get(0).getDesiredQuantity());
+    }
+
+    @Test
+    public void testRemoveAndTakeLines() {
+        MenuItem vanilla = menuItem("Vanilla, 5L", 10, 50.0);
+        MenuItem mint = menuItem("Mint, 5L", 10, 40.0);
+        cartItemService.addToCart(company, vanilla, 2);
+        cartItemService.addToCart(company, mint, 1);
+
+        cartItemService.removeFromCart(company, vanilla.getId());
+        List<CartItem> taken = cartItemService.takeLines(company.getId());
+
+        assertEquals(List.of(mint.getId()), taken.stream().map(CartItem::getMenuItemId).toList());
+        assertTrue(cartItemService.findCartLines(company).isEmpty());
+        assertTrue(cartItemService.takeLines(company.getId()).isEmpty());
+    }
+
+    @Test
+    public void testConcurrentAddsNeverExceedStock() throws Exception {
+        MenuItem vanilla = menuItem("Vanilla, 5L", 10, 50.0);
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Callable<Boolean> add = () -> {
+                start.await();
+                try {
+                    cartItemService.addToCart(company, vanilla, 2);
+                    return true;
+                } catch (CartItemService.StockLimitExceededException e) {
+                    return false;
+                }
+            };
+            results.add(executor.submit(add));
+        }
+        start.countDown();
+        int succeeded = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                succeeded++;
+            }
+        }
+        executor.shutdown();
+
+        List<CartItem> cart = cartItemService.findCartLines(company);
+        assertEquals(1, cart.size());
+        assertEquals(succeeded * 2, cart.get(0).getDesiredQuantity());
+        assertTrue(cart.get(0).getDesiredQuantity() <= 10);
+    }
+
+    @Test
+    public void testLegacyCartItemsAreMigrated() {
+        MenuItem vanilla = menuItem("Vanilla, 5L", 10, 50.0);
+        MenuItem mint = menuItem("Mint, 5L", 10, 40.0);
+        DBRef companyRef = new DBRef("userLogins", new ObjectId(company.getId()));
+        DBRef vanillaRef = new DBRef("menuItems", new ObjectId(vanilla.getId()));
+        DBRef mintRef = new DBRef("menuItems", new ObjectId(mint.getId()));
+
+        // Stored the way older versions did: one document per line, referenced from the order
+        ObjectId orderedLine = new ObjectId();
+        mongoTemplate.insert(List.of(
+                new Document("_id", orderedLine).append("menuItem", mintRef).append("company", companyRef)
+                        .append("desiredQuantity", 4).append("totalCost", 160.0).append("ordered", true),
+                new Document("menuItem", vanillaRef).append("company", companyRef)
+                        .append("desiredQuantity", 1).append("totalCost", 50.0).append("ordered", false),
+                new Document("menuItem", vanillaRef).append("company", companyRef)
+                        .append("desiredQuantity", 2).append("totalCost", 100.0).append("ordered", false)),
+                CartItemService.LEGACY_COLLECTION);
+        ObjectId orderId = new ObjectId();
+        mongoTemplate.insert(new Document("_id", orderId).append("company", companyRef)
+                .append("cartItems", List.of(new DBRef(CartItemService.LEGACY_COLLECTION, orderedLine)))
+                .append("totalPrice", 160.0), "orders");
+
+        cartItemService.migrateCartItems();
+
+        Order order = mongoTemplate.findById(orderId.toHexString(), Order.class);
+        assertEquals(1, order.getCartItems().size());
+        assertEquals("Mint, 5L", order.getCartItems().get(0).getMenuItem().getTitle());
+        assertEquals(mint.getId(), order.getCartItems().get(0).getMenuItemId());
+
+        List<CartItem> cart = cartItemService.findCartLines(company);
+        assertEquals(1, cart.size());
+        assertEquals(3, cart.get(0).getDesiredQuantity());
+        assertEquals(150.0, cart.get(0).getTotalCost(), 0.001);
+        assertFalse(mongoTemplate.collectionExists(CartItemService.LEGACY_COLLECTION));
+    }
+}
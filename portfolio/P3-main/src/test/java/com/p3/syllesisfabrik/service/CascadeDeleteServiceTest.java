@@ -0,0 +1,190 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.ArchivedOrder;
+import com.p3.syllesisfabrik.model.Cart;
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.MonthlySales;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.ProductionPlanEntry;
+import com.p3.syllesisfabrik.model.UserLogin;
+import com.p3.syllesisfabrik.repository.UserLoginRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the cascade deletes against a real MongoDB replica set, since they query embedded lines
+ * and DBRef ids directly and run inside a transaction.
+ */
+public class CascadeDeleteServiceTest extends MongoServiceTestBase {
+
+    private MenuItemService menuItemService;
+    private StockReservationService stockReservationService;
+    private CartItemService cartItemService;
+    private CascadeDeleteService cascadeDeleteService;
+
+    @BeforeEach
+    public void setup() {
+        createCollections(MenuItem.class, Cart.class, Order.class, UserLogin.class, ProductionPlanEntry.class,
+                ArchivedOrder.class, MonthlySales.class);
+
+        menuItemService = menuItemService();
+        stockReservationService = stockReservationService(menuItemService);
+        cartItemService = cartItemService();
+        TransactionRunner transactionRunner = transactionRunner();
+        ProductionPlanService productionPlanService = productionPlanService();
+
+        SalesSummaryService salesSummaryService = new SalesSummaryService();
+        ReflectionTestUtils.setField(salesSummaryService, "mongoTemplate", mongoTemplate);
+
+        OrderArchiveService orderArchiveService = new OrderArchiveService();
+        ReflectionTestUtils.setField(orderArchiveService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(orderArchiveService, "salesSummaryService", salesSummaryService);
+
+        cascadeDeleteService = new CascadeDeleteService();
+        ReflectionTestUtils.setField(cascadeDeleteService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(cascadeDeleteService, "transactionRunner", transactionRunner);
+        ReflectionTestUtils.setField(cascadeDeleteService, "stockReservationService", stockReservationService);
+        ReflectionTestUtils.setField(cascadeDeleteService, "menuItemService", menuItemService);
+        ReflectionTestUtils.setField(cascadeDeleteService, "productionPlanService", productionPlanService);
+        ReflectionTestUtils.setField(cascadeDeleteService, "orderArchiveService", orderArchiveService);
+        cascadeDeleteService.ensureIndexes();
+    }
+
+    private CartItem line(MenuItem menuItem) {
+        CartItem cartItem = new CartItem(menuItem, null, 2, 100.0);
+        cartItem.setOrdered(true);
+        return cartItem;
+    }
+
+    private Order order(UserLogin company, CartItem... lines) {
+        Order order = new Order(company, List.of(lines), 100.0 * lines.length, LocalDateTime.now(),
+                false, true, false, false, null, null);
+        return mongoTemplate.save(order);
+    }
+
+    @Test
+    public void testArchivingMenuItemKeepsOrderHistory() {
+        UserLogin company = company("Kiosk");
+        MenuItem vanilla = menuItem("Vanilla, 5L", 10);
+        MenuItem mint = menuItem("Mint, 5L", 10);
+        Order order = order(company, line(vanilla));
+        cartItemService.addToCart(company, vanilla, 1);
+        cartItemService.addToCart(company, mint, 1);
+
+        CascadeDeleteService.CascadeResult result = cascadeDeleteService.deleteMenuItem(vanilla.getId(), false);
+
+        assertEquals(1, result.getCartItemsDeleted());
+        assertEquals(0, result.getOrdersDeleted());
+        assertTrue(mongoTemplate.findById(vanilla.getId(), MenuItem.class).isArchived());
+        assertEquals("Vanilla, 5L", mongoTemplate.findById(order.getId(), Order.class).getCartItems().get(0).getMenuItem().getTitle());
+        assertEquals(List.of(mint.getId()), cartItemService.findCartLines(company).stream().map(CartItem::getMenuItemId).toList());
+        assertEquals(List.of("Mint, 5L"), menuItemService.findAll().stream().map(MenuItem::getTitle).toList(),
+                "Archived flavours are not on the menu");
+    }
+
+    @Test
+    public void testPurgingMenuItemDeletesOnlyOrdersContainingIt() {
+        UserLogin company = company("Kiosk");
+        MenuItem vanilla = menuItem("Vanilla, 5L", 10);
+        MenuItem mint = menuItem("Mint, 5L", 10);
+        Order mixed = order(company, line(vanilla), line(mint));
+        Order mintOnly = order(company, line(mint));
+
+        CascadeDeleteService.CascadeResult result = cascadeDeleteService.deleteMenuItem(vanilla.getId(), true);
+
+        assertEquals(1, result.getOrdersDeleted());
+        assertNull(mongoTemplate.findById(vanilla.getId(), MenuItem.class));
+        assertNull(mongoTemplate.findById(mixed.getId(), Order.class));
+        assertNotNull(mongoTemplate.findById(mintOnly.getId(), Order.class));
+        assertNotNull(mongoTemplate.findById(mint.getId(), MenuItem.class));
+    }
+
+    @Test
+    public void testPurgingReleasesReservedStock() {
+        UserLogin company = company("Kiosk");
+        MenuItem vanilla = menuItem("Vanilla, 5L", 10);
+        MenuItem mint = menuItem("Mint, 5L", 10);
+        Order order = order(company, line(vanilla), line(mint));
+        stockReservationService.reserve(order.getId(), order.getCartItems());
+        order.setStockReserved(true);
+        mongoTemplate.save(order);
+
+        cascadeDeleteService.deleteMenuItem(vanilla.getId(), true);
+
+        assertEquals(10, mongoTemplate.findById(mint.getId(), MenuItem.class).getQuantity());
+    }
+
+    @Test
+    public void testArchivingCompanyRevokesLoginAndKeepsOrders() {
+        UserLogin kiosk = company("Kiosk");
+        UserLogin cafe = company("Cafe");
+        MenuItem vanilla = menuItem("Vanilla, 5L", 10);
+        Order order = order(kiosk, line(vanilla));
+        cartItemService.addToCart(kiosk, vanilla, 1);
+        cartItemService.addToCart(cafe, vanilla, 1);
+
+        CascadeDeleteService.CascadeResult result = cascadeDeleteService.deleteCompany(kiosk, false);
+
+        assertEquals(1, result.getCartItemsDeleted());
+        UserLogin archived = mongoTemplate.findById(kiosk.getId(), UserLogin.class);
+        assertTrue(archived.isArchived());
+        assertNull(archived.getLoginCode());
+        assertNotNull(mongoTemplate.findById(order.getId(), Order.class));
+        assertTrue(cartItemService.findCartLines(kiosk).isEmpty());
+        assertEquals(1, cartItemService.findCartLines(cafe).size(), "Other companies' carts are kept");
+    }
+
+    @Test
+    public void testArchivedCompanyCanBeCreatedAgain() {
+        UserLoginService userLoginService = new UserLoginService();
+        ReflectionTestUtils.setField(userLoginService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(userLoginService, "userLoginRepository",
+                repositories.getRepository(UserLoginRepository.class));
+        userLoginService.ensureUniqueIndexes();
+        UserLogin kiosk = new UserLogin("12345678", "Kiosk", "kiosk@example.com", "123456", "normal",
+                "11111111", "Vestergade", "1", "9000", "Aalborg");
+        userLoginService.saveUser(kiosk);
+        Order order = order(kiosk, line(menuItem("Vanilla, 5L", 10)));
+
+        cascadeDeleteService.deleteCompany(kiosk, false);
+        assertNull(userLoginService.findByCompanyEmail("kiosk@example.com"), "No passcode mail for an archived company");
+        assertTrue(userLoginService.findConflicts("Kiosk", "kiosk@example.com", "12345678", "11111111", null).isEmpty());
+
+        UserLogin again = new UserLogin("12345678", "Kiosk", "kiosk@example.com", "654321", "normal",
+                "11111111", "Vestergade", "1", "9000", "Aalborg");
+        userLoginService.saveUser(again);
+
+        assertEquals(again.getId(), userLoginService.findByCompanyName("Kiosk").getId());
+        assertEquals(again.getId(), userLoginService.findByCompanyEmail("kiosk@example.com").getId());
+        assertEquals("Kiosk", mongoTemplate.findById(kiosk.getId(), UserLogin.class).getCompanyName(),
+                "The archived company keeps its details for the order history");
+        assertNotNull(mongoTemplate.findById(order.getId(), Order.class));
+        assertThrows(UserLoginService.DuplicateCompanyException.class, () -> userLoginService.saveUser(
+                new UserLogin("87654321", "kiosk", "other@example.com", "111111", "normal", "22222222",
+                        "Vestergade", "2", "9000", "Aalborg")));
+    }
+
+    @Test
+    public void testPurgingCompanyDeletesItsOrdersAndCart() {
+        UserLogin kiosk = company("Kiosk");
+        UserLogin cafe = company("Cafe");
+        MenuItem vanilla = menuItem("Vanilla, 5L", 10);
+        order(kiosk, line(vanilla));
+        cartItemService.addToCart(kiosk, vanilla, 1);
+        Order cafeOrder = order(cafe, line(vanilla));
+
+        CascadeDeleteService.CascadeResult result = cascadeDeleteService.deleteCompany(kiosk, true);
+
+        assertEquals(1, result.getOrdersDeleted());
+        assertEquals(1, result.getCartItemsDeleted());
+        assertNull(mongoTemplate.findById(kiosk.getId(), UserLogin.class));
+        assertEquals(List.of(cafeOrder.getId()), mongoTemplate.findAll(Order.class).stream().map(Order::getId).toList());
+    }
+}
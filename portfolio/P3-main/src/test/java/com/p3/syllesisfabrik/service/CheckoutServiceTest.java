@@ -0,0 +1,117 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.Cart;
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.UserLogin;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs checkout against a real MongoDB replica set, since the cart, the stock and the order are
+ * written in one transaction.
+ */
+public class CheckoutServiceTest extends MongoServiceTestBase {
+
+    private CartItemService cartItemService;
+    private CheckoutService checkoutService;
+    private UserLogin company;
+
+    @BeforeEach
+    public void setup() {
+        createCollections(MenuItem.class, Cart.class, Order.class, UserLogin.class);
+
+        StockReservationService stockReservationService = stockReservationService(menuItemService());
+        cartItemService = cartItemService();
+        TransactionRunner transactionRunner = transactionRunner();
+
+        checkoutService = new CheckoutService();
+        ReflectionTestUtils.setField(checkoutService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(checkoutService, "cartItemService", cartItemService);
+        ReflectionTestUtils.setField(checkoutService, "stockReservationService", stockReservationService);
+        ReflectionTestUtils.setField(checkoutService, "transactionRunner", transactionRunner);
+
+        company = company("Kiosk");
+    }
+
+    @Test
+    public void testCheckoutMovesLinesIntoOrderAndEmptiesCart() {
+        MenuItem vanilla = menuItem("Vanilla, 5L", 10);
+        MenuItem mint = menuItem("Mint, 5L", 10);
+        cartItemService.addToCart(company, vanilla, 2);
+        cartItemService.addToCart(company, mint, 3);
+
+        Order order = checkoutService.checkout(company);
+
+        Order saved = mongoTemplate.findById(order.getId(), Order.class);
+        assertEquals(2, saved.getCartItems().size());
+        assertTrue(saved.getCartItems().stream().allMatch(CartItem::isOrdered));
+        assertEquals(250.0, saved.getTotalPrice(), 0.001);
+        assertTrue(saved.isStockReserved());
+        assertEquals(8, mongoTemplate.findById(vanilla.getId(), MenuItem.class).getQuantity());
+        assertTrue(cartItemService.findCartLines(company).isEmpty());
+    }
+
+    @Test
+    public void testEmptyCartIsRejected() {
+        assertThrows(CheckoutService.EmptyCartException.class, () -> checkoutService.checkout(company));
+        assertEquals(0, mongoTemplate.findAll(Order.class).size());
+    }
+
+    @Test
+    public void testInsufficientStockRollsBackEverything() {
+        MenuItem vanilla = menuItem("Vanilla, 5L", 10);
+        MenuItem mint = menuItem("Mint, 5L", 10);
+        cartItemService.addToCart(company, vanilla, 2);
+        cartItemService.addToCart(company, mint, 5);
+        // Stock sold elsewhere after the line was added
+        mint.setQuantity(1);
+        mongoTemplate.save(mint);
+
+        assertThrows(StockReservationService.InsufficientStockException.class, () -> checkoutService.checkout(company));
+
+        assertEquals(2, cartItemService.findCartLines(company).size());
+        assertEquals(10, mongoTemplate.findById(vanilla.getId(), MenuItem.class).getQuantity());
+        assertEquals(0, mongoTemplate.findAll(Order.class).size());
+    }
+
+    /**
+     * Checkout latency by cart size. Each checkout is one transaction: take the cart, one bulk
+     * reservation over the flavours, insert the order. Prints median and p95 per size.
+     */
+    @Test
+    public void benchmarkCheckoutLatencyByCartSize() {
+        int rounds = 20;
+        List<MenuItem> flavours = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            flavours.add(menuItem("Flavour " + i + ", 5L", 1_000_000));
+        }
+
+        for (int cartSize : new int[]{1, 5, 20, 50}) {
+            List<Long> micros = new ArrayList<>();
+            for (int round = 0; round < rounds + 3; round++) {
+                for (MenuItem flavour : flavours.subList(0, cartSize)) {
+                    cartItemService.addToCart(company, flavour, 1);
+                }
+                long start = System.nanoTime();
+                Order order = checkoutService.checkout(company);
+                long elapsed = (System.nanoTime() - start) / 1000;
+                assertEquals(cartSize, order.getCartItems().size());
+                if (round >= 3) { // The first rounds warm up the JIT and the connection pool
+                    micros.add(elapsed);
+                }
+            }
+            Collections.sort(micros);
+            System.out.printf("checkout, %2d lines: median %6d us, p95 %6d us%n",
+                    cartSize, micros.get(micros.size() / 2), micros.get((int) (micros.size() * 0.95) - 1));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.ImageJob;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.repository.ImageJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the image job workers against a real MongoDB, since placeholders are swapped with
+ * positional updates on the menu item.
+ */
+public class ImageJobServiceTest extends MongoServiceTestBase {
+
+
+    @TempDir
+    Path workDir;
+
+    private ImageUploadService imageUploadService;
+    private ImageJobService imageJobService;
+
+    @BeforeEach
+    public void setup() {
+        imageUploadService = new ImageUploadService(workDir.resolve("menu-items").toString(), new int[]{320, 640}, 640, 0.8f);
+        ImageJobRepository imageJobRepository = repositories.getRepository(ImageJobRepository.class);
+
+        imageJobService = new ImageJobService();
+        ReflectionTestUtils.setField(imageJobService, "imageJobRepository", imageJobRepository);
+        ReflectionTestUtils.setField(imageJobService, "imageUploadService", imageUploadService);
+        ReflectionTestUtils.setField(imageJobService, "menuItemService", menuItemService());
+        ReflectionTestUtils.setField(imageJobService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(imageJobService, "stagingDir", workDir.resolve("staging").toString());
+        ReflectionTestUtils.setField(imageJobService, "workers", 2);
+        ReflectionTestUtils.setField(imageJobService, "queueCapacity", 8);
+        ReflectionTestUtils.setField(imageJobService, "maxAttempts", 1);
+        ReflectionTestUtils.setField(imageJobService, "orphanGraceMinutes", 60L);
+        ReflectionTestUtils.setField(imageJobService, "jobRetentionDays", 7L);
+        imageJobService.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        imageJobService.stop();
+    }
+
+    private MockMultipartFile png(String name, int rgb) throws IOException {
+        BufferedImage image = new BufferedImage(1000, 500, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < image.getWidth(); x++) {
+            image.setRGB(x, x % image.getHeight(), rgb);
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", output);
+        return new MockMultipartFile("images", name, "image/png", output.toByteArray());
+    }
+
+    private MenuItem saveWithImages(String id, MultipartFile... images) throws IOException {
+        MenuItem menuItem = new MenuItem("Vanilla, 5L", "Test flavour", List.of(), 10, true, 50.0, null);
+        menuItem.setId(id);
+        ImageJobService.PreparedImages prepared = imageJobService.prepare(images, id);
+        menuItem.setImagePaths(prepared.getImagePaths());
+        mongoTemplate.save(menuItem);
+        imageJobService.dispatch(prepared);
+        return menuItem;
+    }
+
+    private List<String> awaitImagePaths(String menuItemId) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            List<String> imagePaths = mongoTemplate.findById(menuItemId, MenuItem.class).getImagePaths();
+            if (imagePaths.stream().noneMatch(path -> path.startsWith(ImageJobService.PLACEHOLDER_PATH))) {
+                return imagePaths;
+            }
+            Thread.sleep(100);
+        }
+        fail("Image jobs did not finish in time");
+        return null;
+    }
+
+    private void age(Path directory) throws IOException {
+        FileTime old = FileTime.from(Instant.now().minus(2, ChronoUnit.HOURS));
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.setLastModifiedTime(file, old);
+            }
+        }
+    }
+
+    @Test
+    public void testPlaceholdersAreReplacedWhenRenditionsFinish() throws Exception {
+        MenuItem menuItem = saveWithImages("item-1", png("a.png", 0xFF0000), png("b.png", 0x00FF00));
+        assertTrue(menuItem.getImagePaths().stream().allMatch(path -> path.startsWith(ImageJobService.PLACEHOLDER_PATH)));
+
+        List<String> imagePaths = awaitImagePaths("item-1");
+
+        assertEquals(2, imagePaths.size());
+        assertTrue(imagePaths.stream().allMatch(path -> path.matches("/uploads/menu-items/[0-9a-f]{64}-640\\.jpg")));
+        assertEquals(2, mongoTemplate.findAll(ImageJob.class).stream()
+                .filter(job -> job.getStatus() == ImageJob.Status.DONE).count());
+        try (Stream<Path> staged = Files.list(imageJobService.getStagingDirectory())) {
+            assertEquals(0, staged.count(), "Staged uploads should be removed after processing");
+        }
+    }
+
+    @Test
+    public void testKnownImageSkipsTheQueue() throws Exception {
+        saveWithImages("item-1", png("a.png", 0x0000FF));
+        List<String> first = awaitImagePaths("item-1");
+
+        MenuItem second = saveWithImages("item-2", png("copy.png", 0x0000FF));
+
+        assertEquals(first, second.getImagePaths());
+    }
+
+    @Test
+    public void testFailedJobRemovesPlaceholder() throws Exception {
+        saveWithImages("item-1", new MockMultipartFile("images", "notes.txt", "text/plain", "not an image".getBytes()));
+
+        assertTrue(awaitImagePaths("item-1").isEmpty());
+        assertEquals(ImageJob.Status.FAILED, mongoTemplate.findAll(ImageJob.class).get(0).getStatus());
+    }
+
+    @Test
+    public void testSweeperRemovesOnlyUnreferencedImages() throws Exception {
+        saveWithImages("item-1", png("kept.png", 0x123456));
+        saveWithImages("item-2", png("dropped.png", 0x654321));
+        awaitImagePaths("item-1");
+        awaitImagePaths("item-2");
+        String keptHash = imageUploadService.hashOfPath(mongoTemplate.findById("item-1", MenuItem.class).getImagePaths().get(0));
+
+        mongoTemplate.remove(mongoTemplate.findById("item-2", MenuItem.class));
+        age(imageUploadService.getUploadDirectory());
+
+        assertEquals(1, imageJobService.sweepOrphanedImages());
+        assertEquals(List.of(keptHash), List.copyOf(imageUploadService.findStoredImages().keySet()));
+    }
+}
@@ -0,0 +1,105 @@
+package com.p3.syllesisfabrik.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImageUploadServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private ImageUploadService imageUploadService;
+
+    @BeforeEach
+    public void setup() {
+        imageUploadService = new ImageUploadService(uploadDir.toString(), new int[]{320, 640, 1280}, 640, 0.8f);
+    }
+
+    private MockMultipartFile png(String name, int width, int height, int rgb) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, rgb + x % 7);
+            }
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", output);
+        return new MockMultipartFile("images", name, "image/png", output.toByteArray());
+    }
+
+    private List<String> storedFiles() throws IOException {
+        try (Stream<Path> files = Files.list(uploadDir)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    @Test
+    public void testUploadWritesRenditionsWithContentAddressedNames() throws IOException {
+        List<String> paths = imageUploadService.uploadImages(new MultipartFile[]{png("vanilla.png", 2000, 1000, 0xFFEEDDCC)}, "Vanilla");
+
+        assertEquals(1, paths.size());
+        assertTrue(paths.get(0).matches("/uploads/menu-items/[0-9a-f]{64}-640\\.jpg"), paths.get(0));
+
+        String hash = paths.get(0).substring("/uploads/menu-items/".length(), "/uploads/menu-items/".length() + 64);
+        for (int width : new int[]{320, 640, 1280}) {
+            BufferedImage rendition = ImageIO.read(uploadDir.resolve(hash + "-" + width + ".jpg").toFile());
+            assertEquals(width, rendition.getWidth());
+            assertEquals(width / 2, rendition.getHeight());
+        }
+        assertTrue(storedFiles().stream().noneMatch(name -> name.endsWith(".tmp")), "Temporary files must be removed");
+    }
+
+    @Test
+    public void testSameImageIsStoredOnce() throws IOException {
+        List<String> first = imageUploadService.uploadImages(new MultipartFile[]{png("a.png", 400, 300, 0xFF112233)}, "Chocolate");
+        int filesAfterFirst = storedFiles().size();
+        List<String> second = imageUploadService.uploadImages(new MultipartFile[]{png("b.png", 400, 300, 0xFF112233)}, "Chocolate");
+
+        assertEquals(first, second);
+        assertEquals(filesAfterFirst, storedFiles().size());
+    }
+
+    @Test
+    public void testSmallImageIsNotUpscaled() throws IOException {
+        List<String> paths = imageUploadService.uploadImages(new MultipartFile[]{png("tiny.png", 200, 100, 0xFF445566)}, "Tiny");
+
+        BufferedImage display = ImageIO.read(uploadDir.resolve(Path.of(paths.get(0)).getFileName().toString()).toFile());
+        assertEquals(200, display.getWidth());
+    }
+
+    @Test
+    public void testNonImageUploadIsRejected() {
+        MockMultipartFile text = new MockMultipartFile("images", "notes.txt", "text/plain", "not an image".getBytes());
+
+        assertThrows(IOException.class, () -> imageUploadService.uploadImages(new MultipartFile[]{text}, "Broken"));
+    }
+
+    @Test
+    public void testDeleteLeavesRenditionsToTheSweeper() throws IOException {
+        List<String> paths = imageUploadService.uploadImages(new MultipartFile[]{png("mint.png", 800, 400, 0xFF00AA00)}, "Mint");
+        int storedBefore = storedFiles().size();
+
+        // Renditions may be shared with other menu items, so only the sweeper removes them
+        imageUploadService.deleteImages(paths);
+        assertEquals(storedBefore, storedFiles().size());
+
+        String hash = imageUploadService.hashOfPath(paths.get(0));
+        assertTrue(imageUploadService.findStoredImages().containsKey(hash));
+        imageUploadService.deleteRenditions(hash);
+        assertTrue(storedFiles().isEmpty());
+    }
+}
@@ -0,0 +1,61 @@
+package com.p3.syllesisfabrik.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryLoginAttemptStoreTest {
+
+    private static final long WINDOW = 60_000;
+
+    private InMemoryLoginAttemptStore store;
+
+    @BeforeEach
+    public void setup() {
+        store = new InMemoryLoginAttemptStore();
+    }
+
+    @Test
+    public void testLimitIsReachedWithinTheWindow() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(store.tryAcquire("client:1", 3, WINDOW, 1_000 + i));
+        }
+        assertFalse(store.tryAcquire("client:1", 3, WINDOW, 1_010));
+        assertTrue(store.tryAcquire("client:2", 3, WINDOW, 1_010), "Other keys have their own window");
+    }
+
+    @Test
+    public void testWindowSlidesAsAttemptsExpire() {
+        assertTrue(store.tryAcquire("client:1", 2, WINDOW, 0));
+        assertTrue(store.tryAcquire("client:1", 2, WINDOW, 30_000));
+        assertFalse(store.tryAcquire("client:1", 2, WINDOW, 59_999));
+
+        // The first attempt leaves the window, the second is still in it
+        assertTrue(store.tryAcquire("client:1", 2, WINDOW, 60_000));
+        assertFalse(store.tryAcquire("client:1", 2, WINDOW, 89_999));
+        assertTrue(store.tryAcquire("client:1", 2, WINDOW, 90_000));
+    }
+
+    @Test
+    public void testTurnedAwayAttemptsDoNotExtendTheWindow() {
+        assertTrue(store.tryAcquire("client:1", 1, WINDOW, 0));
+        for (long now = 10_000; now < WINDOW; now += 10_000) {
+            assertFalse(store.tryAcquire("client:1", 1, WINDOW, now));
+        }
+        assertTrue(store.tryAcquire("client:1", 1, WINDOW, WINDOW));
+    }
+
+    @Test
+    public void testSweepDropsOnlyExpiredWindows() {
+        store.tryAcquire("client:1", 5, WINDOW, 0);
+        store.tryAcquire("client:2", 5, WINDOW, 50_000);
+        assertEquals(2, store.size());
+
+        store.sweep(70_000);
+        assertEquals(1, store.size());
+
+        store.sweep(110_000);
+        assertEquals(0, store.size());
+    }
+}
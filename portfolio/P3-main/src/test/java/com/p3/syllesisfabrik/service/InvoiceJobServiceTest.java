@@ -0,0 +1,162 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.InvoiceJob;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.UserLogin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs invoice jobs end to end against a real MongoDB: orders are picked, rendered by the
+ * worker pool into a temporary directory and bundled into a zip file.
+ */
+public class InvoiceJobServiceTest extends MongoServiceTestBase {
+
+    private InvoiceJobService invoiceJobService;
+
+    @TempDir
+    Path outputDir;
+
+    @BeforeEach
+    public void setup() {
+        OrderService orderService = orderService();
+
+        InvoicePdfRenderer renderer = new InvoicePdfRenderer();
+        ReflectionTestUtils.setField(renderer, "sellerName", "Sylles Isfabrik");
+        ReflectionTestUtils.setField(renderer, "sellerAddress", "");
+        ReflectionTestUtils.setField(renderer, "sellerCvr", "");
+        ReflectionTestUtils.setField(renderer, "sellerEmail", "");
+        ReflectionTestUtils.setField(renderer, "bankAccount", "");
+        ReflectionTestUtils.setField(renderer, "paymentDays", 14);
+        renderer.loadResources();
+
+        invoiceJobService = new InvoiceJobService();
+        ReflectionTestUtils.setField(invoiceJobService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(invoiceJobService, "orderService", orderService);
+        ReflectionTestUtils.setField(invoiceJobService, "invoicePdfRenderer", renderer);
+        ReflectionTestUtils.setField(invoiceJobService, "outputDir", outputDir.toString());
+        ReflectionTestUtils.setField(invoiceJobService, "workers", 4);
+        ReflectionTestUtils.setField(invoiceJobService, "chunkSize", 3);
+        ReflectionTestUtils.setField(invoiceJobService, "maxOrders", 50);
+        invoiceJobService.start();
+        invoiceJobService.ensureIndexes();
+    }
+
+    @AfterEach
+    public void teardown() {
+        invoiceJobService.stop();
+    }
+
+    private Order order(UserLogin company, MenuItem menuItem, boolean shipped, LocalDateTime deliveredAt) {
+        CartItem line = new CartItem(menuItem, company, 2, 2 * menuItem.getPricePerLiter());
+        return mongoTemplate.save(new Order(company, List.of(line), line.getTotalCost(), deliveredAt.minusDays(2),
+                true, false, shipped, false, deliveredAt.toLocalDate(), shipped ? deliveredAt : null));
+    }
+
+    private InvoiceJob awaitFinished(InvoiceJob job) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            InvoiceJob current = invoiceJobService.getJob(job.getId());
+            if (current.getStatus() == InvoiceJob.Status.DONE || current.getStatus() == InvoiceJob.Status.FAILED) {
+                return current;
+            }
+            Thread.sleep(100);
+        }
+        fail("Invoice job did not finish");
+        return null;
+    }
+
+    private List<String> bundle(InvoiceJob job) throws Exception {
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        invoiceJobService.writeBundle(job, zip);
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream entries = new ZipInputStream(new ByteArrayInputStream(zip.toByteArray()))) {
+            for (ZipEntry entry = entries.getNextEntry(); entry != null; entry = entries.getNextEntry()) {
+                names.add(entry.getName());
+                assertArrayEquals("%PDF".getBytes(), entries.readNBytes(4));
+            }
+        }
+        return names;
+    }
+
+    @Test
+    public void testMonthOfDeliveriesIsRenderedAndBundled() throws Exception {
+        UserLogin alpha = mongoTemplate.save(new UserLogin("12345678", "Alpha", "alpha@example.com", "123456", "normal",
+                "12345678", "Street", "1", "9000", "Aalborg"));
+        MenuItem vanilla = mongoTemplate.save(new MenuItem("Vanilla, 5L", "Test flavour", List.of(), 100, true, 50.0, List.of()));
+        List<String> march = new ArrayList<>();
+        for (int day = 1; day <= 10; day++) {
+            march.add(order(alpha, vanilla, true, LocalDateTime.of(2026, 3, day * 3, 9, 0)).getId());
+        }
+        order(alpha, vanilla, true, LocalDateTime.of(2026, 4, 1, 9, 0));
+        order(alpha, vanilla, false, LocalDateTime.of(2026, 3, 15, 9, 0));
+
+        InvoiceJob job = invoiceJobService.createForRange(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31));
+        assertEquals(10, job.getTotal());
+
+        InvoiceJob finished = awaitFinished(job);
+        assertEquals(InvoiceJob.Status.DONE, finished.getStatus());
+        assertEquals(10, finished.getRendered());
+        assertEquals(0, finished.getFailed());
+        assertNotNull(finished.getFinishedAt());
+
+        List<String> files = bundle(finished);
+        assertEquals(10, files.size());
+        assertTrue(files.contains("invoice-" + march.get(0) + ".pdf"));
+    }
+
+    @Test
+    public void testOnlyShippedOrdersAreSelected() throws Exception {
+        UserLogin alpha = mongoTemplate.save(new UserLogin("12345678", "Alpha", "alpha@example.com", "123456", "normal",
+                "12345678", "Street", "1", "9000", "Aalborg"));
+        MenuItem vanilla = mongoTemplate.save(new MenuItem("Vanilla, 5L", "Test flavour", List.of(), 100, true, 50.0, List.of()));
+        Order shipped = order(alpha, vanilla, true, LocalDateTime.of(2026, 3, 3, 9, 0));
+        Order waiting = order(alpha, vanilla, false, LocalDateTime.of(2026, 3, 5, 9, 0));
+
+        InvoiceJob job = invoiceJobService.createForOrders(List.of(shipped.getId(), waiting.getId()));
+        assertEquals(List.of(shipped.getId()), job.getOrderIds());
+        assertEquals(List.of("invoice-" + shipped.getId() + ".pdf"), bundle(awaitFinished(job)));
+
+        assertThrows(IllegalArgumentException.class, () -> invoiceJobService.createForOrders(List.of(waiting.getId())));
+        assertThrows(IllegalArgumentException.class,
+                () -> invoiceJobService.createForRange(LocalDate.of(2026, 3, 31), LocalDate.of(2026, 3, 1)));
+    }
+
+    @Test
+    public void testDeletedOrdersAreCountedAsFailures() throws Exception {
+        UserLogin alpha = mongoTemplate.save(new UserLogin("12345678", "Alpha", "alpha@example.com", "123456", "normal",
+                "12345678", "Street", "1", "9000", "Aalborg"));
+        MenuItem vanilla = mongoTemplate.save(new MenuItem("Vanilla, 5L", "Test flavour", List.of(), 100, true, 50.0, List.of()));
+        Order kept = order(alpha, vanilla, true, LocalDateTime.of(2026, 3, 3, 9, 0));
+        String deletedId = "65f0c0ffee0000000000abcd";
+
+        // A running job whose second order was deleted after the job was created
+        InvoiceJob job = new InvoiceJob(List.of(kept.getId(), deletedId), LocalDate.of(2026, 3, 31));
+        job.setStatus(InvoiceJob.Status.RUNNING);
+        job = mongoTemplate.insert(job);
+        invoiceJobService.renderChunk(job.getId(), job.getInvoiceDate(), job.getOrderIds());
+
+        InvoiceJob finished = invoiceJobService.getJob(job.getId());
+        assertEquals(InvoiceJob.Status.DONE, finished.getStatus());
+        assertEquals(1, finished.getRendered());
+        assertEquals(1, finished.getFailed());
+        assertEquals(List.of(deletedId + ": Order not found."), finished.getErrors());
+        assertNull(invoiceJobService.getJob("not-an-id"));
+    }
+}
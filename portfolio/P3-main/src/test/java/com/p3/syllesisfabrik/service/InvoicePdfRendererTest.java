@@ -0,0 +1,95 @@
+package com.p3.syllesisfabrik.service;
+
+import com.lowagie.text.PageSize;
+import com.lowagie.text.pdf.PdfDictionary;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.UserLogin;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InvoicePdfRendererTest {
+
+    private InvoicePdfRenderer renderer;
+
+    @BeforeEach
+    public void setup() {
+        renderer = new InvoicePdfRenderer();
+        ReflectionTestUtils.setField(renderer, "sellerName", "Sylles Isfabrik");
+        ReflectionTestUtils.setField(renderer, "sellerAddress", "Havnegade 1, 9000 Aalborg");
+        ReflectionTestUtils.setField(renderer, "sellerCvr", "11223344");
+        ReflectionTestUtils.setField(renderer, "sellerEmail", "shop@example.com");
+        ReflectionTestUtils.setField(renderer, "bankAccount", "1234 5678901");
+        ReflectionTestUtils.setField(renderer, "paymentDays", 14);
+        renderer.loadResources();
+    }
+
+    private Order order(int lines) {
+        UserLogin company = new UserLogin("12345678", "Is Kiosken (Nord)", "kiosk@example.com", "123456", "normal",
+                "11111111", "Vestergade", "1", "9000", "Aalborg");
+        List<CartItem> cartItems = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            MenuItem flavour = new MenuItem("Flavour " + i + ", 5L", "Test flavour", List.of(), 10, true, 50.0, List.of());
+            cartItems.add(new CartItem(flavour, company, 2, 100.0));
+        }
+        Order order = new Order(company, cartItems, lines * 100.0, LocalDateTime.of(2026, 3, 2, 10, 0),
+                true, false, true, false, LocalDate.of(2026, 3, 4), LocalDateTime.of(2026, 3, 4, 9, 0));
+        order.setId("65f0c0ffee0000000000abcd");
+        return order;
+    }
+
+    private static String text(PdfReader pdf, int page) throws Exception {
+        return new PdfTextExtractor(pdf).getTextFromPage(page);
+    }
+
+    @Test
+    public void testInvoiceIsAReadablePdf() throws Exception {
+        byte[] invoice = renderer.render(order(3), LocalDate.of(2026, 3, 31));
+
+        assertArrayEquals("%PDF".getBytes(), Arrays.copyOf(invoice, 4));
+        PdfReader pdf = new PdfReader(invoice);
+        assertEquals(1, pdf.getNumberOfPages());
+        assertEquals(PageSize.A4.getWidth(), pdf.getPageSize(1).getWidth(), 0.01);
+    }
+
+    @Test
+    public void testInvoiceShowsOrderDetails() throws Exception {
+        String page = text(new PdfReader(renderer.render(order(2), LocalDate.of(2026, 3, 31))), 1);
+
+        assertTrue(page.contains("Is Kiosken (Nord)"));
+        assertTrue(page.contains("65f0c0ffee0000000000abcd"));
+        assertTrue(page.contains("31-03-2026"), "Invoice date of an order not marked invoiced yet");
+        assertTrue(page.contains("14-04-2026"), "Due date");
+        assertTrue(page.contains("200,00"), "Total in Danish format");
+    }
+
+    @Test
+    public void testLetterheadIsSharedByEveryPage() throws Exception {
+        PdfReader pdf = new PdfReader(renderer.render(order(80), LocalDate.of(2026, 3, 31)));
+
+        assertEquals(3, pdf.getNumberOfPages(), "Long orders continue on more pages");
+        assertTrue(text(pdf, 2).contains("Item"), "Table header repeated");
+        assertTrue(text(pdf, 2).contains("Flavour 79, 5L") || text(pdf, 3).contains("Flavour 79, 5L"));
+        assertTrue(text(pdf, 3).contains("8.000,00"), "Total after the last line");
+
+        // The template is stored once and drawn by each page
+        PdfDictionary first = pdf.getPageN(1).getAsDict(PdfName.RESOURCES).getAsDict(PdfName.XOBJECT);
+        PdfDictionary last = pdf.getPageN(pdf.getNumberOfPages()).getAsDict(PdfName.RESOURCES).getAsDict(PdfName.XOBJECT);
+        assertEquals(1, first.size());
+        assertEquals(first.getAsIndirectObject(first.getKeys().iterator().next()).getNumber(),
+                last.getAsIndirectObject(last.getKeys().iterator().next()).getNumber());
+    }
+}
@@ -0,0 +1,53 @@
+package com.p3.syllesisfabrik.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.SecureRandom;
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoginCodeServiceTest {
+
+    private long[] randomKeys() {
+        SecureRandom random = new SecureRandom();
+        return new long[]{random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong()};
+    }
+
+    @Test
+    public void testFullCodeSpaceIsAllocatedWithoutDuplicates() {
+        long[] keys = randomKeys();
+        BitSet seen = new BitSet(LoginCodeService.CODE_SPACE);
+
+        for (long index = 0; index < LoginCodeService.CODE_SPACE; index++) {
+            String code = LoginCodeService.codeForIndex(index, keys);
+            assertTrue(code.matches("[1-9]\\d{5}"), code);
+
+            int offset = Integer.parseInt(code) - LoginCodeService.FIRST_CODE;
+            assertFalse(seen.get(offset), "Duplicate code " + code + " at index " + index);
+            seen.set(offset);
+        }
+
+        assertEquals(LoginCodeService.CODE_SPACE, seen.cardinality());
+    }
+
+    @Test
+    public void testCodesAreNotSequential() {
+        long[] keys = randomKeys();
+        int sequentialPairs = 0;
+        for (long index = 0; index < 1000; index++) {
+            int current = Integer.parseInt(LoginCodeService.codeForIndex(index, keys));
+            int next = Integer.parseInt(LoginCodeService.codeForIndex(index + 1, keys));
+            if (Math.abs(next - current) == 1) {
+                sequentialPairs++;
+            }
+        }
+        assertTrue(sequentialPairs < 10, "Consecutive allocations should not give neighbouring codes");
+    }
+
+    @Test
+    public void testSameKeysGiveSameCode() {
+        long[] keys = randomKeys();
+        assertEquals(LoginCodeService.codeForIndex(42, keys), LoginCodeService.codeForIndex(42, keys.clone()));
+    }
+}
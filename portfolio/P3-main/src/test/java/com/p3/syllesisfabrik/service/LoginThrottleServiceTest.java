@@ -0,0 +1,61 @@
+package com.p3.syllesisfabrik.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoginThrottleServiceTest {
+
+    private LoginThrottleService loginThrottleService;
+
+    @BeforeEach
+    public void setup() {
+        loginThrottleService = new LoginThrottleService();
+        ReflectionTestUtils.setField(loginThrottleService, "loginAttemptStore", new InMemoryLoginAttemptStore());
+        ReflectionTestUtils.setField(loginThrottleService, "windowSeconds", 300L);
+        ReflectionTestUtils.setField(loginThrottleService, "maxPerClient", 3);
+        ReflectionTestUtils.setField(loginThrottleService, "maxPerPrefix", 5);
+        ReflectionTestUtils.setField(loginThrottleService, "prefixLength", 3);
+    }
+
+    @Test
+    public void testClientIsTurnedAwayAfterItsLimit() {
+        assertTrue(loginThrottleService.tryAttempt("10.0.0.1", "111111"));
+        assertTrue(loginThrottleService.tryAttempt("10.0.0.1", "222222"));
+        assertTrue(loginThrottleService.tryAttempt("10.0.0.1", "333333"));
+        assertFalse(loginThrottleService.tryAttempt("10.0.0.1", "444444"));
+
+        assertTrue(loginThrottleService.tryAttempt("10.0.0.2", "444444"), "Other clients are not affected");
+    }
+
+    @Test
+    public void testPrefixIsLimitedAcrossClients() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(loginThrottleService.tryAttempt("10.0.0." + i, "123" + (100 + i)));
+        }
+        assertFalse(loginThrottleService.tryAttempt("10.0.0.9", "123999"));
+        assertTrue(loginThrottleService.tryAttempt("10.0.0.9", "124000"), "Other prefixes are not affected");
+    }
+
+    @Test
+    public void testShortAndBlankCodesShareTheirOwnWindows() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(loginThrottleService.tryAttempt("10.0.0." + i, i % 2 == 0 ? null : " "));
+        }
+        assertFalse(loginThrottleService.tryAttempt("10.0.0.9", ""));
+        assertTrue(loginThrottleService.tryAttempt("10.0.0.9", "12"));
+    }
+
+    @Test
+    public void testRetryAfterRoundsTheWindowUpToMinutes() {
+        assertEquals(5, loginThrottleService.getRetryAfterMinutes());
+
+        ReflectionTestUtils.setField(loginThrottleService, "windowSeconds", 61L);
+        assertEquals(2, loginThrottleService.getRetryAfterMinutes());
+
+        ReflectionTestUtils.setField(loginThrottleService, "windowSeconds", 10L);
+        assertEquals(1, loginThrottleService.getRetryAfterMinutes());
+    }
+}
@@ -0,0 +1,120 @@
+package com.p3.syllesisfabrik.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.repository.MenuItemRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class MenuItemServiceTest {
+
+    @Mock
+    private MenuItemRepository menuItemRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private MenuItemService menuItemService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private MenuItem menuItem(String id, String title, int quantity) {
+        MenuItem menuItem = new MenuItem(title, "Test flavour", List.of(), quantity, quantity > 0, 50.0, new ArrayList<>());
+        menuItem.setId(id);
+        return menuItem;
+    }
+
+    @Test
+    public void testCatalogIsLoadedOnceAndServedFromCache() {
+        when(menuItemRepository.findAll()).thenReturn(new ArrayList<>(List.of(menuItem("1", "Vanilla, 5L", 10))));
+
+        List<MenuItem> first = menuItemService.findAll();
+        List<MenuItem> second = menuItemService.findAll();
+
+        assertSame(first, second);
+        assertNull(first.get(0).getImagePaths(), "Empty image lists should be normalized to null");
+        assertTrue(menuItemService.findCatalogItem("1").isPresent());
+        verify(menuItemRepository, times(1)).findAll();
+
+        Map<String, Object> stats = menuItemService.getCatalogStats();
+        assertEquals(2L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+    }
+
+    @Test
+    public void testSaveRebuildsCatalogAndChangesEtag() {
+        MenuItem vanilla = menuItem("1", "Vanilla, 5L", 10);
+        when(menuItemRepository.findAll())
+                .thenReturn(new ArrayList<>(List.of(vanilla)))
+                .thenReturn(new ArrayList<>(List.of(menuItem("1", "Vanilla, 5L", 8))));
+        when(menuItemRepository.save(vanilla)).thenReturn(vanilla);
+
+        String etagBefore = menuItemService.getCatalog().getEtag();
+        menuItemService.saveMenuItem(vanilla);
+        MenuItemService.CatalogSnapshot after = menuItemService.getCatalog();
+
+        assertNotEquals(etagBefore, after.getEtag());
+        assertEquals(8, after.getMenuItems().get(0).getQuantity());
+        verify(menuItemRepository, times(2)).findAll();
+    }
+
+    @Test
+    public void testInvalidateReloadsOnNextRead() {
+        when(menuItemRepository.findAll()).thenReturn(new ArrayList<>(List.of(menuItem("1", "Vanilla, 5L", 10))));
+
+        menuItemService.findAll();
+        menuItemService.invalidateCatalog();
+        menuItemService.findAll();
+
+        verify(menuItemRepository, times(2)).findAll();
+        assertEquals(1L, menuItemService.getCatalogStats().get("invalidations"));
+    }
+
+    @Test
+    public void testCatalogListIsReadOnly() {
+        when(menuItemRepository.findAll()).thenReturn(new ArrayList<>(List.of(menuItem("1", "Vanilla, 5L", 10))));
+
+        List<MenuItem> menuItems = menuItemService.findAll();
+
+        assertThrows(UnsupportedOperationException.class, () -> menuItems.add(menuItem("2", "Chocolate, 5L", 1)));
+    }
+
+    @Test
+    public void testUpdateDetailsSetsOnlyTheEditedFields() {
+        MenuItem vanilla = menuItem("1", "Vanilla, 5L", 10);
+        vanilla.setPricePerLiter(55.0);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(MenuItem.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(menuItemRepository.findAll()).thenReturn(new ArrayList<>(List.of(vanilla)));
+
+        assertTrue(menuItemService.updateDetails(vanilla));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(MenuItem.class));
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals(55.0, set.get("pricePerLiter"));
+        assertFalse(set.containsKey("pendingReservations"), "Reservations written by checkout must be left alone");
+        assertEquals(1, update.getValue().getUpdateObject().size());
+        verify(menuItemRepository, never()).save(any());
+        assertEquals(55.0, menuItemService.getCatalog().getMenuItems().get(0).getPricePerLiter(), 0.001);
+    }
+}
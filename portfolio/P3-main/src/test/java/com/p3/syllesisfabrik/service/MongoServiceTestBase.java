@@ -0,0 +1,114 @@
+package com.p3.syllesisfabrik.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.UserLogin;
+import com.p3.syllesisfabrik.repository.MenuItemRepository;
+import com.p3.syllesisfabrik.repository.OrderRepository;
+import com.p3.syllesisfabrik.repository.UserLoginRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+/**
+ * Base of the service tests that run against a real MongoDB.
+ *
+ * One container is started for the whole test run, on first use, and stopped by Testcontainers
+ * when the JVM exits. Each test class works in a database named after it, dropped before every
+ * test. The services are wired by hand the way Spring would wire them; the factories here cover
+ * the ones many tests share.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class MongoServiceTestBase {
+
+    private static final MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    private static MongoClient mongoClient;
+
+    protected MongoTemplate mongoTemplate;
+    protected MongoRepositoryFactory repositories;
+
+    @BeforeAll
+    public static synchronized void connect() {
+        if (mongoClient == null) {
+            mongo.start();
+            mongoClient = MongoClients.create(mongo.getReplicaSetUrl());
+        }
+    }
+
+    @BeforeEach
+    public void resetDatabase() {
+        mongoTemplate = new MongoTemplate(mongoClient, getClass().getSimpleName());
+        mongoTemplate.getDb().drop();
+        repositories = new MongoRepositoryFactory(mongoTemplate);
+    }
+
+    // Collections cannot be created inside a transaction, so tests that run one create them first
+    protected void createCollections(Class<?>... entityClasses) {
+        for (Class<?> entityClass : entityClasses) {
+            mongoTemplate.createCollection(entityClass);
+        }
+    }
+
+    protected UserLogin company(String name) {
+        return mongoTemplate.save(new UserLogin("12345678", name, name.toLowerCase() + "@example.com", "123456", "normal",
+                "12345678", "Street", "1", "9000", "Aalborg"));
+    }
+
+    protected MenuItem menuItem(String title, int quantity) {
+        return mongoTemplate.save(new MenuItem(title, "Test flavour", List.of(), quantity, true, 50.0, List.of()));
+    }
+
+    protected MenuItemService menuItemService() {
+        MenuItemService menuItemService = new MenuItemService();
+        ReflectionTestUtils.setField(menuItemService, "menuItemRepository", repositories.getRepository(MenuItemRepository.class));
+        ReflectionTestUtils.setField(menuItemService, "mongoTemplate", mongoTemplate);
+        return menuItemService;
+    }
+
+    protected StockReservationService stockReservationService(MenuItemService menuItemService) {
+        StockReservationService stockReservationService = new StockReservationService();
+        ReflectionTestUtils.setField(stockReservationService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(stockReservationService, "menuItemService", menuItemService);
+        return stockReservationService;
+    }
+
+    protected OrderService orderService() {
+        OrderService orderService = new OrderService();
+        ReflectionTestUtils.setField(orderService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(orderService, "orderRepository", repositories.getRepository(OrderRepository.class));
+        ReflectionTestUtils.setField(orderService, "menuItemRepository", repositories.getRepository(MenuItemRepository.class));
+        ReflectionTestUtils.setField(orderService, "userLoginRepository", repositories.getRepository(UserLoginRepository.class));
+        return orderService;
+    }
+
+    protected CartItemService cartItemService() {
+        CartItemService cartItemService = new CartItemService();
+        ReflectionTestUtils.setField(cartItemService, "mongoTemplate", mongoTemplate);
+        return cartItemService;
+    }
+
+    protected ProductionPlanService productionPlanService() {
+        ProductionPlanService productionPlanService = new ProductionPlanService();
+        ReflectionTestUtils.setField(productionPlanService, "mongoTemplate", mongoTemplate);
+        return productionPlanService;
+    }
+
+    // Asks the server whether it supports transactions, as the application does after startup
+    protected TransactionRunner transactionRunner() {
+        TransactionRunner transactionRunner = new TransactionRunner();
+        ReflectionTestUtils.setField(transactionRunner, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(transactionRunner, "transactionManager",
+                new MongoTransactionManager(mongoTemplate.getMongoDatabaseFactory()));
+        transactionRunner.detectTransactionSupport();
+        return transactionRunner;
+    }
+}
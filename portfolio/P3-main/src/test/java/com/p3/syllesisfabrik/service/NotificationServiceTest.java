@@ -0,0 +1,73 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.MailJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the mail outbox against a real MongoDB with a mocked mail server. The sender thread is
+ * not started; the tests drain the outbox themselves.
+ */
+public class NotificationServiceTest extends MongoServiceTestBase {
+
+    private JavaMailSender mailSender;
+    private NotificationService notificationService;
+
+    @BeforeEach
+    public void setup() {
+        mailSender = mock(JavaMailSender.class);
+
+        notificationService = new NotificationService();
+        ReflectionTestUtils.setField(notificationService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(notificationService, "mailSender", mailSender);
+        ReflectionTestUtils.setField(notificationService, "batchSize", 2);
+        ReflectionTestUtils.setField(notificationService, "maxAttempts", 2);
+    }
+
+    private void outbox(int emails) {
+        for (int i = 0; i < emails; i++) {
+            mongoTemplate.insert(new MailJob("company" + i + "@example.com", "shop@example.com", "Order Confirmation", "Text"));
+        }
+    }
+
+    @Test
+    public void testQueuedEmailsAreSentInBatchesAndRemoved() {
+        outbox(5);
+
+        notificationService.drain();
+
+        // Five emails in batches of two
+        verify(mailSender, times(3)).send(any(SimpleMailMessage[].class));
+        assertTrue(mongoTemplate.findAll(MailJob.class).isEmpty());
+    }
+
+    @Test
+    public void testRejectedEmailsStayQueuedUntilTheyFailTooOften() {
+        outbox(1);
+        doThrow(new MailSendException("Connection refused")).when(mailSender).send(any(SimpleMailMessage[].class));
+
+        notificationService.drain();
+        MailJob retried = mongoTemplate.findAll(MailJob.class).get(0);
+        assertEquals(MailJob.Status.PENDING, retried.getStatus());
+        assertEquals(1, retried.getAttempts());
+
+        notificationService.drain();
+        List<MailJob> failed = mongoTemplate.findAll(MailJob.class);
+        assertEquals(MailJob.Status.FAILED, failed.get(0).getStatus());
+        assertEquals("Connection refused", failed.get(0).getError());
+
+        // Failed emails are left for an admin to look at
+        notificationService.drain();
+        verify(mailSender, times(2)).send(any(SimpleMailMessage[].class));
+    }
+}
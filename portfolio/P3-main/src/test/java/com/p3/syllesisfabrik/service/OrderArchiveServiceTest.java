@@ -0,0 +1,140 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.ArchivedOrder;
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.MonthlySales;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.UserLogin;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the order archival against a real MongoDB and checks that the archive, the monthly
+ * summaries and the live orders add up.
+ */
+public class OrderArchiveServiceTest extends MongoServiceTestBase {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 2, 3, 30);
+
+    private OrderArchiveService orderArchiveService;
+    private SalesSummaryService salesSummaryService;
+
+    @BeforeEach
+    public void setup() {
+        OrderService orderService = orderService();
+
+        salesSummaryService = new SalesSummaryService();
+        ReflectionTestUtils.setField(salesSummaryService, "mongoTemplate", mongoTemplate);
+
+        TransactionRunner transactionRunner = new TransactionRunner();
+        ReflectionTestUtils.setField(transactionRunner, "mongoTemplate", mongoTemplate);
+
+        orderArchiveService = new OrderArchiveService();
+        ReflectionTestUtils.setField(orderArchiveService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(orderArchiveService, "orderService", orderService);
+        ReflectionTestUtils.setField(orderArchiveService, "salesSummaryService", salesSummaryService);
+        ReflectionTestUtils.setField(orderArchiveService, "transactionRunner", transactionRunner);
+        ReflectionTestUtils.setField(orderArchiveService, "archiveAfterMonths", 12);
+        ReflectionTestUtils.setField(orderArchiveService, "batchSize", 2);
+    }
+
+    private MenuItem menuItem(String title) {
+        return mongoTemplate.save(new MenuItem(title, "Test flavour", List.of(), 100, true, 50.0, List.of()));
+    }
+
+    private Order invoiced(UserLogin company, MenuItem menuItem, int litres, LocalDateTime orderDate, LocalDateTime invoicedAt) {
+        CartItem line = new CartItem(menuItem, company, litres, litres * menuItem.getPricePerLiter());
+        Order order = new Order(company, List.of(line), line.getTotalCost(), orderDate,
+                true, false, true, true, orderDate.toLocalDate().plusDays(2), orderDate.plusDays(2));
+        order.setInvoicedAt(invoicedAt);
+        return mongoTemplate.save(order);
+    }
+
+    @Test
+    public void testOldInvoicedOrdersMoveToTheArchiveWithMonthlySummaries() {
+        UserLogin alpha = company("Alpha");
+        MenuItem vanilla = menuItem("Vanilla, 5L");
+        MenuItem mango = menuItem("Mango, 5L");
+        Order january = invoiced(alpha, vanilla, 2, LocalDateTime.of(2024, 1, 10, 9, 0), LocalDateTime.of(2024, 1, 20, 9, 0));
+        invoiced(alpha, mango, 4, LocalDateTime.of(2024, 1, 15, 9, 0), LocalDateTime.of(2024, 1, 25, 9, 0));
+        invoiced(alpha, vanilla, 1, LocalDateTime.of(2024, 6, 1, 9, 0), LocalDateTime.of(2024, 6, 5, 9, 0));
+        // Invoiced last year but less than twelve months ago
+        Order recent = invoiced(alpha, vanilla, 3, LocalDateTime.of(2025, 5, 1, 9, 0), LocalDateTime.of(2025, 5, 3, 9, 0));
+        // Legacy order without an invoice date falls back to its delivery date
+        Order legacy = invoiced(alpha, mango, 1, LocalDateTime.of(2023, 11, 1, 9, 0), null);
+
+        assertEquals(4, orderArchiveService.archive(NOW));
+
+        List<Order> live = mongoTemplate.findAll(Order.class);
+        assertEquals(1, live.size());
+        assertEquals(recent.getId(), live.get(0).getId());
+
+        ArchivedOrder archived = mongoTemplate.findById(january.getId(), ArchivedOrder.class);
+        assertEquals("Alpha", archived.getCompanyName());
+        assertEquals(alpha.getId(), archived.getCompanyId());
+        assertEquals("Vanilla, 5L", archived.getLines().get(0).getTitle());
+        assertEquals(2, archived.getLines().get(0).getDesiredQuantity());
+        assertNotNull(mongoTemplate.findById(legacy.getId(), ArchivedOrder.class));
+
+        MonthlySales summary = mongoTemplate.findById(MonthlySales.keyOf(YearMonth.of(2024, 1)), MonthlySales.class);
+        assertEquals(300.0, summary.getRevenue());
+        assertEquals(2, summary.getOrders());
+        assertEquals(List.of("Vanilla, 5L", "Mango, 5L"), summary.getFlavours());
+        assertEquals(3, salesSummaryService.findAll().size());
+
+        // The archived orders still show in the order history of the company
+        List<Order> history = orderArchiveService.getOrderHistory(alpha);
+        assertEquals(4, history.size());
+        assertEquals(legacy.getId(), history.get(0).getId());
+        assertTrue(history.get(1).isInvoiced());
+        assertEquals("Vanilla, 5L", history.get(1).getCartItems().get(0).getMenuItem().getTitle());
+    }
+
+    @Test
+    public void testArchivingAgainChangesNothing() {
+        UserLogin alpha = company("Alpha");
+        MenuItem vanilla = menuItem("Vanilla, 5L");
+        invoiced(alpha, vanilla, 2, LocalDateTime.of(2024, 1, 10, 9, 0), LocalDateTime.of(2024, 1, 20, 9, 0));
+        orderArchiveService.archive(NOW);
+
+        assertEquals(0, orderArchiveService.archive(NOW));
+        assertEquals(1, mongoTemplate.findAll(ArchivedOrder.class).size());
+        assertEquals(100.0, salesSummaryService.findAll().get(0).getRevenue());
+    }
+
+    @Test
+    public void testOrdersOfTheCurrentYearStayLive() {
+        ReflectionTestUtils.setField(orderArchiveService, "archiveAfterMonths", 1);
+        UserLogin alpha = company("Alpha");
+        MenuItem vanilla = menuItem("Vanilla, 5L");
+        invoiced(alpha, vanilla, 2, LocalDateTime.of(2026, 1, 5, 9, 0), LocalDateTime.of(2026, 1, 10, 9, 0));
+
+        assertEquals(0, orderArchiveService.archive(NOW));
+        assertEquals(1, mongoTemplate.findAll(Order.class).size());
+    }
+
+    @Test
+    public void testPurgingArchivedOrdersRefreshesTheirMonths() {
+        UserLogin alpha = company("Alpha");
+        UserLogin beta = company("Beta");
+        MenuItem vanilla = menuItem("Vanilla, 5L");
+        invoiced(alpha, vanilla, 2, LocalDateTime.of(2024, 1, 10, 9, 0), LocalDateTime.of(2024, 1, 20, 9, 0));
+        invoiced(beta, vanilla, 1, LocalDateTime.of(2024, 1, 12, 9, 0), LocalDateTime.of(2024, 1, 20, 9, 0));
+        orderArchiveService.archive(NOW);
+
+        assertEquals(1, orderArchiveService.purge(Criteria.where("companyId").is(alpha.getId())));
+
+        MonthlySales summary = salesSummaryService.findAll().get(0);
+        assertEquals(50.0, summary.getRevenue());
+        assertEquals(1, summary.getOrders());
+    }
+}
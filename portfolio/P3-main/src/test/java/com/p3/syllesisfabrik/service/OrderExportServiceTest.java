@@ -0,0 +1,140 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.UserLogin;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pages through the order changes against a real MongoDB, since the cursor relies on how
+ * modification times and IDs sort there.
+ */
+public class OrderExportServiceTest extends MongoServiceTestBase {
+
+    private OrderService orderService;
+    private OrderExportService orderExportService;
+    private UserLogin company;
+    private MenuItem menuItem;
+
+    @BeforeEach
+    public void setup() {
+        orderService = orderService();
+        orderService.prepareOrders();
+
+        orderExportService = new OrderExportService();
+        ReflectionTestUtils.setField(orderExportService, "orderService", orderService);
+        ReflectionTestUtils.setField(orderExportService, "settleSeconds", 0L);
+
+        company = mongoTemplate.save(new UserLogin("12345678", "Is, Kiosken \"Nord\"", "kiosk@example.com", "123456", "normal",
+                "12345678", "Street", "1", "9000", "Aalborg"));
+        menuItem = mongoTemplate.save(new MenuItem("Vanilla, 5L", "Test flavour", List.of(), 100, true, 50.0, List.of()));
+    }
+
+    private Order order(LocalDateTime lastModified) {
+        CartItem line = new CartItem(menuItem, company, 2, 100.0);
+        Order order = new Order(company, List.of(line), 100.0, lastModified.minusDays(1), true, false, false, false, null, null);
+        order.setLastModified(lastModified);
+        return mongoTemplate.save(order);
+    }
+
+    private List<String> ids(List<Order> orders) {
+        return orders.stream().map(Order::getId).toList();
+    }
+
+    @Test
+    public void testPagesReturnEveryOrderOnce() {
+        LocalDateTime base = LocalDateTime.of(2026, 3, 1, 10, 0);
+        List<String> expected = new ArrayList<>();
+        // Three orders share a modification time, so pages must also step by ID
+        for (int i = 0; i < 5; i++) {
+            expected.add(order(base.plusSeconds(Math.min(i, 2))).getId());
+        }
+
+        List<String> exported = new ArrayList<>();
+        String cursor = null;
+        OrderExportService.Page page;
+        do {
+            page = orderExportService.changesSince(cursor, 2);
+            assertTrue(page.getOrders().size() <= 2);
+            exported.addAll(ids(page.getOrders()));
+            cursor = page.getNextCursor();
+        } while (page.isHasMore());
+
+        assertEquals(expected, exported);
+
+        OrderExportService.Page empty = orderExportService.changesSince(cursor, 2);
+        assertTrue(empty.getOrders().isEmpty());
+        assertEquals(cursor, empty.getNextCursor(), "Nothing changed, so the cursor stays");
+    }
+
+    @Test
+    public void testOnlyChangedOrdersFollowTheCursor() {
+        LocalDateTime base = LocalDateTime.of(2026, 3, 1, 10, 0);
+        Order first = order(base);
+        order(base.plusMinutes(1));
+        String cursor = orderExportService.changesSince(null, 10).getNextCursor();
+
+        assertTrue(orderService.markShipped(first.getId(), LocalDateTime.now()));
+        OrderExportService.Page page = orderExportService.changesSince(cursor, 10);
+
+        assertEquals(List.of(first.getId()), ids(page.getOrders()));
+        assertEquals("shipped", OrderExportService.status(page.getOrders().get(0)));
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    public void testRecentWritesWaitForTheNextCall() {
+        ReflectionTestUtils.setField(orderExportService, "settleSeconds", 60L);
+        Order settled = order(LocalDateTime.now().minusMinutes(5));
+        order(LocalDateTime.now());
+
+        assertEquals(List.of(settled.getId()), ids(orderExportService.changesSince(null, 10).getOrders()));
+    }
+
+    @Test
+    public void testOrdersWithoutModificationTimeAreBackfilled() {
+        Order old = order(LocalDateTime.of(2026, 3, 1, 10, 0));
+        mongoTemplate.getCollection("orders").updateMany(new Document(),
+                new Document("$unset", new Document("lastModified", "")));
+
+        orderService.backfillLastModified();
+
+        assertNotNull(mongoTemplate.findById(old.getId(), Order.class).getLastModified());
+    }
+
+    @Test
+    public void testInvalidCursorAndLimitAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> orderExportService.changesSince("not a cursor", 10));
+        assertThrows(IllegalArgumentException.class, () -> orderExportService.changesSince(null, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> orderExportService.changesSince(null, OrderExportService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    public void testNdjsonAndCsvFormats() {
+        Order order = order(LocalDateTime.of(2026, 3, 1, 10, 0));
+        List<Order> orders = orderExportService.changesSince(null, 10).getOrders();
+
+        String ndjson = orderExportService.toNdjson(orders);
+        assertEquals(1, ndjson.split("\n").length);
+        assertTrue(ndjson.startsWith("{\"id\":\"" + order.getId() + "\""));
+        assertTrue(ndjson.contains("\"companyName\":\"Is, Kiosken \\\"Nord\\\"\""));
+        assertTrue(ndjson.contains("\"lines\":[{\"menuItemId\":\"" + menuItem.getId() + "\",\"title\":\"Vanilla, 5L\",\"quantity\":2,\"totalCost\":100.00}]"));
+
+        String[] csv = orderExportService.toCsv(orders).split("\n");
+        assertEquals(2, csv.length);
+        assertTrue(csv[0].startsWith("order_id,last_modified,"));
+        assertTrue(csv[1].contains(",\"Is, Kiosken \"\"Nord\"\"\",12345678,"));
+        assertTrue(csv[1].endsWith(",approved,100.00," + menuItem.getId() + ",\"Vanilla, 5L\",2,100.00"));
+    }
+}
@@ -0,0 +1,54 @@
+package com.p3.syllesisfabrik.service;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the export cursor on its own. OrderExportServiceTest covers paging through orders with it.
+ */
+public class OrderExportServiceUnitTest {
+
+    private static String encoded(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testCursorRoundTrip() {
+        String orderId = new ObjectId().toHexString();
+        LocalDateTime lastModified = LocalDateTime.of(2026, 3, 2, 14, 30, 5, 123_000_000);
+
+        OrderExportService.Cursor cursor = OrderExportService.Cursor.decode(
+                new OrderExportService.Cursor(lastModified, orderId).encode());
+
+        assertEquals(lastModified, cursor.lastModified);
+        assertEquals(orderId, cursor.orderId);
+    }
+
+    @Test
+    public void testCursorIsSafeInAQueryString() {
+        for (int nanos = 0; nanos < 1_000_000_000; nanos += 111_111_111) {
+            String cursor = new OrderExportService.Cursor(LocalDateTime.of(2026, 3, 2, 14, 30, 0, nanos),
+                    new ObjectId().toHexString()).encode();
+            assertTrue(cursor.matches("[A-Za-z0-9_-]+"), cursor);
+        }
+    }
+
+    @Test
+    public void testInvalidCursorIsRejected() {
+        String orderId = new ObjectId().toHexString();
+        for (String cursor : new String[]{"not base64!", encoded("2026-03-02T14:30"), encoded("2026-03-02T14:30|42"),
+                encoded("yesterday|" + orderId), encoded("|" + orderId)}) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> OrderExportService.Cursor.decode(cursor), cursor);
+            if (!cursor.equals("not base64!")) {
+                assertEquals("Invalid cursor.", e.getMessage());
+            }
+        }
+    }
+}
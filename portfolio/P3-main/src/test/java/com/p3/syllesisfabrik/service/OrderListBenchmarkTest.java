@@ -0,0 +1,179 @@
+package com.p3.syllesisfabrik.service;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.UserLogin;
+import com.p3.syllesisfabrik.repository.MenuItemRepository;
+import com.p3.syllesisfabrik.repository.OrderRepository;
+import com.p3.syllesisfabrik.repository.UserLoginRepository;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the queries, documents and bytes MongoDB returns for one company's order history page,
+ * read the old way (every order of every company, with each reference resolved on its own) and
+ * through the read models. The figures are logged so they can be compared across changes.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public class OrderListBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderListBenchmarkTest.class);
+
+    @Container
+    private static final MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    private static final int COMPANIES = 10;
+    private static final int ORDERS_PER_COMPANY = 12;
+
+    private static final ReadCounter reads = new ReadCounter();
+    private static MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+    private OrderRepository orderRepository;
+    private OrderService orderService;
+
+    // Adds up what every find and getMore command returned
+    private static class ReadCounter implements CommandListener {
+        long queries;
+        long documents;
+        long bytes;
+
+        void reset() {
+            queries = 0;
+            documents = 0;
+            bytes = 0;
+        }
+
+        @Override
+        public void commandSucceeded(CommandSucceededEvent event) {
+            BsonDocument response = event.getResponse();
+            if (!response.containsKey("cursor")) {
+                return;
+            }
+            BsonDocument cursor = response.getDocument("cursor");
+            BsonArray batch = cursor.containsKey("firstBatch") ? cursor.getArray("firstBatch") : cursor.getArray("nextBatch");
+            queries++;
+            documents += batch.size();
+            for (BsonValue document : batch) {
+                bytes += new RawBsonDocument(document.asDocument(), new BsonDocumentCodec()).getByteBuffer().remaining();
+            }
+        }
+    }
+
+    @BeforeAll
+    public static void connect() {
+        mongoClient = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(mongo.getReplicaSetUrl()))
+                .addCommandListener(reads)
+                .build());
+    }
+
+    @AfterAll
+    public static void disconnect() {
+        mongoClient.close();
+    }
+
+    @BeforeEach
+    public void setup() {
+        mongoTemplate = new MongoTemplate(mongoClient, "order_list_benchmark");
+        mongoTemplate.dropCollection(MenuItem.class);
+        mongoTemplate.dropCollection(Order.class);
+        mongoTemplate.dropCollection(UserLogin.class);
+
+        MongoRepositoryFactory repositories = new MongoRepositoryFactory(mongoTemplate);
+        orderRepository = repositories.getRepository(OrderRepository.class);
+        orderService = new OrderService();
+        ReflectionTestUtils.setField(orderService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(orderService, "orderRepository", orderRepository);
+        ReflectionTestUtils.setField(orderService, "menuItemRepository", repositories.getRepository(MenuItemRepository.class));
+        ReflectionTestUtils.setField(orderService, "userLoginRepository", repositories.getRepository(UserLoginRepository.class));
+    }
+
+    // Companies with a mix of pending, approved and shipped orders of three flavours each
+    private List<UserLogin> seed() {
+        List<MenuItem> flavours = new ArrayList<>();
+        for (String title : List.of("Vanilla, 5L", "Mint, 5L", "Chocolate, 5L")) {
+            flavours.add(mongoTemplate.save(new MenuItem(title, "A flavour with a longer description for the menu",
+                    List.of("Milk", "Nuts"), 100, true, 50.0, List.of("/images/a.png", "/images/b.png"))));
+        }
+        List<UserLogin> companies = new ArrayList<>();
+        for (int c = 0; c < COMPANIES; c++) {
+            UserLogin company = new UserLogin("1234567" + c, "Company " + c, "company" + c + "@example.com", "12345" + c,
+                    "normal", "1234567" + c, "Street", "1", "9000", "Aalborg");
+            company.setToken("eyJhbGciOiJIUzI1NiJ9.a-long-signed-login-token-for-company-" + c);
+            companies.add(mongoTemplate.save(company));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (UserLogin company : companies) {
+            for (int o = 0; o < ORDERS_PER_COMPANY; o++) {
+                List<CartItem> lines = flavours.stream().map(flavour -> new CartItem(flavour, company, 5, 250.0)).toList();
+                boolean pending = o % 3 == 0;
+                boolean shipped = o % 3 == 2;
+                mongoTemplate.save(new Order(company, lines, 750.0, now.minusDays(o), !pending, pending, shipped, false,
+                        pending ? null : LocalDate.now(), shipped ? now : null));
+            }
+        }
+        return companies;
+    }
+
+    @Test
+    public void testOrderHistoryReadModelReadsLess() {
+        UserLogin company = seed().get(3);
+
+        // Before: every listed order of every company, then filtered in memory
+        reads.reset();
+        List<Order> before = Stream.of(
+                        orderRepository.findByIsProcessingAndIsApprovedFalseAndIsShippedFalse(true),
+                        orderRepository.findByIsApprovedTrueAndIsProcessingFalseAndIsShippedFalse(),
+                        orderRepository.findByIsApprovedTrueAndIsProcessingFalseAndIsShippedTrue())
+                .flatMap(List::stream)
+                .filter(order -> order.getCompany().getCompanyName().equalsIgnoreCase(company.getCompanyName()))
+                .toList();
+        long queriesBefore = reads.queries;
+        long documentsBefore = reads.documents;
+        long bytesBefore = reads.bytes;
+
+        // After: the company's orders with the listed columns, and the flavour titles in one query
+        reads.reset();
+        List<Order> after = orderService.getOrderHistory(company);
+
+        logger.info("Order history of one company ({} orders): {} queries, {} documents, {} bytes before; "
+                        + "{} queries, {} documents, {} bytes after",
+                after.size(), queriesBefore, documentsBefore, bytesBefore, reads.queries, reads.documents, reads.bytes);
+
+        assertEquals(before.size(), after.size());
+        assertEquals(2, reads.queries);
+        assertEquals(ORDERS_PER_COMPANY + 3, reads.documents);
+        assertTrue(reads.documents < documentsBefore);
+        assertTrue(reads.bytes * 5 < bytesBefore);
+    }
+}
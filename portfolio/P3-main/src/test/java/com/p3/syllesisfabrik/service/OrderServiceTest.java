@@ -0,0 +1,147 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.UserLogin;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the delivery date queries against a real MongoDB, since the calendar is computed by an
+ * aggregation and old orders are migrated in place.
+ */
+public class OrderServiceTest extends MongoServiceTestBase {
+
+    private OrderService orderService;
+
+    @BeforeEach
+    public void setup() {
+        orderService = orderService();
+        orderService.prepareOrders();
+    }
+
+    private Order order(LocalDate expectedDelivery, boolean approved, int... litres) {
+        List<CartItem> lines = Arrays.stream(litres)
+                .mapToObj(quantity -> new CartItem(null, null, quantity, quantity * 10.0))
+                .toList();
+        Order order = new Order(null, lines, 0, LocalDateTime.now(), approved, !approved, false, false, expectedDelivery, null);
+        return mongoTemplate.save(order);
+    }
+
+    @Test
+    public void testCalendarCountsOrdersAndLitresPerDay() {
+        LocalDate monday = LocalDate.of(2026, 3, 2);
+        order(monday, true, 5, 10);
+        order(monday, true, 20);
+        order(monday.plusDays(2), true, 5);
+        order(monday.plusDays(2), false, 50); // Not approved yet
+        order(monday.plusDays(10), true, 5); // Outside the range
+
+        List<OrderService.DeliveryDay> calendar = orderService.getDeliveryCalendar(monday, monday.plusDays(6));
+
+        assertEquals(7, calendar.size());
+        assertEquals(monday, calendar.get(0).getDate());
+        assertEquals(2, calendar.get(0).getOrders());
+        assertEquals(35, calendar.get(0).getLitres());
+        assertEquals(0, calendar.get(1).getOrders());
+        assertEquals(1, calendar.get(2).getOrders());
+        assertEquals(5, calendar.get(2).getLitres());
+        assertEquals(monday.plusDays(6), calendar.get(6).getDate());
+    }
+
+    @Test
+    public void testOrdersAreFoundByDeliveryDay() {
+        LocalDate day = LocalDate.of(2026, 3, 2);
+        Order due = order(day, true, 5);
+        order(day.plusDays(1), true, 5);
+
+        List<Order> orders = orderService.getOrdersByExpectedDelivery(day);
+
+        assertEquals(1, orders.size());
+        assertEquals(due.getId(), orders.get(0).getId());
+        assertEquals("02-03-26", orders.get(0).getExpectedDeliveryDate());
+    }
+
+    @Test
+    public void testStringDatesOfOldOrdersAreMigrated() {
+        String orders = mongoTemplate.getCollectionName(Order.class);
+        mongoTemplate.getCollection(orders).insertMany(List.of(
+                new Document("_id", "shipped").append("isApproved", true).append("isShipped", true)
+                        .append("orderDate", new Date())
+                        .append("formattedOrderDate", "2026-02-20 10:15")
+                        .append("expectedDeliveryDate", "24-02-26")
+                        .append("deliveredDate", "24-02-26 09:30:00"),
+                new Document("_id", "pending").append("isProcessing", true)
+                        .append("orderDate", new Date())
+                        .append("formattedOrderDate", "2026-02-21 11:00")
+                        .append("expectedDeliveryDate", "Unknown")));
+
+        orderService.migrateDeliveryDates();
+
+        Order shipped = mongoTemplate.findById("shipped", Order.class);
+        assertEquals(LocalDate.of(2026, 2, 24), shipped.getExpectedDelivery());
+        assertEquals(LocalDateTime.of(2026, 2, 24, 9, 30), shipped.getDeliveredAt());
+        assertNull(mongoTemplate.findById("pending", Order.class).getExpectedDelivery());
+
+        Document raw = mongoTemplate.getCollection(orders).find(new Document("_id", "shipped")).first();
+        assertFalse(raw.containsKey("expectedDeliveryDate"));
+        assertFalse(raw.containsKey("deliveredDate"));
+        assertFalse(raw.containsKey("formattedOrderDate"));
+    }
+
+    // A company that has logged in, so its document holds a token that must never be read back
+    private UserLogin loggedIn(String name) {
+        UserLogin company = company(name);
+        company.setToken("secret-jwt");
+        return mongoTemplate.save(company);
+    }
+
+    @Test
+    public void testOrderHistoryHasOnlyTheCompanysListedOrders() {
+        UserLogin alpha = loggedIn("Alpha");
+        UserLogin beta = loggedIn("Beta");
+        MenuItem vanilla = mongoTemplate.save(new MenuItem("Vanilla, 5L", "Test flavour", List.of("Milk"), 100, true, 50.0, List.of()));
+        CartItem line = new CartItem(vanilla, alpha, 2, 100.0);
+        LocalDateTime now = LocalDateTime.now();
+        mongoTemplate.save(new Order(alpha, List.of(line), 100.0, now.minusDays(2), false, true, false, false, null, null)); // Pending
+        mongoTemplate.save(new Order(alpha, List.of(line), 100.0, now.minusDays(1), true, false, true, false, LocalDate.now(), now)); // Shipped
+        mongoTemplate.save(new Order(alpha, List.of(line), 100.0, now, false, false, false, false, null, null)); // Disapproved
+        mongoTemplate.save(new Order(beta, List.of(line), 100.0, now, false, true, false, false, null, null));
+
+        List<Order> history = orderService.getOrderHistory(alpha);
+
+        assertEquals(2, history.size());
+        assertTrue(history.get(0).isProcessing());
+        assertTrue(history.get(1).isShipped());
+        assertSame(alpha, history.get(0).getCompany());
+        MenuItem flavour = history.get(0).getCartItems().get(0).getMenuItem();
+        assertEquals("Vanilla, 5L", flavour.getTitle());
+        assertNull(flavour.getAllergens()); // Only the title and price are read
+    }
+
+    @Test
+    public void testDeliveryListLoadsOnlyContactColumns() {
+        UserLogin alpha = loggedIn("Alpha");
+        MenuItem vanilla = mongoTemplate.save(new MenuItem("Vanilla, 5L", "Test flavour", List.of(), 100, true, 50.0, List.of()));
+        LocalDate day = LocalDate.of(2026, 3, 2);
+        mongoTemplate.save(new Order(alpha, List.of(new CartItem(vanilla, alpha, 2, 100.0)), 100.0, LocalDateTime.now(),
+                true, false, false, false, day, null));
+
+        List<Order> orders = orderService.getDeliveryList(day);
+
+        assertEquals(1, orders.size());
+        assertEquals("Alpha", orders.get(0).getCompany().getCompanyName());
+        assertNull(orders.get(0).getCompany().getToken());
+        assertEquals(50.0, orders.get(0).getCartItems().get(0).getMenuItem().getPricePerLiter());
+    }
+}
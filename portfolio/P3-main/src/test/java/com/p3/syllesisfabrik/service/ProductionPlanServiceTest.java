@@ -0,0 +1,190 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.Cart;
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.Order;
+import com.p3.syllesisfabrik.model.ProductionPlanEntry;
+import com.p3.syllesisfabrik.model.UserLogin;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs the production plan against a real MongoDB, since it is maintained with upserts and
+ * rebuilt with an aggregation. Orders reach the plan through checkout and bulk approval, so
+ * the stock they took is the stock the plan compares against.
+ */
+public class ProductionPlanServiceTest extends MongoServiceTestBase {
+
+    private static final LocalDate MONDAY = LocalDate.of(2026, 3, 2);
+
+    private ProductionPlanService productionPlanService;
+    private CartItemService cartItemService;
+    private CheckoutService checkoutService;
+    private BulkOrderService bulkOrderService;
+
+    @BeforeEach
+    public void setup() {
+        createCollections(MenuItem.class, Cart.class, Order.class, UserLogin.class, ProductionPlanEntry.class);
+
+        productionPlanService = productionPlanService();
+        productionPlanService.preparePlan();
+
+        StockReservationService stockReservationService = stockReservationService(menuItemService());
+        cartItemService = cartItemService();
+        TransactionRunner transactionRunner = transactionRunner();
+
+        checkoutService = new CheckoutService();
+        ReflectionTestUtils.setField(checkoutService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(checkoutService, "cartItemService", cartItemService);
+        ReflectionTestUtils.setField(checkoutService, "stockReservationService", stockReservationService);
+        ReflectionTestUtils.setField(checkoutService, "transactionRunner", transactionRunner);
+
+        OrderService orderService = orderService();
+        EmailService emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "env", mock(Environment.class));
+
+        bulkOrderService = new BulkOrderService();
+        ReflectionTestUtils.setField(bulkOrderService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(bulkOrderService, "orderService", orderService);
+        ReflectionTestUtils.setField(bulkOrderService, "stockReservationService", stockReservationService);
+        ReflectionTestUtils.setField(bulkOrderService, "productionPlanService", productionPlanService);
+        ReflectionTestUtils.setField(bulkOrderService, "emailService", emailService);
+        ReflectionTestUtils.setField(bulkOrderService, "notificationService", mock(NotificationService.class));
+    }
+
+    // Checks the litres out of the company's cart and approves the order, as a customer and the admin would
+    private Order ordered(UserLogin company, MenuItem menuItem, int litres, LocalDate expectedDelivery) {
+        cartItemService.addToCart(company, menuItem, litres);
+        Order order = checkoutService.checkout(company);
+        assertEquals(1, bulkOrderService.approve(List.of(order.getId()), expectedDelivery).getSucceeded());
+        return order;
+    }
+
+    // Saves an approved order from before checkout reserved stock, which took nothing from the flavour
+    private Order approved(LocalDate expectedDelivery, CartItem... lines) {
+        Order order = new Order(null, List.of(lines), 0, LocalDateTime.now(), true, false, false, false, expectedDelivery, null);
+        mongoTemplate.save(order);
+        productionPlanService.addOrder(order);
+        return order;
+    }
+
+    private CartItem line(MenuItem menuItem, int litres) {
+        return new CartItem(menuItem, null, litres, litres * menuItem.getPricePerLiter());
+    }
+
+    private List<ProductionPlanEntry> entries() {
+        List<ProductionPlanEntry> entries = new ArrayList<>(mongoTemplate.findAll(ProductionPlanEntry.class));
+        entries.sort(Comparator.comparing(ProductionPlanEntry::getId));
+        return entries;
+    }
+
+    @Test
+    public void testApprovedOrdersAreSummedPerDayAndFlavour() {
+        MenuItem vanilla = menuItem("Vanilla, 5L", 100);
+        MenuItem mint = menuItem("Mint, 5L", 100);
+        approved(MONDAY, line(vanilla, 10), line(mint, 5));
+        approved(MONDAY, line(vanilla, 20));
+        approved(MONDAY.plusDays(1), line(mint, 15));
+
+        List<ProductionPlanService.PlanLine> plan = productionPlanService.getPlan(MONDAY, MONDAY.plusDays(6));
+
+        assertEquals(3, plan.size());
+        ProductionPlanService.PlanLine mondayVanilla = plan.stream()
+                .filter(line -> line.getDeliveryDate().equals(MONDAY) && line.getTitle().equals("Vanilla, 5L"))
+                .findFirst().orElseThrow();
+        assertEquals(30, mondayVanilla.getLitres());
+        assertEquals(2, mondayVanilla.getOrders());
+        assertEquals(MONDAY.plusDays(1), plan.get(2).getDeliveryDate());
+    }
+
+    @Test
+    public void testShippedOrderLeavesThePlan() {
+        MenuItem vanilla = menuItem("Vanilla, 5L", 100);
+        Order first = approved(MONDAY, line(vanilla, 10));
+        Order second = approved(MONDAY, line(vanilla, 20));
+
+        productionPlanService.removeOrder(first);
+        assertEquals(20, productionPlanService.getPlan(MONDAY, MONDAY).get(0).getLitres());
+
+        productionPlanService.removeOrder(second);
+        assertTrue(productionPlanService.getPlan(MONDAY, MONDAY).isEmpty());
+        assertEquals(0, mongoTemplate.count(new Query(), ProductionPlanEntry.class));
+    }
+
+    @Test
+    public void testApprovedOrderIsNotShortOfTheStockItTook() {
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        MenuItem vanilla = menuItem("Vanilla, 5L", 100);
+        ordered(company("Kiosk"), vanilla, 80, tomorrow);
+
+        assertEquals(20, mongoTemplate.findById(vanilla.getId(), MenuItem.class).getQuantity());
+        ProductionPlanService.PlanLine line = productionPlanService.getPlan(tomorrow, tomorrow).get(0);
+
+        assertEquals(80, line.getLitres());
+        assertEquals(100, line.getInStock());
+        assertFalse(line.isShortOfStock());
+    }
+
+    @Test
+    public void testShortfallCountsEarlierDeliveriesOfTheFlavour() {
+        LocalDate first = LocalDate.now().plusDays(1);
+        LocalDate second = first.plusDays(1);
+        MenuItem vanilla = menuItem("Vanilla, 5L", 40);
+        ordered(company("Kiosk"), vanilla, 30, first);
+        ordered(company("Cafe"), vanilla, 10, second);
+        approved(second, line(vanilla, 15));
+
+        // Only the second day is shown, but the first day's litres are made from the same stock
+        List<ProductionPlanService.PlanLine> plan = productionPlanService.getPlan(second, second);
+
+        assertEquals(1, plan.size());
+        assertEquals(25, plan.get(0).getLitres());
+        assertEquals(40, plan.get(0).getInStock());
+        assertTrue(plan.get(0).isShortOfStock());
+        assertEquals(15, plan.get(0).getShortfall());
+
+        productionPlanService.rebuild();
+        assertEquals(15, productionPlanService.getPlan(second, second).get(0).getShortfall());
+    }
+
+    @Test
+    public void testRebuildMatchesIncrementalPlan() {
+        MenuItem vanilla = menuItem("Vanilla, 5L", 100);
+        MenuItem mint = menuItem("Mint, 5L", 100);
+        approved(MONDAY, line(vanilla, 10), line(mint, 5));
+        approved(MONDAY, line(vanilla, 20));
+        ordered(company("Kiosk"), vanilla, 5, LocalDate.now().plusDays(1));
+        Order shipped = approved(MONDAY.plusDays(2), line(mint, 15));
+        shipped.setShipped(true);
+        mongoTemplate.save(shipped);
+        productionPlanService.removeOrder(shipped);
+        // Pending orders have no delivery date yet and are not planned
+        mongoTemplate.save(new Order(null, List.of(line(mint, 50)), 0, LocalDateTime.now(), false, true, false, false, null, null));
+
+        List<ProductionPlanEntry> incremental = entries();
+        assertEquals(3, productionPlanService.rebuild());
+        List<ProductionPlanEntry> rebuilt = entries();
+
+        assertEquals(incremental.size(), rebuilt.size());
+        for (int i = 0; i < rebuilt.size(); i++) {
+            assertEquals(incremental.get(i).getId(), rebuilt.get(i).getId());
+            assertEquals(incremental.get(i).getLitres(), rebuilt.get(i).getLitres());
+            assertEquals(incremental.get(i).getOrders(), rebuilt.get(i).getOrders());
+            assertEquals(incremental.get(i).getReservedLitres(), rebuilt.get(i).getReservedLitres());
+            assertEquals(incremental.get(i).getDeliveryDate(), rebuilt.get(i).getDeliveryDate());
+        }
+    }
+}
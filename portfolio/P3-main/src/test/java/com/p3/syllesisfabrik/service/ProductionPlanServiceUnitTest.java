@@ -0,0 +1,123 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.ProductionPlanEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks how the plan compares the planned litres with the stock, on entries as the database
+ * returns them. ProductionPlanServiceTest covers keeping the entries up to date.
+ */
+public class ProductionPlanServiceUnitTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2026, 3, 2);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private ProductionPlanService productionPlanService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private static ProductionPlanEntry entry(LocalDate deliveryDate, String menuItemId, long litres, long reservedLitres) {
+        ProductionPlanEntry entry = new ProductionPlanEntry();
+        entry.setId(ProductionPlanEntry.keyOf(deliveryDate, menuItemId));
+        entry.setDeliveryDate(deliveryDate);
+        entry.setMenuItemId(menuItemId);
+        entry.setLitres(litres);
+        entry.setOrders(1);
+        entry.setReservedLitres(reservedLitres);
+        return entry;
+    }
+
+    private static MenuItem menuItem(String id, String title, int quantity) {
+        MenuItem menuItem = new MenuItem(title, "Test flavour", List.of(), quantity, quantity > 0, 50.0, null);
+        menuItem.setId(id);
+        return menuItem;
+    }
+
+    // The entries of the period are queried by delivery date, the entries of every day by flavour only
+    private void stub(List<ProductionPlanEntry> period, List<ProductionPlanEntry> allDays, List<MenuItem> menuItems) {
+        when(mongoTemplate.find(argThat((Query query) -> query != null && query.getQueryObject().containsKey("deliveryDate")),
+                eq(ProductionPlanEntry.class))).thenReturn(period);
+        when(mongoTemplate.find(argThat((Query query) -> query != null && !query.getQueryObject().containsKey("deliveryDate")),
+                eq(ProductionPlanEntry.class))).thenReturn(allDays);
+        when(mongoTemplate.find(any(Query.class), eq(MenuItem.class))).thenReturn(menuItems);
+    }
+
+    @Test
+    public void testLitresTakenForApprovedOrdersCountAsStock() {
+        ProductionPlanEntry monday = entry(MONDAY, "vanilla", 80, 80);
+        stub(List.of(monday), List.of(monday), List.of(menuItem("vanilla", "Vanilla, 5L", 20)));
+
+        ProductionPlanService.PlanLine line = productionPlanService.getPlan(MONDAY, MONDAY).get(0);
+
+        assertEquals(100, line.getInStock());
+        assertEquals(0, line.getShortfall());
+        assertFalse(line.isShortOfStock());
+    }
+
+    @Test
+    public void testShortfallAddsUpDaysBeforeAndInThePeriod() {
+        ProductionPlanEntry before = entry(MONDAY.minusDays(1), "vanilla", 30, 30);
+        ProductionPlanEntry monday = entry(MONDAY, "vanilla", 10, 10);
+        ProductionPlanEntry tuesday = entry(MONDAY.plusDays(1), "vanilla", 15, 0); // Approved before checkout took stock
+        stub(List.of(monday, tuesday), List.of(before, monday, tuesday), List.of(menuItem("vanilla", "Vanilla, 5L", 0)));
+
+        List<ProductionPlanService.PlanLine> plan = productionPlanService.getPlan(MONDAY, MONDAY.plusDays(1));
+
+        assertEquals(40, plan.get(0).getInStock());
+        assertEquals(0, plan.get(0).getShortfall(), "30 + 10 litres are covered by the 40 taken");
+        assertEquals(15, plan.get(1).getShortfall());
+    }
+
+    @Test
+    public void testFlavoursAreComparedWithTheirOwnStock() {
+        ProductionPlanEntry vanilla = entry(MONDAY, "vanilla", 10, 0);
+        ProductionPlanEntry mint = entry(MONDAY, "mint", 10, 0);
+        stub(List.of(mint, vanilla), List.of(mint, vanilla),
+                List.of(menuItem("vanilla", "Vanilla, 5L", 10), menuItem("mint", "Mint, 5L", 4)));
+
+        List<ProductionPlanService.PlanLine> plan = productionPlanService.getPlan(MONDAY, MONDAY);
+
+        assertEquals("Mint, 5L", plan.get(0).getTitle());
+        assertEquals(6, plan.get(0).getShortfall());
+        assertEquals(0, plan.get(1).getShortfall());
+    }
+
+    @Test
+    public void testDeletedFlavourHasOnlyTheLitresTakenForIt() {
+        ProductionPlanEntry monday = entry(MONDAY, "gone", 12, 5);
+        stub(List.of(monday), List.of(monday), List.of());
+
+        ProductionPlanService.PlanLine line = productionPlanService.getPlan(MONDAY, MONDAY).get(0);
+
+        assertEquals("Deleted flavour", line.getTitle());
+        assertEquals(5, line.getInStock());
+        assertEquals(7, line.getShortfall());
+    }
+
+    @Test
+    public void testEmptyPeriodSkipsTheStockLookup() {
+        stub(List.of(), List.of(), List.of());
+
+        assertTrue(productionPlanService.getPlan(MONDAY, MONDAY).isEmpty());
+    }
+}
@@ -0,0 +1,162 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.CartItem;
+import com.p3.syllesisfabrik.model.MenuItem;
+import com.p3.syllesisfabrik.model.StockReservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the stock reservation service against a real MongoDB, since the guarantees under
+ * test come from the database's atomic conditional updates.
+ */
+public class StockReservationServiceTest extends MongoServiceTestBase {
+
+    private StockReservationService stockReservationService;
+
+    @BeforeEach
+    public void setup() {
+        stockReservationService = stockReservationService(menuItemService());
+    }
+
+    private MenuItem createMenuItem(String title, int quantity) {
+        MenuItem menuItem = new MenuItem(title, "Test flavour", List.of(), quantity, quantity > 0, 50.0, null);
+        return mongoTemplate.save(menuItem);
+    }
+
+    private CartItem line(MenuItem menuItem, int quantity) {
+        return new CartItem(menuItem, null, quantity, quantity * menuItem.getPricePerLiter());
+    }
+
+    private MenuItem reload(MenuItem menuItem) {
+        return mongoTemplate.findById(menuItem.getId(), MenuItem.class);
+    }
+
+    @Test
+    public void testReserveCommitDeductsStock() {
+        MenuItem vanilla = createMenuItem("Vanilla, 5L", 10);
+
+        stockReservationService.reserve("order-1", List.of(line(vanilla, 4), line(vanilla, 2)));
+        MenuItem reserved = reload(vanilla);
+        assertEquals(4, reserved.getQuantity());
+        assertEquals(1, reserved.getPendingReservations().size());
+        assertEquals(6, reserved.getPendingReservations().get(0).getQuantity());
+
+        stockReservationService.commit("order-1");
+        MenuItem committed = reload(vanilla);
+        assertEquals(4, committed.getQuantity());
+        assertTrue(committed.getPendingReservations().isEmpty());
+    }
+
+    @Test
+    public void testReleaseRestoresStockAndAvailability() {
+        MenuItem chocolate = createMenuItem("Chocolate, 5L", 3);
+
+        stockReservationService.reserve("order-1", List.of(line(chocolate, 3)));
+        assertFalse(reload(chocolate).isAvailable(), "Item should be sold out while stock is reserved");
+
+        stockReservationService.release("order-1", List.of(line(chocolate, 3)));
+        stockReservationService.release("order-1", List.of(line(chocolate, 3)));
+
+        MenuItem released = reload(chocolate);
+        assertEquals(3, released.getQuantity(), "Releasing twice must not add stock twice");
+        assertTrue(released.isAvailable());
+    }
+
+    @Test
+    public void testFailedReservationLeavesNoPartialDeduction() {
+        MenuItem vanilla = createMenuItem("Vanilla, 5L", 10);
+        MenuItem pistachio = createMenuItem("Pistachio, 5L", 1);
+
+        StockReservationService.InsufficientStockException e = assertThrows(
+                StockReservationService.InsufficientStockException.class,
+                () -> stockReservationService.reserve("order-1", List.of(line(vanilla, 5), line(pistachio, 2))));
+
+        assertEquals("Pistachio, 5L", e.getMenuItemTitle());
+        assertEquals(10, reload(vanilla).getQuantity());
+        assertTrue(reload(vanilla).getPendingReservations().isEmpty());
+        assertEquals(1, reload(pistachio).getQuantity());
+    }
+
+    @Test
+    public void testBatchServesOrdersAfterAFailedOrderReleasesStock() {
+        MenuItem vanilla = createMenuItem("Vanilla, 5L", 3);
+        MenuItem mint = createMenuItem("Mint, 5L", 1);
+        Map<String, List<CartItem>> batch = new LinkedHashMap<>();
+        // The first order holds vanilla while the batch runs, then comes up short on mint
+        batch.put("order-1", List.of(line(vanilla, 2), line(mint, 5)));
+        batch.put("order-2", List.of(line(vanilla, 3)));
+        batch.put("order-3", List.of(line(mint, 2)));
+
+        Map<String, String> failed = stockReservationService.reserveAll(batch);
+
+        assertEquals(Map.of("order-1", "Mint, 5L", "order-3", "Mint, 5L"), failed);
+        MenuItem reservedVanilla = reload(vanilla);
+        assertEquals(0, reservedVanilla.getQuantity());
+        assertEquals(List.of("order-2"), reservedVanilla.getPendingReservations().stream()
+                .map(StockReservation::getOrderId).toList());
+        assertEquals(1, reload(mint).getQuantity());
+    }
+
+    @Test
+    public void testParallelApproversNeverOversell() throws Exception {
+        MenuItem vanilla = createMenuItem("Vanilla, 5L", 10);
+        MenuItem strawberry = createMenuItem("Strawberry, 5L", 100);
+
+        int approvers = 40;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < approvers; i++) {
+                String orderId = "order-" + i;
+                List<CartItem> cartItems = List.of(line(vanilla, 1), line(strawberry, 2));
+                Callable<Boolean> approve = () -> {
+                    start.await();
+                    try {
+                        stockReservationService.reserve(orderId, cartItems);
+                        stockReservationService.commit(orderId);
+                        return true;
+                    } catch (StockReservationService.InsufficientStockException e) {
+                        return false;
+                    }
+                };
+                results.add(executor.submit(approve));
+            }
+            start.countDown();
+
+            int approved = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    approved++;
+                }
+            }
+
+            MenuItem finalVanilla = reload(vanilla);
+            MenuItem finalStrawberry = reload(strawberry);
+
+            // Strawberry covers every order, so vanilla alone decides: exactly 10 orders fit
+            assertEquals(10, approved);
+            assertEquals(0, finalVanilla.getQuantity());
+            assertEquals(100 - 2 * approved, finalStrawberry.getQuantity());
+            assertFalse(finalVanilla.isAvailable());
+            assertTrue(finalVanilla.getPendingReservations().isEmpty());
+            assertTrue(finalStrawberry.getPendingReservations().isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
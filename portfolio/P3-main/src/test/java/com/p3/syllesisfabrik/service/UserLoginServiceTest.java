@@ -0,0 +1,86 @@
+package com.p3.syllesisfabrik.service;
+
+import com.p3.syllesisfabrik.model.UserLogin;
+import com.p3.syllesisfabrik.repository.UserLoginRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the company uniqueness rules against a real MongoDB, since they are enforced by
+ * unique indexes with a case-insensitive collation.
+ */
+public class UserLoginServiceTest extends MongoServiceTestBase {
+
+    private UserLoginService userLoginService;
+
+    @BeforeEach
+    public void setup() {
+        userLoginService = new UserLoginService();
+        ReflectionTestUtils.setField(userLoginService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(userLoginService, "userLoginRepository", repositories.getRepository(UserLoginRepository.class));
+        userLoginService.ensureUniqueIndexes();
+    }
+
+    private UserLogin company(String cvr, String name, String email, String phone) {
+        // Login codes are unique as well
+        return new UserLogin(cvr, name, email, cvr.substring(0, 6), "normal", phone, "Vestergade", "1", "9000", "Aalborg");
+    }
+
+    @Test
+    public void testDuplicateNameIsRejectedCaseInsensitively() {
+        userLoginService.saveUser(company("12345678", "Is Kiosken", "kiosk@example.com", "11111111"));
+
+        UserLoginService.DuplicateCompanyException e = assertThrows(UserLoginService.DuplicateCompanyException.class,
+                () -> userLoginService.saveUser(company("87654321", "IS KIOSKEN", "other@example.com", "22222222")));
+
+        assertEquals(EnumSet.of(UserLoginService.CompanyField.NAME), e.getConflicts());
+        assertEquals(1, mongoTemplate.count(new org.springframework.data.mongodb.core.query.Query(), UserLogin.class));
+    }
+
+    @Test
+    public void testFindConflictsReportsEveryCollidingField() {
+        userLoginService.saveUser(company("12345678", "Is Kiosken", "kiosk@example.com", "11111111"));
+
+        Set<UserLoginService.CompanyField> conflicts = userLoginService.findConflicts(
+                "Another Name", "KIOSK@example.com", "12345678", "99999999", null);
+
+        assertEquals(EnumSet.of(UserLoginService.CompanyField.CVR, UserLoginService.CompanyField.EMAIL), conflicts);
+    }
+
+    @Test
+    public void testEditingOwnProfileIsNotAConflict() {
+        UserLogin company = company("12345678", "Is Kiosken", "kiosk@example.com", "11111111");
+        userLoginService.saveUser(company);
+
+        company.setCity("Aarhus");
+        userLoginService.saveUser(company);
+
+        assertTrue(userLoginService.findConflicts("Is Kiosken", "kiosk@example.com", "12345678", "11111111", company.getId()).isEmpty());
+        assertEquals("Aarhus", userLoginService.findByCompanyName("Is Kiosken").getCity());
+    }
+
+    @Test
+    public void testCompaniesWithoutPhoneNumberDoNotCollide() {
+        userLoginService.saveUser(company("12345678", "First", "first@example.com", null));
+        userLoginService.saveUser(company("87654321", "Second", "second@example.com", null));
+
+        assertEquals(2, userLoginService.findAll().size());
+    }
+
+    @Test
+    public void testLoginCodesAreUnique() {
+        userLoginService.saveUser(company("12345678", "First", "first@example.com", "11111111"));
+        UserLogin second = company("87654321", "Second", "second@example.com", "22222222");
+        second.setLoginCode("123456");
+
+        assertThrows(DuplicateKeyException.class, () -> userLoginService.saveUser(second));
+        assertEquals("First", userLoginService.findByLoginCode("123456").getCompanyName());
+    }
+}
@@ -0,0 +1,63 @@
+package com.p3.syllesisfabrik.util;
+
+import com.p3.syllesisfabrik.model.UserLogin;
+import com.p3.syllesisfabrik.service.UserLoginService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class JwtUtilTest {
+
+    @Mock
+    private UserLoginService userLoginService;
+
+    @InjectMocks
+    private JwtUtil jwtUtil;
+
+    private UserLogin adminUser;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        adminUser = new UserLogin();
+        adminUser.setCompanyName("Syllesis Fabrik");
+        when(userLoginService.findByCompanyName("Syllesis Fabrik")).thenReturn(adminUser);
+    }
+
+    @Test
+    public void testAdminTokenStoredForTheAdminUserIsAccepted() {
+        String token = jwtUtil.generateToken("admin");
+        adminUser.setToken(token);
+
+        assertTrue(jwtUtil.isAdminToken(token));
+        assertNull(jwtUtil.adminTokenError(token));
+    }
+
+    @Test
+    public void testRevokedAdminTokenIsRefused() {
+        String token = jwtUtil.generateToken("admin");
+        adminUser.setToken(token);
+        assertTrue(jwtUtil.invalidateToken(token));
+
+        assertFalse(jwtUtil.isAdminToken(token));
+        assertEquals("Access denied. Invalid token.", jwtUtil.adminTokenError(token));
+    }
+
+    @Test
+    public void testTokenOfACompanyNamedAdminIsRefused() {
+        // The admin user is logged in with a token of its own
+        adminUser.setToken("token-of-the-admin-user");
+        // A company called "admin" gets a signed token with the same subject
+        String companyToken = jwtUtil.generateToken("admin");
+
+        assertTrue(jwtUtil.validateToken(companyToken, "admin"));
+        assertFalse(jwtUtil.isAdminToken(companyToken));
+        assertFalse(jwtUtil.isAdminToken(jwtUtil.generateToken("Kiosken")));
+        assertEquals("Access denied. Please log in with a valid token.", jwtUtil.adminTokenError(null));
+    }
+}
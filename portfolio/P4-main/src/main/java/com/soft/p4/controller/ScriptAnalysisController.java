@@ -0,0 +1,71 @@
+package com.soft.p4.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.soft.p4.hueScriptLanguage.analysis.ScriptAnalysis;
+import com.soft.p4.hueScriptLanguage.analysis.ScriptAnalyzer;
+import com.soft.p4.hueScriptLanguage.ast.ScriptNode;
+import com.soft.p4.hueScriptLanguage.exception.ParserException;
+import com.soft.p4.hueScriptLanguage.interpreter.HueScriptInterpreter;
+import com.soft.p4.hueScriptLanguage.parser.HueScriptParser;
+
+/**
+ * Dry-run analysis of scripts. Lets operators check run time and bridge load
+ * before a script is sent to the bridge.
+ */
+@RestController
+@RequestMapping("/api/script")
+public class ScriptAnalysisController {
+
+    private final HueScriptInterpreter interpreter;
+
+    @Autowired
+    public ScriptAnalysisController(HueScriptInterpreter interpreter) {
+        this.interpreter = interpreter;
+    }
+
+    @PostMapping("/analyze")
+    public ResponseEntity<?> analyzeScript(@RequestBody Map<String, String> request) {
+        String scriptContent = request.get("scriptContent");
+        if (scriptContent == null || scriptContent.trim().isEmpty()) {
+            return ResponseEntity.badRequest().body("Script content cannot be empty");
+        }
+
+        try {
+            // Parse against the interpreter's definitions without modifying them
+            HueScriptParser parser = new HueScriptParser();
+            parser.setStreaming(interpreter.isParserStreaming());
+            parser.setExistingVariables(interpreter.getVariables());
+            parser.setExistingScenes(interpreter.getScenes());
+            parser.setExistingGroups(interpreter.getGroups());
+
+            ScriptNode scriptNode = parser.parse(scriptContent);
+
+            ScriptAnalyzer analyzer = new ScriptAnalyzer(parser.getVariables(), parser.getScenes(), parser.getGroups());
+            ScriptAnalysis analysis = analyzer.analyze(scriptNode);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("overloaded", analysis.isOverloaded());
+            response.put("analysis", analysis);
+            return ResponseEntity.ok(response);
+        } catch (ParserException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", "❌ " + e.getMessage());
+            response.put("line", e.getLine());
+            response.put("position", e.getPosition());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Error analyzing script: " + e.getMessage());
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.soft.p4.hueScriptLanguage.exception.ParserException;
 import com.soft.p4.hueScriptLanguage.interpreter.HueScriptInterpreter;
 import com.soft.p4.service.HueBridgeService;
 import com.soft.p4.service.LightService;
+import com.soft.p4.service.MetricsService;
 
 @RestController
 @RequestMapping("/api/scripts")
@@ -34,6 +35,7 @@ public class ScriptController {
     // Track active SSE connections for real-time logging
     private final Map<String, SseEmitter> activeConnections = new ConcurrentHashMap<>();
     private final AtomicLong connectionIdCounter = new AtomicLong(0);
+    private MetricsService metricsService = new MetricsService();
 
     @Autowired
     public ScriptController(HueScriptInterpreter interpreter, HueBridgeService hueBridgeService, WebApplicationContext applicationContext) {
@@ -42,6 +44,13 @@ public class ScriptController {
         this.applicationContext = applicationContext;
     }
 
+    // Publishes queued runs and open log streams as gauges
+    @Autowired(required = false)
+    public void setMetricsService(MetricsService metricsService) {
+        this.metricsService = metricsService;
+        metricsService.registerSessions(activeConnections);
+    }
+
     // Synchronous execution endpoint for backward compatibility
     @PostMapping("/execute")
     public ResponseEntity<?> executeScript(@RequestBody Map<String, String> request) {
@@ -96,7 +105,9 @@ public class ScriptController {
             String connectionId = "script_" + connectionIdCounter.incrementAndGet();
 
             // Execute asynchronously with real-time logging
+            metricsService.runQueued();
             CompletableFuture.runAsync(() -> {
+                metricsService.runDequeued();
                 try {
                     interpreter.executeScriptWithCallback(scriptContent, true, (logMessage) -> {
                         sendLogToClient(connectionId, logMessage, false);
@@ -183,10 +194,17 @@ public class ScriptController {
     @PostMapping("/reset-state")
     public ResponseEntity<?> resetInterpreterState() {
         try {
-            // Create fresh interpreter instance
-            interpreter = new HueScriptInterpreter(
+            // Create fresh interpreter instance, keeping optimizer, parser and metrics settings
+            HueScriptInterpreter freshInterpreter = new HueScriptInterpreter(
                     applicationContext.getBean(LightService.class)
             );
+            freshInterpreter.setOptimizerEnabled(interpreter.isOptimizerEnabled());
+            freshInterpreter.setOptimizerDebug(interpreter.isOptimizerDebug());
+            freshInterpreter.setParserStreaming(interpreter.isParserStreaming());
+            if (interpreter.getMetricsService() != null) {
+                freshInterpreter.setMetricsService(interpreter.getMetricsService());
+            }
+            interpreter = freshInterpreter;
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Interpreter state reset successfully");
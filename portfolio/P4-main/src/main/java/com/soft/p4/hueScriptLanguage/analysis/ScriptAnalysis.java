@@ -0,0 +1,180 @@
+package com.soft.p4.hueScriptLanguage.analysis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Result of a static script analysis. Holds the estimated run time, bridge
+ * call volume per light and group, and any windows in which the script would
+ * exceed the Hue Bridge rate limits.
+ */
+public class ScriptAnalysis {
+
+    private final long estimatedDurationMs;
+    private final long totalBridgeCalls;
+    private final Map<String, TargetLoad> lights;
+    private final Map<String, TargetLoad> groups;
+    private final List<RateLimitViolation> violations;
+    private final List<String> warnings;
+
+    public ScriptAnalysis(long estimatedDurationMs, long totalBridgeCalls,
+            Map<String, TargetLoad> lights, Map<String, TargetLoad> groups,
+            List<RateLimitViolation> violations, List<String> warnings) {
+        this.estimatedDurationMs = estimatedDurationMs;
+        this.totalBridgeCalls = totalBridgeCalls;
+        this.lights = Collections.unmodifiableMap(new TreeMap<>(lights));
+        this.groups = Collections.unmodifiableMap(new TreeMap<>(groups));
+        this.violations = Collections.unmodifiableList(new ArrayList<>(violations));
+        this.warnings = Collections.unmodifiableList(new ArrayList<>(warnings));
+    }
+
+    public long getEstimatedDurationMs() {
+        return estimatedDurationMs;
+    }
+
+    public long getTotalBridgeCalls() {
+        return totalBridgeCalls;
+    }
+
+    /**
+     * @return Average bridge calls per second over the whole run
+     */
+    public double getAverageCallsPerSecond() {
+        return ratePerSecond(totalBridgeCalls, estimatedDurationMs);
+    }
+
+    /**
+     * @return Load per individual light, keyed by light id
+     */
+    public Map<String, TargetLoad> getLights() {
+        return lights;
+    }
+
+    /**
+     * @return Load per group, keyed by group name. Global commands are
+     * reported under the bridge group "all".
+     */
+    public Map<String, TargetLoad> getGroups() {
+        return groups;
+    }
+
+    public List<RateLimitViolation> getViolations() {
+        return violations;
+    }
+
+    public List<String> getWarnings() {
+        return warnings;
+    }
+
+    /**
+     * @return True if any one-second window exceeds a bridge rate limit
+     */
+    public boolean isOverloaded() {
+        return !violations.isEmpty();
+    }
+
+    static double ratePerSecond(long calls, long durationMs) {
+        if (calls == 0) {
+            return 0.0;
+        }
+        // Anything shorter than a second still lands inside a single window
+        double seconds = Math.max(1.0, durationMs / 1000.0);
+        return calls / seconds;
+    }
+
+    /**
+     * Bridge call statistics for a single light or group.
+     */
+    public static class TargetLoad {
+
+        private final long totalCalls;
+        private final int peakCallsPerSecond;
+        private final double averageCallsPerSecond;
+
+        public TargetLoad(long totalCalls, int peakCallsPerSecond, double averageCallsPerSecond) {
+            this.totalCalls = totalCalls;
+            this.peakCallsPerSecond = peakCallsPerSecond;
+            this.averageCallsPerSecond = averageCallsPerSecond;
+        }
+
+        public long getTotalCalls() {
+            return totalCalls;
+        }
+
+        public int getPeakCallsPerSecond() {
+            return peakCallsPerSecond;
+        }
+
+        public double getAverageCallsPerSecond() {
+            return averageCallsPerSecond;
+        }
+    }
+
+    /**
+     * A contiguous run of one-second windows in which calls to a bridge
+     * endpoint exceed its documented limit.
+     */
+    public static class RateLimitViolation {
+
+        private final String endpoint;
+        private final long startMs;
+        private final long endMs;
+        private final int peakCallsPerSecond;
+        private final int limitPerSecond;
+        private final int firstLine;
+        private final int lastLine;
+
+        public RateLimitViolation(String endpoint, long startMs, long endMs, int peakCallsPerSecond,
+                int limitPerSecond, int firstLine, int lastLine) {
+            this.endpoint = endpoint;
+            this.startMs = startMs;
+            this.endMs = endMs;
+            this.peakCallsPerSecond = peakCallsPerSecond;
+            this.limitPerSecond = limitPerSecond;
+            this.firstLine = firstLine;
+            this.lastLine = lastLine;
+        }
+
+        /**
+         * @return "lights" for per-light state calls, "groups" for group actions
+         */
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public long getStartMs() {
+            return startMs;
+        }
+
+        public long getEndMs() {
+            return endMs;
+        }
+
+        public int getPeakCallsPerSecond() {
+            return peakCallsPerSecond;
+        }
+
+        public int getLimitPerSecond() {
+            return limitPerSecond;
+        }
+
+        /**
+         * @return First script line issuing calls in this segment (-1 if
+         * unknown)
+         */
+        public int getFirstLine() {
+            return firstLine;
+        }
+
+        /**
+         * @return Last script line issuing calls in this segment (-1 if
+         * unknown)
+         */
+        public int getLastLine() {
+            return lastLine;
+        }
+    }
+}
@@ -0,0 +1,549 @@
+package com.soft.p4.hueScriptLanguage.analysis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soft.p4.hueScriptLanguage.analysis.ScriptAnalysis.RateLimitViolation;
+import com.soft.p4.hueScriptLanguage.analysis.ScriptAnalysis.TargetLoad;
+import com.soft.p4.hueScriptLanguage.ast.NodeVisitor;
+import com.soft.p4.hueScriptLanguage.ast.ScriptNode;
+import com.soft.p4.hueScriptLanguage.ast.command.Command;
+import com.soft.p4.hueScriptLanguage.ast.command.all.BrightnessCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.ColorCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.LightCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.RepeatCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.SceneCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.SceneInvocationCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.TransitionCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.VariableInvocationCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.WaitCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.group.GroupBrightnessCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.group.GroupColorCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.group.GroupDefineCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.group.GroupLightCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.group.GroupTransitionCommand;
+
+/**
+ * Statically analyzes a parsed script without touching the bridge. Walks the
+ * AST on a simulated clock that mirrors the interpreter's timing (waits,
+ * transitions, count and time-based repeats, scene and variable expansion) and
+ * records every bridge call it would make, so run time and per-second load can
+ * be checked before a script is executed.
+ */
+public class ScriptAnalyzer implements NodeVisitor {
+
+    // Assumed round trip for a single bridge request
+    public static final long DEFAULT_CALL_LATENCY_MS = 50;
+
+    // Hue Bridge guidance: ~10 light state commands/sec, 1 group command/sec
+    public static final int LIGHTS_LIMIT_PER_SECOND = 10;
+    public static final int GROUPS_LIMIT_PER_SECOND = 1;
+
+    // Bridge group used by global commands (groups/0)
+    public static final String ALL_LIGHTS_GROUP = "all";
+
+    static final String LIGHTS_ENDPOINT = "lights";
+    static final String GROUPS_ENDPOINT = "groups";
+
+    // Transition timing as implemented by LightService
+    private static final long MIN_TRANSITION_MS = 700;
+    private static final long TRANSITION_PRIME_MS = 300;
+
+    // Loops are simulated for a few iterations, then extrapolated
+    private static final int MIN_SIMULATED_ITERATIONS = 4;
+    private static final long MIN_SIMULATED_WINDOW_MS = 3000;
+    private static final long MAX_SIMULATED_CALLS = 200_000;
+
+    private final Map<String, String> variables;
+    private final Map<String, SceneCommand> scenes;
+    private final Map<String, List<String>> groups;
+    private final long callLatencyMs;
+
+    private long clock;
+    private long totalCalls;
+    private long simulatedCalls;
+    private int currentLine;
+    private final Map<String, Long> lightTotals = new HashMap<>();
+    private final Map<String, Long> groupTotals = new HashMap<>();
+    private final Map<String, Map<Long, Integer>> lightBuckets = new HashMap<>();
+    private final Map<String, Map<Long, Integer>> groupBuckets = new HashMap<>();
+    private final Map<String, TreeMap<Long, Window>> endpointWindows = new HashMap<>();
+    private final Set<String> warnings = new LinkedHashSet<>();
+    private final Deque<String> sceneStack = new ArrayDeque<>();
+    private String activeGroup;
+
+    public ScriptAnalyzer(Map<String, String> variables, Map<String, SceneCommand> scenes,
+            Map<String, List<String>> groups) {
+        this(variables, scenes, groups, DEFAULT_CALL_LATENCY_MS);
+    }
+
+    /**
+     * @param variables Variables visible to the script
+     * @param scenes Scenes visible to the script
+     * @param groups Light groups visible to the script
+     * @param callLatencyMs Assumed duration of one bridge request
+     */
+    public ScriptAnalyzer(Map<String, String> variables, Map<String, SceneCommand> scenes,
+            Map<String, List<String>> groups, long callLatencyMs) {
+        this.variables = variables != null ? new HashMap<>(variables) : new HashMap<>();
+        this.scenes = scenes != null ? new HashMap<>(scenes) : new HashMap<>();
+        this.groups = groups != null ? new HashMap<>(groups) : new HashMap<>();
+        this.callLatencyMs = Math.max(0, callLatencyMs);
+    }
+
+    /**
+     * Simulates the script and returns its estimated duration and bridge load.
+     */
+    public ScriptAnalysis analyze(ScriptNode script) {
+        clock = 0;
+        totalCalls = 0;
+        simulatedCalls = 0;
+        currentLine = -1;
+        lightTotals.clear();
+        groupTotals.clear();
+        lightBuckets.clear();
+        groupBuckets.clear();
+        endpointWindows.clear();
+        warnings.clear();
+        sceneStack.clear();
+        activeGroup = null;
+
+        script.accept(this);
+
+        Map<String, TargetLoad> lights = summarize(lightTotals, lightBuckets);
+        Map<String, TargetLoad> groupLoads = summarize(groupTotals, groupBuckets);
+
+        List<RateLimitViolation> violations = new ArrayList<>();
+        violations.addAll(findViolations(LIGHTS_ENDPOINT, LIGHTS_LIMIT_PER_SECOND));
+        violations.addAll(findViolations(GROUPS_ENDPOINT, GROUPS_LIMIT_PER_SECOND));
+        violations.sort((a, b) -> Long.compare(a.getStartMs(), b.getStartMs()));
+
+        return new ScriptAnalysis(clock, totalCalls, lights, groupLoads, violations, new ArrayList<>(warnings));
+    }
+
+    @Override
+    public void visit(ScriptNode node) {
+        for (Command command : node.getCommands()) {
+            command.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(LightCommand node) {
+        trackLine(node.getLineNumber());
+        recordCall(node.isGlobal() ? null : node.getLightId());
+    }
+
+    @Override
+    public void visit(BrightnessCommand node) {
+        trackLine(node.getLineNumber());
+        recordCall(node.isGlobal() ? null : node.getLightId());
+    }
+
+    @Override
+    public void visit(ColorCommand node) {
+        trackLine(node.getLineNumber());
+        recordCall(node.isGlobal() ? null : node.getLightId());
+    }
+
+    @Override
+    public void visit(TransitionCommand node) {
+        trackLine(node.getLineNumber());
+        simulateTransition(node.isGlobal() ? null : node.getLightId(), node.getDurationInMillis());
+    }
+
+    @Override
+    public void visit(WaitCommand node) {
+        trackLine(node.getLineNumber());
+        clock += node.getDurationInMillis();
+    }
+
+    @Override
+    public void visit(RepeatCommand node) {
+        trackLine(node.getLineNumber());
+        if (node.isTimeBased()) {
+            simulateTimedRepeat(node);
+        } else {
+            simulateCountedRepeat(node);
+        }
+    }
+
+    @Override
+    public void visit(SceneCommand node) {
+        // Definitions are registered by the parser and cost nothing to run
+    }
+
+    @Override
+    public void visit(SceneInvocationCommand node) {
+        trackLine(node.getLineNumber());
+        String sceneName = node.getSceneName();
+        SceneCommand scene = scenes.get(sceneName);
+
+        if (scene == null) {
+            warnings.add("Scene '" + sceneName + "' not found at line " + node.getLineNumber());
+            return;
+        }
+        if (sceneStack.contains(sceneName)) {
+            warnings.add("Scene '" + sceneName + "' invokes itself at line " + node.getLineNumber());
+            return;
+        }
+
+        sceneStack.push(sceneName);
+        try {
+            for (Command cmd : scene.getCommands()) {
+                cmd.accept(this);
+            }
+        } finally {
+            sceneStack.pop();
+        }
+    }
+
+    @Override
+    public void visit(VariableInvocationCommand node) {
+        trackLine(node.getLineNumber());
+        String variableName = node.getVariableName();
+        String value = variables.get(variableName);
+
+        if (value == null) {
+            warnings.add("Variable '" + variableName + "' not found at line " + node.getLineNumber());
+            return;
+        }
+
+        // Same resolution order as the interpreter: transition, brightness, color
+        try {
+            JsonNode jsonNode = new ObjectMapper().readTree(value);
+            JsonNode transition = jsonNode.get("transition");
+            if (transition != null) {
+                simulateTransition(null, transition.path("duration").asLong());
+                return;
+            }
+        } catch (Exception e) {
+            // Not JSON, continue with other formats
+        }
+
+        recordCall(null);
+    }
+
+    @Override
+    public void visit(GroupDefineCommand node) {
+        groups.put(node.getName(), node.getLightIds());
+    }
+
+    @Override
+    public void visit(GroupLightCommand node) {
+        trackLine(node.getLineNumber());
+        forEachGroupLight(node.getGroupName(), node.getLineNumber(), lightId -> recordCall(lightId));
+    }
+
+    @Override
+    public void visit(GroupBrightnessCommand node) {
+        trackLine(node.getLineNumber());
+        forEachGroupLight(node.getGroupName(), node.getLineNumber(), lightId -> recordCall(lightId));
+    }
+
+    @Override
+    public void visit(GroupColorCommand node) {
+        trackLine(node.getLineNumber());
+        forEachGroupLight(node.getGroupName(), node.getLineNumber(), lightId -> recordCall(lightId));
+    }
+
+    @Override
+    public void visit(GroupTransitionCommand node) {
+        trackLine(node.getLineNumber());
+        long durationMs = node.getDurationInMillis();
+        forEachGroupLight(node.getGroupName(), node.getLineNumber(),
+                lightId -> simulateTransition(lightId, durationMs));
+    }
+
+    /**
+     * Group commands are expanded into sequential per-light calls, matching
+     * the interpreter.
+     */
+    private void forEachGroupLight(String groupName, int lineNumber, Consumer<String> action) {
+        List<String> lightIds = groups.get(groupName);
+        if (lightIds == null) {
+            warnings.add("Group '" + groupName + "' not found at line " + lineNumber);
+            return;
+        }
+
+        String previousGroup = activeGroup;
+        activeGroup = groupName;
+        try {
+            for (String lightId : lightIds) {
+                action.accept(lightId);
+            }
+        } finally {
+            activeGroup = previousGroup;
+        }
+    }
+
+    private void simulateCountedRepeat(RepeatCommand node) {
+        int times = node.getTimes();
+        long loopStart = clock;
+        int simulated = 0;
+        long iterationMs = 0;
+
+        Counters before = null;
+        while (simulated < times && keepSimulating(simulated, loopStart, iterationMs)) {
+            before = snapshot();
+            long iterationStart = clock;
+            for (Command command : node.getCommands()) {
+                command.accept(this);
+            }
+            iterationMs = clock - iterationStart;
+            simulated++;
+        }
+
+        int remaining = times - simulated;
+        if (remaining > 0 && before != null) {
+            extrapolate(before, snapshot(), remaining);
+            clock += iterationMs * remaining;
+        }
+    }
+
+    /**
+     * Follows the interpreter: a new iteration starts while time remains and
+     * commands inside the body are skipped once the window has closed.
+     */
+    private void simulateTimedRepeat(RepeatCommand node) {
+        long loopStart = clock;
+        long endTime = clock + node.getDuration();
+        long iterations = 0;
+        long lastIterationMs = 0;
+        Counters lastBefore = null;
+        Counters lastAfter = null;
+
+        while (clock < endTime) {
+            if (!keepSimulating(iterations, loopStart, lastIterationMs) && lastIterationMs > 0) {
+                long fullIterations = (endTime - clock) / lastIterationMs;
+                if (fullIterations > 0) {
+                    extrapolate(lastBefore, lastAfter, fullIterations);
+                    clock += lastIterationMs * fullIterations;
+                    iterations += fullIterations;
+                    continue;
+                }
+            }
+
+            lastBefore = snapshot();
+            long iterationStart = clock;
+            for (Command command : node.getCommands()) {
+                if (clock >= endTime) {
+                    break;
+                }
+                command.accept(this);
+            }
+            lastAfter = snapshot();
+            lastIterationMs = clock - iterationStart;
+            iterations++;
+
+            if (lastIterationMs == 0) {
+                warnings.add("Repeat block at line " + node.getLineNumber()
+                        + " takes no time per iteration and will busy-loop for "
+                        + node.getDuration() + " ms");
+                clock = endTime;
+                break;
+            }
+        }
+    }
+
+    private void simulateTransition(String lightId, long durationMs) {
+        long actualDurationMs = Math.max(MIN_TRANSITION_MS, durationMs);
+        recordCall(lightId);
+        clock += TRANSITION_PRIME_MS;
+        recordCall(lightId);
+        clock += actualDurationMs - TRANSITION_PRIME_MS;
+    }
+
+    /**
+     * Records one bridge request at the current simulated time. A null light
+     * id means a global command sent to bridge group 0.
+     */
+    private void recordCall(String lightId) {
+        long second = clock / 1000;
+        String endpoint;
+
+        if (lightId == null) {
+            endpoint = GROUPS_ENDPOINT;
+            count(groupTotals, groupBuckets, ALL_LIGHTS_GROUP, second);
+        } else {
+            endpoint = LIGHTS_ENDPOINT;
+            count(lightTotals, lightBuckets, lightId, second);
+        }
+        if (activeGroup != null) {
+            count(groupTotals, groupBuckets, activeGroup, second);
+        }
+
+        Window window = endpointWindows
+                .computeIfAbsent(endpoint, k -> new TreeMap<>())
+                .computeIfAbsent(second, k -> new Window());
+        window.add(currentLine);
+
+        totalCalls++;
+        simulatedCalls++;
+        clock += callLatencyMs;
+    }
+
+    private void count(Map<String, Long> totals, Map<String, Map<Long, Integer>> buckets, String key, long second) {
+        totals.merge(key, 1L, Long::sum);
+        buckets.computeIfAbsent(key, k -> new HashMap<>()).merge(second, 1, Integer::sum);
+    }
+
+    private void trackLine(int lineNumber) {
+        if (lineNumber >= 0) {
+            currentLine = lineNumber;
+        }
+    }
+
+    /**
+     * Decides whether a loop needs another simulated iteration. Loops run for
+     * a few iterations and at least a couple of simulated seconds so that the
+     * per-second windows reflect the steady state, unless the overall call
+     * budget is spent or the body takes no time.
+     */
+    private boolean keepSimulating(long iterationsDone, long loopStart, long lastIterationMs) {
+        if (iterationsDone == 0) {
+            return true;
+        }
+        if (simulatedCalls >= MAX_SIMULATED_CALLS) {
+            return false;
+        }
+        return iterationsDone < MIN_SIMULATED_ITERATIONS
+                || (lastIterationMs > 0 && clock - loopStart < MIN_SIMULATED_WINDOW_MS);
+    }
+
+    private Counters snapshot() {
+        return new Counters(totalCalls, new HashMap<>(lightTotals), new HashMap<>(groupTotals));
+    }
+
+    /**
+     * Adds the call counts of one measured iteration for iterations that were
+     * not simulated. Per-second peaks come from the simulated iterations only,
+     * which is exact for the periodic bodies repeats produce.
+     */
+    private void extrapolate(Counters before, Counters after, long factor) {
+        totalCalls += (after.calls - before.calls) * factor;
+        addDelta(lightTotals, before.lights, after.lights, factor);
+        addDelta(groupTotals, before.groups, after.groups, factor);
+    }
+
+    private void addDelta(Map<String, Long> totals, Map<String, Long> before, Map<String, Long> after, long factor) {
+        for (Map.Entry<String, Long> entry : after.entrySet()) {
+            long delta = entry.getValue() - before.getOrDefault(entry.getKey(), 0L);
+            if (delta > 0) {
+                totals.merge(entry.getKey(), delta * factor, Long::sum);
+            }
+        }
+    }
+
+    private Map<String, TargetLoad> summarize(Map<String, Long> totals, Map<String, Map<Long, Integer>> buckets) {
+        Map<String, TargetLoad> result = new HashMap<>();
+        for (Map.Entry<String, Long> entry : totals.entrySet()) {
+            int peak = 0;
+            for (int callsInSecond : buckets.getOrDefault(entry.getKey(), Map.of()).values()) {
+                peak = Math.max(peak, callsInSecond);
+            }
+            result.put(entry.getKey(), new TargetLoad(entry.getValue(), peak,
+                    ScriptAnalysis.ratePerSecond(entry.getValue(), clock)));
+        }
+        return result;
+    }
+
+    /**
+     * Merges adjacent over-limit seconds into segments.
+     */
+    private List<RateLimitViolation> findViolations(String endpoint, int limit) {
+        List<RateLimitViolation> violations = new ArrayList<>();
+        TreeMap<Long, Window> windows = endpointWindows.get(endpoint);
+        if (windows == null) {
+            return violations;
+        }
+
+        long segmentStart = -1;
+        long previousSecond = -1;
+        Window segment = null;
+
+        for (Map.Entry<Long, Window> entry : windows.entrySet()) {
+            long second = entry.getKey();
+            Window window = entry.getValue();
+            if (window.count <= limit) {
+                continue;
+            }
+
+            if (segment != null && second != previousSecond + 1) {
+                violations.add(toViolation(endpoint, segmentStart, previousSecond, segment, limit));
+                segment = null;
+            }
+            if (segment == null) {
+                segment = new Window();
+                segmentStart = second;
+            }
+            segment.merge(window);
+            previousSecond = second;
+        }
+
+        if (segment != null) {
+            violations.add(toViolation(endpoint, segmentStart, previousSecond, segment, limit));
+        }
+        return violations;
+    }
+
+    private RateLimitViolation toViolation(String endpoint, long firstSecond, long lastSecond, Window segment, int limit) {
+        return new RateLimitViolation(endpoint, firstSecond * 1000, (lastSecond + 1) * 1000,
+                segment.peak, limit, segment.firstLine, segment.lastLine);
+    }
+
+    /**
+     * Calls issued within one simulated second (or a merged segment of them).
+     */
+    private static class Window {
+
+        int count;
+        int peak;
+        int firstLine = -1;
+        int lastLine = -1;
+
+        void add(int line) {
+            count++;
+            peak = count;
+            includeLine(line);
+        }
+
+        void merge(Window other) {
+            count += other.count;
+            peak = Math.max(peak, other.count);
+            includeLine(other.firstLine);
+            includeLine(other.lastLine);
+        }
+
+        private void includeLine(int line) {
+            if (line < 0) {
+                return;
+            }
+            firstLine = firstLine < 0 ? line : Math.min(firstLine, line);
+            lastLine = Math.max(lastLine, line);
+        }
+    }
+
+    private static class Counters {
+
+        final long calls;
+        final Map<String, Long> lights;
+        final Map<String, Long> groups;
+
+        Counters(long calls, Map<String, Long> lights, Map<String, Long> groups) {
+            this.calls = calls;
+            this.lights = lights;
+            this.groups = groups;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -28,8 +30,12 @@ import com.soft.p4.hueScriptLanguage.ast.command.group.GroupDefineCommand;
 import com.soft.p4.hueScriptLanguage.ast.command.group.GroupLightCommand;
 import com.soft.p4.hueScriptLanguage.ast.command.group.GroupTransitionCommand;
 import com.soft.p4.hueScriptLanguage.exception.ParserException;
+import com.soft.p4.hueScriptLanguage.optimizer.OptimizedScript;
+import com.soft.p4.hueScriptLanguage.optimizer.ScriptOptimizer;
+import com.soft.p4.hueScriptLanguage.optimizer.ScriptPrinter;
 import com.soft.p4.hueScriptLanguage.parser.HueScriptParser;
 import com.soft.p4.service.LightService;
+import com.soft.p4.service.MetricsService;
 
 /**
  * Executes Hue script AST by visiting nodes and translating commands to Hue
@@ -59,6 +65,17 @@ public class HueScriptInterpreter implements NodeVisitor {
     private static final int BLINK_COUNT = 3;
     private static final int BLINK_DURATION_MS = 500;
 
+    // AST optimization between parsing and execution
+    private boolean optimizerEnabled = false;
+    private boolean optimizerDebug = false;
+
+    // Lex lazily while parsing instead of buffering all tokens first
+    private boolean parserStreaming = false;
+
+    // Run timing split into bridge, pause and interpreter time
+    private MetricsService metricsService = new MetricsService();
+    private MetricsService.ScriptRun currentRun = null;
+
     private final LightService lightService;
 
     public HueScriptInterpreter(LightService lightService) {
@@ -87,6 +104,51 @@ public class HueScriptInterpreter implements NodeVisitor {
         groups.put(name, lightIds);
     }
 
+    /**
+     * Enables the optimizer that removes redundant commands before execution.
+     */
+    @Value("${huescript.optimizer.enabled:false}")
+    public void setOptimizerEnabled(boolean optimizerEnabled) {
+        this.optimizerEnabled = optimizerEnabled;
+    }
+
+    /**
+     * When enabled, the optimized script is printed to the execution log.
+     */
+    @Value("${huescript.optimizer.debug:false}")
+    public void setOptimizerDebug(boolean optimizerDebug) {
+        this.optimizerDebug = optimizerDebug;
+    }
+
+    /**
+     * Enables streaming parsing, where tokens are lexed on demand.
+     */
+    @Value("${huescript.parser.streaming:false}")
+    public void setParserStreaming(boolean parserStreaming) {
+        this.parserStreaming = parserStreaming;
+    }
+
+    @Autowired(required = false)
+    public void setMetricsService(MetricsService metricsService) {
+        this.metricsService = metricsService;
+    }
+
+    public MetricsService getMetricsService() {
+        return metricsService;
+    }
+
+    public boolean isOptimizerEnabled() {
+        return optimizerEnabled;
+    }
+
+    public boolean isOptimizerDebug() {
+        return optimizerDebug;
+    }
+
+    public boolean isParserStreaming() {
+        return parserStreaming;
+    }
+
     public String executeScript(String scriptContent) {
         return executeScript(scriptContent, true);
     }
@@ -105,6 +167,9 @@ public class HueScriptInterpreter implements NodeVisitor {
      * @return Complete execution log
      */
     public String executeScriptWithCallback(String scriptContent, boolean showFeedback, Consumer<String> callback) {
+        MetricsService.ScriptRun run = metricsService.startRun();
+        currentRun = run;
+        Exception failure = null;
         try {
             log.setLength(0);
             isCancelled.set(false);
@@ -112,6 +177,7 @@ public class HueScriptInterpreter implements NodeVisitor {
             this.logCallback = callback;
 
             HueScriptParser parser = new HueScriptParser();
+            parser.setStreaming(parserStreaming);
             parser.setExistingVariables(variables);
             parser.setExistingScenes(scenes);
             parser.setExistingGroups(groups);
@@ -122,6 +188,10 @@ public class HueScriptInterpreter implements NodeVisitor {
             this.scenes.putAll(parser.getScenes());
             this.groups.putAll(parser.getGroups());
 
+            if (optimizerEnabled) {
+                scriptNode = optimize(scriptNode, parser.getScenes());
+            }
+
             for (SceneCommand scene : parser.getScenes().values()) {
                 scene.accept(this);
             }
@@ -132,12 +202,18 @@ public class HueScriptInterpreter implements NodeVisitor {
                 showExecutionFeedback(true);
             }
 
+            appendLog(String.format("📊 Run time: %d ms total, %d ms bridge, %d ms waits, %d ms interpreter%n",
+                    toMillis(run.getTotalNanos()), toMillis(run.getBridgeNanos()),
+                    toMillis(run.getPauseNanos()), toMillis(run.getInterpreterNanos())));
+
             String completionMessage = "✅ Script execution completed successfully\n";
             appendLog(completionMessage);
             return log.toString();
         } catch (Exception e) {
+            failure = e;
             String errorMessage;
             if (e instanceof ParserException) {
+                metricsService.recordError(MetricsService.PARSE_ERROR);
                 // Log error but re-throw to preserve detailed error info in controller
                 errorMessage = "❌ " + e.getMessage() + "\n";
                 appendLog(errorMessage);
@@ -150,6 +226,7 @@ public class HueScriptInterpreter implements NodeVisitor {
                 throw e;
             } else {
                 // Handle runtime errors normally
+                metricsService.recordError(MetricsService.EXECUTION_ERROR);
                 errorMessage = "❌ Execution error: " + e.getMessage() + "\n";
 
                 // Include cause details if available
@@ -167,9 +244,58 @@ public class HueScriptInterpreter implements NodeVisitor {
             }
         } finally {
             this.logCallback = null;
+            currentRun = null;
+            run.finish(failure);
         }
     }
 
+    /**
+     * Executes a single command and records its duration by command type.
+     * Time spent in waits and transition fades, minus bridge requests made
+     * meanwhile, counts as deliberate pause time for the run.
+     */
+    private void execute(Command command) {
+        MetricsService.ScriptRun run = currentRun;
+        if (run == null) {
+            command.accept(this);
+            return;
+        }
+
+        long start = System.nanoTime();
+        long bridgeStart = run.getBridgeNanos();
+        try {
+            command.accept(this);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            run.recordCommand(command.getClass().getSimpleName(), elapsed);
+            if (command instanceof WaitCommand || command instanceof TransitionCommand
+                    || command instanceof GroupTransitionCommand) {
+                run.recordPause(elapsed - (run.getBridgeNanos() - bridgeStart));
+            }
+        }
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos / 1_000_000;
+    }
+
+    /**
+     * Rewrites the parsed script and its new scenes into equivalent ones with
+     * fewer bridge calls. Runs after definitions are merged so variables and
+     * groups resolve exactly as they will during execution.
+     */
+    private ScriptNode optimize(ScriptNode scriptNode, Map<String, SceneCommand> newScenes) {
+        OptimizedScript optimized = new ScriptOptimizer(variables, groups).optimize(scriptNode, newScenes);
+        this.scenes.putAll(optimized.getScenes());
+
+        if (optimizerDebug) {
+            appendLog("🛠️ Optimized script (" + optimized.getOriginalCommandCount() + " → "
+                    + optimized.getOptimizedCommandCount() + " commands):\n"
+                    + new ScriptPrinter().print(optimized.getScript(), optimized.getScenes()));
+        }
+        return optimized.getScript();
+    }
+
     /**
      * Appends message to log and notifies real-time callback if registered.
      */
@@ -185,6 +311,9 @@ public class HueScriptInterpreter implements NodeVisitor {
      * previous light state.
      */
     private void showExecutionFeedback(boolean success) {
+        MetricsService.ScriptRun run = currentRun;
+        long start = System.nanoTime();
+        long bridgeStart = run != null ? run.getBridgeNanos() : 0;
         try {
             boolean originalLightState = lastKnownLightState;
             String originalColor = lastKnownColor;
@@ -232,6 +361,11 @@ public class HueScriptInterpreter implements NodeVisitor {
             } catch (Exception restoreException) {
                 appendLog("⚠️ Failed to restore lights: " + restoreException.getMessage() + "\n");
             }
+        } finally {
+            // Blink delays are deliberate pauses, not interpreter overhead
+            if (run != null) {
+                run.recordPause(System.nanoTime() - start - (run.getBridgeNanos() - bridgeStart));
+            }
         }
     }
 
@@ -242,7 +376,7 @@ public class HueScriptInterpreter implements NodeVisitor {
                 appendLog("⛔ Execution cancelled\n");
                 break;
             }
-            command.accept(this);
+            execute(command);
         }
     }
 
@@ -360,7 +494,7 @@ public class HueScriptInterpreter implements NodeVisitor {
                         if (isCancelled.get() || System.currentTimeMillis() >= endTime) {
                             break;
                         }
-                        command.accept(this);
+                        execute(command);
                     }
                 }
 
@@ -381,7 +515,7 @@ public class HueScriptInterpreter implements NodeVisitor {
                         if (isCancelled.get()) {
                             break;
                         }
-                        command.accept(this);
+                        execute(command);
                     }
                 }
 
@@ -437,7 +571,7 @@ public class HueScriptInterpreter implements NodeVisitor {
                 appendLog("⛔ Execution cancelled\n");
                 break;
             }
-            cmd.accept(this);
+            execute(cmd);
         }
 
         appendLog("✅ Scene '" + sceneName + "' execution completed\n");
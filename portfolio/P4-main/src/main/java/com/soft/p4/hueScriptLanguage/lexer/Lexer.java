@@ -1,125 +1,69 @@
 package com.soft.p4.hueScriptLanguage.lexer;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import com.soft.p4.hueScriptLanguage.exception.ParserException;
 
 /**
  * Lexical analyzer for the Hue script language. Breaks input text into tokens
- * using regex patterns and keyword matching. Preserves pattern matching order
- * to ensure correct token precedence. Handles keywords, literals, and special
- * tokens.
+ * with a single-pass character scanner and keyword matching. Handles keywords,
+ * literals, and special tokens.
+ *
+ * Offers three views of the same token sequence: a list of Token objects, a
+ * compact TokenBuffer for whole-script parsing, and a lazy TokenStream that
+ * scans only as far as the parser has read.
  */
 public class Lexer {
 
-    private static final Map<Pattern, TokenType> PATTERNS = new LinkedHashMap<>();
-    private static final Map<String, TokenType> KEYWORDS = new HashMap<>();
-
-    static {
-        // Core language keywords
-        KEYWORDS.put("lights", TokenType.LIGHTS);
-        KEYWORDS.put("light", TokenType.LIGHT);
-        KEYWORDS.put("group", TokenType.GROUP);
-        KEYWORDS.put("on", TokenType.ON);
-        KEYWORDS.put("off", TokenType.OFF);
-        KEYWORDS.put("brightness", TokenType.BRIGHTNESS);
-        KEYWORDS.put("color", TokenType.COLOR);
-        KEYWORDS.put("wait", TokenType.WAIT);
-        KEYWORDS.put("repeat", TokenType.REPEAT);
-        KEYWORDS.put("times", TokenType.TIMES);
-        KEYWORDS.put("for", TokenType.FOR);
-        KEYWORDS.put("transition", TokenType.TRANSITION);
-        KEYWORDS.put("to", TokenType.TO);
-
-        // Variable and scene support
-        KEYWORDS.put("var", TokenType.VAR);
-        KEYWORDS.put("scene", TokenType.SCENE);
-        KEYWORDS.put("define", TokenType.DEFINE);
-
-        // Time unit keywords
-        KEYWORDS.put("sec", TokenType.SEC);
-        KEYWORDS.put("min", TokenType.MIN);
-        KEYWORDS.put("hr", TokenType.HR);
-        KEYWORDS.put("ms", TokenType.MS);
-        KEYWORDS.put("seconds", TokenType.SECONDS);
-        KEYWORDS.put("minutes", TokenType.MINUTES);
-        KEYWORDS.put("hours", TokenType.HOURS);
-        KEYWORDS.put("second", TokenType.SECOND);
-        KEYWORDS.put("minute", TokenType.MINUTE);
-        KEYWORDS.put("hour", TokenType.HOUR);
-        KEYWORDS.put("milliseconds", TokenType.MILLISECONDS);
-        KEYWORDS.put("millisecond", TokenType.MILLISECOND);
-
-        // Token patterns in precedence order
-        PATTERNS.put(Pattern.compile("^\\{"), TokenType.LEFT_BRACE);
-        PATTERNS.put(Pattern.compile("^\\}"), TokenType.RIGHT_BRACE);
-        PATTERNS.put(Pattern.compile("^\\s+"), TokenType.WHITESPACE);
-        PATTERNS.put(Pattern.compile("^\"[^\"]*\""), TokenType.STRING);
-        PATTERNS.put(Pattern.compile("^//.*"), TokenType.COMMENT);
-        PATTERNS.put(Pattern.compile("^;"), TokenType.SEMICOLON);
-        PATTERNS.put(Pattern.compile("^\\d+"), TokenType.NUMBER);
-        PATTERNS.put(Pattern.compile("^="), TokenType.ASSIGN);
-        PATTERNS.put(Pattern.compile("^[a-zA-Z_][a-zA-Z0-9_]*"), TokenType.IDENTIFIER);
-    }
-
     /**
      * Tokenizes a script into a sequence of tokens. Processes input line by
-     * line, matching patterns in order of precedence. Identifiers are checked
-     * against keywords for potential token type remapping.
+     * line, skipping whitespace and comments. Identifiers are checked against
+     * keywords for potential token type remapping.
      *
      * @param script The input script text
      * @return List of tokens, ending with EOF
      * @throws ParserException if an invalid character is encountered
      */
     public List<Token> tokenize(String script) {
-        List<Token> tokens = new ArrayList<>();
-        String[] lines = script.split("\n");
-
-        for (int lineNum = 0; lineNum < lines.length; lineNum++) {
-            String line = lines[lineNum].trim();
-            if (line.isEmpty()) {
-                continue;
-            }
-
-            int position = 0;
-            while (position < line.length()) {
-                boolean matched = false;
-
-                for (Map.Entry<Pattern, TokenType> entry : PATTERNS.entrySet()) {
-                    Matcher matcher = entry.getKey().matcher(line.substring(position));
-
-                    if (matcher.find()) {
-                        String value = matcher.group();
-                        TokenType type = entry.getValue();
-
-                        if (type == TokenType.IDENTIFIER && KEYWORDS.containsKey(value.toLowerCase())) {
-                            type = KEYWORDS.get(value.toLowerCase());
-                        }
-
-                        if (type != TokenType.WHITESPACE && type != TokenType.COMMENT) {
-                            tokens.add(new Token(type, value, lineNum + 1, position + 1));
-                        }
-
-                        position += value.length();
-                        matched = true;
-                        break;
-                    }
-                }
-
-                if (!matched) {
-                    throw new ParserException("Unexpected character '" + line.charAt(position)
-                            + "' at line " + (lineNum + 1) + ", position " + (position + 1));
-                }
-            }
+        TokenBuffer buffer = tokenizeToBuffer(script);
+        List<Token> tokens = new ArrayList<>(buffer.size());
+        for (int i = 0; i < buffer.size(); i++) {
+            tokens.add(buffer.get(i));
         }
-
-        tokens.add(new Token(TokenType.EOF, "", lines.length + 1, 0));
         return tokens;
     }
+
+    /**
+     * Tokenizes a whole script into a compact buffer of token offsets.
+     *
+     * @param script The input script text
+     * @return Buffer of tokens, ending with EOF
+     * @throws ParserException if an invalid character is encountered
+     */
+    public TokenBuffer tokenizeToBuffer(String script) {
+        TokenScanner scanner = new TokenScanner(script);
+        TokenBuffer buffer = new TokenBuffer(script);
+
+        TokenType type;
+        do {
+            type = scanner.nextToken();
+            buffer.add(type, scanner.getTokenStart(), scanner.getTokenEnd(),
+                    scanner.getTokenLine(), scanner.getLineStart());
+        } while (type != TokenType.EOF);
+
+        return buffer;
+    }
+
+    /**
+     * Returns a lazy token stream over the script. Characters are scanned only
+     * when the next token is requested, so invalid characters are reported
+     * when the stream reaches them rather than up front.
+     *
+     * @param script The input script text
+     * @return Stream of tokens, ending with EOF
+     */
+    public TokenStream stream(String script) {
+        return new TokenScanner(script);
+    }
 }
@@ -3,13 +3,23 @@ package com.soft.p4.hueScriptLanguage.lexer;
 
 /**
  * Represents a lexical token with type, value, and source position information.
- * Immutable class used throughout the parsing pipeline for script analysis.
- * Tracks line and column position for error reporting.
+ * Used throughout the parsing pipeline for script analysis. Tracks line and
+ * column position for error reporting.
+ *
+ * Tokens produced by the lexer refer to a range of the source text, and the
+ * value is only copied out of that buffer and cached on the first call to
+ * {@link #getValue()}, so the value field is not final. The token's observable
+ * state never changes, and sharing it between threads is safe: threads that
+ * race on the first access each decode an equal string from the same immutable
+ * source, so the only cost is a repeated substring.
  */
 public class Token {
 
     private final TokenType type;     // Type of the token
-    private final String value;       // Actual text from source
+    private String value;             // Actual text from source, extracted lazily
+    private final String source;      // Source text for lazily extracted values
+    private final int start;          // Start offset of the value in source
+    private final int end;            // End offset (exclusive) of the value in source
     private final int lineNumber;     // 1-based line number
     private final int position;       // 1-based position in line
 
@@ -24,6 +34,21 @@ public class Token {
     public Token(TokenType type, String value, int lineNumber, int position) {
         this.type = type;
         this.value = value;
+        this.source = null;
+        this.start = 0;
+        this.end = 0;
+        this.lineNumber = lineNumber;
+        this.position = position;
+    }
+
+    /**
+     * Creates a token whose value is the range [start, end) of the source.
+     */
+    Token(TokenType type, String source, int start, int end, int lineNumber, int position) {
+        this.type = type;
+        this.source = source;
+        this.start = start;
+        this.end = end;
         this.lineNumber = lineNumber;
         this.position = position;
     }
@@ -33,6 +58,9 @@ public class Token {
     }
 
     public String getValue() {
+        if (value == null && source != null) {
+            value = source.substring(start, end);
+        }
         return value;
     }
 
@@ -47,6 +75,6 @@ public class Token {
     @Override
     public String toString() {
         return String.format("%s('%s') at line %d, pos %d",
-                type, value, lineNumber, position);
+                type, getValue(), lineNumber, position);
     }
 }
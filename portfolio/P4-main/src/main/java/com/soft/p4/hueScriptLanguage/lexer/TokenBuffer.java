@@ -0,0 +1,107 @@
+package com.soft.p4.hueScriptLanguage.lexer;
+
+import java.util.Arrays;
+
+/**
+ * Compact token storage for a whole script. Keeps one entry per token in
+ * parallel int arrays (type, start, end, line) that point back into the source
+ * text instead of holding a Token object and value string for each token.
+ * Token views are created on demand and can be discarded after use.
+ */
+public class TokenBuffer {
+
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final String source;
+    private int[] type = new int[INITIAL_CAPACITY];
+    private int[] start = new int[INITIAL_CAPACITY];
+    private int[] end = new int[INITIAL_CAPACITY];
+    private int[] line = new int[INITIAL_CAPACITY];
+    // Trimmed start offset of each line, used to derive token positions
+    private int[] lineStart = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    TokenBuffer(String source) {
+        this.source = source;
+    }
+
+    void add(TokenType tokenType, int tokenStart, int tokenEnd, int tokenLine, int tokenLineStart) {
+        if (size == type.length) {
+            int capacity = size * 2;
+            type = Arrays.copyOf(type, capacity);
+            start = Arrays.copyOf(start, capacity);
+            end = Arrays.copyOf(end, capacity);
+            line = Arrays.copyOf(line, capacity);
+        }
+        if (tokenLine >= lineStart.length) {
+            lineStart = Arrays.copyOf(lineStart, Math.max(tokenLine + 1, lineStart.length * 2));
+        }
+
+        type[size] = tokenType.ordinal();
+        start[size] = tokenStart;
+        end[size] = tokenEnd;
+        line[size] = tokenLine;
+        if (tokenType != TokenType.EOF) {
+            lineStart[tokenLine] = tokenLineStart;
+        }
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public TokenType getType(int index) {
+        return TYPES[type[index]];
+    }
+
+    /**
+     * Extracts the token text from the source. Allocates a new string on
+     * each call.
+     */
+    public String getValue(int index) {
+        return source.substring(start[index], end[index]);
+    }
+
+    public int getLineNumber(int index) {
+        return line[index];
+    }
+
+    /**
+     * 1-based position of the token within its trimmed line, or 0 for EOF.
+     */
+    public int getPosition(int index) {
+        return getType(index) == TokenType.EOF ? 0 : start[index] - lineStart[line[index]] + 1;
+    }
+
+    /**
+     * Creates a Token view of the entry at the given index.
+     */
+    public Token get(int index) {
+        return new Token(getType(index), source, start[index], end[index], line[index], getPosition(index));
+    }
+
+    /**
+     * Returns a stream over the buffered tokens. Reading past the end keeps
+     * returning the final EOF token.
+     */
+    public TokenStream stream() {
+        return new TokenStream() {
+            private int index = 0;
+
+            @Override
+            public Token next() {
+                Token token = get(index);
+                if (index < size - 1) {
+                    index++;
+                }
+                return token;
+            }
+        };
+    }
+}
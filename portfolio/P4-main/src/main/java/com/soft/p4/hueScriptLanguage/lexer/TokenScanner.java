@@ -0,0 +1,264 @@
+package com.soft.p4.hueScriptLanguage.lexer;
+
+import com.soft.p4.hueScriptLanguage.exception.ParserException;
+
+/**
+ * Hand-written scanner behind the lexer. Walks the source text one token at a
+ * time without copying it: each call to nextToken() records the token type and
+ * its offsets into the source, and text is only extracted when a caller asks
+ * for a token value.
+ *
+ * Matches the token rules of the original pattern-based lexer: lines are
+ * trimmed, whitespace and // comments are skipped, strings may not span lines
+ * and keywords are case-insensitive identifiers.
+ */
+class TokenScanner implements TokenStream {
+
+    // Keywords bucketed by length so lookups compare in place without allocating
+    private static final String[][] KEYWORDS_BY_LENGTH = new String[13][];
+    private static final TokenType[][] TYPES_BY_LENGTH = new TokenType[13][];
+
+    static {
+        Object[][] keywords = {
+            // Core language keywords
+            {"lights", TokenType.LIGHTS}, {"light", TokenType.LIGHT}, {"group", TokenType.GROUP},
+            {"on", TokenType.ON}, {"off", TokenType.OFF}, {"brightness", TokenType.BRIGHTNESS},
+            {"color", TokenType.COLOR}, {"wait", TokenType.WAIT}, {"repeat", TokenType.REPEAT},
+            {"times", TokenType.TIMES}, {"for", TokenType.FOR}, {"transition", TokenType.TRANSITION},
+            {"to", TokenType.TO},
+            // Variable and scene support
+            {"var", TokenType.VAR}, {"scene", TokenType.SCENE}, {"define", TokenType.DEFINE},
+            // Time unit keywords
+            {"sec", TokenType.SEC}, {"min", TokenType.MIN}, {"hr", TokenType.HR}, {"ms", TokenType.MS},
+            {"seconds", TokenType.SECONDS}, {"minutes", TokenType.MINUTES}, {"hours", TokenType.HOURS},
+            {"second", TokenType.SECOND}, {"minute", TokenType.MINUTE}, {"hour", TokenType.HOUR},
+            {"milliseconds", TokenType.MILLISECONDS}, {"millisecond", TokenType.MILLISECOND}
+        };
+
+        for (int length = 0; length < KEYWORDS_BY_LENGTH.length; length++) {
+            int count = 0;
+            for (Object[] keyword : keywords) {
+                if (((String) keyword[0]).length() == length) {
+                    count++;
+                }
+            }
+
+            KEYWORDS_BY_LENGTH[length] = new String[count];
+            TYPES_BY_LENGTH[length] = new TokenType[count];
+            int index = 0;
+            for (Object[] keyword : keywords) {
+                if (((String) keyword[0]).length() == length) {
+                    KEYWORDS_BY_LENGTH[length][index] = (String) keyword[0];
+                    TYPES_BY_LENGTH[length][index] = (TokenType) keyword[1];
+                    index++;
+                }
+            }
+        }
+    }
+
+    private final String source;
+    private final int length;
+
+    // Current line bounds; lineStart and lineEnd exclude surrounding whitespace
+    private int nextLineStart = 0;
+    private int lineStart = 0;
+    private int lineEnd = 0;
+    private int lineNumber = 0;
+    private int lastNonEmptyLine = 0;
+    private int cursor = 0;
+
+    // Last scanned token
+    private TokenType tokenType;
+    private int tokenStart;
+    private int tokenEnd;
+    private int tokenLine;
+
+    TokenScanner(String source) {
+        this.source = source;
+        this.length = source.length();
+    }
+
+    String getSource() {
+        return source;
+    }
+
+    /**
+     * Scans the next significant token. Returns EOF once the input is
+     * exhausted.
+     */
+    TokenType nextToken() {
+        while (true) {
+            if (cursor >= lineEnd && !nextLine()) {
+                tokenType = TokenType.EOF;
+                tokenStart = length;
+                tokenEnd = length;
+                tokenLine = eofLine();
+                return tokenType;
+            }
+
+            int start = cursor;
+            char c = source.charAt(start);
+            TokenType type;
+            int end;
+
+            if (c == '{') {
+                type = TokenType.LEFT_BRACE;
+                end = start + 1;
+            } else if (c == '}') {
+                type = TokenType.RIGHT_BRACE;
+                end = start + 1;
+            } else if (isWhitespace(c)) {
+                end = start + 1;
+                while (end < lineEnd && isWhitespace(source.charAt(end))) {
+                    end++;
+                }
+                cursor = end;
+                continue;
+            } else if (c == '"') {
+                int closingQuote = source.indexOf('"', start + 1);
+                if (closingQuote < 0 || closingQuote >= lineEnd) {
+                    throw unexpectedCharacter(c, start);
+                }
+                type = TokenType.STRING;
+                end = closingQuote + 1;
+            } else if (c == '/' && start + 1 < lineEnd && source.charAt(start + 1) == '/') {
+                cursor = lineEnd; // Comment runs to end of line
+                continue;
+            } else if (c == ';') {
+                type = TokenType.SEMICOLON;
+                end = start + 1;
+            } else if (c >= '0' && c <= '9') {
+                type = TokenType.NUMBER;
+                end = start + 1;
+                while (end < lineEnd && source.charAt(end) >= '0' && source.charAt(end) <= '9') {
+                    end++;
+                }
+            } else if (c == '=') {
+                type = TokenType.ASSIGN;
+                end = start + 1;
+            } else if (isIdentifierStart(c)) {
+                end = start + 1;
+                while (end < lineEnd && isIdentifierPart(source.charAt(end))) {
+                    end++;
+                }
+                type = keywordOrIdentifier(start, end);
+            } else {
+                throw unexpectedCharacter(c, start);
+            }
+
+            cursor = end;
+            tokenType = type;
+            tokenStart = start;
+            tokenEnd = end;
+            tokenLine = lineNumber;
+            return type;
+        }
+    }
+
+    @Override
+    public Token next() {
+        TokenType type = nextToken();
+        return new Token(type, source, tokenStart, tokenEnd, tokenLine, getTokenPosition());
+    }
+
+    int getTokenStart() {
+        return tokenStart;
+    }
+
+    int getTokenEnd() {
+        return tokenEnd;
+    }
+
+    int getTokenLine() {
+        return tokenLine;
+    }
+
+    /**
+     * 1-based position of the last token within its trimmed line, or 0 for EOF.
+     */
+    int getTokenPosition() {
+        return tokenType == TokenType.EOF ? 0 : tokenStart - lineStart + 1;
+    }
+
+    /**
+     * Start offset of the current line after leading whitespace is trimmed.
+     */
+    int getLineStart() {
+        return lineStart;
+    }
+
+    /**
+     * Advances to the next line that has content, trimming it like
+     * String.trim(). Returns false at the end of input.
+     */
+    private boolean nextLine() {
+        while (nextLineStart < length) {
+            int rawStart = nextLineStart;
+            int rawEnd = source.indexOf('\n', rawStart);
+            if (rawEnd < 0) {
+                rawEnd = length;
+            }
+            nextLineStart = rawEnd + 1;
+            lineNumber++;
+
+            if (rawEnd > rawStart) {
+                lastNonEmptyLine = lineNumber;
+            }
+
+            int start = rawStart;
+            int end = rawEnd;
+            while (start < end && source.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && source.charAt(end - 1) <= ' ') {
+                end--;
+            }
+
+            if (start < end) {
+                lineStart = start;
+                lineEnd = end;
+                cursor = start;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * EOF sits on the line after the last line that String.split("\n") would
+     * keep, which drops trailing empty lines.
+     */
+    private int eofLine() {
+        return length == 0 ? 2 : lastNonEmptyLine + 1;
+    }
+
+    private ParserException unexpectedCharacter(char c, int offset) {
+        return new ParserException("Unexpected character '" + c
+                + "' at line " + lineNumber + ", position " + (offset - lineStart + 1));
+    }
+
+    private TokenType keywordOrIdentifier(int start, int end) {
+        int tokenLength = end - start;
+        if (tokenLength < KEYWORDS_BY_LENGTH.length) {
+            String[] candidates = KEYWORDS_BY_LENGTH[tokenLength];
+            for (int i = 0; i < candidates.length; i++) {
+                if (source.regionMatches(true, start, candidates[i], 0, tokenLength)) {
+                    return TYPES_BY_LENGTH[tokenLength][i];
+                }
+            }
+        }
+        return TokenType.IDENTIFIER;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || (c >= '0' && c <= '9');
+    }
+}
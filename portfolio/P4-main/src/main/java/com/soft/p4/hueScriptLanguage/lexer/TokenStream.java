@@ -0,0 +1,17 @@
+package com.soft.p4.hueScriptLanguage.lexer;
+
+/**
+ * Source of tokens pulled one at a time by the parser. Implementations return
+ * the EOF token once the input is exhausted and keep returning it on further
+ * calls.
+ */
+public interface TokenStream {
+
+    /**
+     * Returns the next token in source order.
+     *
+     * @throws com.soft.p4.hueScriptLanguage.exception.ParserException if an
+     * invalid character is encountered
+     */
+    Token next();
+}
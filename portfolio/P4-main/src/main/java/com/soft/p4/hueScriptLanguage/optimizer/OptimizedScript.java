@@ -0,0 +1,43 @@
+package com.soft.p4.hueScriptLanguage.optimizer;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.soft.p4.hueScriptLanguage.ast.ScriptNode;
+import com.soft.p4.hueScriptLanguage.ast.command.all.SceneCommand;
+
+/**
+ * Output of the optimizer: the rewritten script, its rewritten scenes and the
+ * command counts before and after.
+ */
+public class OptimizedScript {
+
+    private final ScriptNode script;
+    private final Map<String, SceneCommand> scenes;
+    private final int originalCommandCount;
+    private final int optimizedCommandCount;
+
+    public OptimizedScript(ScriptNode script, Map<String, SceneCommand> scenes,
+            int originalCommandCount, int optimizedCommandCount) {
+        this.script = script;
+        this.scenes = Collections.unmodifiableMap(scenes);
+        this.originalCommandCount = originalCommandCount;
+        this.optimizedCommandCount = optimizedCommandCount;
+    }
+
+    public ScriptNode getScript() {
+        return script;
+    }
+
+    public Map<String, SceneCommand> getScenes() {
+        return scenes;
+    }
+
+    public int getOriginalCommandCount() {
+        return originalCommandCount;
+    }
+
+    public int getOptimizedCommandCount() {
+        return optimizedCommandCount;
+    }
+}
@@ -0,0 +1,444 @@
+package com.soft.p4.hueScriptLanguage.optimizer;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soft.p4.hueScriptLanguage.ast.ScriptNode;
+import com.soft.p4.hueScriptLanguage.ast.command.Command;
+import com.soft.p4.hueScriptLanguage.ast.command.all.BrightnessCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.ColorCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.LightCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.RepeatCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.SceneCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.TransitionCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.VariableInvocationCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.WaitCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.group.GroupBrightnessCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.group.GroupColorCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.group.GroupDefineCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.group.GroupLightCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.group.GroupTransitionCommand;
+
+/**
+ * Rewrites a parsed script into an equivalent one with fewer bridge calls.
+ * Light state is treated as three independent attributes (power, brightness,
+ * color) per light, observed at every wait, transition, loop and scene
+ * boundary. Between those points only the last write to each attribute is
+ * visible, so earlier writes can be dropped.
+ *
+ * Passes, applied per block (script, scene or loop body):
+ * <ul>
+ * <li>Variable invocations are folded into the command they resolve to</li>
+ * <li>Empty loops are removed, or replaced by a wait if time-based</li>
+ * <li>Loops whose body only writes state run once; small fixed loops are
+ * unrolled</li>
+ * <li>Writes overwritten before the next observation point are removed</li>
+ * <li>Writes that set a value the light already has are removed</li>
+ * </ul>
+ */
+public class ScriptOptimizer {
+
+    // Maximum number of commands a fixed repeat may expand to when unrolled
+    public static final int UNROLL_LIMIT = 16;
+
+    private enum Attribute {
+        POWER, BRIGHTNESS, COLOR
+    }
+
+    private final Map<String, String> variables;
+    private final Map<String, List<String>> groups;
+    private final Set<String> unstableGroups = new HashSet<>();
+
+    /**
+     * @param variables Variables as seen by the interpreter at run time
+     * @param groups Light groups as seen by the interpreter at run time
+     */
+    public ScriptOptimizer(Map<String, String> variables, Map<String, List<String>> groups) {
+        this.variables = variables != null ? new HashMap<>(variables) : new HashMap<>();
+        this.groups = groups != null ? new HashMap<>(groups) : new HashMap<>();
+    }
+
+    /**
+     * Optimizes a script together with the scenes it defines.
+     */
+    public OptimizedScript optimize(ScriptNode script, Map<String, SceneCommand> scenes) {
+        Map<String, SceneCommand> sceneMap = scenes != null ? scenes : Map.of();
+
+        // Groups whose membership changes mid-run cannot be resolved statically
+        findUnstableGroups(script.getCommands());
+        for (SceneCommand scene : sceneMap.values()) {
+            findUnstableGroups(scene.getCommands());
+        }
+
+        ScriptNode optimizedScript = new ScriptNode();
+        for (Command command : optimizeBlock(script.getCommands())) {
+            optimizedScript.addCommand(command);
+        }
+
+        Map<String, SceneCommand> optimizedScenes = new LinkedHashMap<>();
+        int originalCount = countCommands(script.getCommands());
+        int optimizedCount = countCommands(optimizedScript.getCommands());
+        for (Map.Entry<String, SceneCommand> entry : sceneMap.entrySet()) {
+            SceneCommand scene = entry.getValue();
+            SceneCommand optimizedScene = new SceneCommand(scene.getName(),
+                    optimizeBlock(scene.getCommands()), scene.getLineNumber());
+            optimizedScenes.put(entry.getKey(), optimizedScene);
+            originalCount += countCommands(scene.getCommands());
+            optimizedCount += countCommands(optimizedScene.getCommands());
+        }
+
+        return new OptimizedScript(optimizedScript, optimizedScenes, originalCount, optimizedCount);
+    }
+
+    private List<Command> optimizeBlock(List<Command> commands) {
+        List<Command> simplified = new ArrayList<>();
+        for (Command command : commands) {
+            simplify(command, simplified);
+        }
+        return removeRedundantWrites(removeDeadWrites(simplified));
+    }
+
+    private void simplify(Command command, List<Command> out) {
+        if (command instanceof VariableInvocationCommand) {
+            out.add(foldVariable((VariableInvocationCommand) command));
+        } else if (command instanceof RepeatCommand) {
+            simplifyRepeat((RepeatCommand) command, out);
+        } else {
+            out.add(command);
+        }
+    }
+
+    private void simplifyRepeat(RepeatCommand repeat, List<Command> out) {
+        List<Command> body = optimizeBlock(repeat.getCommands());
+        int lineNumber = repeat.getLineNumber();
+
+        if (repeat.isTimeBased()) {
+            if (body.isEmpty()) {
+                // The interpreter would spin for the whole window
+                out.add(waitFor(repeat.getDuration(), lineNumber));
+            } else if (writesOnly(body)) {
+                // Repeating the same writes without a pause changes nothing
+                out.addAll(body);
+                out.add(waitFor(repeat.getDuration(), lineNumber));
+            } else {
+                out.add(timedRepeat(repeat.getDuration(), body, lineNumber));
+            }
+            return;
+        }
+
+        int times = repeat.getTimes();
+        if (times <= 0 || body.isEmpty()) {
+            return;
+        }
+        if (writesOnly(body)) {
+            out.addAll(body);
+        } else if ((long) times * body.size() <= UNROLL_LIMIT) {
+            for (int i = 0; i < times; i++) {
+                out.addAll(body);
+            }
+        } else {
+            out.add(new RepeatCommand(times, body, lineNumber));
+        }
+    }
+
+    /**
+     * Resolves a variable the same way the interpreter does: transition JSON,
+     * then brightness, then color.
+     */
+    private Command foldVariable(VariableInvocationCommand invocation) {
+        String value = variables.get(invocation.getVariableName());
+        if (value == null) {
+            return invocation;
+        }
+        int lineNumber = invocation.getLineNumber();
+
+        try {
+            JsonNode jsonNode = new ObjectMapper().readTree(value);
+            if (jsonNode.has("transition")) {
+                JsonNode transition = jsonNode.get("transition");
+                if (transition.get("from") == null || transition.get("to") == null
+                        || transition.get("duration") == null) {
+                    return invocation;
+                }
+                return new TransitionCommand(transition.get("from").asText(), transition.get("to").asText(),
+                        transition.get("duration").asInt(), "ms", lineNumber);
+            }
+        } catch (Exception e) {
+            // Not JSON, continue with other formats
+        }
+
+        try {
+            int brightness = Integer.parseInt(value);
+            if (brightness >= 0 && brightness <= 100) {
+                return new BrightnessCommand(brightness, lineNumber);
+            }
+        } catch (NumberFormatException e) {
+            // Not a number, continue
+        }
+
+        return new ColorCommand(value, lineNumber);
+    }
+
+    /**
+     * Walks the block backwards and drops writes that a later write replaces
+     * before anything can observe them.
+     */
+    private List<Command> removeDeadWrites(List<Command> commands) {
+        boolean[] keep = new boolean[commands.size()];
+        Set<Attribute> globallyCovered = EnumSet.noneOf(Attribute.class);
+        Map<Attribute, Set<String>> covered = new EnumMap<>(Attribute.class);
+
+        for (int i = commands.size() - 1; i >= 0; i--) {
+            Command command = commands.get(i);
+            Write write = describe(command);
+            keep[i] = true;
+
+            if (write == null) {
+                if (!(command instanceof GroupDefineCommand)) {
+                    globallyCovered.clear();
+                    covered.clear();
+                }
+                continue;
+            }
+
+            Set<String> coveredLights = covered.computeIfAbsent(write.attribute, a -> new HashSet<>());
+            if (write.isGlobal()) {
+                if (globallyCovered.contains(write.attribute)) {
+                    keep[i] = false;
+                } else {
+                    globallyCovered.add(write.attribute);
+                }
+            } else if (globallyCovered.contains(write.attribute) || coveredLights.containsAll(write.lights)) {
+                keep[i] = false;
+            } else {
+                coveredLights.addAll(write.lights);
+            }
+        }
+
+        List<Command> live = new ArrayList<>();
+        for (int i = 0; i < commands.size(); i++) {
+            if (keep[i]) {
+                live.add(commands.get(i));
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Walks the block forwards tracking the state written so far and drops
+     * writes that would not change it. State is only known from writes inside
+     * the block, never assumed from the bridge.
+     */
+    private List<Command> removeRedundantWrites(List<Command> commands) {
+        KnownState state = new KnownState();
+        List<Command> result = new ArrayList<>();
+
+        for (Command command : commands) {
+            Write write = describe(command);
+
+            if (write != null) {
+                if (!state.matches(write)) {
+                    state.apply(write);
+                    result.add(command);
+                }
+                continue;
+            }
+
+            result.add(command);
+            if (command instanceof WaitCommand || command instanceof GroupDefineCommand) {
+                continue;
+            }
+            if (command instanceof TransitionCommand) {
+                TransitionCommand transition = (TransitionCommand) command;
+                state.apply(new Write(Attribute.COLOR, transition.getToColorValue(),
+                        transition.isGlobal() ? null : List.of(transition.getLightId())));
+            } else if (command instanceof GroupTransitionCommand && resolveGroup(
+                    ((GroupTransitionCommand) command).getGroupName()) != null) {
+                GroupTransitionCommand transition = (GroupTransitionCommand) command;
+                state.apply(new Write(Attribute.COLOR, transition.getToColorValue(),
+                        resolveGroup(transition.getGroupName())));
+            } else {
+                // Loops, scenes and unresolved commands may change anything
+                state.clear();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Describes a plain state write, or returns null for anything that takes
+     * time or cannot be resolved statically.
+     */
+    private Write describe(Command command) {
+        if (command instanceof LightCommand) {
+            LightCommand light = (LightCommand) command;
+            String value = light.getAction() == LightCommand.Action.ON ? "on" : "off";
+            return new Write(Attribute.POWER, value, light.isGlobal() ? null : List.of(light.getLightId()));
+        }
+        if (command instanceof BrightnessCommand) {
+            BrightnessCommand brightness = (BrightnessCommand) command;
+            return new Write(Attribute.BRIGHTNESS, String.valueOf(brightness.getLevel()),
+                    brightness.isGlobal() ? null : List.of(brightness.getLightId()));
+        }
+        if (command instanceof ColorCommand) {
+            ColorCommand color = (ColorCommand) command;
+            return new Write(Attribute.COLOR, color.getColorValue(),
+                    color.isGlobal() ? null : List.of(color.getLightId()));
+        }
+        if (command instanceof GroupLightCommand) {
+            GroupLightCommand light = (GroupLightCommand) command;
+            List<String> lightIds = resolveGroup(light.getGroupName());
+            String value = light.getAction() == GroupLightCommand.Action.ON ? "on" : "off";
+            return lightIds == null ? null : new Write(Attribute.POWER, value, lightIds);
+        }
+        if (command instanceof GroupBrightnessCommand) {
+            GroupBrightnessCommand brightness = (GroupBrightnessCommand) command;
+            List<String> lightIds = resolveGroup(brightness.getGroupName());
+            return lightIds == null ? null
+                    : new Write(Attribute.BRIGHTNESS, String.valueOf(brightness.getLevel()), lightIds);
+        }
+        if (command instanceof GroupColorCommand) {
+            GroupColorCommand color = (GroupColorCommand) command;
+            List<String> lightIds = resolveGroup(color.getGroupName());
+            return lightIds == null ? null : new Write(Attribute.COLOR, color.getColorValue(), lightIds);
+        }
+        return null;
+    }
+
+    private List<String> resolveGroup(String groupName) {
+        if (unstableGroups.contains(groupName)) {
+            return null;
+        }
+        return groups.get(groupName);
+    }
+
+    private boolean writesOnly(List<Command> commands) {
+        for (Command command : commands) {
+            if (describe(command) == null && !(command instanceof GroupDefineCommand)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void findUnstableGroups(List<Command> commands) {
+        for (Command command : commands) {
+            if (command instanceof GroupDefineCommand) {
+                GroupDefineCommand define = (GroupDefineCommand) command;
+                if (!groups.containsKey(define.getName())) {
+                    // Commands before the definition would fail anyway
+                    groups.put(define.getName(), define.getLightIds());
+                } else if (!Objects.equals(groups.get(define.getName()), define.getLightIds())) {
+                    unstableGroups.add(define.getName());
+                }
+            } else if (command instanceof RepeatCommand) {
+                findUnstableGroups(((RepeatCommand) command).getCommands());
+            }
+        }
+    }
+
+    private static WaitCommand waitFor(long durationMs, int lineNumber) {
+        if (durationMs <= Integer.MAX_VALUE) {
+            return new WaitCommand((int) durationMs, "ms", lineNumber);
+        }
+        return new WaitCommand((int) (durationMs / 1000), "sec", lineNumber);
+    }
+
+    private static RepeatCommand timedRepeat(long durationMs, List<Command> body, int lineNumber) {
+        if (durationMs <= Integer.MAX_VALUE) {
+            return new RepeatCommand((int) durationMs, "ms", body, lineNumber);
+        }
+        return new RepeatCommand((int) (durationMs / 1000), "sec", body, lineNumber);
+    }
+
+    private static int countCommands(List<Command> commands) {
+        int count = 0;
+        for (Command command : commands) {
+            count++;
+            if (command instanceof RepeatCommand) {
+                count += countCommands(((RepeatCommand) command).getCommands());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A single attribute write to either all lights (null light list) or a
+     * set of lights.
+     */
+    private static class Write {
+
+        final Attribute attribute;
+        final String value;
+        final List<String> lights;
+
+        Write(Attribute attribute, String value, List<String> lights) {
+            this.attribute = attribute;
+            this.value = value.toLowerCase();
+            this.lights = lights;
+        }
+
+        boolean isGlobal() {
+            return lights == null;
+        }
+    }
+
+    /**
+     * Attribute values written so far. A global write replaces all per-light
+     * values; per-light writes override the global one.
+     */
+    private static class KnownState {
+
+        private final Map<Attribute, String> global = new EnumMap<>(Attribute.class);
+        private final Map<Attribute, Map<String, String>> perLight = new EnumMap<>(Attribute.class);
+
+        boolean matches(Write write) {
+            Map<String, String> lights = perLight.getOrDefault(write.attribute, Map.of());
+            if (write.isGlobal()) {
+                if (!write.value.equals(global.get(write.attribute))) {
+                    return false;
+                }
+                for (String value : lights.values()) {
+                    if (!write.value.equals(value)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            for (String lightId : write.lights) {
+                String known = lights.getOrDefault(lightId, global.get(write.attribute));
+                if (!write.value.equals(known)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void apply(Write write) {
+            if (write.isGlobal()) {
+                global.put(write.attribute, write.value);
+                perLight.remove(write.attribute);
+            } else {
+                Map<String, String> lights = perLight.computeIfAbsent(write.attribute, a -> new HashMap<>());
+                for (String lightId : write.lights) {
+                    lights.put(lightId, write.value);
+                }
+            }
+        }
+
+        void clear() {
+            global.clear();
+            perLight.clear();
+        }
+    }
+}
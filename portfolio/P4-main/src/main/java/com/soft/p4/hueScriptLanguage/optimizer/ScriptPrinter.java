@@ -0,0 +1,167 @@
+package com.soft.p4.hueScriptLanguage.optimizer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.soft.p4.hueScriptLanguage.ast.NodeVisitor;
+import com.soft.p4.hueScriptLanguage.ast.ScriptNode;
+import com.soft.p4.hueScriptLanguage.ast.command.Command;
+import com.soft.p4.hueScriptLanguage.ast.command.all.BrightnessCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.ColorCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.LightCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.RepeatCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.SceneCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.SceneInvocationCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.TransitionCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.VariableInvocationCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.WaitCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.group.GroupBrightnessCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.group.GroupColorCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.group.GroupDefineCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.group.GroupLightCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.group.GroupTransitionCommand;
+
+/**
+ * Renders an AST back into HueScript source. Used to show the result of the
+ * optimizer in debug mode.
+ */
+public class ScriptPrinter implements NodeVisitor {
+
+    private static final String INDENT = "    ";
+
+    private final StringBuilder out = new StringBuilder();
+    private int depth = 0;
+
+    /**
+     * Prints scene definitions followed by the script body.
+     */
+    public String print(ScriptNode script, Map<String, SceneCommand> scenes) {
+        out.setLength(0);
+        depth = 0;
+
+        if (scenes != null) {
+            for (SceneCommand scene : new TreeMap<>(scenes).values()) {
+                scene.accept(this);
+            }
+        }
+        script.accept(this);
+        return out.toString();
+    }
+
+    @Override
+    public void visit(ScriptNode node) {
+        printBlock(node.getCommands());
+    }
+
+    @Override
+    public void visit(SceneCommand node) {
+        line("define scene " + node.getName() + " {");
+        depth++;
+        printBlock(node.getCommands());
+        depth--;
+        line("}");
+    }
+
+    @Override
+    public void visit(SceneInvocationCommand node) {
+        line("scene " + node.getSceneName() + ";");
+    }
+
+    @Override
+    public void visit(VariableInvocationCommand node) {
+        line(node.getVariableName() + ";");
+    }
+
+    @Override
+    public void visit(LightCommand node) {
+        String action = node.getAction() == LightCommand.Action.ON ? "on" : "off";
+        line(node.isGlobal() ? "lights " + action + ";" : target(node.getLightId()) + " " + action + ";");
+    }
+
+    @Override
+    public void visit(BrightnessCommand node) {
+        line(node.isGlobal() ? "brightness " + node.getLevel() + ";"
+                : target(node.getLightId()) + " brightness " + node.getLevel() + ";");
+    }
+
+    @Override
+    public void visit(ColorCommand node) {
+        line((node.isGlobal() ? "lights" : target(node.getLightId())) + " color " + quote(node.getColorValue()) + ";");
+    }
+
+    @Override
+    public void visit(TransitionCommand node) {
+        String transition = "transition " + quote(node.getFromColorValue()) + " to " + quote(node.getToColorValue())
+                + " over " + node.getDuration() + " " + unit(node.getTimeUnit()) + ";";
+        line(node.isGlobal() ? transition : target(node.getLightId()) + " " + transition);
+    }
+
+    @Override
+    public void visit(WaitCommand node) {
+        line("wait " + node.getDuration() + " " + unit(node.getTimeUnit()) + ";");
+    }
+
+    @Override
+    public void visit(RepeatCommand node) {
+        if (node.isTimeBased()) {
+            line("repeat for " + node.getDuration() + " ms {");
+        } else {
+            line("repeat " + node.getTimes() + " times {");
+        }
+        depth++;
+        printBlock(node.getCommands());
+        depth--;
+        line("}");
+    }
+
+    @Override
+    public void visit(GroupDefineCommand node) {
+        line("group " + quote(node.getName()) + " = " + quote(String.join(", ", node.getLightIds())) + ";");
+    }
+
+    @Override
+    public void visit(GroupLightCommand node) {
+        String action = node.getAction() == GroupLightCommand.Action.ON ? "on" : "off";
+        line("group " + quote(node.getGroupName()) + " " + action + ";");
+    }
+
+    @Override
+    public void visit(GroupBrightnessCommand node) {
+        line("group " + quote(node.getGroupName()) + " brightness " + node.getLevel() + ";");
+    }
+
+    @Override
+    public void visit(GroupColorCommand node) {
+        line("group " + quote(node.getGroupName()) + " color " + quote(node.getColorValue()) + ";");
+    }
+
+    @Override
+    public void visit(GroupTransitionCommand node) {
+        line("group " + quote(node.getGroupName()) + " transition " + quote(node.getFromColorValue())
+                + " to " + quote(node.getToColorValue()) + " over " + node.getDuration() + " "
+                + unit(node.getTimeUnit()) + ";");
+    }
+
+    private void printBlock(List<Command> commands) {
+        for (Command command : commands) {
+            command.accept(this);
+        }
+    }
+
+    private void line(String text) {
+        out.append(INDENT.repeat(depth)).append(text).append('\n');
+    }
+
+    private static String target(String lightId) {
+        return "light " + quote(lightId);
+    }
+
+    private static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+
+    private static String unit(String timeUnit) {
+        return timeUnit == null || timeUnit.isEmpty() ? "ms" : timeUnit;
+    }
+}
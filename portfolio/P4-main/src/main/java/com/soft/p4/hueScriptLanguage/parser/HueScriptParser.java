@@ -1,5 +1,6 @@
 package com.soft.p4.hueScriptLanguage.parser;
 
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -11,6 +12,7 @@ import com.soft.p4.hueScriptLanguage.ast.command.all.SceneCommand;
 import com.soft.p4.hueScriptLanguage.exception.ParserException;
 import com.soft.p4.hueScriptLanguage.lexer.Lexer;
 import com.soft.p4.hueScriptLanguage.lexer.Token;
+import com.soft.p4.hueScriptLanguage.lexer.TokenStream;
 import com.soft.p4.hueScriptLanguage.lexer.TokenType;
 import com.soft.p4.hueScriptLanguage.parser.strategy.CommandParserStrategy;
 import com.soft.p4.hueScriptLanguage.parser.strategy.all.BrightnessCommandParserStrategy;
@@ -30,19 +32,33 @@ import com.soft.p4.hueScriptLanguage.parser.strategy.single.LightCommandParserSt
  * parsing, and AST construction using a strategy pattern for different command
  * types. Maintains state for variables, scenes, and light groups during
  * parsing.
+ *
+ * Statements are dispatched on their leading token through static EnumMap
+ * tables of stateless strategy singletons, so one lookup selects the parser
+ * for every statement at the top level and inside repeat and scene blocks.
+ *
+ * Tokens are pulled from a TokenStream through a small lookahead window. By
+ * default the whole script is lexed into a compact TokenBuffer first; in
+ * streaming mode the parser pulls tokens straight from the lexer, so parsing
+ * needs constant extra memory regardless of script size.
  */
 @Component
 public class HueScriptParser {
 
+    // Tokens kept behind and ahead of the current one; must be a power of two
+    private static final int LOOKAHEAD_WINDOW = 8;
+
     private final Lexer lexer = new Lexer();
-    private List<Token> tokens;
+    private final Token[] window = new Token[LOOKAHEAD_WINDOW];
+    private TokenStream tokenStream;
     private int currentTokenIndex = 0;
+    private int tokensRead = 0;
     private boolean insideLoop = false;
+    private boolean streaming = false;
 
     private static final Map<String, String> PREDEFINED_COLORS = new HashMap<>();
     private final Map<String, String> variables = new HashMap<>();
     private final Map<String, SceneCommand> scenes = new HashMap<>();
-    private final Map<TokenType, CommandParserStrategy> parserStrategies = new HashMap<>();
     private final Map<String, List<String>> groups = new HashMap<>();
 
     static {
@@ -59,22 +75,43 @@ public class HueScriptParser {
         PREDEFINED_COLORS.put("cool", "#F5F5DC");
     }
 
-    public HueScriptParser() {
-        initializeStrategies();
+    // Statements allowed inside scene blocks
+    private static final Map<TokenType, CommandParserStrategy> BLOCK_STRATEGIES = new EnumMap<>(TokenType.class);
+    // Statements allowed inside repeat blocks: block statements except scene invocations
+    private static final Map<TokenType, CommandParserStrategy> REPEAT_STRATEGIES = new EnumMap<>(TokenType.class);
+    // Statements allowed at the top level: block statements plus declarations
+    private static final Map<TokenType, CommandParserStrategy> SCRIPT_STRATEGIES = new EnumMap<>(TokenType.class);
+
+    static {
+        BLOCK_STRATEGIES.put(TokenType.LIGHTS, LightsCommandParserStrategy.INSTANCE);
+        BLOCK_STRATEGIES.put(TokenType.LIGHT, LightCommandParserStrategy.INSTANCE);
+        BLOCK_STRATEGIES.put(TokenType.BRIGHTNESS, BrightnessCommandParserStrategy.INSTANCE);
+        BLOCK_STRATEGIES.put(TokenType.WAIT, WaitCommandParserStrategy.INSTANCE);
+        BLOCK_STRATEGIES.put(TokenType.REPEAT, RepeatCommandParserStrategy.INSTANCE);
+        BLOCK_STRATEGIES.put(TokenType.TRANSITION, TransitionCommandParserStrategy.INSTANCE);
+        BLOCK_STRATEGIES.put(TokenType.SCENE, SceneInvocationParserStrategy.INSTANCE);
+        BLOCK_STRATEGIES.put(TokenType.GROUP, GroupCommandParserStrategy.INSTANCE);
+        BLOCK_STRATEGIES.put(TokenType.IDENTIFIER, VariableInvocationParserStrategy.INSTANCE);
+
+        REPEAT_STRATEGIES.putAll(BLOCK_STRATEGIES);
+        REPEAT_STRATEGIES.remove(TokenType.SCENE);
+
+        SCRIPT_STRATEGIES.putAll(BLOCK_STRATEGIES);
+        SCRIPT_STRATEGIES.put(TokenType.VAR, VariableCommandParserStrategy.INSTANCE);
+        SCRIPT_STRATEGIES.put(TokenType.DEFINE, SceneDefinitionParserStrategy.INSTANCE);
     }
 
-    private void initializeStrategies() {
-        parserStrategies.put(TokenType.VAR, new VariableCommandParserStrategy());
-        parserStrategies.put(TokenType.DEFINE, new SceneDefinitionParserStrategy());
-        parserStrategies.put(TokenType.SCENE, new SceneInvocationParserStrategy());
-        parserStrategies.put(TokenType.LIGHT, new LightCommandParserStrategy());
-        parserStrategies.put(TokenType.LIGHTS, new LightsCommandParserStrategy());
-        parserStrategies.put(TokenType.BRIGHTNESS, new BrightnessCommandParserStrategy());
-        parserStrategies.put(TokenType.WAIT, new WaitCommandParserStrategy());
-        parserStrategies.put(TokenType.REPEAT, new RepeatCommandParserStrategy());
-        parserStrategies.put(TokenType.TRANSITION, new TransitionCommandParserStrategy());
-        parserStrategies.put(TokenType.GROUP, new GroupCommandParserStrategy());
-        parserStrategies.put(TokenType.IDENTIFIER, new VariableInvocationParserStrategy());
+    /**
+     * Enables streaming mode, where tokens are lexed on demand while parsing
+     * instead of for the whole script up front. Lexer errors are then reported
+     * when the parser reaches them.
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
     }
 
     public Map<String, String> getVariables() {
@@ -111,8 +148,11 @@ public class HueScriptParser {
      */
     public ScriptNode parse(String scriptContent) {
         // Reset parser state
-        tokens = lexer.tokenize(scriptContent);
+        tokenStream = streaming
+                ? lexer.stream(scriptContent)
+                : lexer.tokenizeToBuffer(scriptContent).stream();
         currentTokenIndex = 0;
+        tokensRead = 0;
         variables.clear();
         scenes.clear();
         insideLoop = false;
@@ -121,7 +161,6 @@ public class HueScriptParser {
 
         // Initialize parsing context with current state
         ParserContext context = new ParserContext(
-                tokens,
                 groups,
                 variables,
                 scenes,
@@ -133,7 +172,7 @@ public class HueScriptParser {
         while (!isAtEnd()) {
             try {
                 TokenType tokenType = peek().getType();
-                CommandParserStrategy strategy = parserStrategies.get(tokenType);
+                CommandParserStrategy strategy = SCRIPT_STRATEGIES.get(tokenType);
 
                 if (strategy != null) {
                     advance(); // Consume token
@@ -155,17 +194,80 @@ public class HueScriptParser {
         return scriptNode;
     }
 
+    /**
+     * Parses one statement of a scene body into the given node.
+     *
+     * @param context Active parsing context
+     * @param node Node receiving the parsed command
+     * @param blockName Block description used in error messages
+     * @throws ParserException if the statement is not allowed in a block
+     */
+    public void parseBlockStatement(ParserContext context, ScriptNode node, String blockName) {
+        parseStatement(context, node, BLOCK_STRATEGIES, blockName);
+    }
+
+    /**
+     * Parses one statement of a repeat body into the given node. Scene invocations are
+     * rejected here, as they are not allowed inside repeat blocks.
+     *
+     * @param context Active parsing context
+     * @param node Node receiving the parsed command
+     * @throws ParserException if the statement is not allowed in a repeat block
+     */
+    public void parseRepeatStatement(ParserContext context, ScriptNode node) {
+        if (peek().getType() == TokenType.SCENE) {
+            throw new ParserException("Scene invocation is not allowed inside repeat blocks at line "
+                    + peek().getLineNumber());
+        }
+        parseStatement(context, node, REPEAT_STRATEGIES, "repeat block");
+    }
+
+    private void parseStatement(ParserContext context, ScriptNode node,
+            Map<TokenType, CommandParserStrategy> strategies, String blockName) {
+        CommandParserStrategy strategy = strategies.get(peek().getType());
+        if (strategy == null) {
+            throw new ParserException("Unexpected token in " + blockName + ": " + peek().getValue()
+                    + " at line " + peek().getLineNumber());
+        }
+
+        advance(); // Consume token
+        strategy.parse(context, node);
+    }
+
     // Token handling utilities used by parser strategies
     public boolean isAtEnd() {
         return peek().getType() == TokenType.EOF;
     }
 
     public Token peek() {
-        return tokens.get(currentTokenIndex);
+        return tokenAt(currentTokenIndex);
+    }
+
+    /**
+     * Looks ahead without consuming. Offsets past the end return the EOF token.
+     */
+    public Token peek(int offset) {
+        return tokenAt(currentTokenIndex + offset);
     }
 
     public Token previous() {
-        return tokens.get(currentTokenIndex - 1);
+        return tokenAt(currentTokenIndex - 1);
+    }
+
+    /**
+     * Returns the token at an absolute index, pulling from the stream as
+     * needed. Only the last LOOKAHEAD_WINDOW tokens read are retained.
+     */
+    private Token tokenAt(int index) {
+        if (index < 0 || index <= tokensRead - LOOKAHEAD_WINDOW) {
+            throw new IllegalStateException("Token " + index + " is outside the lookahead window");
+        }
+
+        while (tokensRead <= index) {
+            window[tokensRead & (LOOKAHEAD_WINDOW - 1)] = tokenStream.next();
+            tokensRead++;
+        }
+        return window[index & (LOOKAHEAD_WINDOW - 1)];
     }
 
     public Token advance() {
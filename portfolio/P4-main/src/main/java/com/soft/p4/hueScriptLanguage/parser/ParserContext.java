@@ -3,6 +3,7 @@ package com.soft.p4.hueScriptLanguage.parser;
 import java.util.List;
 import java.util.Map;
 
+import com.soft.p4.hueScriptLanguage.ast.ScriptNode;
 import com.soft.p4.hueScriptLanguage.ast.command.all.SceneCommand;
 import com.soft.p4.hueScriptLanguage.lexer.Token;
 
@@ -14,7 +15,6 @@ import com.soft.p4.hueScriptLanguage.lexer.Token;
  */
 public class ParserContext {
 
-    private final List<Token> tokens;
     private final Map<String, String> variables;
     private final Map<String, SceneCommand> scenes;
     private final Map<String, String> predefinedColors;
@@ -24,7 +24,6 @@ public class ParserContext {
     /**
      * Creates a new parsing context with all necessary state.
      *
-     * @param tokens Token stream being parsed
      * @param groups Light group definitions
      * @param variables Variable bindings
      * @param scenes Scene definitions
@@ -32,13 +31,11 @@ public class ParserContext {
      * @param parser Reference to main parser for token handling
      */
     public ParserContext(
-            List<Token> tokens,
             Map<String, List<String>> groups,
             Map<String, String> variables,
             Map<String, SceneCommand> scenes,
             Map<String, String> predefinedColors,
             HueScriptParser parser) {
-        this.tokens = tokens;
         this.groups = groups;
         this.variables = variables;
         this.scenes = scenes;
@@ -47,10 +44,6 @@ public class ParserContext {
     }
 
     // State accessors
-    public List<Token> getTokens() {
-        return tokens;
-    }
-
     public Map<String, String> getVariables() {
         return variables;
     }
@@ -72,6 +65,10 @@ public class ParserContext {
         return parser.peek();
     }
 
+    public Token peek(int offset) {
+        return parser.peek(offset);
+    }
+
     public Token previous() {
         return parser.previous();
     }
@@ -92,6 +89,14 @@ public class ParserContext {
         parser.skipToSemicolon();
     }
 
+    public void parseBlockStatement(ScriptNode node, String blockName) {
+        parser.parseBlockStatement(this, node, blockName);
+    }
+
+    public void parseRepeatStatement(ScriptNode node) {
+        parser.parseRepeatStatement(this, node);
+    }
+
     public boolean isInsideLoop() {
         return parser.isInsideLoop();
     }
@@ -13,6 +13,11 @@ import com.soft.p4.hueScriptLanguage.lexer.TokenType;
  */
 public class BrightnessCommandParserStrategy implements CommandParserStrategy {
 
+    public static final BrightnessCommandParserStrategy INSTANCE = new BrightnessCommandParserStrategy();
+
+    private BrightnessCommandParserStrategy() {
+    }
+
     @Override
     public void parse(ParserContext context, ScriptNode scriptNode) {
         int lineNumber = context.previous().getLineNumber();
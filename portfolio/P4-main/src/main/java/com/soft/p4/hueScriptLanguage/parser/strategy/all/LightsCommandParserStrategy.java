@@ -9,50 +9,26 @@ import com.soft.p4.hueScriptLanguage.parser.strategy.CommandParserStrategy;
 import com.soft.p4.hueScriptLanguage.lexer.TokenType;
 
 /**
- * Routes light commands to appropriate handlers: - lights color <value> ->
- * LightsColorCommandParserStrategy - light <id> on|off ->
- * parseSpecificLightCommand - lights on|off -> LightsOnOffCommandParserStrategy
+ * Routes global light commands to appropriate handlers: - lights color <value>
+ * -> LightsColorCommandParserStrategy - lights on|off ->
+ * LightsOnOffCommandParserStrategy. Single light commands are handled by
+ * LightCommandParserStrategy.
  */
 public class LightsCommandParserStrategy implements CommandParserStrategy {
 
+    public static final LightsCommandParserStrategy INSTANCE = new LightsCommandParserStrategy();
+
+    private LightsCommandParserStrategy() {
+    }
+
     @Override
     public void parse(ParserContext context, ScriptNode scriptNode) {
         if (context.peek().getType() == TokenType.COLOR) {
-            new LightsColorCommandParserStrategy().parse(context, scriptNode);
-            return;
-        }
-
-        if (context.previous().getType() == TokenType.LIGHT) {
-            parseSpecificLightCommand(context, scriptNode);
+            LightsColorCommandParserStrategy.INSTANCE.parse(context, scriptNode);
             return;
         }
 
-        new LightsOnOffCommandParserStrategy().parse(context, scriptNode);
-    }
-
-    private void parseSpecificLightCommand(ParserContext context, ScriptNode scriptNode) {
-        int lineNumber = context.previous().getLineNumber();
-
-        // Parse light ID
-        if (!context.match(TokenType.NUMBER) && !context.match(TokenType.STRING) && !context.match(TokenType.IDENTIFIER)) {
-            throw new ParserException("Expected light ID after 'light' at line " + lineNumber);
-        }
-
-        String lightId = context.previous().getValue();
-        if (context.previous().getType() == TokenType.STRING) {
-            lightId = lightId.substring(1, lightId.length() - 1);
-        }
-
-        // Parse power state
-        if (context.match(TokenType.ON)) {
-            context.consume(TokenType.SEMICOLON, "Expected ';' after 'light " + lightId + " on'");
-            scriptNode.addCommand(new LightCommand(LightCommand.Action.ON, lightId, lineNumber));
-        } else if (context.match(TokenType.OFF)) {
-            context.consume(TokenType.SEMICOLON, "Expected ';' after 'light " + lightId + " off'");
-            scriptNode.addCommand(new LightCommand(LightCommand.Action.OFF, lightId, lineNumber));
-        } else {
-            throw new ParserException("Expected 'on' or 'off' after 'light " + lightId + "' at line " + lineNumber);
-        }
+        LightsOnOffCommandParserStrategy.INSTANCE.parse(context, scriptNode);
     }
 }
 
@@ -62,6 +38,11 @@ public class LightsCommandParserStrategy implements CommandParserStrategy {
  */
 class LightsColorCommandParserStrategy implements CommandParserStrategy {
 
+    static final LightsColorCommandParserStrategy INSTANCE = new LightsColorCommandParserStrategy();
+
+    private LightsColorCommandParserStrategy() {
+    }
+
     @Override
     public void parse(ParserContext context, ScriptNode scriptNode) {
         int lineNumber = context.previous().getLineNumber();
@@ -96,6 +77,11 @@ class LightsColorCommandParserStrategy implements CommandParserStrategy {
  */
 class LightsOnOffCommandParserStrategy implements CommandParserStrategy {
 
+    static final LightsOnOffCommandParserStrategy INSTANCE = new LightsOnOffCommandParserStrategy();
+
+    private LightsOnOffCommandParserStrategy() {
+    }
+
     @Override
     public void parse(ParserContext context, ScriptNode scriptNode) {
         int lineNumber = context.previous().getLineNumber();
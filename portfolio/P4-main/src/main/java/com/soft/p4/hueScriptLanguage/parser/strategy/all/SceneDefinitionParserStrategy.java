@@ -7,8 +7,6 @@ import com.soft.p4.hueScriptLanguage.ast.ScriptNode;
 import com.soft.p4.hueScriptLanguage.ast.command.all.SceneCommand;
 import com.soft.p4.hueScriptLanguage.exception.ParserException;
 import com.soft.p4.hueScriptLanguage.parser.strategy.CommandParserStrategy;
-import com.soft.p4.hueScriptLanguage.parser.strategy.group.GroupCommandParserStrategy;
-import com.soft.p4.hueScriptLanguage.parser.strategy.single.LightCommandParserStrategy;
 import com.soft.p4.hueScriptLanguage.lexer.TokenType;
 
 /**
@@ -17,6 +15,11 @@ import com.soft.p4.hueScriptLanguage.lexer.TokenType;
  */
 public class SceneDefinitionParserStrategy implements CommandParserStrategy {
 
+    public static final SceneDefinitionParserStrategy INSTANCE = new SceneDefinitionParserStrategy();
+
+    private SceneDefinitionParserStrategy() {
+    }
+
     @Override
     public void parse(ParserContext context, ScriptNode scriptNode) {
         int lineNumber = context.previous().getLineNumber();
@@ -41,47 +44,7 @@ public class SceneDefinitionParserStrategy implements CommandParserStrategy {
         // Parse commands until closing brace
         while (!context.isAtEnd() && context.peek().getType() != TokenType.RIGHT_BRACE) {
             try {
-                TokenType tokenType = context.peek().getType();
-
-                // Identify which command we're about to parse
-                if (tokenType == TokenType.LIGHTS) {
-                    context.advance(); // Consume the token
-                    if (context.peek().getType() == TokenType.COLOR) {
-                        new LightsColorCommandParserStrategy().parse(context, tempNode);
-                    } else {
-                        new LightsOnOffCommandParserStrategy().parse(context, tempNode);
-                    }
-                } // Support for individual light commands
-                else if (tokenType == TokenType.LIGHT) {
-                    context.advance(); // Consume the token
-                    new LightCommandParserStrategy().parse(context, tempNode);
-                } else if (tokenType == TokenType.BRIGHTNESS) {
-                    context.advance(); // Consume the token
-                    new BrightnessCommandParserStrategy().parse(context, tempNode);
-                } else if (tokenType == TokenType.WAIT) {
-                    context.advance(); // Consume the token
-                    new WaitCommandParserStrategy().parse(context, tempNode);
-                } else if (tokenType == TokenType.REPEAT) {
-                    context.advance(); // Consume the token
-                    new RepeatCommandParserStrategy().parse(context, tempNode);
-                } else if (tokenType == TokenType.TRANSITION) {
-                    context.advance(); // Consume the token
-                    new TransitionCommandParserStrategy().parse(context, tempNode);
-                } else if (tokenType == TokenType.SCENE) {
-                    context.advance(); // Consume the token
-                    new SceneInvocationParserStrategy().parse(context, tempNode);
-                } // Adds support for group commands within scenes
-                else if (tokenType == TokenType.GROUP) {
-                    context.advance(); // Consume the GROUP token
-                    new GroupCommandParserStrategy().parse(context, tempNode);
-                } // Support for variable invocations within scenes
-                else if (tokenType == TokenType.IDENTIFIER) {
-                    context.advance(); // Consume the identifier token
-                    new VariableInvocationParserStrategy().parse(context, tempNode);
-                } else {
-                    throw new ParserException("Unexpected token in scene definition: "
-                            + context.peek().getValue() + " at line " + context.peek().getLineNumber());
-                }
+                context.parseBlockStatement(tempNode, "scene definition");
             } catch (ParserException e) {
                 context.skipToSemicolon();
                 throw e;
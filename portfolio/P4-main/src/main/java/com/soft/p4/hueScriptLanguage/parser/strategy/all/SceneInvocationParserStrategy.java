@@ -16,6 +16,11 @@ import com.soft.p4.hueScriptLanguage.lexer.TokenType;
  */
 public class SceneInvocationParserStrategy implements CommandParserStrategy {
 
+    public static final SceneInvocationParserStrategy INSTANCE = new SceneInvocationParserStrategy();
+
+    private SceneInvocationParserStrategy() {
+    }
+
     @Override
     public void parse(ParserContext context, ScriptNode scriptNode) {
         int lineNumber = context.previous().getLineNumber();
@@ -14,6 +14,11 @@ import com.soft.p4.hueScriptLanguage.lexer.TokenType;
  */
 public class TransitionCommandParserStrategy implements CommandParserStrategy {
 
+    public static final TransitionCommandParserStrategy INSTANCE = new TransitionCommandParserStrategy();
+
+    private TransitionCommandParserStrategy() {
+    }
+
     @Override
     public void parse(ParserContext context, ScriptNode scriptNode) {
         int lineNumber = context.previous().getLineNumber();
@@ -1,12 +1,9 @@
-// 1. First, fix the TransitionVariableCommandParserStrategy.java
 package com.soft.p4.hueScriptLanguage.parser.strategy.all;
 
 import java.util.Map;
 
 import com.soft.p4.hueScriptLanguage.parser.ParserContext;
-import com.soft.p4.hueScriptLanguage.ast.ScriptNode;
 import com.soft.p4.hueScriptLanguage.exception.ParserException;
-import com.soft.p4.hueScriptLanguage.parser.strategy.CommandParserStrategy;
 import com.soft.p4.hueScriptLanguage.lexer.TokenType;
 
 /**
@@ -15,12 +12,18 @@ import com.soft.p4.hueScriptLanguage.lexer.TokenType;
  * be hex values or variable references. Stores transitions as JSON for runtime
  * interpretation.
  */
-public class TransitionVariableCommandParserStrategy implements CommandParserStrategy {
+public class TransitionVariableCommandParserStrategy {
 
-    private String variableName; // Set by VariableCommandParserStrategy before parsing
+    public static final TransitionVariableCommandParserStrategy INSTANCE = new TransitionVariableCommandParserStrategy();
 
-    @Override
-    public void parse(ParserContext context, ScriptNode scriptNode) {
+    private TransitionVariableCommandParserStrategy() {
+    }
+
+    /**
+     * Parses the transition after 'var <name> = transition' and binds it to
+     * the given variable name.
+     */
+    public void parse(ParserContext context, String variableName) {
         int lineNumber = context.previous().getLineNumber();
         Map<String, String> variables = context.getVariables();
 
@@ -116,11 +119,4 @@ public class TransitionVariableCommandParserStrategy implements CommandParserStr
         variables.put(variableName, transitionDefinition);
         context.consume(TokenType.SEMICOLON, "Expected ';' after transition variable declaration");
     }
-
-    /**
-     * Sets the variable name for this transition
-     */
-    public void setVariableName(String variableName) {
-        this.variableName = variableName;
-    }
 }
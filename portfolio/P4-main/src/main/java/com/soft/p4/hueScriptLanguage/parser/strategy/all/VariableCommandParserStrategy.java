@@ -16,6 +16,11 @@ import com.soft.p4.hueScriptLanguage.lexer.TokenType;
  */
 public class VariableCommandParserStrategy implements CommandParserStrategy {
 
+    public static final VariableCommandParserStrategy INSTANCE = new VariableCommandParserStrategy();
+
+    private VariableCommandParserStrategy() {
+    }
+
     @Override
     public void parse(ParserContext context, ScriptNode scriptNode) {
         int lineNumber = context.previous().getLineNumber();
@@ -36,9 +41,7 @@ public class VariableCommandParserStrategy implements CommandParserStrategy {
                 || (context.peek().getType() == TokenType.IDENTIFIER
                 && context.peek().getValue().equalsIgnoreCase("transition"))) {
             context.advance();
-            TransitionVariableCommandParserStrategy transitionStrategy = new TransitionVariableCommandParserStrategy();
-            transitionStrategy.setVariableName(variableName);
-            transitionStrategy.parse(context, scriptNode);
+            TransitionVariableCommandParserStrategy.INSTANCE.parse(context, variableName);
             return;
         }
 
@@ -13,6 +13,11 @@ import com.soft.p4.hueScriptLanguage.lexer.TokenType;
  */
 public class VariableInvocationParserStrategy implements CommandParserStrategy {
 
+    public static final VariableInvocationParserStrategy INSTANCE = new VariableInvocationParserStrategy();
+
+    private VariableInvocationParserStrategy() {
+    }
+
     @Override
     public void parse(ParserContext context, ScriptNode scriptNode) {
         int lineNumber = context.previous().getLineNumber();
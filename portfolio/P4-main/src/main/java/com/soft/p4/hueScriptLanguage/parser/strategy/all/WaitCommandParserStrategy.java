@@ -13,6 +13,11 @@ import com.soft.p4.hueScriptLanguage.lexer.TokenType;
  */
 public class WaitCommandParserStrategy implements CommandParserStrategy {
 
+    public static final WaitCommandParserStrategy INSTANCE = new WaitCommandParserStrategy();
+
+    private WaitCommandParserStrategy() {
+    }
+
     @Override
     public void parse(ParserContext context, ScriptNode scriptNode) {
         int lineNumber = context.previous().getLineNumber();
@@ -21,6 +21,11 @@ import com.soft.p4.hueScriptLanguage.lexer.TokenType;
  */
 public class GroupCommandParserStrategy implements CommandParserStrategy {
 
+    public static final GroupCommandParserStrategy INSTANCE = new GroupCommandParserStrategy();
+
+    private GroupCommandParserStrategy() {
+    }
+
     @Override
     public void parse(ParserContext context, ScriptNode scriptNode) {
         int lineNumber = context.previous().getLineNumber();
@@ -13,14 +13,14 @@ import com.soft.p4.hueScriptLanguage.lexer.TokenType;
  */
 public class LightBrightnessCommandParserStrategy implements CommandParserStrategy {
 
-    private final String lightId;
+    public static final LightBrightnessCommandParserStrategy INSTANCE = new LightBrightnessCommandParserStrategy();
 
-    public LightBrightnessCommandParserStrategy(String lightId) {
-        this.lightId = lightId;
+    private LightBrightnessCommandParserStrategy() {
     }
 
     @Override
     public void parse(ParserContext context, ScriptNode scriptNode) {
+        String lightId = LightCommandParserStrategy.lightIdOf(context.previous());
         int lineNumber = context.previous().getLineNumber();
 
         // Consume the "brightness" token
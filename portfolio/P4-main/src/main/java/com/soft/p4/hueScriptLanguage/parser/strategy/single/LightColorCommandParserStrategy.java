@@ -13,14 +13,14 @@ import com.soft.p4.hueScriptLanguage.lexer.TokenType;
  */
 public class LightColorCommandParserStrategy implements CommandParserStrategy {
 
-    private final String lightId;
+    public static final LightColorCommandParserStrategy INSTANCE = new LightColorCommandParserStrategy();
 
-    public LightColorCommandParserStrategy(String lightId) {
-        this.lightId = lightId;
+    private LightColorCommandParserStrategy() {
     }
 
     @Override
     public void parse(ParserContext context, ScriptNode scriptNode) {
+        String lightId = LightCommandParserStrategy.lightIdOf(context.previous());
         int lineNumber = context.previous().getLineNumber();
         context.consume(TokenType.COLOR, "Expected 'color' after 'light " + lightId + "'");
 
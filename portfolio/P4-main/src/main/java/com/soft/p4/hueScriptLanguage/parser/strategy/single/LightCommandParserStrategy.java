@@ -5,6 +5,7 @@ import com.soft.p4.hueScriptLanguage.ast.ScriptNode;
 import com.soft.p4.hueScriptLanguage.ast.command.all.LightCommand;
 import com.soft.p4.hueScriptLanguage.exception.ParserException;
 import com.soft.p4.hueScriptLanguage.parser.strategy.CommandParserStrategy;
+import com.soft.p4.hueScriptLanguage.lexer.Token;
 import com.soft.p4.hueScriptLanguage.lexer.TokenType;
 
 /**
@@ -14,6 +15,11 @@ import com.soft.p4.hueScriptLanguage.lexer.TokenType;
  */
 public class LightCommandParserStrategy implements CommandParserStrategy {
 
+    public static final LightCommandParserStrategy INSTANCE = new LightCommandParserStrategy();
+
+    private LightCommandParserStrategy() {
+    }
+
     @Override
     public void parse(ParserContext context, ScriptNode scriptNode) {
         int lineNumber = context.previous().getLineNumber();
@@ -23,24 +29,21 @@ public class LightCommandParserStrategy implements CommandParserStrategy {
             throw new ParserException("Expected light ID after 'light' at line " + lineNumber);
         }
 
-        String lightId = context.previous().getValue();
-        if (context.previous().getType() == TokenType.STRING) {
-            lightId = lightId.substring(1, lightId.length() - 1);
-        }
+        String lightId = lightIdOf(context.previous());
 
         // Route to appropriate command parser
         if (context.peek().getType() == TokenType.COLOR) {
-            new LightColorCommandParserStrategy(lightId).parse(context, scriptNode);
+            LightColorCommandParserStrategy.INSTANCE.parse(context, scriptNode);
             return;
         }
 
         if (context.peek().getType() == TokenType.BRIGHTNESS) {
-            new LightBrightnessCommandParserStrategy(lightId).parse(context, scriptNode);
+            LightBrightnessCommandParserStrategy.INSTANCE.parse(context, scriptNode);
             return;
         }
 
         if (context.peek().getType() == TokenType.TRANSITION) {
-            new LightTransitionCommandParserStrategy(lightId).parse(context, scriptNode);
+            LightTransitionCommandParserStrategy.INSTANCE.parse(context, scriptNode);
             return;
         }
 
@@ -55,4 +58,17 @@ public class LightCommandParserStrategy implements CommandParserStrategy {
             throw new ParserException("Expected 'on', 'off', 'color', 'brightness', or 'transition' after 'light " + lightId + "' at line " + lineNumber);
         }
     }
+
+    /**
+     * Reads the light ID from its token, stripping quotes from string IDs. The
+     * color, brightness and transition parsers call this on the ID token that
+     * precedes their keyword.
+     */
+    static String lightIdOf(Token token) {
+        String lightId = token.getValue();
+        if (token.getType() == TokenType.STRING) {
+            lightId = lightId.substring(1, lightId.length() - 1);
+        }
+        return lightId;
+    }
 }
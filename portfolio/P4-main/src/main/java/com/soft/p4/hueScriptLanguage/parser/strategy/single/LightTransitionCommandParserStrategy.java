@@ -14,14 +14,14 @@ import com.soft.p4.hueScriptLanguage.lexer.TokenType;
  */
 public class LightTransitionCommandParserStrategy implements CommandParserStrategy {
 
-    private final String lightId;
+    public static final LightTransitionCommandParserStrategy INSTANCE = new LightTransitionCommandParserStrategy();
 
-    public LightTransitionCommandParserStrategy(String lightId) {
-        this.lightId = lightId;
+    private LightTransitionCommandParserStrategy() {
     }
 
     @Override
     public void parse(ParserContext context, ScriptNode scriptNode) {
+        String lightId = LightCommandParserStrategy.lightIdOf(context.previous());
         int lineNumber = context.previous().getLineNumber();
         context.consume(TokenType.TRANSITION, "Expected 'transition' after 'light " + lightId + "'");
 
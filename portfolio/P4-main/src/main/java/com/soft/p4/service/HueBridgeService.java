@@ -12,6 +12,7 @@ import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -40,9 +41,16 @@ public class HueBridgeService {
     private static final String CONFIG_FILE = "config/bridge.properties";
     private static final Logger logger = Logger.getLogger(HueBridgeService.class.getName());
 
+    // Endpoint tags for request latency metrics
+    private static final String GROUP_ACTION_ENDPOINT = "groups/0/action";
+    private static final String LIGHT_STATE_ENDPOINT = "lights/{id}/state";
+    private static final String CONFIG_ENDPOINT = "config";
+    private static final String LIGHTS_ENDPOINT = "lights";
+
     // RestTemplate with short timeouts to prevent UI blocking
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private MetricsService metricsService = new MetricsService();
 
     public HueBridgeService() {
         // Configure RestTemplate with short timeouts for responsive UI
@@ -55,6 +63,11 @@ public class HueBridgeService {
         loadSettings();
     }
 
+    @Autowired(required = false)
+    public void setMetricsService(MetricsService metricsService) {
+        this.metricsService = metricsService;
+    }
+
     /**
      * Returns configured bridge IP
      */
@@ -158,8 +171,7 @@ public class HueBridgeService {
         HttpEntity<String> entity = new HttpEntity<>(requestBody.toString(), headers);
 
         try {
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url, HttpMethod.PUT, entity, String.class);
+            ResponseEntity<String> response = sendPut(GROUP_ACTION_ENDPOINT, url, entity);
 
             if (response.getStatusCode().is2xxSuccessful()) {
                 System.out.println("All lights turned " + (state ? "ON" : "OFF"));
@@ -188,8 +200,7 @@ public class HueBridgeService {
         HttpEntity<String> entity = new HttpEntity<>(requestBody.toString(), headers);
 
         try {
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url, HttpMethod.PUT, entity, String.class);
+            ResponseEntity<String> response = sendPut(LIGHT_STATE_ENDPOINT, url, entity);
 
             if (response.getStatusCode().is2xxSuccessful()) {
                 System.out.println("Light " + lightId + " turned " + (state ? "ON" : "OFF"));
@@ -215,7 +226,7 @@ public class HueBridgeService {
         headers.setContentType(MediaType.APPLICATION_JSON);
         HttpEntity<String> entity = new HttpEntity<>(requestBody.toString(), headers);
 
-        restTemplate.exchange(url, HttpMethod.PUT, entity, String.class);
+        sendPut(GROUP_ACTION_ENDPOINT, url, entity);
     }
 
     /**
@@ -239,8 +250,7 @@ public class HueBridgeService {
         HttpEntity<String> entity = new HttpEntity<>(requestBody.toString(), headers);
 
         try {
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url, HttpMethod.PUT, entity, String.class);
+            ResponseEntity<String> response = sendPut(GROUP_ACTION_ENDPOINT, url, entity);
 
             if (response.getStatusCode().is2xxSuccessful()) {
                 System.out.println("All lights color set to " + hexColor);
@@ -274,8 +284,7 @@ public class HueBridgeService {
         HttpEntity<String> entity = new HttpEntity<>(requestBody.toString(), headers);
 
         try {
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url, HttpMethod.PUT, entity, String.class);
+            ResponseEntity<String> response = sendPut(LIGHT_STATE_ENDPOINT, url, entity);
 
             if (response.getStatusCode().is2xxSuccessful()) {
                 System.out.println("Light " + lightId + " color set to " + hexColor);
@@ -311,8 +320,7 @@ public class HueBridgeService {
         HttpEntity<String> entity = new HttpEntity<>(requestBody.toString(), headers);
 
         try {
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url, HttpMethod.PUT, entity, String.class);
+            ResponseEntity<String> response = sendPut(LIGHT_STATE_ENDPOINT, url, entity);
 
             if (response.getStatusCode().is2xxSuccessful()) {
                 System.out.println("Light " + lightId + " transitioning to " + hexColor);
@@ -324,6 +332,41 @@ public class HueBridgeService {
         }
     }
 
+    /**
+     * Sends a PUT request to the bridge and records its latency
+     */
+    private ResponseEntity<String> sendPut(String endpoint, String url, HttpEntity<String> entity) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.PUT, entity, String.class);
+            success = isSuccessful(response);
+            return response;
+        } finally {
+            metricsService.recordBridgeRequest(endpoint, System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * Sends a GET request to the bridge and records its latency
+     */
+    private ResponseEntity<String> sendGet(String endpoint, String url) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+            success = isSuccessful(response);
+            return response;
+        } finally {
+            metricsService.recordBridgeRequest(endpoint, System.nanoTime() - start, success);
+        }
+    }
+
+    private static boolean isSuccessful(ResponseEntity<String> response) {
+        return response != null && response.getStatusCode() != null
+                && response.getStatusCode().is2xxSuccessful();
+    }
+
     /**
      * Converts RGB to Philips Hue xy color space. Based on official Hue SDK
      * color conversion.
@@ -355,7 +398,7 @@ public class HueBridgeService {
     public boolean testConnection() {
         try {
             String url = String.format("http://%s/api/%s/config", bridgeIp, apiKey);
-            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+            ResponseEntity<String> response = sendGet(CONFIG_ENDPOINT, url);
 
             if (response.getStatusCode().is2xxSuccessful()) {
                 JsonNode jsonNode = objectMapper.readTree(response.getBody());
@@ -401,8 +444,7 @@ public class HueBridgeService {
         HttpEntity<String> entity = new HttpEntity<>(requestBody.toString(), headers);
 
         try {
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url, HttpMethod.PUT, entity, String.class);
+            ResponseEntity<String> response = sendPut(GROUP_ACTION_ENDPOINT, url, entity);
 
             if (response.getStatusCode().is2xxSuccessful()) {
                 System.out.println("Transitioning lights to " + hexColor + " over "
@@ -424,7 +466,7 @@ public class HueBridgeService {
         String url = String.format("http://%s/api/%s/lights", bridgeIp, apiKey);
 
         try {
-            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+            ResponseEntity<String> response = sendGet(LIGHTS_ENDPOINT, url);
 
             if (response.getStatusCode().is2xxSuccessful()) {
                 Map<String, JsonNode> lightsMap = new HashMap<>();
@@ -496,8 +538,7 @@ public class HueBridgeService {
         HttpEntity<String> entity = new HttpEntity<>(requestBody.toString(), headers);
 
         try {
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url, HttpMethod.PUT, entity, String.class);
+            ResponseEntity<String> response = sendPut(LIGHT_STATE_ENDPOINT, url, entity);
 
             if (response.getStatusCode().is2xxSuccessful()) {
                 System.out.println("Light " + lightId + " brightness set to " + brightness);
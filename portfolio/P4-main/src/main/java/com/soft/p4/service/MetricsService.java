@@ -0,0 +1,248 @@
+package com.soft.p4.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Micrometer instrumentation for script runs and Hue Bridge traffic. Splits
+ * the wall time of each run into bridge latency, deliberate pauses (waits and
+ * transitions) and the remaining interpreter overhead. Meters are exposed
+ * through Actuator at /actuator/metrics and /actuator/prometheus.
+ */
+@Service
+public class MetricsService {
+
+    public static final String RUN_TIMER = "huescript.run";
+    public static final String RUN_PHASE_TIMER = "huescript.run.phase";
+    public static final String COMMAND_TIMER = "huescript.command";
+    public static final String BRIDGE_TIMER = "huescript.bridge.request";
+    public static final String ERROR_COUNTER = "huescript.errors";
+    public static final String QUEUED_RUNS_GAUGE = "huescript.runs.queued";
+    public static final String ACTIVE_RUNS_GAUGE = "huescript.runs.active";
+    public static final String SESSIONS_GAUGE = "huescript.sessions.active";
+    public static final String RUN_OBSERVATION = "huescript.script.execution";
+
+    // Error categories used as the "type" tag on ERROR_COUNTER
+    public static final String PARSE_ERROR = "parse";
+    public static final String EXECUTION_ERROR = "execution";
+    public static final String BRIDGE_ERROR = "bridge";
+
+    private final MeterRegistry registry;
+    private final ObservationRegistry observationRegistry;
+    private final AtomicInteger queuedRuns = new AtomicInteger();
+    private final AtomicInteger activeRuns = new AtomicInteger();
+    private final Map<String, Timer> commandTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> bridgeTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> errorCounters = new ConcurrentHashMap<>();
+
+    // Run executing on the current thread, used to attribute bridge time
+    private final ThreadLocal<ScriptRun> currentRun = new ThreadLocal<>();
+
+    private boolean tracingEnabled = false;
+
+    /**
+     * Creates a standalone instance backed by an in-memory registry. Used when
+     * no Spring-managed registry is available.
+     */
+    public MetricsService() {
+        this(new SimpleMeterRegistry(), ObservationRegistry.NOOP);
+    }
+
+    @Autowired
+    public MetricsService(MeterRegistry registry, ObservationRegistry observationRegistry) {
+        this.registry = registry;
+        this.observationRegistry = observationRegistry;
+
+        Gauge.builder(QUEUED_RUNS_GAUGE, queuedRuns, AtomicInteger::get)
+                .description("Script runs submitted but not yet started")
+                .register(registry);
+        Gauge.builder(ACTIVE_RUNS_GAUGE, activeRuns, AtomicInteger::get)
+                .description("Script runs currently executing")
+                .register(registry);
+    }
+
+    /**
+     * Enables a trace observation per script run. Spans are exported when a
+     * Micrometer tracing bridge is on the classpath.
+     */
+    @Value("${huescript.metrics.tracing:false}")
+    public void setTracingEnabled(boolean tracingEnabled) {
+        this.tracingEnabled = tracingEnabled;
+    }
+
+    public boolean isTracingEnabled() {
+        return tracingEnabled;
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Publishes the size of a live session map as a gauge.
+     */
+    public void registerSessions(Map<?, ?> sessions) {
+        Gauge.builder(SESSIONS_GAUGE, sessions, Map::size)
+                .description("Open real-time log streams")
+                .register(registry);
+    }
+
+    public void runQueued() {
+        queuedRuns.incrementAndGet();
+    }
+
+    public void runDequeued() {
+        queuedRuns.decrementAndGet();
+    }
+
+    /**
+     * Starts timing a script run on the current thread. Bridge requests made
+     * on this thread until finish() are attributed to the run.
+     */
+    public ScriptRun startRun() {
+        ScriptRun run = new ScriptRun();
+        currentRun.set(run);
+        activeRuns.incrementAndGet();
+        return run;
+    }
+
+    /**
+     * Records the latency of one bridge request.
+     *
+     * @param endpoint Bridge endpoint template, e.g. "lights/{id}/state"
+     * @param nanos Request duration in nanoseconds
+     * @param success Whether the bridge answered with a 2xx status
+     */
+    public void recordBridgeRequest(String endpoint, long nanos, boolean success) {
+        String outcome = success ? "success" : "error";
+        bridgeTimers.computeIfAbsent(endpoint + "|" + outcome, key -> Timer.builder(BRIDGE_TIMER)
+                .description("Hue Bridge request latency")
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        if (!success) {
+            recordError(BRIDGE_ERROR);
+        }
+
+        ScriptRun run = currentRun.get();
+        if (run != null) {
+            run.bridgeNanos += nanos;
+        }
+    }
+
+    public void recordError(String type) {
+        errorCounters.computeIfAbsent(type, key -> Counter.builder(ERROR_COUNTER)
+                .description("Script and bridge errors")
+                .tag("type", type)
+                .register(registry))
+                .increment();
+    }
+
+    private Timer phaseTimer(String phase) {
+        return Timer.builder(RUN_PHASE_TIMER)
+                .description("Script run time by phase")
+                .tag("phase", phase)
+                .register(registry);
+    }
+
+    /**
+     * Timing state of a single script run.
+     */
+    public final class ScriptRun {
+
+        private final long startNanos = System.nanoTime();
+        private final Observation observation;
+        private long bridgeNanos = 0;
+        private long pauseNanos = 0;
+        private long totalNanos = -1;
+
+        private ScriptRun() {
+            observation = tracingEnabled
+                    ? Observation.createNotStarted(RUN_OBSERVATION, observationRegistry).start()
+                    : Observation.NOOP;
+        }
+
+        /**
+         * Records the execution time of one command, tagged by its type.
+         */
+        public void recordCommand(String type, long nanos) {
+            commandTimers.computeIfAbsent(type, key -> Timer.builder(COMMAND_TIMER)
+                    .description("Execution time per command type")
+                    .tag("type", type)
+                    .register(registry))
+                    .record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Adds time spent deliberately pausing, such as waits and transition
+         * fades.
+         */
+        public void recordPause(long nanos) {
+            pauseNanos += Math.max(0, nanos);
+        }
+
+        public long getBridgeNanos() {
+            return bridgeNanos;
+        }
+
+        public long getPauseNanos() {
+            return pauseNanos;
+        }
+
+        /**
+         * Wall time not spent on the bridge or pausing.
+         */
+        public long getInterpreterNanos() {
+            return Math.max(0, getTotalNanos() - bridgeNanos - pauseNanos);
+        }
+
+        public long getTotalNanos() {
+            return totalNanos >= 0 ? totalNanos : System.nanoTime() - startNanos;
+        }
+
+        /**
+         * Stops the run and records its duration and phase breakdown.
+         *
+         * @param error Failure that ended the run, or null on success
+         */
+        public void finish(Throwable error) {
+            if (totalNanos >= 0) {
+                return;
+            }
+            totalNanos = System.nanoTime() - startNanos;
+            currentRun.remove();
+            activeRuns.decrementAndGet();
+
+            Timer.builder(RUN_TIMER)
+                    .description("Script run duration")
+                    .tag("outcome", error == null ? "success" : "error")
+                    .register(registry)
+                    .record(totalNanos, TimeUnit.NANOSECONDS);
+            phaseTimer("bridge").record(bridgeNanos, TimeUnit.NANOSECONDS);
+            phaseTimer("pause").record(pauseNanos, TimeUnit.NANOSECONDS);
+            phaseTimer("interpreter").record(getInterpreterNanos(), TimeUnit.NANOSECONDS);
+
+            if (error != null) {
+                observation.error(error);
+            }
+            observation.stop();
+        }
+    }
+}
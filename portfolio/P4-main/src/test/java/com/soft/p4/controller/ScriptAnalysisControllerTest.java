@@ -0,0 +1,86 @@
+package com.soft.p4.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soft.p4.hueScriptLanguage.interpreter.HueScriptInterpreter;
+
+/**
+ * Test suite for the script analysis endpoint. Validates that scripts are
+ * analyzed without execution and that parse errors are reported.
+ */
+@WebMvcTest(ScriptAnalysisController.class)
+public class ScriptAnalysisControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private HueScriptInterpreter mockInterpreter;
+
+    @Test
+    public void testAnalyzeScript() throws Exception {
+        Map<String, String> requestBody = new HashMap<>();
+        requestBody.put("scriptContent", "repeat 3 times { lights on; wait 1 sec; }");
+
+        mockMvc.perform(post("/api/script/analyze")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestBody)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.overloaded").value(false))
+                .andExpect(jsonPath("$.analysis.totalBridgeCalls").value(3));
+    }
+
+    @Test
+    public void testAnalyzeOverloadingScript() throws Exception {
+        Map<String, String> requestBody = new HashMap<>();
+        requestBody.put("scriptContent", "repeat 50 times { light \"1\" on; }");
+
+        mockMvc.perform(post("/api/script/analyze")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestBody)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.overloaded").value(true))
+                .andExpect(jsonPath("$.analysis.violations[0].endpoint").value("lights"));
+    }
+
+    @Test
+    public void testAnalyzeInvalidScript() throws Exception {
+        Map<String, String> requestBody = new HashMap<>();
+        requestBody.put("scriptContent", "brightness 101;");
+
+        mockMvc.perform(post("/api/script/analyze")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestBody)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.error").value(containsString("❌")));
+    }
+
+    @Test
+    public void testAnalyzeEmptyScript() throws Exception {
+        Map<String, String> requestBody = new HashMap<>();
+        requestBody.put("scriptContent", "");
+
+        mockMvc.perform(post("/api/script/analyze")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestBody)))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -18,6 +18,7 @@ import com.soft.p4.hueScriptLanguage.ast.command.all.SceneCommand;
 import com.soft.p4.hueScriptLanguage.ast.command.all.TransitionCommand;
 import com.soft.p4.hueScriptLanguage.ast.command.all.WaitCommand;
 import com.soft.p4.hueScriptLanguage.exception.ParserException;
+import com.soft.p4.hueScriptLanguage.optimizer.ScriptPrinter;
 import com.soft.p4.hueScriptLanguage.parser.HueScriptParser;
 
 /**
@@ -112,6 +113,13 @@ public class HueScriptParserTest {
         assertFalse(cmd.isTimeBased(), "Should not be time-based");
     }
 
+    @Test
+    public void testSceneInvocationInsideRepeatIsRejected() {
+        ParserException exception = assertThrows(ParserException.class,
+                () -> parser.parse("define scene pulse { lights on; }\nrepeat 3 times {\n  scene pulse;\n}"));
+        assertEquals("Scene invocation is not allowed inside repeat blocks at line 3", exception.getMessage());
+    }
+
     @Test
     public void testParseTransitionCommand() {
         ScriptNode result = parser.parse("transition \"red\" to \"blue\" over 5 seconds;");
@@ -149,4 +157,33 @@ public class HueScriptParserTest {
         assertTrue(scenes.containsKey("myScene"), "Scene myScene should be defined");
         assertEquals(2, scenes.get("myScene").getCommands().size(), "Scene should have 2 commands");
     }
+
+    @Test
+    public void testStreamingParseMatchesBufferedParse() {
+        String script = "var accent = \"#FF00FF\";\n"
+                + "group \"desk\" = \"1, 2\";\n"
+                + "define scene pulse { lights on; accent; }\n"
+                + "repeat for 2 sec { light \"1\" brightness 40; wait 100 ms; }\n"
+                + "group \"desk\" transition \"red\" to \"blue\" over 1 sec;\n"
+                + "scene pulse;";
+
+        ScriptNode buffered = parser.parse(script);
+        String expected = new ScriptPrinter().print(buffered, parser.getScenes());
+
+        HueScriptParser streamingParser = new HueScriptParser();
+        streamingParser.setStreaming(true);
+        ScriptNode streamed = streamingParser.parse(script);
+
+        assertEquals(expected, new ScriptPrinter().print(streamed, streamingParser.getScenes()),
+                "Streaming mode should build the same AST");
+    }
+
+    @Test
+    public void testStreamingParseReportsErrors() {
+        parser.setStreaming(true);
+
+        ParserException exception = assertThrows(ParserException.class,
+                () -> parser.parse("lights on;\nbrightness 101;"));
+        assertTrue(exception.getMessage().contains("line 2"), "Error should point at line 2");
+    }
 }
@@ -9,6 +9,8 @@ import org.junit.jupiter.api.Test;
 import com.soft.p4.hueScriptLanguage.exception.ParserException;
 import com.soft.p4.hueScriptLanguage.lexer.Lexer;
 import com.soft.p4.hueScriptLanguage.lexer.Token;
+import com.soft.p4.hueScriptLanguage.lexer.TokenBuffer;
+import com.soft.p4.hueScriptLanguage.lexer.TokenStream;
 import com.soft.p4.hueScriptLanguage.lexer.TokenType;
 
 /**
@@ -206,4 +208,57 @@ public class LexerTest {
         assertEquals(2, tokens.get(3).getLineNumber(), "BRIGHTNESS token should be on line 2");
         assertEquals(1, tokens.get(3).getPosition(), "BRIGHTNESS token should be at position 1");
     }
+
+    @Test
+    public void testKeywordsAreCaseInsensitive() {
+        List<Token> tokens = lexer.tokenize("LIGHTS On;");
+
+        assertEquals(TokenType.LIGHTS, tokens.get(0).getType());
+        assertEquals("LIGHTS", tokens.get(0).getValue(), "Value should keep the source spelling");
+        assertEquals(TokenType.ON, tokens.get(1).getType());
+    }
+
+    @Test
+    public void testUnterminatedString() {
+        assertThrows(ParserException.class, () -> lexer.tokenize("lights color \"red;\nlights on;"),
+                "Strings should not span lines");
+    }
+
+    @Test
+    public void testTokenBufferMatchesTokenList() {
+        String script = "var c = \"red\";\n  repeat 2 times { light \"1\" color c; } // done\n\nwait 5 sec;";
+        List<Token> tokens = lexer.tokenize(script);
+        TokenBuffer buffer = lexer.tokenizeToBuffer(script);
+
+        assertEquals(tokens.size(), buffer.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            assertEquals(tokens.get(i).getType(), buffer.getType(i));
+            assertEquals(tokens.get(i).getValue(), buffer.getValue(i));
+            assertEquals(tokens.get(i).getLineNumber(), buffer.getLineNumber(i));
+            assertEquals(tokens.get(i).getPosition(), buffer.getPosition(i));
+        }
+    }
+
+    @Test
+    public void testStreamMatchesTokenList() {
+        String script = "define scene s {\n  lights on;\n}\nscene s;";
+        List<Token> tokens = lexer.tokenize(script);
+        TokenStream stream = lexer.stream(script);
+
+        for (Token expected : tokens) {
+            assertEquals(expected.toString(), stream.next().toString());
+        }
+        assertEquals(TokenType.EOF, stream.next().getType(), "Stream should keep returning EOF");
+    }
+
+    @Test
+    public void testStreamReportsInvalidCharacterWhenReached() {
+        TokenStream stream = lexer.stream("lights on;\nlights @on;");
+
+        assertEquals(TokenType.LIGHTS, stream.next().getType(), "Tokens before the error should be readable");
+        assertEquals(TokenType.ON, stream.next().getType());
+        assertEquals(TokenType.SEMICOLON, stream.next().getType());
+        assertEquals(TokenType.LIGHTS, stream.next().getType());
+        assertThrows(ParserException.class, stream::next);
+    }
 }
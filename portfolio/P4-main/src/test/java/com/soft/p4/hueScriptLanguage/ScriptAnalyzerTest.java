@@ -0,0 +1,139 @@
+package com.soft.p4.hueScriptLanguage;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.soft.p4.hueScriptLanguage.analysis.ScriptAnalysis;
+import com.soft.p4.hueScriptLanguage.analysis.ScriptAnalysis.RateLimitViolation;
+import com.soft.p4.hueScriptLanguage.analysis.ScriptAnalyzer;
+import com.soft.p4.hueScriptLanguage.ast.ScriptNode;
+import com.soft.p4.hueScriptLanguage.ast.command.all.LightCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.RepeatCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.SceneCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.SceneInvocationCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.WaitCommand;
+import com.soft.p4.hueScriptLanguage.parser.HueScriptParser;
+
+/**
+ * Test suite for the static script analyzer. Validates duration estimates,
+ * bridge call counts and rate limit detection without touching the bridge.
+ */
+public class ScriptAnalyzerTest {
+
+    private ScriptAnalysis analyze(String script, long callLatencyMs) {
+        HueScriptParser parser = new HueScriptParser();
+        ScriptNode node = parser.parse(script);
+        ScriptAnalyzer analyzer = new ScriptAnalyzer(parser.getVariables(), parser.getScenes(),
+                parser.getGroups(), callLatencyMs);
+        return analyzer.analyze(node);
+    }
+
+    @Test
+    public void testEmptyScript() {
+        ScriptAnalysis analysis = analyze("", 50);
+
+        assertEquals(0, analysis.getEstimatedDurationMs(), "Empty script should take no time");
+        assertEquals(0, analysis.getTotalBridgeCalls(), "Empty script should make no calls");
+        assertFalse(analysis.isOverloaded(), "Empty script should not be overloaded");
+    }
+
+    @Test
+    public void testCountedRepeatWithWaits() {
+        ScriptAnalysis analysis = analyze("repeat 3 times { lights on; wait 1 sec; }", 0);
+
+        assertEquals(3000, analysis.getEstimatedDurationMs(), "Three one-second waits should take 3s");
+        assertEquals(3, analysis.getTotalBridgeCalls(), "Each iteration should make one call");
+        assertEquals(3, analysis.getGroups().get(ScriptAnalyzer.ALL_LIGHTS_GROUP).getTotalCalls(),
+                "Global commands should be attributed to the all-lights group");
+        assertFalse(analysis.isOverloaded(), "One call per second should stay within limits");
+    }
+
+    @Test
+    public void testLargeRepeatIsExtrapolated() {
+        ScriptAnalysis analysis = analyze("repeat 1000 times { light \"1\" on; wait 500 ms; }", 0);
+
+        assertEquals(500_000, analysis.getEstimatedDurationMs(), "Duration should cover all iterations");
+        assertEquals(1000, analysis.getLights().get("1").getTotalCalls(), "Calls should cover all iterations");
+        assertEquals(2, analysis.getLights().get("1").getPeakCallsPerSecond(),
+                "Two calls should land in each second");
+        assertEquals(2.0, analysis.getLights().get("1").getAverageCallsPerSecond(), 0.001);
+    }
+
+    @Test
+    public void testTimeBasedRepeat() {
+        ScriptAnalysis analysis = analyze("repeat for 10 sec { light \"1\" on; wait 1 sec; }", 0);
+
+        assertEquals(10_000, analysis.getEstimatedDurationMs(), "Loop should run for its time window");
+        assertEquals(10, analysis.getTotalBridgeCalls(), "Loop should run ten iterations");
+    }
+
+    @Test
+    public void testTransitionTiming() {
+        ScriptAnalysis analysis = analyze("transition \"red\" to \"blue\" over 1 sec;", 50);
+
+        assertEquals(1100, analysis.getEstimatedDurationMs(),
+                "Transition should take its duration plus two bridge round trips");
+        assertEquals(2, analysis.getTotalBridgeCalls(), "Transition should set start and target colors");
+        assertTrue(analysis.isOverloaded(), "Two group calls within a second exceed the group limit");
+        assertEquals("groups", analysis.getViolations().get(0).getEndpoint());
+    }
+
+    @Test
+    public void testLightFloodIsFlagged() {
+        ScriptAnalysis analysis = analyze("lights on;\nwait 2 sec;\nrepeat 20 times { light \"1\" on; }", 50);
+
+        List<RateLimitViolation> violations = analysis.getViolations();
+        assertEquals(1, violations.size(), "Only the burst should be flagged");
+
+        RateLimitViolation violation = violations.get(0);
+        assertEquals("lights", violation.getEndpoint());
+        assertEquals(ScriptAnalyzer.LIGHTS_LIMIT_PER_SECOND, violation.getLimitPerSecond());
+        assertTrue(violation.getPeakCallsPerSecond() > ScriptAnalyzer.LIGHTS_LIMIT_PER_SECOND,
+                "Peak should exceed the light limit");
+        assertEquals(2000, violation.getStartMs(), "Violation should start after the wait");
+        assertEquals(3, violation.getFirstLine(), "Violation should point at the repeat block");
+    }
+
+    @Test
+    public void testGroupCommandsExpandPerLight() {
+        ScriptAnalysis analysis = analyze("group \"desk\" = \"1, 2, 3\";\ngroup \"desk\" brightness 50;", 0);
+
+        assertEquals(3, analysis.getTotalBridgeCalls(), "Group command should call each light");
+        assertEquals(3, analysis.getGroups().get("desk").getTotalCalls());
+        assertEquals(1, analysis.getLights().get("2").getTotalCalls());
+    }
+
+    @Test
+    public void testSceneInvocationIsExpanded() {
+        SceneCommand scene = new SceneCommand("pulse",
+                List.of(new LightCommand(LightCommand.Action.ON, 1), new WaitCommand(2, "sec", 1)), 1);
+
+        ScriptNode script = new ScriptNode();
+        script.addCommand(new SceneInvocationCommand("pulse", 2));
+        script.addCommand(new SceneInvocationCommand("pulse", 3));
+        script.addCommand(new SceneInvocationCommand("missing", 4));
+
+        ScriptAnalysis analysis = new ScriptAnalyzer(Map.of(), Map.of("pulse", scene), Map.of(), 0)
+                .analyze(script);
+
+        assertEquals(4000, analysis.getEstimatedDurationMs(), "Both invocations should be counted");
+        assertEquals(2, analysis.getTotalBridgeCalls());
+        assertEquals(1, analysis.getWarnings().size(), "Missing scene should produce a warning");
+    }
+
+    @Test
+    public void testEmptyTimedRepeatWarns() {
+        ScriptNode script = new ScriptNode();
+        script.addCommand(new RepeatCommand(5, "sec", List.of(), 1));
+
+        ScriptAnalysis analysis = new ScriptAnalyzer(Map.of(), Map.of(), Map.of()).analyze(script);
+
+        assertEquals(5000, analysis.getEstimatedDurationMs(), "Loop should still last its full window");
+        assertFalse(analysis.getWarnings().isEmpty(), "Busy loop should be reported");
+    }
+}
@@ -0,0 +1,308 @@
+package com.soft.p4.hueScriptLanguage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.soft.p4.hueScriptLanguage.ast.ScriptNode;
+import com.soft.p4.hueScriptLanguage.ast.command.all.RepeatCommand;
+import com.soft.p4.hueScriptLanguage.ast.command.all.WaitCommand;
+import com.soft.p4.hueScriptLanguage.interpreter.HueScriptInterpreter;
+import com.soft.p4.hueScriptLanguage.optimizer.OptimizedScript;
+import com.soft.p4.hueScriptLanguage.optimizer.ScriptOptimizer;
+import com.soft.p4.hueScriptLanguage.optimizer.ScriptPrinter;
+import com.soft.p4.hueScriptLanguage.parser.HueScriptParser;
+import com.soft.p4.service.LightService;
+
+/**
+ * Test suite for the script optimizer. Runs scripts with and without
+ * optimization against a simulated bridge and checks that the light state seen
+ * at every wait and transition, and at the end, is identical while fewer
+ * bridge calls are made.
+ */
+public class ScriptOptimizerTest {
+
+    private static final List<String> LIGHT_IDS = List.of("1", "2", "3", "4");
+
+    /**
+     * Light service double that keeps per-light state instead of calling the
+     * bridge.
+     */
+    private static class RecordingLightService extends LightService {
+
+        private final Map<String, String> state = new TreeMap<>();
+        private final List<String> snapshots = new ArrayList<>();
+        private int calls = 0;
+
+        RecordingLightService() {
+            super(null);
+        }
+
+        void snapshot() {
+            snapshots.add(state.toString());
+        }
+
+        private void set(String lightId, String attribute, Object value) {
+            state.put(lightId + "." + attribute, String.valueOf(value).toLowerCase());
+        }
+
+        private void setAll(String attribute, Object value) {
+            for (String lightId : LIGHT_IDS) {
+                set(lightId, attribute, value);
+            }
+        }
+
+        @Override
+        public void setLightsState(boolean on) {
+            calls++;
+            setAll("on", on);
+        }
+
+        @Override
+        public void setLightState(String lightId, boolean on) {
+            calls++;
+            set(lightId, "on", on);
+        }
+
+        @Override
+        public void setBrightness(int brightness) {
+            calls++;
+            setAll("bri", brightness);
+        }
+
+        @Override
+        public void setLightBrightness(String lightId, int brightness) {
+            calls++;
+            set(lightId, "bri", brightness);
+        }
+
+        @Override
+        public void setColor(String colorHex) {
+            calls++;
+            setAll("xy", colorHex);
+        }
+
+        @Override
+        public void setLightColor(String lightId, String colorHex) {
+            calls++;
+            set(lightId, "xy", colorHex);
+        }
+
+        @Override
+        public void transitionColor(String fromColorHex, String toColorHex, long durationMs) {
+            calls += 2;
+            setAll("xy", fromColorHex);
+            snapshot();
+            setAll("xy", toColorHex);
+        }
+
+        @Override
+        public void transitionLightColor(String lightId, String fromColorHex, String toColorHex, long durationMs) {
+            calls += 2;
+            set(lightId, "xy", fromColorHex);
+            snapshot();
+            set(lightId, "xy", toColorHex);
+        }
+    }
+
+    private RecordingLightService run(String script, boolean optimize) {
+        RecordingLightService lightService = new RecordingLightService();
+        HueScriptInterpreter interpreter = new HueScriptInterpreter(lightService);
+        interpreter.setOptimizerEnabled(optimize);
+
+        String log = interpreter.executeScriptWithCallback(script, false, message -> {
+            if (message.startsWith("⏱️ Waiting")) {
+                lightService.snapshot();
+            }
+        });
+        assertTrue(log.contains("✅ Script execution completed successfully"), "Script should run: " + log);
+
+        lightService.snapshot();
+        return lightService;
+    }
+
+    /**
+     * Asserts the optimized run is observably identical and returns the
+     * number of bridge calls saved.
+     */
+    private int assertEquivalent(String script) {
+        RecordingLightService original = run(script, false);
+        RecordingLightService optimized = run(script, true);
+
+        assertEquals(original.snapshots, optimized.snapshots, "Observable state should match for:\n" + script);
+        assertTrue(optimized.calls <= original.calls, "Optimization should never add calls for:\n" + script);
+        return original.calls - optimized.calls;
+    }
+
+    private OptimizedScript optimize(String script) {
+        HueScriptParser parser = new HueScriptParser();
+        ScriptNode node = parser.parse(script);
+        return new ScriptOptimizer(parser.getVariables(), parser.getGroups()).optimize(node, parser.getScenes());
+    }
+
+    @Test
+    public void testOverwrittenColorIsRemoved() {
+        int saved = assertEquivalent("lights color \"#FF0000\"; lights color \"#00FF00\"; wait 1 ms; lights color \"#0000FF\";");
+        assertEquals(1, saved, "Color overwritten before the wait should be dropped");
+    }
+
+    @Test
+    public void testRepeatedBrightnessIsRemoved() {
+        int saved = assertEquivalent("brightness 50; brightness 80; wait 1 ms; brightness 80; wait 1 ms;");
+        assertEquals(2, saved, "Dead and redundant brightness writes should be dropped");
+    }
+
+    @Test
+    public void testLightAlreadyOnIsRemoved() {
+        int saved = assertEquivalent("lights on; wait 1 ms; light \"2\" on; wait 1 ms; light \"2\" off;");
+        assertEquals(1, saved, "Turning on a light that is already on should be dropped");
+    }
+
+    @Test
+    public void testPerLightWriteSurvivesGlobalWrite() {
+        assertEquivalent("light \"1\" color \"#FF0000\"; lights color \"#00FF00\"; light \"2\" color \"#0000FF\"; wait 1 ms;");
+    }
+
+    @Test
+    public void testWritesAcrossWaitsAreKept() {
+        int saved = assertEquivalent("lights on; wait 1 ms; lights off; wait 1 ms; lights on;");
+        assertEquals(0, saved, "Every write is observed by a wait");
+    }
+
+    @Test
+    public void testEmptyRepeatIsRemoved() {
+        OptimizedScript optimized = optimize("repeat 5 times { } lights on;");
+        assertEquals(1, optimized.getScript().getCommands().size(), "Empty repeat should be dropped");
+    }
+
+    @Test
+    public void testEmptyTimedRepeatBecomesWait() {
+        OptimizedScript optimized = optimize("repeat for 2 sec { }");
+        assertTrue(optimized.getScript().getCommands().get(0) instanceof WaitCommand,
+                "Empty time-based repeat should become a wait");
+        assertEquals(2000, ((WaitCommand) optimized.getScript().getCommands().get(0)).getDurationInMillis());
+    }
+
+    @Test
+    public void testWriteOnlyRepeatRunsOnce() {
+        int saved = assertEquivalent("repeat 20 times { lights on; light \"1\" off; }");
+        assertEquals(38, saved, "Repeating writes without a pause should collapse to one iteration");
+    }
+
+    @Test
+    public void testSmallRepeatIsUnrolled() {
+        OptimizedScript optimized = optimize("repeat 3 times { lights on; wait 1 ms; lights off; wait 1 ms; }");
+        assertTrue(optimized.getScript().getCommands().stream().noneMatch(c -> c instanceof RepeatCommand),
+                "Small fixed repeat should be unrolled");
+        assertEquivalent("repeat 3 times { lights on; wait 1 ms; lights off; wait 1 ms; }");
+    }
+
+    @Test
+    public void testLargeRepeatIsKept() {
+        OptimizedScript optimized = optimize("repeat 50 times { lights on; wait 1 ms; lights off; wait 1 ms; }");
+        assertTrue(optimized.getScript().getCommands().get(0) instanceof RepeatCommand,
+                "Large repeat should stay a loop");
+    }
+
+    @Test
+    public void testGroupWritesAreTracked() {
+        int saved = assertEquivalent("group \"desk\" = \"1, 2\";\n"
+                + "light \"1\" brightness 10; light \"2\" brightness 20; group \"desk\" brightness 30; wait 1 ms;\n"
+                + "group \"desk\" brightness 30; light \"3\" brightness 30;");
+        assertEquals(4, saved, "Per-light writes covered by the group and the repeated group write should be dropped");
+    }
+
+    @Test
+    public void testVariablesAreFolded() {
+        int saved = assertEquivalent("var accent = \"#FF00FF\";\naccent; lights color \"#00FF00\"; wait 1 ms; accent;");
+        assertEquals(1, saved, "Folded variable write overwritten before the wait should be dropped");
+    }
+
+    @Test
+    public void testPrintedScriptParses() {
+        String script = "group \"desk\" = \"1, 2\";\n"
+                + "repeat 40 times { light \"1\" on; wait 1 ms; group \"desk\" color \"#FF0000\"; }\n"
+                + "transition \"#FF0000\" to \"#0000FF\" over 1 sec;\n"
+                + "repeat for 1 sec { brightness 40; wait 10 ms; }";
+        String printed = new ScriptPrinter().print(optimize(script).getScript(), Map.of());
+
+        ScriptNode reparsed = new HueScriptParser().parse(printed);
+        assertEquals(optimize(script).getScript().getCommands().size(), reparsed.getCommands().size(),
+                "Printed script should parse back to the same shape:\n" + printed);
+    }
+
+    @Test
+    public void testDebugPrintsOptimizedScript() {
+        HueScriptInterpreter interpreter = new HueScriptInterpreter(new RecordingLightService());
+        interpreter.setOptimizerEnabled(true);
+        interpreter.setOptimizerDebug(true);
+
+        String log = interpreter.executeScript("lights on; lights on; brightness 10;", false);
+
+        assertTrue(log.contains("Optimized script (3 → 2 commands)"), "Debug log should report the reduction");
+        assertTrue(log.contains("lights on;\nbrightness 10;"), "Debug log should contain the optimized script");
+    }
+
+    @Test
+    public void testRandomScriptsAreEquivalent() {
+        Random random = new Random(20240611L);
+        int totalSaved = 0;
+
+        for (int i = 0; i < 200; i++) {
+            StringBuilder script = new StringBuilder("group \"g\" = \"1, 2\";\n");
+            int length = 3 + random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                if (random.nextInt(6) == 0) {
+                    script.append("repeat ").append(2 + random.nextInt(6)).append(" times { ");
+                    int bodyLength = 1 + random.nextInt(3);
+                    for (int k = 0; k < bodyLength; k++) {
+                        script.append(randomCommand(random)).append(' ');
+                    }
+                    script.append("}\n");
+                } else {
+                    script.append(randomCommand(random)).append('\n');
+                }
+            }
+            totalSaved += assertEquivalent(script.toString());
+        }
+
+        assertTrue(totalSaved > 0, "Random scripts should contain removable commands");
+    }
+
+    private String randomCommand(Random random) {
+        String light = "\"" + LIGHT_IDS.get(random.nextInt(LIGHT_IDS.size())) + "\"";
+        String color = List.of("\"#FF0000\"", "\"#00FF00\"", "\"#0000FF\"").get(random.nextInt(3));
+        int level = random.nextBoolean() ? 20 : 80;
+
+        switch (random.nextInt(12)) {
+            case 0:
+                return random.nextBoolean() ? "lights on;" : "lights off;";
+            case 1:
+                return "light " + light + (random.nextBoolean() ? " on;" : " off;");
+            case 2:
+                return "brightness " + level + ";";
+            case 3:
+                return "light " + light + " brightness " + level + ";";
+            case 4:
+                return "lights color " + color + ";";
+            case 5:
+                return "light " + light + " color " + color + ";";
+            case 6:
+                return "group \"g\"" + (random.nextBoolean() ? " on;" : " off;");
+            case 7:
+                return "group \"g\" brightness " + level + ";";
+            case 8:
+                return "group \"g\" color " + color + ";";
+            case 9:
+                return "transition \"#FF0000\" to " + color + " over 1 ms;";
+            default:
+                return "wait 1 ms;";
+        }
+    }
+}
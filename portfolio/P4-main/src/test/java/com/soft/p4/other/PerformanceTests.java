@@ -66,6 +66,44 @@ public class PerformanceTests {
         // @Timeout annotation will fail test if it takes too long
     }
 
+    /**
+     * Measures parser throughput on a large script that exercises every
+     * statement table: top-level declarations plus repeat and scene bodies
+     */
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testParserThroughput() {
+        StringBuilder largeScript = new StringBuilder();
+        largeScript.append("var accent = \"#FF00FF\";\n");
+        largeScript.append("group \"desk\" = \"1, 2\";\n");
+        largeScript.append("define scene pulse {\n  lights on;\n  brightness 50;\n  accent;\n}\n");
+
+        for (int i = 0; i < 1000; i++) {
+            largeScript.append("brightness ").append(i % 100).append(";\n");
+            largeScript.append("light \"").append(i % 4 + 1).append("\" color \"#00FF00\";\n");
+            largeScript.append("repeat 3 times { lights on; wait 1 ms; group \"desk\" brightness 20; accent; }\n");
+            largeScript.append("transition \"red\" to \"blue\" over 1 sec;\n");
+            largeScript.append("scene pulse;\n");
+        }
+        String script = largeScript.toString();
+
+        // Warm up before measuring
+        for (int i = 0; i < 20; i++) {
+            parser.parse(script);
+        }
+
+        int runs = 50;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            parser.parse(script);
+        }
+        double elapsedMs = (System.nanoTime() - startTime) / 1_000_000.0 / runs;
+
+        System.out.printf("Parsed 5000-statement script in %.2fms (%.0f statements/s)%n",
+                elapsedMs, 5000 / (elapsedMs / 1000));
+        // @Timeout annotation will fail test if it takes too long
+    }
+
     /**
      * Test deeply nested repeat blocks work correctly
      */
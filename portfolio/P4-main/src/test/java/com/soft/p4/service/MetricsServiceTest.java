@@ -0,0 +1,126 @@
+package com.soft.p4.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+
+import com.soft.p4.hueScriptLanguage.interpreter.HueScriptInterpreter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Test suite for MetricsService. Validates bridge, command and run meters and
+ * the split of run time into bridge, pause and interpreter phases.
+ */
+public class MetricsServiceTest {
+
+    private MeterRegistry registry;
+    private MetricsService metricsService;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        metricsService = new MetricsService(registry, ObservationRegistry.NOOP);
+    }
+
+    @Test
+    public void testBridgeRequestRecordedByEndpoint() {
+        metricsService.recordBridgeRequest("lights/{id}/state", TimeUnit.MILLISECONDS.toNanos(40), true);
+        metricsService.recordBridgeRequest("lights/{id}/state", TimeUnit.MILLISECONDS.toNanos(60), true);
+
+        assertEquals(2, registry.get(MetricsService.BRIDGE_TIMER)
+                .tag("endpoint", "lights/{id}/state").tag("outcome", "success").timer().count());
+        assertEquals(100.0, registry.get(MetricsService.BRIDGE_TIMER)
+                .tag("endpoint", "lights/{id}/state").timer().totalTime(TimeUnit.MILLISECONDS), 0.001);
+    }
+
+    @Test
+    public void testFailedBridgeRequestCountsError() {
+        metricsService.recordBridgeRequest("groups/0/action", 1000, false);
+
+        assertEquals(1, registry.get(MetricsService.BRIDGE_TIMER)
+                .tag("endpoint", "groups/0/action").tag("outcome", "error").timer().count());
+        assertEquals(1.0, registry.get(MetricsService.ERROR_COUNTER)
+                .tag("type", MetricsService.BRIDGE_ERROR).counter().count(), 0.001);
+    }
+
+    @Test
+    public void testRunAttributesBridgeAndPauseTime() {
+        MetricsService.ScriptRun run = metricsService.startRun();
+        assertEquals(1.0, registry.get(MetricsService.ACTIVE_RUNS_GAUGE).gauge().value(), 0.001);
+
+        metricsService.recordBridgeRequest("config", TimeUnit.MILLISECONDS.toNanos(5), true);
+        run.recordPause(TimeUnit.MILLISECONDS.toNanos(10));
+        run.recordCommand("WaitCommand", TimeUnit.MILLISECONDS.toNanos(10));
+        run.finish(null);
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), run.getBridgeNanos());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), run.getPauseNanos());
+        assertEquals(0.0, registry.get(MetricsService.ACTIVE_RUNS_GAUGE).gauge().value(), 0.001);
+        assertEquals(1, registry.get(MetricsService.RUN_TIMER).tag("outcome", "success").timer().count());
+        assertEquals(1, registry.get(MetricsService.COMMAND_TIMER).tag("type", "WaitCommand").timer().count());
+        assertEquals(5.0, registry.get(MetricsService.RUN_PHASE_TIMER)
+                .tag("phase", "bridge").timer().totalTime(TimeUnit.MILLISECONDS), 0.001);
+    }
+
+    @Test
+    public void testBridgeRequestOutsideRunIsNotAttributed() {
+        MetricsService.ScriptRun run = metricsService.startRun();
+        run.finish(null);
+        metricsService.recordBridgeRequest("lights", 1000, true);
+
+        assertEquals(0, run.getBridgeNanos());
+    }
+
+    @Test
+    public void testQueueAndSessionGauges() {
+        Map<String, Object> sessions = new ConcurrentHashMap<>();
+        metricsService.registerSessions(sessions);
+        sessions.put("script_1", new Object());
+
+        metricsService.runQueued();
+        metricsService.runQueued();
+        metricsService.runDequeued();
+
+        assertEquals(1.0, registry.get(MetricsService.QUEUED_RUNS_GAUGE).gauge().value(), 0.001);
+        assertEquals(1.0, registry.get(MetricsService.SESSIONS_GAUGE).gauge().value(), 0.001);
+    }
+
+    @Test
+    public void testInterpreterRecordsWaitsAsPauseTime() {
+        HueScriptInterpreter interpreter = new HueScriptInterpreter(mock(LightService.class));
+        interpreter.setMetricsService(metricsService);
+
+        String result = interpreter.executeScript("wait 20 ms;\nwait 20 ms;", false);
+
+        assertTrue(result.contains("📊 Run time:"), "Run time summary should be logged: " + result);
+        assertEquals(2, registry.get(MetricsService.COMMAND_TIMER).tag("type", "WaitCommand").timer().count());
+        assertTrue(registry.get(MetricsService.RUN_PHASE_TIMER).tag("phase", "pause").timer()
+                .totalTime(TimeUnit.MILLISECONDS) >= 40, "Waits should count as pause time");
+        assertEquals(1, registry.get(MetricsService.RUN_TIMER).tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    public void testInterpreterCountsParseErrors() {
+        HueScriptInterpreter interpreter = new HueScriptInterpreter(mock(LightService.class));
+        interpreter.setMetricsService(metricsService);
+
+        try {
+            interpreter.executeScript("lights purple;", false);
+        } catch (RuntimeException expected) {
+            // Parser errors are re-thrown to the caller
+        }
+
+        assertEquals(1.0, registry.get(MetricsService.ERROR_COUNTER)
+                .tag("type", MetricsService.PARSE_ERROR).counter().count(), 0.001);
+        assertEquals(1, registry.get(MetricsService.RUN_TIMER).tag("outcome", "error").timer().count());
+    }
+}